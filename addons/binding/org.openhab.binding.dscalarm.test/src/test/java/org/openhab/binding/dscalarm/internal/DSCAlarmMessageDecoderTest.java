@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.dscalarm.internal;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.dscalarm.internal.DSCAlarmMessage.DSCAlarmMessageInfoType;
+import org.openhab.binding.dscalarm.internal.DSCAlarmMessage.DSCAlarmMessageType;
+
+/**
+ * Tests cases for {@link DSCAlarmMessageDecoder}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DSCAlarmMessageDecoderTest {
+
+    private DSCAlarmMessageDecoder decoder;
+
+    @Before
+    public void setUp() {
+        decoder = new DSCAlarmMessageDecoder();
+    }
+
+    /**
+     * Returns the two digit hex checksum of a message payload, as sent by the panel.
+     */
+    private static String checksum(String payload) {
+        int sum = 0;
+        for (byte b : payload.getBytes(StandardCharsets.US_ASCII)) {
+            sum += b & 0xFF;
+        }
+        return String.format("%02X", sum & 0xFF);
+    }
+
+    private List<DSCAlarmMessage> decode(String received) {
+        List<DSCAlarmMessage> messages = new ArrayList<>();
+        for (byte b : received.getBytes(StandardCharsets.US_ASCII)) {
+            DSCAlarmMessage message = decoder.decode(b);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    private DSCAlarmMessage decodeSingle(String received) {
+        List<DSCAlarmMessage> messages = decode(received);
+        assertEquals(1, messages.size());
+        return messages.get(0);
+    }
+
+    @Test
+    public void validFrame() {
+        DSCAlarmMessage message = decodeSingle("609003" + checksum("609003") + "\r\n");
+
+        assertEquals(DSCAlarmCode.ZoneOpen, message.getDSCAlarmCode());
+        assertEquals(DSCAlarmMessageType.ZONE_EVENT, message.getDSCAlarmMessageType());
+        assertEquals("609", message.getMessageInfo(DSCAlarmMessageInfoType.CODE));
+        assertEquals("003", message.getMessageInfo(DSCAlarmMessageInfoType.DATA));
+        assertEquals("003", message.getMessageInfo(DSCAlarmMessageInfoType.ZONE));
+        assertEquals("", message.getMessageInfo(DSCAlarmMessageInfoType.TIME_STAMP));
+    }
+
+    @Test
+    public void badChecksumIsDiscarded() {
+        String payload = "6501";
+        String checksum = checksum(payload);
+        String bad = checksum.equals("00") ? "01" : "00";
+
+        assertTrue(decode(payload + bad + "\r\n").isEmpty());
+
+        // the decoder continues with the next message
+        DSCAlarmMessage message = decodeSingle(payload + checksum + "\r\n");
+        assertEquals(DSCAlarmCode.PartitionReady, message.getDSCAlarmCode());
+        assertEquals("1", message.getMessageInfo(DSCAlarmMessageInfoType.PARTITION));
+    }
+
+    @Test
+    public void nonHexChecksumIsDiscarded() {
+        assertTrue(decode("6501ZZ\r\n").isEmpty());
+    }
+
+    @Test
+    public void lowercaseHexChecksumIsAccepted() {
+        // 6 + 5 + 0 + 1 = 0x36 + 0x35 + 0x30 + 0x31 = 0xCC
+        assertEquals("CC", checksum("6501"));
+
+        DSCAlarmMessage message = decodeSingle("6501cc\r\n");
+        assertEquals(DSCAlarmCode.PartitionReady, message.getDSCAlarmCode());
+    }
+
+    @Test
+    public void timeStampPrefix() {
+        DSCAlarmMessage message = decodeSingle("12:34:56 609012" + checksum("609012") + "\r\n");
+
+        assertEquals(DSCAlarmCode.ZoneOpen, message.getDSCAlarmCode());
+        assertEquals("12:34:56", message.getMessageInfo(DSCAlarmMessageInfoType.TIME_STAMP));
+        assertEquals("012", message.getMessageInfo(DSCAlarmMessageInfoType.ZONE));
+    }
+
+    @Test
+    public void timeStampPrefixIsNotPartOfChecksum() {
+        // a checksum over the time stamp and the payload is invalid
+        assertTrue(decode("12:34:56 609012" + checksum("12:34:56 609012") + "\r\n").isEmpty());
+    }
+
+    @Test
+    public void lineEndingSplitAcrossReads() {
+        String frame = "610003" + checksum("610003");
+
+        assertTrue(decode(frame.substring(0, 4)).isEmpty());
+        assertEquals(1, decode(frame.substring(4) + "\r").size());
+        assertTrue(decode("\n").isEmpty());
+
+        // a following message after the split line ending is decoded as well
+        DSCAlarmMessage message = decodeSingle("609003" + checksum("609003") + "\r\n");
+        assertEquals(DSCAlarmCode.ZoneOpen, message.getDSCAlarmCode());
+    }
+
+    @Test
+    public void emptyLinesAreIgnored() {
+        assertTrue(decode("\r\n\r\n\n").isEmpty());
+    }
+
+    @Test
+    public void tooShortLine() {
+        DSCAlarmMessage message = decodeSingle("50\r\n");
+        assertEquals(DSCAlarmCode.UnknownCode, message.getDSCAlarmCode());
+
+        message = decodeSingle("5001\r\n");
+        assertEquals(DSCAlarmCode.UnknownCode, message.getDSCAlarmCode());
+    }
+
+    @Test
+    public void overflowIsDiscardedAndDecoderRecovers() {
+        StringBuilder line = new StringBuilder("609");
+        while (line.length() < 600) {
+            line.append('0');
+        }
+        line.append(checksum(line.toString()));
+        assertTrue(decode(line + "\r\n").isEmpty());
+
+        DSCAlarmMessage message = decodeSingle("609003" + checksum("609003") + "\r\n");
+        assertEquals(DSCAlarmCode.ZoneOpen, message.getDSCAlarmCode());
+        assertEquals("003", message.getMessageInfo(DSCAlarmMessageInfoType.ZONE));
+    }
+
+    @Test
+    public void resetDiscardsPartialMessage() {
+        assertTrue(decode("6090").isEmpty());
+        decoder.reset();
+
+        DSCAlarmMessage message = decodeSingle("609003" + checksum("609003") + "\r\n");
+        assertEquals("003", message.getMessageInfo(DSCAlarmMessageInfoType.ZONE));
+    }
+
+    @Test
+    public void unknownCode() {
+        DSCAlarmMessage message = decodeSingle("999123" + checksum("999123") + "\r\n");
+
+        assertEquals(DSCAlarmCode.UnknownCode, message.getDSCAlarmCode());
+        assertEquals("999", message.getMessageInfo(DSCAlarmMessageInfoType.CODE));
+        assertEquals("123", message.getMessageInfo(DSCAlarmMessageInfoType.DATA));
+    }
+
+    @Test
+    public void nonNumericCodeIsUnknown() {
+        DSCAlarmMessage message = decodeSingle("6A9003" + checksum("6A9003") + "\r\n");
+
+        assertEquals(DSCAlarmCode.UnknownCode, message.getDSCAlarmCode());
+        assertEquals("6A9", message.getMessageInfo(DSCAlarmMessageInfoType.CODE));
+    }
+}
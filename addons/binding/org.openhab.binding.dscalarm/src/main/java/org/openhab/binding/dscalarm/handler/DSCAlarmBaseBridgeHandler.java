@@ -14,6 +14,8 @@ import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -25,6 +27,7 @@ import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
+import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
 import org.openhab.binding.dscalarm.internal.DSCAlarmCode;
@@ -32,6 +35,7 @@ import org.openhab.binding.dscalarm.internal.DSCAlarmEvent;
 import org.openhab.binding.dscalarm.internal.DSCAlarmMessage;
 import org.openhab.binding.dscalarm.internal.DSCAlarmMessage.DSCAlarmMessageInfoType;
 import org.openhab.binding.dscalarm.internal.DSCAlarmMessage.DSCAlarmMessageType;
+import org.openhab.binding.dscalarm.internal.DSCAlarmMessageDecoder;
 import org.openhab.binding.dscalarm.internal.config.DSCAlarmPartitionConfiguration;
 import org.openhab.binding.dscalarm.internal.config.DSCAlarmZoneConfiguration;
 import org.openhab.binding.dscalarm.internal.discovery.DSCAlarmDiscoveryService;
@@ -57,7 +61,13 @@ public abstract class DSCAlarmBaseBridgeHandler extends BaseBridgeHandler {
     private DSCAlarmDiscoveryService dscAlarmDiscoveryService = null;
 
     /** The Panel Thing handler for the bridge. */
-    private DSCAlarmBaseThingHandler panelThingHandler = null;
+    private volatile DSCAlarmBaseThingHandler panelThingHandler = null;
+
+    /** Index of the child thing handlers by thing type, partition and zone number. */
+    private final Map<Integer, DSCAlarmBaseThingHandler> thingHandlerIndex = new ConcurrentHashMap<>();
+
+    /** Decoder for the bytes received from the DSC Alarm. */
+    private final DSCAlarmMessageDecoder messageDecoder = new DSCAlarmMessageDecoder();
 
     /** Connection status for the bridge. */
     private boolean connected = false;
@@ -163,6 +173,7 @@ public abstract class DSCAlarmBaseBridgeHandler extends BaseBridgeHandler {
      */
     private void connect() {
 
+        messageDecoder.reset();
         openConnection();
 
         if (isConnected()) {
@@ -243,8 +254,11 @@ public abstract class DSCAlarmBaseBridgeHandler extends BaseBridgeHandler {
 
     /**
      * Method for reading from an open DSC Alarm connection.
+     *
+     * @param readBuffer
+     * @return the number of bytes read, or -1 if the connection is closed
      */
-    public abstract String read();
+    public abstract int read(byte[] readBuffer);
 
     /**
      * Get Bridge Password.
@@ -381,6 +395,109 @@ public abstract class DSCAlarmBaseBridgeHandler extends BaseBridgeHandler {
 
     }
 
+    @Override
+    public void childHandlerInitialized(ThingHandler childHandler, Thing childThing) {
+        if (childHandler instanceof DSCAlarmBaseThingHandler) {
+            registerThingHandler((DSCAlarmBaseThingHandler) childHandler);
+        }
+    }
+
+    @Override
+    public void childHandlerDisposed(ThingHandler childHandler, Thing childThing) {
+        if (childHandler instanceof DSCAlarmBaseThingHandler) {
+            unregisterThingHandler((DSCAlarmBaseThingHandler) childHandler);
+        }
+    }
+
+    /**
+     * Adds a thing handler to the thing handler index.
+     *
+     * @param handler
+     */
+    public void registerThingHandler(DSCAlarmBaseThingHandler handler) {
+        DSCAlarmThingType handlerDSCAlarmThingType = handler.getDSCAlarmThingType();
+
+        if (handlerDSCAlarmThingType != null) {
+            thingHandlerIndex.put(
+                    thingHandlerKey(handlerDSCAlarmThingType, handler.getPartitionNumber(), handler.getZoneNumber()),
+                    handler);
+
+            if (handlerDSCAlarmThingType.equals(DSCAlarmThingType.PANEL)) {
+                panelThingHandler = handler;
+            }
+
+            logger.debug("registerThingHandler(): Thing Handler Registered - {}", handler.getThing().getUID());
+        }
+    }
+
+    /**
+     * Removes a thing handler from the thing handler index.
+     *
+     * @param handler
+     */
+    public void unregisterThingHandler(DSCAlarmBaseThingHandler handler) {
+        DSCAlarmThingType handlerDSCAlarmThingType = handler.getDSCAlarmThingType();
+
+        if (handlerDSCAlarmThingType != null) {
+            thingHandlerIndex.remove(
+                    thingHandlerKey(handlerDSCAlarmThingType, handler.getPartitionNumber(), handler.getZoneNumber()),
+                    handler);
+
+            if (panelThingHandler == handler) {
+                panelThingHandler = null;
+            }
+
+            logger.debug("unregisterThingHandler(): Thing Handler Unregistered - {}", handler.getThing().getUID());
+        }
+    }
+
+    /**
+     * Builds the thing handler index key. Panel and keypad things are unique per bridge, partitions are identified by
+     * their partition number and zones by their zone number.
+     *
+     * @param dscAlarmThingType
+     * @param partitionId
+     * @param zoneId
+     * @return key
+     */
+    private static int thingHandlerKey(DSCAlarmThingType dscAlarmThingType, int partitionId, int zoneId) {
+        switch (dscAlarmThingType) {
+            case PARTITION:
+                return (dscAlarmThingType.ordinal() << 16) | (partitionId & 0xFFFF);
+            case ZONE:
+                return (dscAlarmThingType.ordinal() << 16) | (zoneId & 0xFFFF);
+            case PANEL:
+            case KEYPAD:
+            default:
+                return dscAlarmThingType.ordinal() << 16;
+        }
+    }
+
+    /**
+     * Find a Thing Handler. Looks up the thing handler index first and falls back to searching the bridge things.
+     *
+     * @param dscAlarmThingType
+     * @param partitionId
+     * @param zoneId
+     * @return thing handler
+     */
+    public DSCAlarmBaseThingHandler findThingHandler(DSCAlarmThingType dscAlarmThingType, int partitionId,
+            int zoneId) {
+        DSCAlarmBaseThingHandler handler = thingHandlerIndex
+                .get(thingHandlerKey(dscAlarmThingType, partitionId, zoneId));
+
+        if (handler == null) {
+            Thing thing = findThing(dscAlarmThingType, partitionId, zoneId);
+
+            if (thing != null && thing.getHandler() instanceof DSCAlarmBaseThingHandler) {
+                handler = (DSCAlarmBaseThingHandler) thing.getHandler();
+                registerThingHandler(handler);
+            }
+        }
+
+        return handler;
+    }
+
     /**
      * Find a Thing.
      *
@@ -447,18 +564,49 @@ public abstract class DSCAlarmBaseBridgeHandler extends BaseBridgeHandler {
         return thing;
     }
 
+    /**
+     * Handles incoming data from the DSC Alarm System.
+     *
+     * @param incomingData
+     * @param length
+     */
+    public void handleIncomingData(byte[] incomingData, int length) {
+        for (int i = 0; i < length; i++) {
+            DSCAlarmMessage dscAlarmMessage = messageDecoder.decode(incomingData[i]);
+
+            if (dscAlarmMessage != null) {
+                try {
+                    handleIncomingMessage(dscAlarmMessage);
+                } catch (Exception e) {
+                    logger.error("handleIncomingData(): Message not handled by bridge: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
     /**
      * Handles an incoming message from the DSC Alarm System.
      *
      * @param incomingMessage
      */
-    public synchronized void handleIncomingMessage(String incomingMessage) {
+    public void handleIncomingMessage(String incomingMessage) {
         if (incomingMessage != null && !incomingMessage.isEmpty()) {
-            DSCAlarmMessage dscAlarmMessage = new DSCAlarmMessage(incomingMessage);
+            handleIncomingMessage(new DSCAlarmMessage(incomingMessage));
+        } else {
+            logger.debug("handleIncomingMessage(): No Message Received!");
+        }
+    }
+
+    /**
+     * Handles a decoded message from the DSC Alarm System.
+     *
+     * @param dscAlarmMessage
+     */
+    public void handleIncomingMessage(DSCAlarmMessage dscAlarmMessage) {
+        if (dscAlarmMessage != null) {
             DSCAlarmMessageType dscAlarmMessageType = dscAlarmMessage.getDSCAlarmMessageType();
 
-            logger.debug("handleIncomingMessage(): Message received: {} - {}", incomingMessage,
-                    dscAlarmMessage.toString());
+            logger.debug("handleIncomingMessage(): Message received: {}", dscAlarmMessage);
 
             DSCAlarmEvent event = new DSCAlarmEvent(this);
             event.dscAlarmEventMessage(dscAlarmMessage);
@@ -466,11 +614,12 @@ public abstract class DSCAlarmBaseBridgeHandler extends BaseBridgeHandler {
             int partitionId = 0;
             int zoneId = 0;
 
-            DSCAlarmCode dscAlarmCode = DSCAlarmCode
-                    .getDSCAlarmCodeValue(dscAlarmMessage.getMessageInfo(DSCAlarmMessageInfoType.CODE));
+            DSCAlarmCode dscAlarmCode = dscAlarmMessage.getDSCAlarmCode();
+
+            DSCAlarmBaseThingHandler panelHandler = panelThingHandler;
 
-            if (panelThingHandler != null) {
-                panelThingHandler.setPanelMessage(dscAlarmMessage);
+            if (panelHandler != null) {
+                panelHandler.setPanelMessage(dscAlarmMessage);
             }
 
             if (dscAlarmCode == DSCAlarmCode.LoginResponse) {
@@ -511,20 +660,17 @@ public abstract class DSCAlarmBaseBridgeHandler extends BaseBridgeHandler {
 
             if (dscAlarmThingType != null) {
 
-                Thing thing = findThing(dscAlarmThingType, partitionId, zoneId);
+                DSCAlarmBaseThingHandler thingHandler = findThingHandler(dscAlarmThingType, partitionId, zoneId);
 
-                logger.debug("handleIncomingMessage(): Thing Search - '{}'", thing);
+                logger.debug("handleIncomingMessage(): Thing Handler Search - '{}'", thingHandler);
 
-                if (thing != null) {
-                    DSCAlarmBaseThingHandler thingHandler = (DSCAlarmBaseThingHandler) thing.getHandler();
+                if (thingHandler != null) {
+                    Thing thing = thingHandler.getThing();
 
-                    if (thingHandler != null) {
-                        if (thingHandler.isThingHandlerInitialized()) {
-                            thingHandler.dscAlarmEventReceived(event, thing);
-
-                        } else {
-                            logger.debug("handleIncomingMessage(): Thing '{}' Not Refreshed!", thing.getUID());
-                        }
+                    if (thingHandler.isThingHandlerInitialized()) {
+                        thingHandler.dscAlarmEventReceived(event, thing);
+                    } else {
+                        logger.debug("handleIncomingMessage(): Thing '{}' Not Refreshed!", thing.getUID());
                     }
                 } else {
                     logger.debug("handleIncomingMessage(): Thing Not Found! Send to Discovery Service!");
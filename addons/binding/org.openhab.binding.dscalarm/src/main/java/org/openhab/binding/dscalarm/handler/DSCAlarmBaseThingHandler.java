@@ -48,7 +48,7 @@ public abstract class DSCAlarmBaseThingHandler extends BaseThingHandler {
 
     /** DSC Alarm Properties. */
 
-    private boolean thingHandlerInitialized = false;
+    private volatile boolean thingHandlerInitialized = false;
 
     /** User Code for some DSC Alarm commands. */
     private String userCode = null;
@@ -371,8 +371,7 @@ public abstract class DSCAlarmBaseThingHandler extends BaseThingHandler {
     public void setPanelMessage(DSCAlarmMessage dscAlarmMessage) {
         ChannelUID channelUID = new ChannelUID(getThing().getUID(), PANEL_MESSAGE);
         String message = dscAlarmMessage.getMessageInfo(DSCAlarmMessageInfoType.DESCRIPTION);
-        DSCAlarmCode dscAlarmCode = DSCAlarmCode
-                .getDSCAlarmCodeValue(dscAlarmMessage.getMessageInfo(DSCAlarmMessageInfoType.CODE));
+        DSCAlarmCode dscAlarmCode = dscAlarmMessage.getDSCAlarmCode();
 
         if ((dscAlarmCode == DSCAlarmCode.CommandAcknowledge || dscAlarmCode == DSCAlarmCode.TimeDateBroadcast)
                 && getSuppressAcknowledgementMsgs()) {
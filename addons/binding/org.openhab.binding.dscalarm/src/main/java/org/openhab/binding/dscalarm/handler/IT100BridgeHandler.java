@@ -8,9 +8,8 @@
  */
 package org.openhab.binding.dscalarm.handler;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.TooManyListenersException;
@@ -54,7 +53,10 @@ public class IT100BridgeHandler extends DSCAlarmBaseBridgeHandler implements Ser
     private int baudRate;
     private SerialPort serialPort = null;
     private OutputStreamWriter serialOutput = null;
-    private BufferedReader serialInput = null;
+    private InputStream serialInput = null;
+
+    /** Buffer for reading from the serial port. */
+    private final byte[] serialReadBuffer = new byte[1024];
 
     @Override
     public void initialize() {
@@ -108,7 +110,7 @@ public class IT100BridgeHandler extends DSCAlarmBaseBridgeHandler implements Ser
             serialPort.disableReceiveTimeout();
 
             serialOutput = new OutputStreamWriter(serialPort.getOutputStream(), "US-ASCII");
-            serialInput = new BufferedReader(new InputStreamReader(serialPort.getInputStream()));
+            serialInput = serialPort.getInputStream();
 
             setSerialEventHandler(this);
 
@@ -150,12 +152,12 @@ public class IT100BridgeHandler extends DSCAlarmBaseBridgeHandler implements Ser
     }
 
     @Override
-    public String read() {
-        String message = "";
+    public int read(byte[] readBuffer) {
+        int bytesRead = -1;
 
         try {
-            message = readLine();
-            logger.debug("read(): Message Received: {}", message);
+            bytesRead = serialInput.read(readBuffer);
+            logger.trace("read(): {} Bytes Received", bytesRead);
         } catch (IOException ioException) {
             logger.error("read(): IO Exception: {} ", ioException.getMessage());
             setConnected(false);
@@ -164,18 +166,7 @@ public class IT100BridgeHandler extends DSCAlarmBaseBridgeHandler implements Ser
             setConnected(false);
         }
 
-        return message;
-
-    }
-
-    /**
-     * Read a line from the Input Stream.
-     *
-     * @return
-     * @throws IOException
-     */
-    private String readLine() throws IOException {
-        return serialInput.readLine();
+        return bytesRead;
     }
 
     @Override
@@ -221,11 +212,16 @@ public class IT100BridgeHandler extends DSCAlarmBaseBridgeHandler implements Ser
      * @param serialPortEvent
      */
     @Override
-    public synchronized void serialEvent(SerialPortEvent serialPortEvent) {
+    public void serialEvent(SerialPortEvent serialPortEvent) {
         if (serialPortEvent.getEventType() == SerialPortEvent.DATA_AVAILABLE) {
             try {
-                String messageLine = serialInput.readLine();
-                handleIncomingMessage(messageLine);
+                while (serialInput.available() > 0) {
+                    int bytesRead = read(serialReadBuffer);
+                    if (bytesRead <= 0) {
+                        break;
+                    }
+                    handleIncomingData(serialReadBuffer, bytesRead);
+                }
             } catch (IOException ioException) {
                 logger.error("serialEvent(): IO Exception: {}", ioException.getMessage());
             }
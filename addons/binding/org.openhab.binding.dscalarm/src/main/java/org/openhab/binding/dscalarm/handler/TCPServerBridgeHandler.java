@@ -8,9 +8,8 @@
  */
 package org.openhab.binding.dscalarm.handler;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
 import java.net.Socket;
@@ -43,6 +42,9 @@ public class TCPServerBridgeHandler extends DSCAlarmBaseBridgeHandler {
         super(bridge, DSCAlarmBridgeType.TCPServer, DSCAlarmProtocol.IT100_API);
     }
 
+    /** Size of the buffer for reading from the TCP connection. */
+    private static final int READ_BUFFER_SIZE = 1024;
+
     // Variables for TCP connection.
     private String ipAddress;
     private int tcpPort;
@@ -50,7 +52,7 @@ public class TCPServerBridgeHandler extends DSCAlarmBaseBridgeHandler {
     private int protocol;
     private Socket tcpSocket = null;
     private OutputStreamWriter tcpOutput = null;
-    private BufferedReader tcpInput = null;
+    private InputStream tcpInput = null;
 
     @Override
     public void initialize() {
@@ -108,7 +110,7 @@ public class TCPServerBridgeHandler extends DSCAlarmBaseBridgeHandler {
             SocketAddress tpiSocketAddress = new InetSocketAddress(ipAddress, tcpPort);
             tcpSocket.connect(tpiSocketAddress, connectionTimeout);
             tcpOutput = new OutputStreamWriter(tcpSocket.getOutputStream(), "US-ASCII");
-            tcpInput = new BufferedReader(new InputStreamReader(tcpSocket.getInputStream()));
+            tcpInput = tcpSocket.getInputStream();
 
             Thread tcpListener = new Thread(new TCPListener());
             tcpListener.start();
@@ -145,12 +147,12 @@ public class TCPServerBridgeHandler extends DSCAlarmBaseBridgeHandler {
     }
 
     @Override
-    public String read() {
-        String message = "";
+    public int read(byte[] readBuffer) {
+        int bytesRead = -1;
 
         try {
-            message = tcpInput.readLine();
-            logger.debug("read(): Message Received: {}", message);
+            bytesRead = tcpInput.read(readBuffer);
+            logger.trace("read(): {} Bytes Received", bytesRead);
         } catch (IOException ioException) {
             logger.error("read(): IO Exception: {}", ioException.getMessage());
             setConnected(false);
@@ -159,7 +161,7 @@ public class TCPServerBridgeHandler extends DSCAlarmBaseBridgeHandler {
             setConnected(false);
         }
 
-        return message;
+        return bytesRead;
     }
 
     @Override
@@ -198,13 +200,14 @@ public class TCPServerBridgeHandler extends DSCAlarmBaseBridgeHandler {
          */
         @Override
         public void run() {
-            String messageLine;
+            byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+            int bytesRead;
 
             try {
                 while (isConnected()) {
-                    if ((messageLine = read()) != null) {
+                    if ((bytesRead = read(readBuffer)) > 0) {
                         try {
-                            handleIncomingMessage(messageLine);
+                            handleIncomingData(readBuffer, bytesRead);
                         } catch (Exception e) {
                             logger.error("TCPListener(): Message not handled by bridge: {}", e.getMessage());
                         }
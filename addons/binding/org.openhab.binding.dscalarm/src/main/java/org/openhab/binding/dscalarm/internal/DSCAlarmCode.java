@@ -192,6 +192,20 @@ public enum DSCAlarmCode {
      */
     private static Map<String, DSCAlarmCode> codeToDSCAlarmCodeValue;
 
+    /**
+     * Lookup table to get a DSCAlarmCode value from its numeric code (000-999).
+     */
+    private static final DSCAlarmCode[] NUMERIC_CODE_TABLE = new DSCAlarmCode[1000];
+
+    static {
+        for (DSCAlarmCode s : values()) {
+            if (s.code.length() == 3 && Character.isDigit(s.code.charAt(0)) && Character.isDigit(s.code.charAt(1))
+                    && Character.isDigit(s.code.charAt(2))) {
+                NUMERIC_CODE_TABLE[Integer.parseInt(s.code)] = s;
+            }
+        }
+    }
+
     /**
      * Constructor
      *
@@ -256,4 +270,25 @@ public enum DSCAlarmCode {
 
         return dscAlarmCode;
     }
+
+    /**
+     * Lookup function to return the DSCAlarmCode value based on the numeric code. Returns 'UnknownCode' if the code
+     * is not found.
+     *
+     * @param code
+     * @return enum value
+     */
+    public static DSCAlarmCode getDSCAlarmCodeValue(int code) {
+        DSCAlarmCode dscAlarmCode = null;
+
+        if (code >= 0 && code < NUMERIC_CODE_TABLE.length) {
+            dscAlarmCode = NUMERIC_CODE_TABLE[code];
+        }
+
+        if (dscAlarmCode == null) {
+            dscAlarmCode = UnknownCode;
+        }
+
+        return dscAlarmCode;
+    }
 }
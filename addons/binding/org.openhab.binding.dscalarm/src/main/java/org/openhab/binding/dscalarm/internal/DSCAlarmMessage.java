@@ -48,6 +48,8 @@ public class DSCAlarmMessage {
 
     private DSCAlarmMessageType messageType = DSCAlarmMessageType.PANEL_EVENT;
 
+    private DSCAlarmCode dscAlarmCode = DSCAlarmCode.UnknownCode;
+
     private String message = "";
     private String name = "";
     private String description = "";
@@ -68,35 +70,43 @@ public class DSCAlarmMessage {
      */
     public DSCAlarmMessage(String message) {
         this.message = message;
-        processDSCAlarmMessage();
+        processDSCAlarmMessage(null);
     }
 
     /**
-     * Processes the incoming DSC Alarm message and extracts the information.
+     * Constructor for a message that has already been framed and validated by the {@link DSCAlarmMessageDecoder}.
+     *
+     * @param dscAlarmCode
+     *            - the decoded message code
+     * @param codeReceived
+     *            - the three digit code string received
+     * @param timeStamp
+     *            - the optional time stamp, empty if none was received
+     * @param data
+     *            - the message data without code and checksum
      */
-    private void processDSCAlarmMessage() {
-        DSCAlarmCode dscAlarmCode;
-
-        if (message.length() > 3) {
-            try {
-                if (message.length() >= 8 && message.charAt(2) == ':' && message.charAt(5) == ':') {
-                    timeStamp = message.substring(0, 8);
-                    message = message.substring(9, message.length() - 2);
-                } else {
-                    message = message.substring(0, message.length() - 2);
-                }
-
-                codeReceived = message.substring(0, 3);
+    public DSCAlarmMessage(DSCAlarmCode dscAlarmCode, String codeReceived, String timeStamp, String data) {
+        this.codeReceived = codeReceived;
+        this.timeStamp = timeStamp;
+        this.data = data;
+        this.message = codeReceived + data;
+        processDSCAlarmMessage(dscAlarmCode);
+    }
 
-                if (message.length() >= 4) {
-                    data = message.substring(3);
-                }
-            } catch (Exception e) {
-                logger.error("processDSCAlarmMessage(): Error processing message ({}) - {}", message, e);
+    /**
+     * Processes the incoming DSC Alarm message and extracts the information.
+     *
+     * @param decodedCode
+     *            - the code of a message framed by the {@link DSCAlarmMessageDecoder}, null if the message still has
+     *            to be split into time stamp, code, data and checksum
+     */
+    private void processDSCAlarmMessage(DSCAlarmCode decodedCode) {
+        if (decodedCode != null || message.length() > 3) {
+            if (decodedCode == null && !splitMessage()) {
                 return;
             }
 
-            dscAlarmCode = DSCAlarmCode.getDSCAlarmCodeValue(codeReceived);
+            dscAlarmCode = decodedCode != null ? decodedCode : DSCAlarmCode.getDSCAlarmCodeValue(codeReceived);
 
             if (dscAlarmCode != null) {
 
@@ -261,6 +271,41 @@ public class DSCAlarmMessage {
         }
     }
 
+    /**
+     * Splits the received message into time stamp, code and data, and removes the checksum.
+     *
+     * @return true if the message could be split
+     */
+    private boolean splitMessage() {
+        try {
+            if (message.length() >= 8 && message.charAt(2) == ':' && message.charAt(5) == ':') {
+                timeStamp = message.substring(0, 8);
+                message = message.substring(9, message.length() - 2);
+            } else {
+                message = message.substring(0, message.length() - 2);
+            }
+
+            codeReceived = message.substring(0, 3);
+
+            if (message.length() >= 4) {
+                data = message.substring(3);
+            }
+        } catch (Exception e) {
+            logger.error("processDSCAlarmMessage(): Error processing message ({}) - {}", message, e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the DSCAlarm Code of the message.
+     *
+     * @return dscAlarmCode
+     */
+    public DSCAlarmCode getDSCAlarmCode() {
+        return dscAlarmCode;
+    }
+
     /**
      * Returns the DSCAlarm Message Type.
      *
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.dscalarm.internal;
+
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A class that decodes DSC Alarm messages directly from the bytes received from the IT-100 or Envisalink.
+ *
+ * Bytes are framed into lines in a reusable buffer, the checksum is summed up while the bytes arrive and the message
+ * code is resolved through the numeric {@link DSCAlarmCode} table, so no intermediate line string has to be split.
+ * Messages with an invalid checksum are discarded and logged as a warning.
+ *
+ * @author agent - Initial Contribution
+ */
+public class DSCAlarmMessageDecoder {
+
+    private final Logger logger = LoggerFactory.getLogger(DSCAlarmMessageDecoder.class);
+
+    /** Maximum length of a message line, large enough for the Envisalink zone timer dump. */
+    private static final int MAX_MESSAGE_LENGTH = 512;
+
+    /** Length of the optional 'HH:MM:SS ' time stamp prefix. */
+    private static final int TIME_STAMP_PREFIX_LENGTH = 9;
+
+    private static final int CODE_LENGTH = 3;
+    private static final int CHECKSUM_LENGTH = 2;
+
+    private final byte[] buffer = new byte[MAX_MESSAGE_LENGTH];
+    private int length = 0;
+    private int sum = 0;
+    private int timeStampPrefixSum = 0;
+    private boolean overflow = false;
+
+    /**
+     * Discards a partially received message.
+     */
+    public void reset() {
+        length = 0;
+        sum = 0;
+        timeStampPrefixSum = 0;
+        overflow = false;
+    }
+
+    /**
+     * Decodes the next received byte.
+     *
+     * @param b
+     *            - the byte received
+     * @return the decoded message if the byte completed a valid message line, otherwise null
+     */
+    public DSCAlarmMessage decode(byte b) {
+        if (b == '\r' || b == '\n') {
+            DSCAlarmMessage dscAlarmMessage = null;
+
+            if (overflow) {
+                logger.debug("decode(): Message exceeded {} bytes and was discarded!", MAX_MESSAGE_LENGTH);
+            } else if (length > 0) {
+                dscAlarmMessage = decodeMessage();
+            }
+
+            reset();
+            return dscAlarmMessage;
+        }
+
+        if (length < MAX_MESSAGE_LENGTH) {
+            buffer[length++] = b;
+            sum += b & 0xFF;
+
+            if (length == TIME_STAMP_PREFIX_LENGTH) {
+                timeStampPrefixSum = sum;
+            }
+        } else {
+            overflow = true;
+        }
+
+        return null;
+    }
+
+    /**
+     * Decodes the message line currently held in the buffer.
+     *
+     * @return the decoded message or null if the checksum is invalid
+     */
+    private DSCAlarmMessage decodeMessage() {
+        int offset = 0;
+        int payloadSum = sum;
+        String timeStamp = "";
+
+        if (length >= 8 && buffer[2] == ':' && buffer[5] == ':') {
+            timeStamp = new String(buffer, 0, 8, StandardCharsets.US_ASCII);
+            offset = TIME_STAMP_PREFIX_LENGTH;
+            payloadSum -= timeStampPrefixSum;
+        }
+
+        if (length - offset < CODE_LENGTH + CHECKSUM_LENGTH) {
+            // too short to hold a code and checksum, let the message class report it as it always did
+            return new DSCAlarmMessage(new String(buffer, 0, length, StandardCharsets.US_ASCII));
+        }
+
+        int checksumHigh = Character.digit(buffer[length - 2], 16);
+        int checksumLow = Character.digit(buffer[length - 1], 16);
+        int checksum = (payloadSum - (buffer[length - 2] & 0xFF) - (buffer[length - 1] & 0xFF)) & 0xFF;
+
+        if (checksumHigh < 0 || checksumLow < 0 || ((checksumHigh << 4) | checksumLow) != checksum) {
+            logger.warn("decode(): Invalid checksum, message '{}' discarded!",
+                    new String(buffer, 0, length, StandardCharsets.US_ASCII));
+            return null;
+        }
+
+        int code = 0;
+        for (int i = offset; i < offset + CODE_LENGTH; i++) {
+            int digit = Character.digit(buffer[i], 10);
+            if (digit < 0) {
+                code = -1;
+                break;
+            }
+            code = code * 10 + digit;
+        }
+
+        DSCAlarmCode dscAlarmCode = DSCAlarmCode.getDSCAlarmCodeValue(code);
+        String codeReceived = dscAlarmCode != DSCAlarmCode.UnknownCode ? dscAlarmCode.getCode()
+                : new String(buffer, offset, CODE_LENGTH, StandardCharsets.US_ASCII);
+        String data = new String(buffer, offset + CODE_LENGTH, length - offset - CODE_LENGTH - CHECKSUM_LENGTH,
+                StandardCharsets.US_ASCII);
+
+        return new DSCAlarmMessage(dscAlarmCode, codeReceived, timeStamp, data);
+    }
+}
@@ -11,14 +11,15 @@ package org.openhab.binding.lutron.handler;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.smarthome.config.discovery.DiscoveryService;
@@ -28,6 +29,7 @@ import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
+import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.lutron.internal.config.IPBridgeConfig;
 import org.openhab.binding.lutron.internal.discovery.LutronDeviceDiscoveryService;
@@ -46,7 +48,8 @@ import org.slf4j.LoggerFactory;
  * @author Allan Tong - Initial contribution
  */
 public class IPBridgeHandler extends BaseBridgeHandler {
-    private static final Pattern STATUS_REGEX = Pattern.compile("~(OUTPUT|DEVICE|SYSTEM),([^,]+),(.*)");
+    private static final LutronCommandType[] STATUS_TYPES = { LutronCommandType.OUTPUT, LutronCommandType.DEVICE,
+            LutronCommandType.SYSTEM };
 
     private static final String DB_UPDATE_DATE_FORMAT = "MM/dd/yyyy HH:mm:ss";
 
@@ -71,7 +74,10 @@ public class IPBridgeHandler extends BaseBridgeHandler {
     private ScheduledFuture<?> keepAlive;
     private ScheduledFuture<?> keepAliveReconnect;
 
+    private Map<Integer, LutronHandler> childHandlers = new ConcurrentHashMap<>();
+
     private Date lastDbUpdateDate;
+    private volatile String lastDbExportDateTime;
     private ServiceRegistration<DiscoveryService> discoveryServiceRegistration;
 
     public IPBridgeHandler(Bridge bridge) {
@@ -81,8 +87,8 @@ public class IPBridgeHandler extends BaseBridgeHandler {
 
         this.session.addListener(new TelnetSessionListener() {
             @Override
-            public void inputAvailable() {
-                parseUpdates();
+            public void lineReceived(CharSequence line) {
+                parseUpdate(line);
             }
 
             @Override
@@ -95,6 +101,15 @@ public class IPBridgeHandler extends BaseBridgeHandler {
         return this.config;
     }
 
+    /**
+     * Returns the time the device database was last exported, as reported by the bridge.
+     *
+     * @return the export time or null if the bridge has not reported it yet
+     */
+    public String getDbExportDateTime() {
+        return this.lastDbExportDateTime;
+    }
+
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
     }
@@ -271,12 +286,40 @@ public class IPBridgeHandler extends BaseBridgeHandler {
         this.sendQueue.add(command);
     }
 
+    @Override
+    public void childHandlerInitialized(ThingHandler childHandler, Thing childThing) {
+        if (childHandler instanceof LutronHandler) {
+            LutronHandler handler = (LutronHandler) childHandler;
+
+            try {
+                this.childHandlers.put(handler.getIntegrationId(), handler);
+            } catch (IllegalStateException e) {
+                this.logger.debug("Handler for {} has no integration ID", childThing.getUID());
+            }
+        }
+    }
+
+    @Override
+    public void childHandlerDisposed(ThingHandler childHandler, Thing childThing) {
+        if (childHandler instanceof LutronHandler) {
+            this.childHandlers.values().remove(childHandler);
+        }
+    }
+
     private LutronHandler findThingHandler(int integrationId) {
+        LutronHandler handler = this.childHandlers.get(integrationId);
+
+        if (handler != null) {
+            return handler;
+        }
+
         for (Thing thing : getThing().getThings()) {
             if (thing.getHandler() instanceof LutronHandler) {
-                LutronHandler handler = (LutronHandler) thing.getHandler();
+                handler = (LutronHandler) thing.getHandler();
 
                 if (handler.getIntegrationId() == integrationId) {
+                    this.childHandlers.put(integrationId, handler);
+
                     return handler;
                 }
             }
@@ -285,51 +328,161 @@ public class IPBridgeHandler extends BaseBridgeHandler {
         return null;
     }
 
-    private void parseUpdates() {
-        for (String line : this.session.readLines()) {
-            if (line.trim().equals("")) {
-                // Sometimes we get an empty line (possibly only when prompts are disabled). Ignore them.
-                continue;
+    private void parseUpdate(CharSequence line) {
+        int start = 0;
+        int end = line.length();
+
+        while (start < end && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+
+        while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+
+        if (start == end) {
+            // Sometimes we get an empty line (possibly only when prompts are disabled). Ignore them.
+            return;
+        }
+
+        this.logger.debug("Received message {}", line);
+
+        // System is alive, cancel reconnect task.
+        if (this.keepAliveReconnect != null) {
+            this.keepAliveReconnect.cancel(true);
+        }
+
+        LutronCommandType type = null;
+        int fieldStart = -1;
+
+        for (int i = start; i < end && type == null; i++) {
+            if (line.charAt(i) == '~') {
+                type = matchStatusType(line, i + 1, end);
+
+                if (type != null) {
+                    fieldStart = i + 1 + type.name().length() + 1;
+                }
             }
+        }
+
+        int fieldEnd = type == null ? -1 : indexOf(line, ',', fieldStart, end);
 
-            this.logger.debug("Received message {}", line);
+        if (fieldEnd <= fieldStart) {
+            this.logger.info("Ignoring message {}", line);
 
-            // System is alive, cancel reconnect task.
-            if (this.keepAliveReconnect != null) {
-                this.keepAliveReconnect.cancel(true);
+            return;
+        }
+
+        if (type == LutronCommandType.SYSTEM) {
+            // SYSTEM messages are assumed to be a response to the SYSTEM_DBEXPORTDATETIME
+            // query. The response returns the last time the device database was updated.
+            setDbUpdateDate(line.subSequence(fieldStart, fieldEnd).toString(),
+                    line.subSequence(fieldEnd + 1, end).toString());
+
+            return;
+        }
+
+        int integrationId = parseIntegrationId(line, fieldStart, fieldEnd);
+
+        if (integrationId < 0) {
+            this.logger.info("Ignoring message {}", line);
+
+            return;
+        }
+
+        LutronHandler handler = findThingHandler(integrationId);
+
+        if (handler != null) {
+            try {
+                handler.handleUpdate(type, splitParameters(line, fieldEnd + 1, end));
+            } catch (Exception e) {
+                this.logger.error("Error processing update", e);
             }
+        } else {
+            this.logger.info("No thing configured for integration ID {}", integrationId);
+        }
+    }
 
-            Matcher matcher = STATUS_REGEX.matcher(line);
+    private static LutronCommandType matchStatusType(CharSequence line, int start, int end) {
+        for (LutronCommandType type : STATUS_TYPES) {
+            String name = type.name();
+            int length = name.length();
 
-            if (matcher.find()) {
-                LutronCommandType type = LutronCommandType.valueOf(matcher.group(1));
+            if (start + length < end && line.charAt(start + length) == ',') {
+                boolean matches = true;
 
-                if (type == LutronCommandType.SYSTEM) {
-                    // SYSTEM messages are assumed to be a response to the SYSTEM_DBEXPORTDATETIME
-                    // query. The response returns the last time the device database was updated.
-                    setDbUpdateDate(matcher.group(2), matcher.group(3));
+                for (int i = 0; i < length && matches; i++) {
+                    matches = line.charAt(start + i) == name.charAt(i);
+                }
 
-                    continue;
+                if (matches) {
+                    return type;
                 }
+            }
+        }
 
-                Integer integrationId = new Integer(matcher.group(2));
-                LutronHandler handler = findThingHandler(integrationId);
+        return null;
+    }
 
-                if (handler != null) {
-                    String paramString = matcher.group(3);
+    private static int indexOf(CharSequence line, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
 
-                    try {
-                        handler.handleUpdate(type, paramString.split(","));
-                    } catch (Exception e) {
-                        this.logger.error("Error processing update", e);
-                    }
-                } else {
-                    this.logger.info("No thing configured for integration ID {}", integrationId);
-                }
-            } else {
-                this.logger.info("Ignoring message {}", line);
+        return -1;
+    }
+
+    private static int parseIntegrationId(CharSequence line, int start, int end) {
+        int value = 0;
+
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(line.charAt(i), 10);
+
+            if (digit < 0 || value > (Integer.MAX_VALUE - digit) / 10) {
+                return -1;
             }
+
+            value = value * 10 + digit;
         }
+
+        return value;
+    }
+
+    /**
+     * Splits the comma separated parameters the same way as {@link String#split(String)}, dropping trailing empty
+     * parameters.
+     */
+    private static String[] splitParameters(CharSequence line, int start, int end) {
+        if (start >= end) {
+            return new String[] { "" };
+        }
+
+        int count = 1;
+
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == ',') {
+                count++;
+            }
+        }
+
+        String[] parameters = new String[count];
+        int parameterStart = start;
+        int index = 0;
+
+        for (int i = start; i <= end; i++) {
+            if (i == end || line.charAt(i) == ',') {
+                parameters[index++] = line.subSequence(parameterStart, i).toString();
+                parameterStart = i + 1;
+            }
+        }
+
+        while (count > 0 && parameters[count - 1].isEmpty()) {
+            count--;
+        }
+
+        return count == parameters.length ? parameters : Arrays.copyOf(parameters, count);
     }
 
     private void sendKeepAlive() {
@@ -349,6 +502,8 @@ public class IPBridgeHandler extends BaseBridgeHandler {
             Date date = new SimpleDateFormat(DB_UPDATE_DATE_FORMAT).parse(dateString + " " + timeString);
 
             if (this.lastDbUpdateDate == null || date.after(this.lastDbUpdateDate)) {
+                this.lastDbExportDateTime = dateString + " " + timeString;
+
                 scanForDevices();
 
                 this.lastDbUpdateDate = date;
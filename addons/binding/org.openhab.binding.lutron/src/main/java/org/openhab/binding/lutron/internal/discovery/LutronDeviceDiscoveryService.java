@@ -10,14 +10,25 @@ package org.openhab.binding.lutron.internal.discovery;
 
 import static org.openhab.binding.lutron.LutronBindingConstants.*;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import javax.xml.stream.XMLStreamException;
+
+import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
 import org.eclipse.smarthome.config.discovery.DiscoveryResult;
 import org.eclipse.smarthome.config.discovery.DiscoveryResultBuilder;
@@ -25,14 +36,11 @@ import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.openhab.binding.lutron.handler.IPBridgeHandler;
 import org.openhab.binding.lutron.internal.LutronHandlerFactory;
-import org.openhab.binding.lutron.internal.discovery.project.Area;
 import org.openhab.binding.lutron.internal.discovery.project.Device;
-import org.openhab.binding.lutron.internal.discovery.project.DeviceGroup;
-import org.openhab.binding.lutron.internal.discovery.project.DeviceNode;
 import org.openhab.binding.lutron.internal.discovery.project.DeviceType;
 import org.openhab.binding.lutron.internal.discovery.project.Output;
 import org.openhab.binding.lutron.internal.discovery.project.OutputType;
-import org.openhab.binding.lutron.internal.discovery.project.Project;
+import org.openhab.binding.lutron.internal.xml.DbXmlInfoListener;
 import org.openhab.binding.lutron.internal.xml.DbXmlInfoReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,15 +48,34 @@ import org.slf4j.LoggerFactory;
 /**
  * The {@link LutronDeviceDiscoveryService} finds all devices paired with a Lutron bridge.
  *
+ * The device database is reported while it is being downloaded. A copy is kept in the user data folder, keyed by the
+ * export time reported by the bridge, so an unchanged database is read from disk instead of being downloaded again.
+ *
  * @author Allan Tong - Initial contribution
  */
 public class LutronDeviceDiscoveryService extends AbstractDiscoveryService {
 
+    private static final String CACHE_FOLDER_NAME = "lutron";
+    private static final String CACHE_FILE_PREFIX = "DbXmlInfo_";
+    private static final String CACHE_FILE_EXTENSION = ".xml";
+
     private final Logger logger = LoggerFactory.getLogger(LutronDeviceDiscoveryService.class);
 
     private IPBridgeHandler bridgeHandler;
     private DbXmlInfoReader dbXmlInfoReader = new DbXmlInfoReader();
 
+    private DbXmlInfoListener dbXmlInfoListener = new DbXmlInfoListener() {
+        @Override
+        public void deviceFound(Device device, Stack<String> context) {
+            processDevice(device, context);
+        }
+
+        @Override
+        public void outputFound(Output output, Stack<String> context) {
+            processOutput(output, context);
+        }
+    };
+
     private ScheduledFuture<?> scanTask;
 
     public LutronDeviceDiscoveryService(IPBridgeHandler bridgeHandler) throws IllegalArgumentException {
@@ -77,53 +104,76 @@ public class LutronDeviceDiscoveryService extends AbstractDiscoveryService {
         }
     }
 
-    private void readDeviceDatabase() throws IOException {
-        String address = "http://" + this.bridgeHandler.getIPBridgeConfig().getIpAddress() + "/DbXmlInfo.xml";
-        URL dbXmlInfoUrl = new URL(address);
+    private void readDeviceDatabase() throws IOException, XMLStreamException {
+        String exportDateTime = this.bridgeHandler.getDbExportDateTime();
+        File cacheFile = exportDateTime != null ? getCacheFile(exportDateTime) : null;
 
-        Project project = this.dbXmlInfoReader.readFromXML(dbXmlInfoUrl);
+        if (cacheFile != null && cacheFile.isFile()) {
+            logger.debug("Reading device database exported {} from {}", exportDateTime, cacheFile);
 
-        if (project != null) {
-            Stack<String> locationContext = new Stack<>();
-
-            for (Area area : project.getAreas()) {
-                processArea(area, locationContext);
+            try (InputStream input = new FileInputStream(cacheFile)) {
+                this.dbXmlInfoReader.read(input, this.dbXmlInfoListener);
             }
-        } else {
-            logger.info("Could not read project file at {}", address);
+
+            return;
         }
-    }
 
-    private void processArea(Area area, Stack<String> context) {
-        context.push(area.getName());
+        String address = "http://" + this.bridgeHandler.getIPBridgeConfig().getIpAddress() + "/DbXmlInfo.xml";
+        URL dbXmlInfoUrl = new URL(address);
 
-        for (DeviceNode deviceNode : area.getDeviceNodes()) {
-            if (deviceNode instanceof DeviceGroup) {
-                processDeviceGroup((DeviceGroup) deviceNode, context);
-            } else if (deviceNode instanceof Device) {
-                processDevice((Device) deviceNode, context);
+        if (cacheFile == null) {
+            try (InputStream input = dbXmlInfoUrl.openStream()) {
+                this.dbXmlInfoReader.read(input, this.dbXmlInfoListener);
             }
-        }
 
-        for (Output output : area.getOutputs()) {
-            processOutput(output, context);
+            return;
         }
 
-        for (Area subarea : area.getAreas()) {
-            processArea(subarea, context);
+        // Keep a copy of the database while it is being read and only cache it once it was read completely
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+
+        try {
+            cacheFile.getParentFile().mkdirs();
+
+            try (InputStream urlInput = dbXmlInfoUrl.openStream();
+                    OutputStream copy = new FileOutputStream(tempFile);
+                    InputStream input = new CopyingInputStream(urlInput, copy)) {
+                this.dbXmlInfoReader.read(input, this.dbXmlInfoListener);
+            }
+
+            deleteCacheFiles();
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tempFile.delete();
         }
+    }
+
+    private File getCacheFolder() {
+        // we assume that this folder does NOT have a trailing separator
+        return new File(ConfigConstants.getUserDataFolder() + File.separator + CACHE_FOLDER_NAME);
+    }
 
-        context.pop();
+    private String getCacheFilePrefix() {
+        return CACHE_FILE_PREFIX + this.bridgeHandler.getThing().getUID().getId() + "_";
     }
 
-    private void processDeviceGroup(DeviceGroup deviceGroup, Stack<String> context) {
-        context.push(deviceGroup.getName());
+    private File getCacheFile(String exportDateTime) {
+        return new File(getCacheFolder(),
+                getCacheFilePrefix() + exportDateTime.replaceAll("[^0-9A-Za-z]", "") + CACHE_FILE_EXTENSION);
+    }
 
-        for (Device device : deviceGroup.getDevices()) {
-            processDevice(device, context);
-        }
+    private void deleteCacheFiles() {
+        File[] files = getCacheFolder().listFiles();
 
-        context.pop();
+        if (files != null) {
+            String prefix = getCacheFilePrefix();
+
+            for (File file : files) {
+                if (file.getName().startsWith(prefix) && file.getName().endsWith(CACHE_FILE_EXTENSION)) {
+                    file.delete();
+                }
+            }
+        }
     }
 
     private void processDevice(Device device, Stack<String> context) {
@@ -197,4 +247,53 @@ public class LutronDeviceDiscoveryService extends AbstractDiscoveryService {
     private String generateLabel(Stack<String> context, String deviceName) {
         return String.join(" ", context) + " " + deviceName;
     }
+
+    /**
+     * Input stream that writes a copy of everything read to an output stream.
+     */
+    private static class CopyingInputStream extends FilterInputStream {
+        private final OutputStream copy;
+
+        CopyingInputStream(InputStream input, OutputStream copy) {
+            super(input);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+
+            if (b != -1) {
+                this.copy.write(b);
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+
+            if (count > 0) {
+                this.copy.write(buffer, offset, count);
+            }
+
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes would be missing from the copy
+            throw new IOException("skip not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                this.copy.close();
+            }
+        }
+    }
 }
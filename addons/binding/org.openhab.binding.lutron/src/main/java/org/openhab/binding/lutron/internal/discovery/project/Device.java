@@ -8,19 +8,21 @@
  */
 package org.openhab.binding.lutron.internal.discovery.project;
 
-import java.util.Collections;
-import java.util.List;
-
 /**
  * An input device in a Lutron system such as a keypad or occupancy sensor.
  *
  * @author Allan Tong - Initial contribution
  */
-public class Device implements DeviceNode {
+public class Device {
     private String name;
     private Integer integrationId;
     private String type;
-    private List<Component> components;
+
+    public Device(String name, Integer integrationId, String type) {
+        this.name = name;
+        this.integrationId = integrationId;
+        this.type = type;
+    }
 
     public String getName() {
         return name;
@@ -41,8 +43,4 @@ public class Device implements DeviceNode {
             return null;
         }
     }
-
-    public List<Component> getComponents() {
-        return components != null ? components : Collections.<Component> emptyList();
-    }
 }
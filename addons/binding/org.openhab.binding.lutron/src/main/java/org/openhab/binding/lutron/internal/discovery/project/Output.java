@@ -18,6 +18,12 @@ public class Output {
     private Integer integrationId;
     private String type;
 
+    public Output(String name, Integer integrationId, String type) {
+        this.name = name;
+        this.integrationId = integrationId;
+        this.type = type;
+    }
+
     public String getName() {
         return name;
     }
@@ -15,8 +15,6 @@ import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.nio.CharBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
@@ -27,16 +25,24 @@ import org.apache.commons.net.telnet.SuppressGAOptionHandler;
 import org.apache.commons.net.telnet.TelnetClient;
 import org.apache.commons.net.telnet.TelnetInputListener;
 import org.apache.commons.net.telnet.TelnetOptionHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A single telnet session.
  *
+ * Input is framed into lines on the telnet reader thread as it arrives and each line is passed to the
+ * {@link TelnetSessionListener}s immediately. Listeners are invoked synchronously, so slow listeners hold back further
+ * reads from the connection instead of letting input pile up in memory.
+ *
  * @author Allan Tong - Initial contribution
  */
 public class TelnetSession implements Closeable {
 
     private static final int BUFSIZE = 8192;
 
+    private final Logger logger = LoggerFactory.getLogger(TelnetSession.class);
+
     private TelnetClient telnetClient;
     private BufferedReader reader;
     private PrintStream outstream;
@@ -71,9 +77,9 @@ public class TelnetSession implements Closeable {
         this.listeners.clear();
     }
 
-    private void notifyInputAvailable() {
+    private void notifyLineReceived(CharSequence line) {
         for (TelnetSessionListener listener : this.listeners) {
-            listener.inputAvailable();
+            listener.lineReceived(line);
         }
     }
 
@@ -123,13 +129,42 @@ public class TelnetSession implements Closeable {
 
     private void readInput() throws IOException {
         synchronized (this.charBuffer) {
-            this.reader.read(this.charBuffer);
+            int scanStart = this.charBuffer.position();
+
+            if (this.reader.read(this.charBuffer) > 0) {
+                frameLines(scanStart);
+            }
+
             this.charBuffer.notifyAll();
+        }
+    }
 
-            if (this.charBuffer.position() > 0) {
-                notifyInputAvailable();
+    /**
+     * Passes the complete lines in the buffer to the listeners and keeps any incomplete trailing line, which may be a
+     * prompt that {@link #waitFor(String, long)} is looking for, at the start of the buffer.
+     *
+     * @param scanStart position from which newly read input starts
+     */
+    private void frameLines(int scanStart) {
+        char[] chars = this.charBuffer.array();
+        int end = this.charBuffer.position();
+        int lineStart = 0;
+
+        for (int i = scanStart; i < end; i++) {
+            if (chars[i] == '\n') {
+                notifyLineReceived(CharBuffer.wrap(chars, lineStart, i - lineStart));
+                lineStart = i + 1;
             }
         }
+
+        if (lineStart > 0) {
+            this.charBuffer.flip();
+            this.charBuffer.position(lineStart);
+            this.charBuffer.compact();
+        } else if (!this.charBuffer.hasRemaining()) {
+            this.logger.warn("Discarding {} characters of input without line terminator", end);
+            this.charBuffer.clear();
+        }
     }
 
     public MatchResult waitFor(String prompt) throws InterruptedException {
@@ -186,31 +221,6 @@ public class TelnetSession implements Closeable {
         }
     }
 
-    public Iterable<String> readLines() {
-        synchronized (this.charBuffer) {
-            this.charBuffer.flip();
-
-            String bufdata = this.charBuffer.toString();
-            int n = bufdata.lastIndexOf('\n');
-            String leftover;
-            String[] lines = null;
-
-            if (n != -1) {
-                leftover = bufdata.substring(n + 1);
-                bufdata = bufdata.substring(0, n).trim();
-
-                lines = bufdata.split("\r\n");
-            } else {
-                leftover = bufdata;
-            }
-
-            this.charBuffer.clear();
-            this.charBuffer.put(leftover);
-
-            return lines == null ? Collections.<String> emptyList() : Arrays.asList(lines);
-        }
-    }
-
     public void writeLine(String line) throws IOException {
         this.outstream.print(line + "\r\n");
 
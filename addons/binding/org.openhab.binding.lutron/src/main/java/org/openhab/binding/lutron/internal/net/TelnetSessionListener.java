@@ -17,7 +17,13 @@ import java.io.IOException;
  */
 public interface TelnetSessionListener {
 
-    void inputAvailable();
+    /**
+     * Called from the session reader thread for every complete line received. The line is a view on the session
+     * buffer and is only valid for the duration of the call; reading from the session is suspended until it returns.
+     *
+     * @param line the line without its terminating newline
+     */
+    void lineReceived(CharSequence line);
 
     void error(IOException exception);
 }
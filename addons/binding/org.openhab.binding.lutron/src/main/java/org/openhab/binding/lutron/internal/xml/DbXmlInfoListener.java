@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.lutron.internal.xml;
+
+import java.util.Stack;
+
+import org.openhab.binding.lutron.internal.discovery.project.Device;
+import org.openhab.binding.lutron.internal.discovery.project.Output;
+
+/**
+ * Receives the device things found by the {@link DbXmlInfoReader} while it parses a Lutron XML project file.
+ *
+ * @author agent - Initial contribution
+ */
+public interface DbXmlInfoListener {
+
+    /**
+     * Called for each input device, such as a keypad or occupancy sensor.
+     *
+     * @param device the device
+     * @param context the names of the enclosing areas and device group, outermost first
+     */
+    void deviceFound(Device device, Stack<String> context);
+
+    /**
+     * Called for each output device, such as a switch or dimmer.
+     *
+     * @param output the output
+     * @param context the names of the enclosing areas, outermost first
+     */
+    void outputFound(Output output, Stack<String> context);
+}
@@ -8,77 +8,130 @@
  */
 package org.openhab.binding.lutron.internal.xml;
 
-import org.eclipse.smarthome.config.xml.util.XmlDocumentReader;
-import org.openhab.binding.lutron.internal.discovery.project.Area;
-import org.openhab.binding.lutron.internal.discovery.project.Component;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.openhab.binding.lutron.internal.discovery.project.Device;
-import org.openhab.binding.lutron.internal.discovery.project.DeviceGroup;
 import org.openhab.binding.lutron.internal.discovery.project.Output;
-import org.openhab.binding.lutron.internal.discovery.project.Project;
-
-import com.thoughtworks.xstream.XStream;
 
 /**
- * The {@link DbXmlInfoReader} reads Lutron XML project files and converts them to {@link Project}
- * objects describing the device things contained within the Lutron system.
+ * The {@link DbXmlInfoReader} reads Lutron XML project files and reports the device things contained within the
+ * Lutron system to a {@link DbXmlInfoListener}.
+ *
+ * The file is read with a streaming parser, so devices are reported area by area while the file is being read and the
+ * project is never held in memory as a whole.
  *
  * @author Allan Tong - Initial contribution
  */
-public class DbXmlInfoReader extends XmlDocumentReader<Project> {
+public class DbXmlInfoReader {
+
+    private static final String AREAS = "Areas";
+    private static final String AREA = "Area";
+    private static final String DEVICE_GROUPS = "DeviceGroups";
+    private static final String DEVICE_GROUP = "DeviceGroup";
+    private static final String DEVICES = "Devices";
+    private static final String DEVICE = "Device";
+    private static final String OUTPUTS = "Outputs";
+    private static final String OUTPUT = "Output";
+
+    private static final String ATTR_NAME = "Name";
+    private static final String ATTR_INTEGRATION_ID = "IntegrationID";
+    private static final String ATTR_DEVICE_TYPE = "DeviceType";
+    private static final String ATTR_OUTPUT_TYPE = "OutputType";
+
+    private final XMLInputFactory inputFactory;
 
     public DbXmlInfoReader() {
-        super.setClassLoader(Project.class.getClassLoader());
+        this.inputFactory = XMLInputFactory.newInstance();
+        this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
     }
 
-    @Override
-    public void registerConverters(XStream xstream) {
+    /**
+     * Reads a project file and reports every device and output found to the listener.
+     *
+     * @param input the project file contents
+     * @param listener the listener to report device things to
+     * @throws XMLStreamException if the file could not be parsed
+     */
+    public void read(InputStream input, DbXmlInfoListener listener) throws XMLStreamException {
+        XMLStreamReader reader = this.inputFactory.createXMLStreamReader(input);
+
+        try {
+            // Elements are only considered at their expected place in the hierarchy. This reader is only
+            // interested in device thing information and does not read everything contained in DbXmlInfo.
+            List<String> elements = new ArrayList<>();
+            Stack<Boolean> addedToContext = new Stack<>();
+            Stack<String> context = new Stack<>();
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        String element = reader.getLocalName();
+                        String parent = elements.size() < 1 ? null : elements.get(elements.size() - 1);
+                        String grandparent = elements.size() < 2 ? null : elements.get(elements.size() - 2);
+                        boolean added = false;
+
+                        if (AREA.equals(element) && AREAS.equals(parent)) {
+                            context.push(nullToEmpty(reader.getAttributeValue(null, ATTR_NAME)));
+                            added = true;
+                        } else if (DEVICE_GROUP.equals(element) && DEVICE_GROUPS.equals(parent)
+                                && AREA.equals(grandparent)) {
+                            context.push(nullToEmpty(reader.getAttributeValue(null, ATTR_NAME)));
+                            added = true;
+                        } else if (DEVICE.equals(element)
+                                && ((DEVICES.equals(parent) && DEVICE_GROUP.equals(grandparent))
+                                        || (DEVICE_GROUPS.equals(parent) && AREA.equals(grandparent)))) {
+                            listener.deviceFound(new Device(reader.getAttributeValue(null, ATTR_NAME),
+                                    parseInteger(reader.getAttributeValue(null, ATTR_INTEGRATION_ID)),
+                                    reader.getAttributeValue(null, ATTR_DEVICE_TYPE)), context);
+                        } else if (OUTPUT.equals(element) && OUTPUTS.equals(parent) && AREA.equals(grandparent)) {
+                            listener.outputFound(new Output(reader.getAttributeValue(null, ATTR_NAME),
+                                    parseInteger(reader.getAttributeValue(null, ATTR_INTEGRATION_ID)),
+                                    reader.getAttributeValue(null, ATTR_OUTPUT_TYPE)), context);
+                        }
+
+                        elements.add(element);
+                        addedToContext.push(added);
+                        break;
+
+                    case XMLStreamConstants.END_ELEMENT:
+                        elements.remove(elements.size() - 1);
+
+                        if (addedToContext.pop()) {
+                            context.pop();
+                        }
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
     }
 
-    @Override
-    public void registerAliases(XStream xstream) {
-        xstream.alias("Project", Project.class);
-        xstream.aliasField("AppVer", Project.class, "appVersion");
-        xstream.aliasField("XMLVer", Project.class, "xmlVersion");
-        xstream.aliasField("Areas", Project.class, "areas");
-
-        xstream.alias("Area", Area.class);
-        xstream.aliasField("Name", Area.class, "name");
-        xstream.useAttributeFor(Area.class, "name");
-        xstream.aliasField("DeviceGroups", Area.class, "deviceNodes");
-        xstream.aliasField("Outputs", Area.class, "outputs");
-        xstream.aliasField("Areas", Area.class, "areas");
-
-        xstream.alias("DeviceGroup", DeviceGroup.class);
-        xstream.aliasField("Name", DeviceGroup.class, "name");
-        xstream.useAttributeFor(DeviceGroup.class, "name");
-        xstream.aliasField("Devices", DeviceGroup.class, "devices");
-
-        xstream.alias("Device", Device.class);
-        xstream.aliasField("Name", Device.class, "name");
-        xstream.useAttributeFor(Device.class, "name");
-        xstream.aliasField("IntegrationID", Device.class, "integrationId");
-        xstream.useAttributeFor(Device.class, "integrationId");
-        xstream.aliasField("DeviceType", Device.class, "type");
-        xstream.useAttributeFor(Device.class, "type");
-        xstream.aliasField("Components", Device.class, "components");
-
-        xstream.alias("Component", Component.class);
-        xstream.aliasField("ComponentNumber", Component.class, "componentNumber");
-        xstream.useAttributeFor(Component.class, "componentNumber");
-        xstream.aliasField("ComponentType", Component.class, "type");
-        xstream.useAttributeFor(Component.class, "type");
-
-        xstream.alias("Output", Output.class);
-        xstream.aliasField("Name", Output.class, "name");
-        xstream.useAttributeFor(Output.class, "name");
-        xstream.aliasField("IntegrationID", Output.class, "integrationId");
-        xstream.useAttributeFor(Output.class, "integrationId");
-        xstream.aliasField("OutputType", Output.class, "type");
-        xstream.useAttributeFor(Output.class, "type");
-
-        // This reader is only interested in device thing information and does not read
-        // everything contained in DbXmlInfo. Ignoring unknown elements also makes the
-        // binding more tolerant of potential future changes to the XML schema.
-        xstream.ignoreUnknownElements();
+    private static Integer parseInteger(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.mihome.internal.socket;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Tests cases for {@link XiaomiSocketReactor}. The sockets are bound to the loopback address and receive the
+ * messages of a channel of the test.
+ *
+ * @author agent - Initial contribution
+ */
+public class XiaomiSocketReactorTest {
+
+    private static final long TIMEOUT = 5000;
+    private static final String MESSAGE = "{\"cmd\":\"heartbeat\",\"model\":\"gateway\",\"sid\":\"%s\",\"data\":\"{}\"}";
+
+    private final XiaomiSocketReactor reactor = XiaomiSocketReactor.getInstance();
+    private final List<LoopbackSocket> sockets = new ArrayList<>();
+    private InetAddress loopback;
+    private DatagramChannel sender;
+
+    private static class LoopbackSocket extends XiaomiSocket {
+        private final InetAddress address;
+        private final BlockingQueue<JsonObject> messages = new LinkedBlockingQueue<>();
+        private final XiaomiSocketListener listener = message -> messages.add(message);
+
+        LoopbackSocket(InetAddress address) {
+            this.address = address;
+        }
+
+        @Override
+        DatagramChannel setupSocket() {
+            try {
+                DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+                channel.bind(new InetSocketAddress(address, 0));
+                return channel;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        InetSocketAddress getLocalAddress() throws IOException {
+            return (InetSocketAddress) getSocket().getLocalAddress();
+        }
+
+        String receiveSid() throws InterruptedException {
+            JsonObject message = messages.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+            assertNotNull("No message received", message);
+            return message.get("sid").getAsString();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        loopback = InetAddress.getByName("127.0.0.1");
+        sender = DatagramChannel.open(StandardProtocolFamily.INET);
+        sender.bind(new InetSocketAddress(loopback, 0));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (LoopbackSocket socket : sockets) {
+            socket.unregisterListener(socket.listener);
+        }
+        sender.close();
+    }
+
+    private LoopbackSocket openSocket() {
+        LoopbackSocket socket = new LoopbackSocket(loopback);
+        sockets.add(socket);
+        socket.registerListener(socket.listener);
+        assertNotNull("Socket is not set up", socket.getSocket());
+        return socket;
+    }
+
+    private void send(LoopbackSocket socket, String sid) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(String.format(MESSAGE, sid).getBytes(StandardCharsets.UTF_8));
+        sender.send(data, socket.getLocalAddress());
+    }
+
+    private void assertThreadEnds(Thread thread) throws InterruptedException {
+        thread.join(TIMEOUT);
+        assertFalse("Reactor thread is still running", thread.isAlive());
+        assertNull(reactor.getThread());
+    }
+
+    @Test
+    public void threadEndsWithLastChannel() throws Exception {
+        LoopbackSocket socket = openSocket();
+        Thread thread = reactor.getThread();
+        assertNotNull(thread);
+
+        send(socket, "1");
+        assertEquals("1", socket.receiveSid());
+
+        socket.unregisterListener(socket.listener);
+        assertNull(socket.getSocket());
+        assertThreadEnds(thread);
+    }
+
+    @Test
+    public void remainingChannelsReceiveAfterUnregister() throws Exception {
+        LoopbackSocket first = openSocket();
+        LoopbackSocket second = openSocket();
+        Thread thread = reactor.getThread();
+
+        send(first, "1");
+        send(second, "2");
+        assertEquals("1", first.receiveSid());
+        assertEquals("2", second.receiveSid());
+
+        first.unregisterListener(first.listener);
+        send(second, "3");
+        assertEquals("3", second.receiveSid());
+        assertSame(thread, reactor.getThread());
+
+        second.unregisterListener(second.listener);
+        assertThreadEnds(thread);
+    }
+
+    @Test
+    public void threadIsStartedAgain() throws Exception {
+        LoopbackSocket socket = openSocket();
+        Thread thread = reactor.getThread();
+        socket.unregisterListener(socket.listener);
+        assertThreadEnds(thread);
+
+        socket = openSocket();
+        assertNotNull(reactor.getThread());
+        send(socket, "4");
+        assertEquals("4", socket.receiveSid());
+    }
+}
@@ -14,13 +14,14 @@ import static org.openhab.binding.mihome.XiaomiGatewayBindingConstants.*;
 import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.core.Configuration;
@@ -63,8 +64,9 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
 
     private final Logger logger = LoggerFactory.getLogger(XiaomiBridgeHandler.class);
 
-    private List<XiaomiItemUpdateListener> itemListeners = new ArrayList<>();
-    private List<XiaomiItemUpdateListener> itemDiscoveryListeners = new ArrayList<>();
+    // Item listeners by the sid of their device
+    private Map<String, List<XiaomiItemUpdateListener>> itemListeners = new ConcurrentHashMap<>();
+    private List<XiaomiItemUpdateListener> itemDiscoveryListeners = new CopyOnWriteArrayList<>();
 
     private String gatewayToken;
     private long lastDiscoveryTime;
@@ -97,9 +99,8 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
             return;
         }
         logger.debug("Init socket on Port: {}", port);
-        socket = new XiaomiBridgeSocket(port);
-        socket.intialize();
-        socket.registerListener(this);
+        socket = XiaomiBridgeSocket.getInstance(port);
+        socket.registerListener(this, host);
 
         scheduler.schedule(() -> {
             discoverItems();
@@ -125,7 +126,9 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
         String command = message.get("cmd").getAsString();
 
         updateDeviceStatus(sid);
-        updateStatus(ThingStatus.ONLINE);
+        if (getThing().getStatus() != ThingStatus.ONLINE) {
+            updateStatus(ThingStatus.ONLINE);
+        }
         switch (command) {
             case "iam":
                 return;
@@ -187,21 +190,19 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
         }
     }
 
-    private synchronized void notifyListeners(String command, JsonObject message) {
-        boolean knownDevice = false;
-        String sid = message.get("sid").getAsString();
+    private void notifyListeners(String command, JsonObject message) {
+        String sid = message.has("sid") ? message.get("sid").getAsString() : null;
 
         // Not a message to pass to any itemListener
         if (sid == null) {
             return;
         }
-        for (XiaomiItemUpdateListener itemListener : itemListeners) {
-            if (sid.equals(itemListener.getItemId())) {
+        List<XiaomiItemUpdateListener> listeners = itemListeners.get(sid);
+        if (listeners != null && !listeners.isEmpty()) {
+            for (XiaomiItemUpdateListener itemListener : listeners) {
                 itemListener.onItemUpdate(sid, command, message);
-                knownDevice = true;
             }
-        }
-        if (!knownDevice) {
+        } else {
             for (XiaomiItemUpdateListener itemListener : itemDiscoveryListeners) {
                 itemListener.onItemUpdate(sid, command, message);
             }
@@ -215,16 +216,34 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
         } else if (listener instanceof XiaomiItemDiscoveryService) {
             result = !(itemDiscoveryListeners.contains(listener)) ? itemDiscoveryListeners.add(listener) : false;
             logger.debug("Having {} Item Discovery listeners", itemDiscoveryListeners.size());
+        } else if (listener.getItemId() == null) {
+            logger.warn("It's not allowed to pass a XiaomiItemUpdateListener without item id");
         } else {
             logger.debug("Adding item listener for device {}", listener.getItemId());
-            result = !(itemListeners.contains(listener)) ? itemListeners.add(listener) : false;
-            logger.debug("Having {} Item listeners", itemListeners.size());
+            List<XiaomiItemUpdateListener> listeners = itemListeners.get(listener.getItemId());
+            if (listeners == null) {
+                listeners = new CopyOnWriteArrayList<>();
+                itemListeners.put(listener.getItemId(), listeners);
+            }
+            result = !(listeners.contains(listener)) ? listeners.add(listener) : false;
+            logger.debug("Having Item listeners for {} devices", itemListeners.size());
         }
         return result;
     }
 
     public synchronized boolean unregisterItemListener(XiaomiItemUpdateListener listener) {
-        return itemListeners.remove(listener);
+        boolean result = itemDiscoveryListeners.remove(listener);
+        // The item id of the listener may have changed since its registration
+        for (Iterator<List<XiaomiItemUpdateListener>> it = itemListeners.values().iterator(); it.hasNext();) {
+            List<XiaomiItemUpdateListener> listeners = it.next();
+            if (listeners.remove(listener)) {
+                result = true;
+            }
+            if (listeners.isEmpty()) {
+                it.remove();
+            }
+        }
+        return result;
     }
 
     private void sendMessageToBridge(String message) {
@@ -90,6 +90,11 @@ public class XiaomiBridgeDiscoveryService extends AbstractDiscoveryService
         }
     }
 
+    @Override
+    public boolean isInterestedIn(String command, String sid, String model) {
+        return "iam".equals(command);
+    }
+
     @Override
     public int getScanTimeout() {
         return DISCOVERY_TIMEOUT_SEC;
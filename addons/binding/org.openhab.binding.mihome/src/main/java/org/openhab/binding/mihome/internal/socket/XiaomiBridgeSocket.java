@@ -9,9 +9,16 @@
 package org.openhab.binding.mihome.internal.socket;
 
 import java.io.IOException;
-import java.net.DatagramSocket;
+import java.net.Inet4Address;
 import java.net.InetAddress;
-import java.net.MulticastSocket;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.channels.DatagramChannel;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,37 +26,87 @@ import org.slf4j.LoggerFactory;
 /**
  * Takes care of the multicast communication with the bridge.
  *
+ * All bridges, which use the same port, share one {@link XiaomiBridgeSocket}, so each multicast message is
+ * received only once. The listeners of the bridges are called for the messages from their address.
+ *
  * @author Dieter Schmidt - Initial contribution
  *
  */
 public class XiaomiBridgeSocket extends XiaomiSocket {
 
+    private static final Map<Integer, XiaomiBridgeSocket> BRIDGE_SOCKETS = new ConcurrentHashMap<>();
+
     private final Logger logger = LoggerFactory.getLogger(XiaomiBridgeSocket.class);
 
-    public XiaomiBridgeSocket(int port) {
+    private XiaomiBridgeSocket(int port) {
         super(port);
     }
 
+    /**
+     * Returns the {@link XiaomiBridgeSocket} for a port. The socket is shared by all bridges using this port.
+     *
+     * @param port - the socket will be bound to this port
+     */
+    public static XiaomiBridgeSocket getInstance(int port) {
+        return BRIDGE_SOCKETS.computeIfAbsent(port, XiaomiBridgeSocket::new);
+    }
+
     /**
      * Sets up the {@link XiaomiBridgeSocket}.
      *
-     * Connects the socket to the specific multicast address and port.
-     * Starts the {@link ReceiverThread} for the socket.
+     * Binds the socket to the specific port and joins the multicast group on all network interfaces, which support
+     * multicast.
      */
     @Override
-    synchronized DatagramSocket setupSocket() {
-        if (getOpenSockets().contains(getPort())) {
-            return getOpenSockets().get(getPort());
-        }
+    synchronized DatagramChannel setupSocket() {
+        DatagramChannel channel = null;
         try {
             logger.debug("Setup socket");
-            setSocket(new MulticastSocket(getPort())); // must bind receive side
-            ((MulticastSocket) getSocket()).joinGroup(InetAddress.getByName(MCAST_ADDR));
-            logger.debug("Initialized socket to {}:{} on {}:{}", getSocket().getRemoteSocketAddress(),
-                    getSocket().getPort(), getSocket().getLocalAddress(), getSocket().getLocalPort());
+            channel = DatagramChannel.open(StandardProtocolFamily.INET);
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.bind(new InetSocketAddress(getPort())); // must bind receive side
+            joinGroup(channel, InetAddress.getByName(MCAST_ADDR));
+            logger.debug("Initialized socket on {}", channel.getLocalAddress());
+            return channel;
         } catch (IOException e) {
             logger.error("Setup socket error", e);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    private void joinGroup(DatagramChannel channel, InetAddress group) throws IOException {
+        int joined = 0;
+        for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+            if (!networkInterface.isUp() || networkInterface.isLoopback() || !networkInterface.supportsMulticast()
+                    || !hasIPv4Address(networkInterface)) {
+                continue;
+            }
+            try {
+                channel.join(group, networkInterface);
+                joined++;
+                logger.debug("Joined multicast group {} on {}", group, networkInterface.getName());
+            } catch (IOException e) {
+                logger.debug("Could not join multicast group {} on {}: {}", group, networkInterface.getName(),
+                        e.getMessage());
+            }
+        }
+        if (joined == 0) {
+            logger.warn("Could not join multicast group {} on any network interface", group);
+        }
+    }
+
+    private boolean hasIPv4Address(NetworkInterface networkInterface) {
+        for (InetAddress address : Collections.list(networkInterface.getInetAddresses())) {
+            if (address instanceof Inet4Address) {
+                return true;
+            }
         }
-        return getSocket();
+        return false;
     }
 }
@@ -9,9 +9,11 @@
 package org.openhab.binding.mihome.internal.socket;
 
 import java.io.IOException;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
 import java.net.UnknownHostException;
+import java.nio.channels.DatagramChannel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,22 +37,22 @@ public class XiaomiDiscoverySocket extends XiaomiSocket {
     /**
      * Sets up the {@link XiaomiDiscoverySocket}.
      *
-     * Connects the socket to the specific multicast address and port.
-     * Starts the {@link ReceiverThread} for the socket.
+     * Binds the socket to a random port.
      */
     @Override
-    DatagramSocket setupSocket() {
+    DatagramChannel setupSocket() {
         synchronized (XiaomiDiscoverySocket.class) {
             try {
                 logger.debug("Setup discovery socket");
-                setSocket(new DatagramSocket(0));
-                logger.debug("Initialized socket to {}:{} on {}:{}", getSocket().getInetAddress(),
-                        getSocket().getPort(), getSocket().getLocalAddress(), getSocket().getLocalPort());
+                DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+                channel.bind(new InetSocketAddress(0));
+                logger.debug("Initialized socket on {}", channel.getLocalAddress());
+                return channel;
             } catch (IOException e) {
                 logger.error("Setup socket error", e);
+                return null;
             }
         }
-        return getSocket();
     }
 
     /**
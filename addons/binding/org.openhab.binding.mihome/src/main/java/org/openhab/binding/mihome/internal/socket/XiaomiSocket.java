@@ -9,24 +9,34 @@
 package org.openhab.binding.mihome.internal.socket;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
+import java.io.StringReader;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
-import org.openhab.binding.mihome.handler.XiaomiBridgeHandler;
-import org.openhab.binding.mihome.internal.discovery.XiaomiBridgeDiscoveryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 /**
  * Takes care of the communication with MiHome devices.
  *
+ * The data of all sockets is received by the {@link XiaomiSocketReactor}. The command, sid and model of a received
+ * message are extracted, before the message is parsed, so that messages, which no listener is interested in, are
+ * dropped without parsing them. Listeners for a specific source address (the bridge handlers) are looked up by the
+ * address of the received datagram.
  *
  * @author Patrick Boos - Initial contribution
  * @author Dieter Schmidt - JavaDoc, refactored, reviewed
@@ -35,20 +45,20 @@ import com.google.gson.JsonParser;
 public abstract class XiaomiSocket {
 
     static final String MCAST_ADDR = "224.0.0.50";
-    private static final int BUFFER_LENGTH = 1024;
-    private DatagramPacket datagramPacket = new DatagramPacket(new byte[BUFFER_LENGTH], BUFFER_LENGTH);
 
+    // Listeners for messages from any address, e.g. the discovery service
     private List<XiaomiSocketListener> listeners = new CopyOnWriteArrayList<>();
+    // Listeners for messages from a specific address, e.g. the bridge handlers
+    private Map<InetAddress, List<XiaomiSocketListener>> sourceListeners = new ConcurrentHashMap<>();
 
     private static final JsonParser PARSER = new JsonParser();
 
     private final Logger logger = LoggerFactory.getLogger(XiaomiSocket.class);
 
-    private static ConcurrentHashMap<Integer, DatagramSocket> openSockets = new ConcurrentHashMap<Integer, DatagramSocket>();
+    private static ConcurrentHashMap<Integer, DatagramChannel> openSockets = new ConcurrentHashMap<Integer, DatagramChannel>();
 
     private int port;
-    private DatagramSocket socket;
-    private Thread socketReceiveThread;
+    private volatile DatagramChannel socket;
 
     /**
      * Sets up an {@link XiaomiSocket} with the MiHome multicast address and a random port
@@ -67,42 +77,61 @@ public abstract class XiaomiSocket {
         this.port = port;
     }
 
-    public void intialize() {
-        setupSocket();
-        runReceiveThread();
-    }
-
-    protected void runReceiveThread() {
-        socketReceiveThread = new ReceiverThread();
-        socketReceiveThread.start();
+    /**
+     * Sets up the socket and registers it with the {@link XiaomiSocketReactor}, if this has not been done yet.
+     */
+    public synchronized void intialize() {
         if (getSocket() != null) {
-            getOpenSockets().put(getSocket().getLocalPort(), getSocket());
-            logger.debug("There are {} open sockets: {}", getOpenSockets().size(), getOpenSockets());
+            return;
+        }
+        DatagramChannel channel = setupSocket();
+        if (channel == null) {
+            return;
         }
+        try {
+            channel.configureBlocking(false);
+            XiaomiSocketReactor.getInstance().register(channel, this);
+        } catch (IOException e) {
+            logger.error("Could not register socket on port {}", port, e);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            return;
+        }
+        setSocket(channel);
+        try {
+            getOpenSockets().put(((InetSocketAddress) channel.getLocalAddress()).getPort(), channel);
+        } catch (IOException e) {
+            logger.debug("Could not get the local address of socket {}", channel);
+        }
+        logger.debug("There are {} open sockets: {}", getOpenSockets().size(), getOpenSockets());
     }
 
-    abstract DatagramSocket setupSocket();
+    /**
+     * Opens and binds the channel of the {@link XiaomiSocket}.
+     *
+     * @return the channel or null, if it cannot be set up
+     */
+    abstract DatagramChannel setupSocket();
 
     /**
-     * Interrupts the {@link ReceiverThread} and closes the {@link XiaomiSocket}.
+     * Closes the {@link XiaomiSocket} and removes it from the {@link XiaomiSocketReactor}.
      */
     private void closeSocket() {
         synchronized (XiaomiSocket.class) {
-            if (socketReceiveThread != null) {
-                logger.debug("Interrupting Thread {}", socketReceiveThread);
-                socketReceiveThread.interrupt();
-            }
-            if (getSocket() != null) {
-                logger.debug("Closing socket {}", getSocket());
-                openSockets.remove(getSocket().getLocalPort());
-                getSocket().close();
+            DatagramChannel channel = getSocket();
+            if (channel != null) {
+                logger.debug("Closing socket {}", channel);
+                openSockets.values().remove(channel);
+                XiaomiSocketReactor.getInstance().unregister(channel);
                 setSocket(null);
             }
         }
     }
 
     /**
-     * Registers a {@link XiaomiSocketListener} to be called back, when data is received.
+     * Registers a {@link XiaomiSocketListener} to be called back, when data is received from any address.
      * If no {@link XiaomiSocket} exists, when the method is called, it is being set up.
      *
      * @param listener - {@link XiaomiSocketListener} to be called back
@@ -117,6 +146,28 @@ public abstract class XiaomiSocket {
         }
     }
 
+    /**
+     * Registers a {@link XiaomiSocketListener} to be called back, when data is received from a specific address.
+     * If no {@link XiaomiSocket} exists, when the method is called, it is being set up.
+     *
+     * @param listener - {@link XiaomiSocketListener} to be called back
+     * @param source - the address, from which the listener receives data
+     */
+    public synchronized void registerListener(XiaomiSocketListener listener, InetAddress source) {
+        List<XiaomiSocketListener> listenersForSource = sourceListeners.get(source);
+        if (listenersForSource == null) {
+            listenersForSource = new CopyOnWriteArrayList<>();
+            sourceListeners.put(source, listenersForSource);
+        }
+        if (!listenersForSource.contains(listener)) {
+            logger.trace("Adding socket listener {} for {}", listener, source);
+            listenersForSource.add(listener);
+        }
+        if (getSocket() == null) {
+            intialize();
+        }
+    }
+
     /**
      * Unregisters a {@link XiaomiSocketListener}. If there are no listeners left,
      * the {@link XiaomiSocket} is being closed.
@@ -125,8 +176,15 @@ public abstract class XiaomiSocket {
      */
     public synchronized void unregisterListener(XiaomiSocketListener listener) {
         getListeners().remove(listener);
+        for (Iterator<List<XiaomiSocketListener>> it = sourceListeners.values().iterator(); it.hasNext();) {
+            List<XiaomiSocketListener> listenersForSource = it.next();
+            listenersForSource.remove(listener);
+            if (listenersForSource.isEmpty()) {
+                it.remove();
+            }
+        }
 
-        if (getListeners().isEmpty()) {
+        if (getListeners().isEmpty() && sourceListeners.isEmpty()) {
             closeSocket();
         }
     }
@@ -139,16 +197,73 @@ public abstract class XiaomiSocket {
      * @param port - - Port, through which the message shall be sent
      */
     public void sendMessage(String message, InetAddress address, int port) {
+        DatagramChannel channel = getSocket();
+        if (channel == null) {
+            logger.warn("Socket is not open, cannot send message: {}", message);
+            return;
+        }
         try {
-            byte[] sendData = message.getBytes("UTF-8");
-            DatagramPacket sendPacket = new DatagramPacket(sendData, sendData.length, address, port);
+            ByteBuffer sendData = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
             logger.trace("Sending message: {} to {}:{}", message, address, port);
-            getSocket().send(sendPacket);
+            if (channel.send(sendData, new InetSocketAddress(address, port)) == 0) {
+                logger.warn("Send buffer is full, message dropped: {}", message);
+            }
         } catch (IOException e) {
             logger.error("Sending error", e);
         }
     }
 
+    /**
+     * Called by the {@link XiaomiSocketReactor} for every received datagram.
+     * Passes the data to the listeners for the source address and to the listeners for any address, which are
+     * interested in the message.
+     *
+     * @param address - the source address of the datagram
+     * @param data - the received data
+     */
+    void onDataReceived(InetAddress address, String data) {
+        List<XiaomiSocketListener> listenersForSource = sourceListeners.get(address);
+        if (listenersForSource == null && getListeners().isEmpty()) {
+            logger.trace("No listener for data from {}", address.getHostAddress());
+            return;
+        }
+        logger.debug("Received Datagram from {} on Port {}", address.getHostAddress(), port);
+
+        MessageHeader header = MessageHeader.read(data);
+        if (header == null || header.command == null) {
+            logger.debug("Received invalid message from {}: {}", address.getHostAddress(), data);
+            return;
+        }
+
+        try {
+            JsonObject message = null;
+            if (listenersForSource != null) {
+                message = notifyListeners(listenersForSource, header, data, message);
+            }
+            notifyListeners(getListeners(), header, data, message);
+        } catch (JsonParseException | IllegalStateException e) {
+            logger.debug("Received invalid message from {}: {}", address.getHostAddress(), data);
+        }
+    }
+
+    /**
+     * Passes a message to the interested listeners. The message is parsed, when the first listener is interested.
+     *
+     * @return the parsed message or the given message, if no listener is interested
+     */
+    private JsonObject notifyListeners(List<XiaomiSocketListener> listeners, MessageHeader header, String data,
+            JsonObject message) {
+        for (XiaomiSocketListener listener : listeners) {
+            if (listener.isInterestedIn(header.command, header.sid, header.model)) {
+                if (message == null) {
+                    message = PARSER.parse(data).getAsJsonObject();
+                }
+                listener.onDataReceived(message);
+            }
+        }
+        return message;
+    }
+
     /**
      * @return - the port number of this {@link XiaomiSocket}
      */
@@ -159,15 +274,15 @@ public abstract class XiaomiSocket {
     /**
      * @return - a list of already open sockets
      */
-    public static ConcurrentHashMap<Integer, DatagramSocket> getOpenSockets() {
+    public static ConcurrentHashMap<Integer, DatagramChannel> getOpenSockets() {
         return openSockets;
     }
 
-    protected DatagramSocket getSocket() {
+    protected DatagramChannel getSocket() {
         return socket;
     }
 
-    protected void setSocket(DatagramSocket socket) {
+    protected void setSocket(DatagramChannel socket) {
         this.socket = socket;
     }
 
@@ -176,67 +291,46 @@ public abstract class XiaomiSocket {
     }
 
     /**
-     * The thread, which waits for data on the {@link XiaomiSocket} and handles it, when received
-     *
-     * @author Patrick Boos - Initial contribution
-     * @author Dieter Schmidt - comments and synchronized block for callback instead of copy
-     *
+     * The command, sid and model of a message. They are read from the top level of the message without parsing the
+     * whole message.
      */
-    private class ReceiverThread extends Thread {
-        @Override
-        public void run() {
-            logger.trace("Staring reveicer thread for socket on port {}", getSocket().getLocalPort());
-            receiveData(getSocket(), datagramPacket);
-        }
-
-        /**
-         * This method is the main method of the {@link ReceiverThread} for the {@link XiaomiBridgeSocket}.
-         * If the socket has data, it parses the data to a json object and calls all
-         * {@link XiaomiSocketListener} and passes the data to them.
-         *
-         * @param socket - The multicast socket to listen to
-         * @param dgram - The datagram to receive
-         */
-        private void receiveData(DatagramSocket socket, DatagramPacket dgram) {
-            try {
-                while (true) {
-                    logger.trace("Thread {} waiting for data on port {}", this, socket.getLocalPort());
-                    socket.receive(dgram);
-                    InetAddress address = dgram.getAddress();
-                    logger.debug("Received Datagram from {}:{} on Port {}", address.getHostAddress(), dgram.getPort(),
-                            socket.getLocalPort());
-                    String sentence = new String(dgram.getData(), 0, dgram.getLength());
-                    JsonObject message = PARSER.parse(sentence).getAsJsonObject();
-                    notifyAll(getListeners(), message, address);
-                    logger.trace("Data received and notified {} listeners", getListeners().size());
-                }
-            } catch (IOException e) {
-                if (!isInterrupted()) {
-                    logger.error("Error while receiving", e);
-                } else {
-                    logger.trace("Receiver thread was interrupted");
-                }
-            }
-            logger.debug("Receiver thread ended");
-        }
+    private static class MessageHeader {
+        private String command;
+        private String sid;
+        private String model;
 
         /**
-         * Notifies all {@link XiaomiSocketListener} on the parent {@link XiaomiSocket}. First checks for any matching
-         * {@link XiaomiBridgeHandler}, before passing to any {@link XiaomiBridgeDiscoveryService}.
-         *
-         * @param listeners - a list of all {@link XiaomiSocketListener} to notify
-         * @param message - the data message as {@link JsonObject}
+         * @return the header or null, if the data is not a JSON object
          */
-        synchronized void notifyAll(List<XiaomiSocketListener> listeners, JsonObject message, InetAddress address) {
-            for (XiaomiSocketListener listener : listeners) {
-                if (listener instanceof XiaomiBridgeHandler) {
-                    if (((XiaomiBridgeHandler) listener).getHost().equals(address)) {
-                        listener.onDataReceived(message);
+        static MessageHeader read(String data) {
+            MessageHeader header = new MessageHeader();
+            try (JsonReader reader = new JsonReader(new StringReader(data))) {
+                reader.setLenient(true);
+                reader.beginObject();
+                while (reader.hasNext() && (header.command == null || header.sid == null || header.model == null)) {
+                    String name = reader.nextName();
+                    if (reader.peek() != JsonToken.STRING) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    switch (name) {
+                        case "cmd":
+                            header.command = reader.nextString();
+                            break;
+                        case "sid":
+                            header.sid = reader.nextString();
+                            break;
+                        case "model":
+                            header.model = reader.nextString();
+                            break;
+                        default:
+                            reader.skipValue();
                     }
-                } else if (listener instanceof XiaomiBridgeDiscoveryService) {
-                    listener.onDataReceived(message);
                 }
+            } catch (IOException | IllegalStateException e) {
+                return null;
             }
+            return header;
         }
     }
 }
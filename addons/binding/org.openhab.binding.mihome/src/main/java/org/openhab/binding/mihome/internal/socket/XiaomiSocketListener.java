@@ -23,4 +23,17 @@ public interface XiaomiSocketListener {
      * @param message - The received message in JSON format
      */
     void onDataReceived(JsonObject message);
+
+    /**
+     * Checks, if the listener wants to receive a message. The {@link XiaomiSocket} reads the command, sid and model
+     * of a received message before parsing it, messages which no listener wants are not parsed at all.
+     *
+     * @param command - The command of the message
+     * @param sid - The sid of the message or null, if the message has none
+     * @param model - The model of the message or null, if the message has none
+     * @return true, if {@link #onDataReceived(JsonObject)} shall be called with the message
+     */
+    default boolean isInterestedIn(String command, String sid, String model) {
+        return true;
+    }
 }
@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.mihome.internal.socket;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives the data of all {@link XiaomiSocket}s with a single thread.
+ *
+ * The channels of the sockets are registered with one {@link Selector}. The thread is started, when the first
+ * channel is registered, and ends, when the last channel has been closed. If the selector fails, the open channels
+ * are registered with a new one, so the sockets continue to receive data.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+final class XiaomiSocketReactor implements Runnable {
+
+    private static final int BUFFER_LENGTH = 1024;
+    private static final XiaomiSocketReactor INSTANCE = new XiaomiSocketReactor();
+
+    private final Logger logger = LoggerFactory.getLogger(XiaomiSocketReactor.class);
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_LENGTH);
+    // All open channels and their sockets. The channels are registered with the selector by the reactor thread,
+    // registering from another thread would block during select.
+    private final Map<DatagramChannel, XiaomiSocket> channels = new LinkedHashMap<>();
+
+    private Selector selector;
+    private Thread thread;
+
+    private XiaomiSocketReactor() {
+    }
+
+    static XiaomiSocketReactor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers a channel, so that the received data is passed to the given {@link XiaomiSocket}.
+     *
+     * @param channel - a bound, non-blocking channel
+     * @param socket - the socket, which owns the channel
+     * @throws IOException if the selector cannot be opened
+     */
+    synchronized void register(DatagramChannel channel, XiaomiSocket socket) throws IOException {
+        if (thread == null) {
+            selector = Selector.open();
+            channels.put(channel, socket);
+            thread = new Thread(this, "XiaomiSocketReactor");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            channels.put(channel, socket);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Closes a channel. It is removed from the selector by the reactor thread.
+     *
+     * @param channel - a channel, which has been registered before
+     */
+    synchronized void unregister(DatagramChannel channel) {
+        channels.remove(channel);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Error while closing channel {}", channel, e);
+        }
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * @return the reactor thread or null, if no channel is registered
+     */
+    synchronized Thread getThread() {
+        return thread;
+    }
+
+    @Override
+    public void run() {
+        Selector selector;
+        synchronized (this) {
+            selector = this.selector;
+        }
+        logger.debug("Reactor thread started");
+        try {
+            while (selector != null) {
+                synchronized (this) {
+                    if (channels.isEmpty()) {
+                        thread = null;
+                        this.selector = null;
+                        break;
+                    }
+                    registerChannels(selector);
+                }
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    logger.error("Error in reactor thread, the channels are registered with a new selector", e);
+                    selector = replaceSelector(selector);
+                    continue;
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isReadable()) {
+                        receiveData(key);
+                    }
+                }
+            }
+        } finally {
+            closeSelector(selector);
+        }
+        logger.debug("Reactor thread ended");
+    }
+
+    /**
+     * Registers the channels, which are not registered with the selector yet
+     */
+    private void registerChannels(Selector selector) {
+        for (Iterator<Map.Entry<DatagramChannel, XiaomiSocket>> it = channels.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<DatagramChannel, XiaomiSocket> registration = it.next();
+            if (registration.getKey().keyFor(selector) != null) {
+                continue;
+            }
+            try {
+                registration.getKey().register(selector, SelectionKey.OP_READ, registration.getValue());
+            } catch (IOException e) {
+                logger.error("Could not register channel {}", registration.getKey(), e);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Closes a failed selector and opens a new one. The channels are registered with it in the next loop.
+     *
+     * @return the new selector or null, if it cannot be opened. The thread ends then and is started again with the
+     *         next registered channel.
+     */
+    private synchronized Selector replaceSelector(Selector failedSelector) {
+        closeSelector(failedSelector);
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            logger.error("Could not open a new selector, no data is received until a socket is set up again", e);
+            thread = null;
+            selector = null;
+        }
+        return selector;
+    }
+
+    private void closeSelector(Selector selector) {
+        if (selector == null) {
+            return;
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Error while closing selector", e);
+        }
+    }
+
+    /**
+     * Reads all pending datagrams of a channel and passes them to the owning {@link XiaomiSocket}
+     */
+    private void receiveData(SelectionKey key) {
+        DatagramChannel channel = (DatagramChannel) key.channel();
+        XiaomiSocket socket = (XiaomiSocket) key.attachment();
+        try {
+            while (true) {
+                buffer.clear();
+                SocketAddress source = channel.receive(buffer);
+                if (source == null) {
+                    return;
+                }
+                buffer.flip();
+                String data = StandardCharsets.UTF_8.decode(buffer).toString();
+                try {
+                    socket.onDataReceived(((InetSocketAddress) source).getAddress(), data);
+                } catch (RuntimeException e) {
+                    logger.error("Error while handling data {}", data, e);
+                }
+            }
+        } catch (IOException e) {
+            // The channel stays registered, the next datagram is received again
+            if (channel.isOpen()) {
+                logger.error("Error while receiving", e);
+            }
+        }
+    }
+}
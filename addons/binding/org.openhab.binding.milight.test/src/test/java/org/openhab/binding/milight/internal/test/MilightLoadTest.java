@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.milight.internal.test;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.milight.internal.MilightThingState;
+import org.openhab.binding.milight.internal.protocol.MilightV6;
+import org.openhab.binding.milight.internal.protocol.MilightV6RGB_CW_WW;
+import org.openhab.binding.milight.internal.protocol.MilightV6RGB_W;
+import org.openhab.binding.milight.internal.protocol.MilightV6SessionManager;
+import org.openhab.binding.milight.internal.protocol.MilightV6SessionManager.ISessionState;
+import org.openhab.binding.milight.internal.protocol.MilightV6SessionManager.SessionState;
+import org.openhab.binding.milight.internal.protocol.QueuedSend;
+
+/**
+ * Moves a brightness "slider" on all bulbs of several emulated V6 bridges and checks, that every bridge receives the
+ * final brightness of every bulb, while fewer packets are sent than brightness commands are issued.
+ *
+ * All bridges are emulated on the loopback interface and share one send scheduler, like the send queues of the
+ * bridges share the thread pool of the binding.
+ *
+ * @author agent - Initial contribution
+ */
+public class MilightLoadTest {
+    private static final String BRIDGE_ID = "ACCF23F57AD4";
+    private static final int BRIDGES = 2;
+    private static final int SLIDER_STEP = 5;
+    private static final int SLIDER_STEP_DELAY_MS = 25;
+    private static final long TIMEOUT_MS = 10000;
+
+    private static class Bulb {
+        final MilightV6 bulb;
+        final MilightThingState state = new MilightThingState();
+        final int remoteStyle;
+        final int zone;
+        final int brightnessCommand;
+
+        Bulb(MilightV6 bulb, int remoteStyle, int zone, int brightnessCommand) {
+            this.bulb = bulb;
+            this.remoteStyle = remoteStyle;
+            this.zone = zone;
+            this.brightnessCommand = brightnessCommand;
+        }
+    }
+
+    private static class Bridge {
+        EmulatedV6Bridge emulation;
+        QueuedSend sendQueue;
+        MilightV6SessionManager session;
+        final List<Bulb> bulbs = new ArrayList<>();
+        volatile boolean sessionValid = false;
+
+        boolean hasFinalBrightness(int brightness) {
+            for (Bulb bulb : bulbs) {
+                EmulatedV6Bridge.LightCommand command = emulation.getLastLightCommand(bulb.remoteStyle, bulb.zone,
+                        bulb.brightnessCommand);
+                if (command == null || command.value != brightness) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private ScheduledExecutorService scheduler;
+    private final List<Bridge> bridges = new ArrayList<>();
+
+    @Before
+    public void setUp() throws SocketException {
+        scheduler = Executors.newScheduledThreadPool(2);
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+
+        for (int i = 0; i < BRIDGES; ++i) {
+            final Bridge bridge = new Bridge();
+            bridges.add(bridge);
+            bridge.emulation = new EmulatedV6Bridge(0);
+            bridge.sendQueue = new QueuedSend(scheduler);
+            bridge.sendQueue.setAddress(loopback);
+            bridge.sendQueue.setPort(bridge.emulation.getPort());
+            bridge.sendQueue.start();
+            bridge.session = new MilightV6SessionManager(bridge.sendQueue, BRIDGE_ID, scheduler, new ISessionState() {
+                @Override
+                public void sessionStateChanged(SessionState state) {
+                    bridge.sessionValid = state == SessionState.SESSION_VALID;
+                }
+            }, loopback);
+            for (int zone = 1; zone <= 4; ++zone) {
+                bridge.bulbs.add(new Bulb(new MilightV6RGB_W(bridge.sendQueue, bridge.session, zone), 0x07, zone, 2));
+            }
+            for (int zone = 1; zone <= 2; ++zone) {
+                bridge.bulbs
+                        .add(new Bulb(new MilightV6RGB_CW_WW(bridge.sendQueue, bridge.session, zone), 0x08, zone, 3));
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (Bridge bridge : bridges) {
+            if (bridge.session != null) {
+                bridge.session.dispose();
+            }
+            if (bridge.sendQueue != null) {
+                bridge.sendQueue.dispose();
+            }
+            if (bridge.emulation != null) {
+                bridge.emulation.dispose();
+            }
+        }
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void sliderMovementArrivesCoalesced() throws InterruptedException {
+        for (Bridge bridge : bridges) {
+            long start = System.currentTimeMillis();
+            while (!bridge.sessionValid) {
+                assertTrue("No session established with emulated bridge on port " + bridge.emulation.getPort(),
+                        System.currentTimeMillis() - start < TIMEOUT_MS);
+                Thread.sleep(10);
+            }
+        }
+
+        int commands = 0;
+        for (int brightness = SLIDER_STEP; brightness <= 100; brightness += SLIDER_STEP) {
+            for (Bridge bridge : bridges) {
+                for (Bulb bulb : bridge.bulbs) {
+                    bulb.bulb.setBrightness(brightness, bulb.state);
+                    ++commands;
+                }
+            }
+            Thread.sleep(SLIDER_STEP_DELAY_MS);
+        }
+
+        int received = 0;
+        for (Bridge bridge : bridges) {
+            long start = System.currentTimeMillis();
+            while (!bridge.hasFinalBrightness(100)) {
+                assertTrue("Final brightness not received by bridge on port " + bridge.emulation.getPort(),
+                        System.currentTimeMillis() - start < TIMEOUT_MS);
+                Thread.sleep(1);
+            }
+            received += bridge.emulation.getLightCommandCount();
+        }
+        assertTrue("Expected fewer packets than the " + commands + " issued commands, but " + received
+                + " packets were received", received < commands);
+    }
+}
@@ -47,7 +47,7 @@ import org.slf4j.LoggerFactory;
  * @author David Graeff <david.graeff@web.de>
  * @since 2.1
  */
-public class MilightV6SessionManager implements Runnable {
+public class MilightV6SessionManager implements Runnable, QueuedSend.SendListener {
     protected final Logger logger = LoggerFactory.getLogger(MilightV6SessionManager.class);
 
     // The used sequence number for a command will be present in the response of the iBox. This
@@ -100,8 +100,9 @@ public class MilightV6SessionManager implements Runnable {
     private long lastSessionConfirmed = 0;
     // Quits the receive thread if set to true
     private boolean willbeclosed = false;
-    // Keep track of send commands and their sequence number
-    private Map<Byte, Long> used_sequence_no = new TreeMap<Byte, Long>();
+    // Keep track of send commands and their sequence number. The time is the send time of the command, the round trip
+    // time of the confirmation is used by the send queue to adapt the delay between commands.
+    private final Map<Byte, Long> used_sequence_no = new TreeMap<Byte, Long>();
     // The receive thread for all bridge responses.
     private Thread sessionThread;
 
@@ -146,6 +147,7 @@ public class MilightV6SessionManager implements Runnable {
         for (int i = 0; i < 6; ++i) {
             BRIDGE_MAC[i] = Integer.valueOf(bridgeId.substring(i * 2, i * 2 + 2), 16).byteValue();
         }
+        sendQueue.setSendListener(this);
         sessionThread = new Thread(this, "SessionThread");
         sessionThread.start();
     }
@@ -193,30 +195,50 @@ public class MilightV6SessionManager implements Runnable {
         return lastSessionConfirmed;
     }
 
-    // Get the first byte of a new sequence number. Add that to a queue of used sequence numbers.
-    // The bridge response will remove the queued number. This method also checks
-    // for non confirmed sequence numbers older that 2 seconds and report them.
+    // Get the first byte of a new sequence number.
     public byte getNextSequenceNo1() {
         return fixed_seq_no;
     }
 
-    // Get the second byte of a new sequence number. Add that to a queue of used sequence numbers.
-    // The bridge response will remove the queued number. This method also checks
-    // for non confirmed sequence numbers older that 2 seconds and report them.
+    // Get the second byte of a new sequence number. The number is added to the used sequence numbers
+    // when the command is actually sent, see {@link #packetSent(byte[])}.
     byte getNextSequenceNo2() {
         byte t = sequence_no;
+        ++sequence_no;
+        return t;
+    }
+
+    /**
+     * Add the sequence number of a sent command to a queue of used sequence numbers.
+     * The bridge response will remove the queued number. This method also checks
+     * for non confirmed sequence numbers older that 2 seconds and report them.
+     */
+    @Override
+    public void packetSent(byte[] data) {
+        // 80 00 00 00 11 SID1 SID2 SN SN ...: Registration and light commands with a sequence number
+        if (data.length < 9 || data[0] != (byte) 0x80 || data[4] != 0x11) {
+            return;
+        }
         long current = System.currentTimeMillis();
-        used_sequence_no.put(t, current);
-        // Check old seq no:
-        for (Iterator<Map.Entry<Byte, Long>> it = used_sequence_no.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<Byte, Long> entry = it.next();
-            if (entry.getValue() + 2000 < current) {
-                logger.warn("Command not confirmed: {}", entry.getKey());
-                it.remove();
+        boolean lost = false;
+        synchronized (used_sequence_no) {
+            // A repeated command keeps the time of its first transmission
+            if (!used_sequence_no.containsKey(data[8])) {
+                used_sequence_no.put(data[8], current);
+            }
+            // Check old seq no:
+            for (Iterator<Map.Entry<Byte, Long>> it = used_sequence_no.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Byte, Long> entry = it.next();
+                if (entry.getValue() + 2000 < current) {
+                    logger.warn("Command not confirmed: {}", entry.getKey());
+                    it.remove();
+                    lost = true;
+                }
             }
         }
-        ++sequence_no;
-        return t;
+        if (lost) {
+            sendQueue.reportLostCommand();
+        }
     }
 
     // You have to call that if you are done with this object, we have to clean up
@@ -224,6 +246,9 @@ public class MilightV6SessionManager implements Runnable {
     public void dispose() {
         willbeclosed = true;
         scheduler = null;
+        if (sendQueue.getSendListener() == this) {
+            sendQueue.setSendListener(null);
+        }
         if (sessionThread != null) {
             try {
                 sessionThread.join(100);
@@ -515,8 +540,14 @@ public class MilightV6SessionManager implements Runnable {
                         break;
                     }
                     // 88 00 00 00 03 SN SN 00 // two byte sequence number, we use the later one only
-                    case (byte) 0x88:
-                        used_sequence_no.remove(buffer[6]);
+                    case (byte) 0x88: {
+                        Long sendTime;
+                        synchronized (used_sequence_no) {
+                            sendTime = used_sequence_no.remove(buffer[6]);
+                        }
+                        if (sendTime != null) {
+                            sendQueue.reportRoundTripTime(System.currentTimeMillis() - sendTime);
+                        }
                         if (buffer[07] == 0) {
                             if (DEBUG_SESSION) {
                                 logger.debug("Confirmation received for command: {}", String.valueOf(buffer[6]));
@@ -525,6 +556,7 @@ public class MilightV6SessionManager implements Runnable {
                             logger.info("Bridge reports an invalid command: {}", String.valueOf(buffer[6]));
                         }
                         break;
+                    }
                     // D8 00 00 00 07 (AC CF 23 F5 7A D4) 01
                     // Response to the keepAlive() packet
                     case (byte) 0xD8: {
@@ -13,10 +13,13 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.util.Iterator;
-import java.util.NoSuchElementException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,48 +30,108 @@ import org.slf4j.LoggerFactory;
  * delay only. The user may issue absolute brightness or color changes faster than 1/10s though, and we don't
  * want to just queue up those commands but apply the newest command only.
  *
+ * The id incorporates the zone, bulb type and command category (see {@link AbstractBulbInterface#uidc(int)}), so
+ * only the latest command per zone and category is kept. The queues of all bridges are processed on a shared
+ * scheduler instead of a sleeping thread per bridge: After a command has been sent, the next one is scheduled
+ * after the delay between commands. A bridge that confirms commands (V6) can report the round trip time of the
+ * confirmations, the delay is then adapted to the bridge, but never exceeds the configured delay.
+ *
  * @author David Graeff <david.graeff@web.de>
  * @since 2.1
  *
  */
-public class QueuedSend implements Runnable {
+public class QueuedSend {
     private final Logger logger = LoggerFactory.getLogger(QueuedSend.class);
 
-    BlockingQueue<QueueItem> queue = new LinkedBlockingQueue<>(20);
+    /**
+     * Name of the thread pool, that is shared by the send queues of all bridges
+     */
+    public static final String THREAD_POOL_NAME = "milight";
+
+    private static final int MAX_QUEUED_ITEMS = 20;
+    // The adaptive delay between commands is never lower than this, in ms
+    private static final int MIN_ADAPTIVE_DELAY = 20;
+    // The adaptive delay is this multiple of the round trip time of a confirmation
+    private static final int ROUND_TRIP_TIME_FACTOR = 2;
+    // Weight of a new measurement in the smoothed round trip time
+    private static final double ROUND_TRIP_TIME_SMOOTHING = 0.2;
+
+    // Queued items in send order. A categorised item is stored with its unique command id as key, so that a newer
+    // item replaces it without a scan of the queue. Non-categorised items are stored with a key of their own.
+    private final Map<Object, QueueItem> queue = new LinkedHashMap<>();
     protected final DatagramPacket packet;
     protected final DatagramSocket datagramSocket;
+    private final ScheduledExecutorService scheduler;
     private int delay_between_commands = 100;
     private int repeat_commands = 1;
-    private boolean willbeclosed = false;
-    private Thread thread;
+    private boolean willbeclosed = true;
+    // True while items are sent or a send is scheduled
+    private boolean busy = false;
+    // The command chain, that is currently processed
+    private QueueItem current;
+    private ScheduledFuture<?> sendTask;
+    // Incremented by dispose(), so that a send that is still running does not continue after a restart
+    private int generation = 0;
+    // Smoothed round trip time of confirmed commands in ms, negative if unknown
+    private double roundTripTime = -1;
+    private volatile SendListener sendListener;
 
     public static final byte NO_CATEGORY = 0;
 
     /**
-     * Creates a new send queue and starts the background thread. Call setAddress and
+     * Implement this interface to get notified about every sent packet, e.g. to track command confirmations.
+     */
+    public interface SendListener {
+        void packetSent(byte[] data);
+    }
+
+    /**
+     * Creates a new send queue, that uses the shared milight thread pool. Call setAddress and
      * setPort before using any of the queue commands.
      *
      * @throws SocketException
      */
     public QueuedSend() throws SocketException {
+        this(ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME));
+    }
+
+    /**
+     * Creates a new send queue. Call setAddress and setPort before using any of the queue commands.
+     *
+     * @param scheduler The scheduler, that sends the queued items. It can be shared by many queues.
+     * @throws SocketException
+     */
+    public QueuedSend(ScheduledExecutorService scheduler) throws SocketException {
         byte[] a = new byte[0];
         packet = new DatagramPacket(a, a.length);
         datagramSocket = new DatagramSocket();
+        this.scheduler = scheduler;
     }
 
     /**
-     * Start the send thread of this queue. Call dispose() to quit the thread.
+     * Start sending the queued items. Call dispose() to stop sending.
      */
-    public void start() {
+    public synchronized void start() {
         willbeclosed = false;
-        thread = new Thread(this);
-        thread.start();
+        scheduleIfIdle();
     }
 
     public int getDelayBetweenCommands() {
         return delay_between_commands;
     }
 
+    /**
+     * Return the delay between two commands, that is currently used. It is adapted to the round trip time of command
+     * confirmations, if these are reported, and is the configured delay otherwise.
+     */
+    public synchronized int getEffectiveDelayBetweenCommands() {
+        if (roundTripTime < 0) {
+            return delay_between_commands;
+        }
+        int adaptiveDelay = Math.max(MIN_ADAPTIVE_DELAY, (int) (ROUND_TRIP_TIME_FACTOR * roundTripTime));
+        return Math.min(delay_between_commands, adaptiveDelay);
+    }
+
     public int getRepeatCommands() {
         return repeat_commands;
     }
@@ -84,78 +147,138 @@ public class QueuedSend implements Runnable {
     }
 
     /**
-     * The queue process
+     * Report the time between sending a command and receiving its confirmation by the bridge.
+     *
+     * @param ms Round trip time in ms
      */
-    @Override
-    public void run() {
-        QueueItem item = null;
-        while (!willbeclosed) {
-            // If the command belongs to a chain of commands, get the next command now.
-            if (item != null && item.next != null) {
-                item = item.next;
-            } else {
-                try {
-                    // block/wait for another item
-                    item = queue.take();
-                } catch (InterruptedException e) {
-                    if (!willbeclosed) {
-                        logger.error("Queue take failed: {}", e.getLocalizedMessage());
-                    }
-                    break;
-                }
-            }
+    public synchronized void reportRoundTripTime(long ms) {
+        if (roundTripTime < 0) {
+            roundTripTime = ms;
+        } else {
+            roundTripTime += (ms - roundTripTime) * ROUND_TRIP_TIME_SMOOTHING;
+        }
+    }
+
+    /**
+     * Report a command, that has not been confirmed by the bridge. The configured delay between commands is used
+     * again, until new confirmations are reported.
+     */
+    public synchronized void reportLostCommand() {
+        roundTripTime = -1;
+    }
+
+    public void setSendListener(SendListener sendListener) {
+        this.sendListener = sendListener;
+    }
+
+    public SendListener getSendListener() {
+        return sendListener;
+    }
 
-            if (item == null || item.unique_command_id == QueueItem.INVALID) {
-                // Just in case it is a command chain, set the item to null to not process any chained commands.
-                item = null;
-                continue;
+    /**
+     * Schedule sending the next item, if nothing is sent or scheduled at the moment
+     */
+    private void scheduleIfIdle() {
+        if (!busy && !willbeclosed && (current != null || !queue.isEmpty())) {
+            busy = true;
+            scheduleSend(0);
+        }
+    }
+
+    /**
+     * Schedule sending the next item of the current generation of this queue. Must be called with the lock held.
+     */
+    private void scheduleSend(int delay) {
+        final int sendGeneration = generation;
+        sendTask = scheduler.schedule(() -> sendNext(sendGeneration), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the next item to be send. If the current command belongs to a chain of commands, this is the next command
+     * of the chain, otherwise the oldest item of the queue.
+     */
+    private QueueItem nextItem() {
+        if (current != null && current.next != null) {
+            current = current.next;
+            return current;
+        }
+        Iterator<QueueItem> iterator = queue.values().iterator();
+        if (iterator.hasNext()) {
+            current = iterator.next();
+            iterator.remove();
+        } else {
+            current = null;
+        }
+        return current;
+    }
+
+    /**
+     * Send the next item and schedule the following one after the delay between commands. Called by the scheduler.
+     *
+     * @param sendGeneration The generation of the queue, this send has been scheduled for. A send of a disposed
+     *            generation does nothing, even if the queue has been started again meanwhile.
+     */
+    private void sendNext(int sendGeneration) {
+        QueueItem item;
+        synchronized (this) {
+            if (sendGeneration != generation) {
+                return;
+            }
+            sendTask = null;
+            item = willbeclosed ? null : nextItem();
+            if (item == null) {
+                busy = false;
+                return;
             }
+        }
 
+        try {
             packet.setData(item.data);
-            try {
-                for (int i = 0; i < (item.repeatable ? repeat_commands : 1); ++i) {
-                    datagramSocket.send(packet);
-
-                    if (logger.isDebugEnabled()) {
-                        StringBuilder s = new StringBuilder();
-                        for (int c = 0; c < item.data.length; ++c) {
-                            s.append(String.format("%02X ", item.data[c]));
-                        }
-                        logger.debug("Sent packet '{}' to bridge {}", s.toString(),
-                                packet.getAddress().getHostAddress());
+            for (int i = 0; i < (item.repeatable ? repeat_commands : 1); ++i) {
+                datagramSocket.send(packet);
+
+                if (logger.isDebugEnabled()) {
+                    StringBuilder s = new StringBuilder();
+                    for (int c = 0; c < item.data.length; ++c) {
+                        s.append(String.format("%02X ", item.data[c]));
                     }
+                    logger.debug("Sent packet '{}' to bridge {}", s.toString(), packet.getAddress().getHostAddress());
                 }
-
-            } catch (Exception e) {
-                logger.error("Failed to send Message to '{}': {}", packet.getAddress().getHostAddress(),
-                        e.getMessage());
             }
-
-            try {
-                Thread.sleep((item.custom_delay_time != 0) ? item.custom_delay_time : delay_between_commands);
-            } catch (InterruptedException e) {
-                if (!willbeclosed) {
-                    logger.error("Queue sleep failed: {}", e.getLocalizedMessage());
-                }
-                break;
+            SendListener listener = sendListener;
+            if (listener != null) {
+                listener.packetSent(item.data);
             }
+        } catch (Exception e) {
+            logger.error("Failed to send Message to '{}': {}", packet.getAddress().getHostAddress(), e.getMessage());
         }
 
+        synchronized (this) {
+            if (sendGeneration != generation) {
+                // The queue has been disposed meanwhile, a restart already scheduled a send of its own
+                return;
+            }
+            if (willbeclosed) {
+                busy = false;
+                return;
+            }
+            int delay = (item.custom_delay_time != 0) ? item.custom_delay_time : getEffectiveDelayBetweenCommands();
+            scheduleSend(delay);
+        }
     }
 
     /**
-     * Once disposed, this object can't be reused anymore.
+     * Stop sending. Queued items are kept and send after the next call of start().
      */
-    public void dispose() {
+    public synchronized void dispose() {
         willbeclosed = true;
-        if (thread != null) {
-            try {
-                thread.join(delay_between_commands);
-            } catch (InterruptedException e) {
-            }
-            thread.interrupt();
+        ++generation;
+        if (sendTask != null) {
+            sendTask.cancel(false);
+            sendTask = null;
         }
-        thread = null;
+        busy = false;
+        current = null;
     }
 
     public void setRepeatTimes(int times) {
@@ -163,29 +286,19 @@ public class QueuedSend implements Runnable {
     }
 
     /**
-     * Mark all commands in the queue invalid that have the same unique id as the given one. This does not synchronise
-     * with the sender thread. If an element has been started to being processed, this method has no more effect on that
-     * element. Command chains are always executed in a row. Even if the head of the command queue has been marked
-     * as invalid, if the processing has been started, the chain will be processed completely.
-     *
-     * @param unique_command_id
-     */
-    private void remove_from_queue(int unique_command_id) {
-        Iterator<QueueItem> iterator = queue.iterator();
-        while (iterator.hasNext()) {
-            try {
-                QueueItem item = iterator.next();
-                if (item != null && item.unique_command_id == unique_command_id) {
-                    item.unique_command_id = QueueItem.INVALID; // invalidate
-                }
-            } catch (IllegalStateException e) {
-                // Ignore threading errors
-                logger.error("{}", e.getLocalizedMessage());
-            } catch (NoSuchElementException e) {
-                // The element might have been processed already while iterate.
-                // Ignore NoSuchElementException here.
-            }
+     * Add an item to the queue. A queued item with the same unique id is replaced, the new item is added to the end
+     * of the queue. If a chain of commands with that id has been started to be processed, the chain will be processed
+     * completely.
+     */
+    private synchronized void add(QueueItem item) {
+        Object key = item.unique_command_id != NO_CATEGORY ? Integer.valueOf(item.unique_command_id) : new Object();
+        queue.remove(key);
+        if (queue.size() >= MAX_QUEUED_ITEMS) {
+            logger.debug("Send queue to bridge {} is full, the command is dropped", packet.getAddress());
+            return;
         }
+        queue.put(key, item);
+        scheduleIfIdle();
     }
 
     /**
@@ -202,13 +315,12 @@ public class QueuedSend implements Runnable {
      * @param data Data to be send
      */
     public void queueRepeatable(int unique_command_id, byte[]... data) {
-        remove_from_queue(unique_command_id);
         QueueItem item = QueueItem.createRepeatable(unique_command_id, data[0]);
         QueueItem next = item;
         for (int i = 1; i < data.length; ++i) {
             next = next.addRepeatable(data[i]);
         }
-        queue.offer(item);
+        add(item);
     }
 
     /**
@@ -220,10 +332,7 @@ public class QueuedSend implements Runnable {
      * @param item A queue item, cannot be null.
      */
     public void queue(QueueItem item) {
-        if (item.unique_command_id != NO_CATEGORY) {
-            remove_from_queue(item.unique_command_id);
-        }
-        queue.offer(item);
+        add(item);
     }
 
     public InetAddress getAddr() {
@@ -12,8 +12,12 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.openhab.binding.milight.MilightBindingConstants;
 import org.slf4j.Logger;
@@ -88,6 +92,28 @@ public class EmulatedV6Bridge {
     private byte[] KEEP_ALIVE_RESPONSE = { (byte) 0xD8, 0, 0, 0, (byte) 0x07, FAKE_MAC[0], FAKE_MAC[1], FAKE_MAC[2],
             FAKE_MAC[3], FAKE_MAC[4], FAKE_MAC[5], 1 };
 
+    // The control socket. Created by runBrigde() if not created by the constructor.
+    private DatagramSocket bridgeSocket;
+
+    // Number of received light commands (including repeated packets)
+    private final AtomicInteger lightCommandCount = new AtomicInteger();
+
+    // The last received value and its receive time for each remote style, zone and light command byte
+    private final Map<Integer, LightCommand> lastLightCommands = new ConcurrentHashMap<>();
+
+    /**
+     * The last value of a light command, that has been received by the bridge
+     */
+    public static class LightCommand {
+        public final byte value;
+        public final long receivedNanos;
+
+        LightCommand(byte value, long receivedNanos) {
+            this.value = value;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+
     EmulatedV6Bridge() {
         new Thread(new Runnable() {
             @Override
@@ -103,6 +129,63 @@ public class EmulatedV6Bridge {
         }).start();
     }
 
+    /**
+     * Creates a bridge on the given control port without the discovery service. This allows to run several
+     * emulated bridges on one host, e.g. for load tests.
+     *
+     * @param port The control port or 0 for any free port. See {@link #getPort()}.
+     * @throws SocketException If the port cannot be opened
+     */
+    public EmulatedV6Bridge(int port) throws SocketException {
+        bridgeSocket = new DatagramSocket(port);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runBrigde();
+            }
+        }, "EmulatedV6Bridge " + bridgeSocket.getLocalPort()).start();
+    }
+
+    /**
+     * Return the control port of this bridge, if it has been created with {@link #EmulatedV6Bridge(int)}
+     */
+    public int getPort() {
+        return bridgeSocket.getLocalPort();
+    }
+
+    /**
+     * Stop the bridge and close the control socket, if it has been created with {@link #EmulatedV6Bridge(int)}
+     */
+    public void dispose() {
+        willbeclosed = true;
+        if (bridgeSocket != null) {
+            bridgeSocket.close();
+        }
+    }
+
+    /**
+     * Return the number of received light commands
+     */
+    public int getLightCommandCount() {
+        return lightCommandCount.get();
+    }
+
+    /**
+     * Return the last received value of a light command
+     *
+     * @param remoteStyle The remote style byte, e.g. 0x07 for RGBW and 0x08 for RGBWW bulbs
+     * @param zone The zone
+     * @param command The light command byte, e.g. the brightness command of the bulb type
+     * @return The last received value or null, if the command has not been received yet
+     */
+    public LightCommand getLastLightCommand(int remoteStyle, int zone, int command) {
+        return lastLightCommands.get(lightCommandKey(remoteStyle, zone, command));
+    }
+
+    private static int lightCommandKey(int remoteStyle, int zone, int command) {
+        return ((remoteStyle & 0xff) << 16) | ((zone & 0xff) << 8) | (command & 0xff);
+    }
+
     private void replaceWithMac(byte data[], int offset) {
         data[offset + 0] = FAKE_MAC[0];
         data[offset + 1] = FAKE_MAC[1];
@@ -155,7 +238,10 @@ public class EmulatedV6Bridge {
         try {
             byte[] a = new byte[0];
             DatagramPacket s_packet = new DatagramPacket(a, a.length);
-            DatagramSocket datagramSocket = new DatagramSocket(MilightBindingConstants.PORT_VER6);
+            if (bridgeSocket == null) {
+                bridgeSocket = new DatagramSocket(MilightBindingConstants.PORT_VER6);
+            }
+            DatagramSocket datagramSocket = bridgeSocket;
 
             debug_session("EmulatedV6Bridge control thread ready");
             byte[] buffer = new byte[1024];
@@ -284,6 +370,10 @@ public class EmulatedV6Bridge {
                                 continue;
                             }
 
+                            lightCommandCount.incrementAndGet();
+                            lastLightCommands.put(lightCommandKey(buffer[13], buffer[19], buffer[14]),
+                                    new LightCommand(buffer[15], System.nanoTime()));
+
                             StringBuilder debugStr = new StringBuilder();
                             if (buffer[13] == 0x08) {
                                 debugStr.append("RGBWW ");
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.openhab.binding.network.internal.PresenceDetectionEngine.ProbeStatistics;
+
+/**
+ * Tests cases for {@see PresenceDetectionEngine}
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionEngineTest {
+
+    @Test
+    public void staggeredStartDelayTest() {
+        PresenceDetectionEngine engine = new PresenceDetectionEngine();
+        final long interval = 3 * PresenceDetectionEngine.STAGGER_STEP_IN_MS;
+
+        assertThat(engine.nextStartDelay(interval), is(0L));
+        assertThat(engine.nextStartDelay(interval), is(PresenceDetectionEngine.STAGGER_STEP_IN_MS));
+        assertThat(engine.nextStartDelay(interval), is(2 * PresenceDetectionEngine.STAGGER_STEP_IN_MS));
+        // Wrapped around at the refresh interval
+        assertThat(engine.nextStartDelay(interval), is(0L));
+        assertThat(engine.nextStartDelay(0), is(0L));
+    }
+
+    @Test
+    public void probeStatisticsTest() {
+        PresenceDetectionEngine engine = new PresenceDetectionEngine();
+
+        engine.recordProbe(PresenceDetectionType.ICMP_PING, true, 10);
+        engine.recordProbe(PresenceDetectionType.ICMP_PING, true, 20);
+        engine.recordProbe(PresenceDetectionType.ICMP_PING, false, 0);
+
+        ProbeStatistics icmp = engine.getStatistics(PresenceDetectionType.ICMP_PING);
+        assertThat(icmp.getProbes(), is(3L));
+        assertThat(icmp.getSuccessfulProbes(), is(2L));
+        assertThat(icmp.getAverageLatency(), is(15.0));
+
+        ProbeStatistics arp = engine.getStatistics(PresenceDetectionType.ARP_PING);
+        assertThat(arp.getProbes(), is(0L));
+        assertThat(arp.getAverageLatency(), is(0.0));
+    }
+}
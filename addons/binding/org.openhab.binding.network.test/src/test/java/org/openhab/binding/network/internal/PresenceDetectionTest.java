@@ -139,7 +139,7 @@ public class PresenceDetectionTest {
                 anyObject(), anyInt());
         doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
 
-        doReturn(executorService).when(subject).getThreadsFor(anyInt());
+        doReturn(executorService).when(subject).getThreads();
 
         // We expect no valid value
         assertTrue(subject.cache.isExpired());
@@ -173,6 +173,31 @@ public class PresenceDetectionTest {
         verify(callback, times(2)).accept(anyObject());
     }
 
+    @Test
+    public void passiveDetectionTest() throws InterruptedException, IOException {
+        subject.passivePresenceIndex = new PassivePresenceIndex();
+        subject.setUseDhcpSniffing(true);
+        subject.setRefreshInterval(60000);
+
+        // Not seen yet, the active checks are performed
+        assertFalse(subject.performPassiveDetection());
+
+        subject.passivePresenceIndex.recordSeen("127.0.0.1", PresenceDetectionType.ARP_CACHE);
+        assertTrue(subject.performPresenceDetection(false));
+        assertNull(subject.executorService);
+        verify(subject, times(0)).performSystemPing();
+
+        ArgumentCaptor<PresenceDetectionValue> capture = ArgumentCaptor.forClass(PresenceDetectionValue.class);
+        verify(listener, times(1)).finalDetectionResult(capture.capture());
+        assertTrue(capture.getValue().isReachable());
+        assertThat(capture.getValue().getSuccessfulDetectionTypes(), is("ARP_CACHE"));
+
+        // A sighting older than the refresh interval is not used
+        subject.passivePresenceIndex.recordSeen("127.0.0.1", PresenceDetectionType.DHCP_REQUEST,
+                System.currentTimeMillis() - 60001);
+        assertFalse(subject.performPassiveDetection());
+    }
+
     @Test
     public void reuseValueTests() throws InterruptedException, IOException {
         final long START_TIME = 1000L;
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.arp;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@see ArpCacheReader}
+ *
+ * @author agent - Initial contribution
+ */
+public class ArpCacheReaderTest {
+    static final String HEADER = "IP address       HW type     Flags       HW address            Mask     Device\n";
+
+    private static BufferedReader arpCache(String... entries) {
+        StringBuilder b = new StringBuilder(HEADER);
+        for (String entry : entries) {
+            b.append(entry).append('\n');
+        }
+        return new BufferedReader(new StringReader(b.toString()));
+    }
+
+    @Test
+    public void reportChangedEntries() throws IOException {
+        ArpCacheReader reader = new ArpCacheReader();
+
+        // The first read only establishes the baseline
+        assertThat(reader.read(arpCache("192.168.0.1      0x1         0x2         a0:b1:c2:d3:e4:01     *        eth0",
+                "192.168.0.2      0x1         0x0         00:00:00:00:00:00     *        eth0")),
+                is(Collections.emptyList()));
+
+        // 192.168.0.2 got resolved, 192.168.0.3 is new, 192.168.0.1 did not change
+        assertThat(reader.read(arpCache("192.168.0.1      0x1         0x2         a0:b1:c2:d3:e4:01     *        eth0",
+                "192.168.0.2      0x1         0x2         a0:b1:c2:d3:e4:02     *        eth0",
+                "192.168.0.3      0x1         0x2         a0:b1:c2:d3:e4:03     *        eth0")),
+                is(Arrays.asList("192.168.0.2", "192.168.0.3")));
+
+        // 192.168.0.1 got a new hardware address, 192.168.0.3 is incomplete again
+        assertThat(reader.read(arpCache("192.168.0.1      0x1         0x2         a0:b1:c2:d3:e4:11     *        eth0",
+                "192.168.0.2      0x1         0x2         a0:b1:c2:d3:e4:02     *        eth0",
+                "192.168.0.3      0x1         0x0         00:00:00:00:00:00     *        eth0")),
+                is(Arrays.asList("192.168.0.1")));
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.openhab.binding.network.internal.discovery.NetworkScanner.AddressRange;
+
+/**
+ * Tests cases for {@see NetworkScanner}
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkScannerTest {
+    private static final int LOCALHOST = 0x7F000001;
+
+    @Test
+    public void addressRangesTest() {
+        List<AddressRange> ranges = NetworkScanner
+                .getAddressRanges(Arrays.asList("10.1.2.3/20", "10.1.5.6/20", "192.168.0.7/24", "fe80::1/64"), 0);
+
+        // The duplicate /20 network and the IPv6 network are dropped
+        assertThat(ranges.size(), is(2));
+        assertThat(NetworkScanner.getAddressCount(ranges), is(4094L + 254L));
+        assertTrue(NetworkScanner.contains(ranges, "10.1.0.1"));
+        assertTrue(NetworkScanner.contains(ranges, "10.1.15.254"));
+        assertFalse(NetworkScanner.contains(ranges, "10.1.16.1"));
+        assertTrue(NetworkScanner.contains(ranges, "192.168.0.254"));
+        assertFalse(NetworkScanner.contains(ranges, "192.168.1.1"));
+
+        // Limited amount of addresses per network
+        ranges = NetworkScanner.getAddressRanges(Collections.singleton("10.1.2.3/20"), 255);
+        assertThat(NetworkScanner.getAddressCount(ranges), is(255L));
+        assertThat(NetworkScanner.toIpAddress(ranges.get(0).lowAddress), is("10.1.0.1"));
+    }
+
+    @Test
+    public void scanLocalhostTest() throws IOException {
+        NetworkScanner.Listener listener = mock(NetworkScanner.Listener.class);
+        NetworkScanner scanner = new NetworkScanner(listener, 500, 100, 10);
+
+        int closedPort;
+        try (ServerSocket closed = new ServerSocket(0)) {
+            closedPort = closed.getLocalPort();
+        }
+        try (ServerSocket open = new ServerSocket(0)) {
+            scanner.scan(Collections.singletonList(new AddressRange(LOCALHOST, 1)),
+                    Arrays.asList(open.getLocalPort(), closedPort));
+
+            verify(listener).serviceFound(eq("127.0.0.1"), eq(open.getLocalPort()));
+            verify(listener, never()).serviceFound(anyString(), eq(closedPort));
+            // The host is reported only once, although it accepted and refused a connection
+            verify(listener, times(1)).hostFound(eq("127.0.0.1"));
+        }
+    }
+}
@@ -175,6 +175,7 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
             presenceDetection.setIOSDevice(true);
             // Hand over binding configurations to the network service
             presenceDetection.setUseDhcpSniffing(configuration.allowDHCPlisten);
+            presenceDetection.setUseArpCache(configuration.allowArpCacheListen);
             presenceDetection.setUseIcmpPing(configuration.allowSystemPings);
             presenceDetection.setUseArpPing(true, configuration.arpPingToolPath);
         }
@@ -194,6 +195,7 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
         updateProperty(NetworkBindingConstants.PROPERTY_PRESENCE_DETECTION_TYPE, "");
         updateProperty(NetworkBindingConstants.PROPERTY_IOS_WAKEUP, presenceDetection.isIOSdevice() ? "On" : "Off");
         updateProperty(NetworkBindingConstants.PROPERTY_DHCP_STATE, presenceDetection.getDhcpState());
+        updateProperty(NetworkBindingConstants.PROPERTY_ARP_CACHE_STATE, presenceDetection.getArpCacheState());
     }
 
     // Create a new network service and apply all configurations.
@@ -21,13 +21,19 @@ import org.eclipse.jdt.annotation.NonNull;
 public class NetworkBindingConfiguration {
     public Boolean allowSystemPings = true;
     public Boolean allowDHCPlisten = true;
+    public Boolean allowArpCacheListen = true;
     public BigDecimal cacheDeviceStateTimeInMS = BigDecimal.valueOf(2000);
     public String arpPingToolPath = "arping";
+    public BigDecimal discoveryMaximumAddresses = BigDecimal.valueOf(4096);
+    public BigDecimal discoveryConnectsPerSecond = BigDecimal.valueOf(500);
 
     public void update(@NonNull NetworkBindingConfiguration newConfiguration) {
         this.allowSystemPings = newConfiguration.allowSystemPings;
         this.allowDHCPlisten = newConfiguration.allowDHCPlisten;
+        this.allowArpCacheListen = newConfiguration.allowArpCacheListen;
         this.cacheDeviceStateTimeInMS = newConfiguration.cacheDeviceStateTimeInMS;
         this.arpPingToolPath = newConfiguration.arpPingToolPath;
+        this.discoveryMaximumAddresses = newConfiguration.discoveryMaximumAddresses;
+        this.discoveryConnectsPerSecond = newConfiguration.discoveryConnectsPerSecond;
     }
 }
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A singleton that remembers when an IP address was last seen by a passive presence source, like a DHCP request
+ * or a new entry in the ARP cache of the operating system. The index is fed for all addresses, not only for the
+ * ones of configured things, and is shared by all {@link PresenceDetection} instances. A presence detection
+ * that finds a recent entry does not need to send a single packet.
+ *
+ * @author agent - Initial contribution
+ */
+public class PassivePresenceIndex {
+    /** If the index grows beyond this size, entries older than {@link #MAXIMUM_AGE_IN_MS} are removed */
+    static final int PRUNE_THRESHOLD = 1024;
+    static final long MAXIMUM_AGE_IN_MS = 3600000;
+
+    private static PassivePresenceIndex instance;
+
+    private final Map<String, LastSeen> lastSeen = new ConcurrentHashMap<>();
+
+    /**
+     * Return the index instance. The instance is created on first use.
+     */
+    public static synchronized PassivePresenceIndex getInstance() {
+        if (instance == null) {
+            instance = new PassivePresenceIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Record that the given address has been seen right now.
+     *
+     * @param hostAddress The IP address
+     * @param type The passive presence source
+     */
+    public void recordSeen(String hostAddress, PresenceDetectionType type) {
+        recordSeen(hostAddress, type, System.currentTimeMillis());
+    }
+
+    /**
+     * Record that the given address has been seen at the given time.
+     *
+     * @param hostAddress The IP address
+     * @param type The passive presence source
+     * @param timeInMS The time based on {@link System#currentTimeMillis()}
+     */
+    void recordSeen(String hostAddress, PresenceDetectionType type, long timeInMS) {
+        lastSeen.put(hostAddress, new LastSeen(type, timeInMS));
+        if (lastSeen.size() > PRUNE_THRESHOLD) {
+            lastSeen.values().removeIf(v -> v.getTimeInMS() + MAXIMUM_AGE_IN_MS < timeInMS);
+        }
+    }
+
+    /**
+     * Return when the given address was last seen or null if it was never seen by a passive source.
+     */
+    public LastSeen getLastSeen(String hostAddress) {
+        return lastSeen.get(hostAddress);
+    }
+
+    /**
+     * An immutable entry of the index.
+     */
+    public static class LastSeen {
+        private final PresenceDetectionType type;
+        private final long timeInMS;
+
+        LastSeen(PresenceDetectionType type, long timeInMS) {
+            this.type = type;
+            this.timeInMS = timeInMS;
+        }
+
+        /**
+         * Return the passive presence source that has seen the address.
+         */
+        public PresenceDetectionType getType() {
+            return type;
+        }
+
+        /**
+         * Return the time the address was seen, based on {@link System#currentTimeMillis()}.
+         */
+        public long getTimeInMS() {
+            return timeInMS;
+        }
+    }
+}
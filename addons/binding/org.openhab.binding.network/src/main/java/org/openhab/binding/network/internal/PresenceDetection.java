@@ -13,16 +13,23 @@ import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.apache.commons.lang.StringUtils;
+import org.openhab.binding.network.internal.PassivePresenceIndex.LastSeen;
+import org.openhab.binding.network.internal.arp.ArpCacheEntryCallback;
+import org.openhab.binding.network.internal.arp.ArpCacheListenService;
 import org.openhab.binding.network.internal.dhcp.DHCPListenService;
 import org.openhab.binding.network.internal.dhcp.IPRequestReceivedCallback;
 import org.openhab.binding.network.internal.toberemoved.cache.ExpiringCacheAsync;
@@ -38,13 +45,16 @@ import org.slf4j.LoggerFactory;
  * @author David Gräff, 2017 - Rewritten
  * @author Marc Mettke - Initial contribution
  */
-public class PresenceDetection implements IPRequestReceivedCallback {
+public class PresenceDetection implements IPRequestReceivedCallback, ArpCacheEntryCallback {
     public static final double NOT_REACHABLE = -1;
     NetworkUtils networkUtils = new NetworkUtils();
+    PresenceDetectionEngine engine = PresenceDetectionEngine.getInstance();
+    PassivePresenceIndex passivePresenceIndex = PassivePresenceIndex.getInstance();
     private Logger logger = LoggerFactory.getLogger(PresenceDetection.class);
 
     /// Configuration variables
     private boolean useDHCPsniffing = false;
+    private boolean useArpCache = false;
     private ArpPingUtilEnum arpPingMethod = null;
     private String arpPingUtilPath = "arping";
     private IpPingMethodEnum pingMethod = null;
@@ -64,7 +74,11 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     private InetAddress destination;
     ExecutorService executorService;
     private String dhcpState = "off";
-    Integer currentCheck = 0;
+    private String arpCacheState = "off";
+    private final List<FutureTask<?>> pendingChecks = new ArrayList<>();
+    private final AtomicInteger startedChecks = new AtomicInteger();
+    private CountDownLatch finishedChecks;
+    private long detectionStartInMS;
     int detectionChecks;
 
     public PresenceDetection(final PresenceDetectionListener updateListener, int cacheDeviceStateTimeInMS)
@@ -111,6 +125,15 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         this.useDHCPsniffing = enable;
     }
 
+    /**
+     * Enables or disables following the ARP cache of the operating system. Only available on linux.
+     *
+     * @param enable Enable or disable the ARP cache as passive presence source
+     */
+    public void setUseArpCache(boolean enable) {
+        this.useArpCache = enable;
+    }
+
     public void setRefreshInterval(long refreshInterval) {
         this.refreshIntervalInMS = refreshInterval;
     }
@@ -168,6 +191,10 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return dhcpState;
     }
 
+    public String getArpCacheState() {
+        return arpCacheState;
+    }
+
     /**
      * Return true if the device presence detection is performed for an iOS device
      * like iPhone or iPads. An additional port knock is performed before a ping.
@@ -202,17 +229,22 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
+    /**
+     * Return the executor the checks are performed on. This is the bounded executor
+     * of the {@link PresenceDetectionEngine}, which is shared with all other presence detections.
+     */
+    public ExecutorService getThreads() {
+        return engine.getExecutor();
     }
 
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. The checks are queued on the shared executor of
+     * the {@link PresenceDetectionEngine}.
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
-     * is not expired yet.
+     * is not expired yet. If a passive presence source has seen the device recently, no
+     * active check is performed at all, see {@link #performPassiveDetection()}.
      *
      * Please be aware of the following restrictions:
      * - ARP pings are only executed on IPv4 addresses.
@@ -234,9 +266,12 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             return false;
         }
 
+        if (performPassiveDetection()) {
+            return true;
+        }
+
         Set<String> interfaceNames = null;
 
-        currentCheck = 0;
         detectionChecks = tcpPorts.size();
         if (pingMethod != null) {
             detectionChecks += 1;
@@ -250,37 +285,30 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             return false;
         }
 
-        executorService = getThreadsFor(detectionChecks);
+        executorService = getThreads();
+        detectionStartInMS = System.currentTimeMillis();
+        startedChecks.set(0);
+        finishedChecks = new CountDownLatch(detectionChecks);
 
         for (Integer tcpPort : tcpPorts) {
-            executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
-                performServicePing(tcpPort);
-                checkIfFinished();
-            });
+            submitCheck(() -> performServicePing(tcpPort));
         }
 
-        // ARP ping for IPv4 addresses. Use an own executor for each network interface
+        // ARP ping for IPv4 addresses. Use an own check for each network interface
         if (interfaceNames != null) {
             for (final String interfaceName : interfaceNames) {
-                executorService.execute(() -> {
-                    Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
-                    performARPping(interfaceName);
-                    checkIfFinished();
-                });
+                submitCheck(() -> performARPping(interfaceName));
             }
         }
 
         // ICMP ping
         if (pingMethod != null) {
-            executorService.execute(() -> {
+            submitCheck(() -> {
                 if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
                     performSystemPing();
                 } else {
                     performJavaPing();
                 }
-                checkIfFinished();
             });
         }
 
@@ -291,19 +319,82 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return true;
     }
 
+    /**
+     * Resolves the device presence with the {@link PassivePresenceIndex}, if a passive presence source
+     * (DHCP sniffing, ARP cache) is enabled. The device is present, if a passive source has seen it within
+     * the last refresh interval. No packet is sent in this case.
+     *
+     * @return Return true if the device was resolved and the final result has been submitted.
+     */
+    boolean performPassiveDetection() {
+        if (!useDHCPsniffing && !useArpCache) {
+            return false;
+        }
+        LastSeen seen = passivePresenceIndex.getLastSeen(destination.getHostAddress());
+        if (seen == null || seen.getTimeInMS() + refreshIntervalInMS < System.currentTimeMillis()) {
+            return false;
+        }
+
+        logger.trace("Passive presence detection for {} by {}", hostname, seen.getType());
+        engine.recordProbe(seen.getType(), true, 0);
+        PresenceDetectionValue v;
+        synchronized (this) {
+            v = updateReachableValue(seen.getType(), 0);
+            lastSeenInMS = seen.getTimeInMS();
+        }
+        updateListener.partialDetectionResult(v);
+        updateListener.finalDetectionResult(v);
+        return true;
+    }
+
+    /**
+     * Queues a single check of the current detection process on the executor.
+     * The check is tracked, so that it can be cancelled if the detection process ends before it.
+     */
+    private void submitCheck(Runnable check) {
+        final CountDownLatch latch = finishedChecks;
+        FutureTask<?> task = new FutureTask<>(() -> {
+            startedChecks.incrementAndGet();
+            check.run();
+            checkIfFinished(latch);
+        }, null);
+        synchronized (pendingChecks) {
+            pendingChecks.add(task);
+        }
+        executorService.execute(task);
+    }
+
+    /**
+     * Forgets the checks of the current detection process. Checks that are still queued or running
+     * are cancelled if requested.
+     *
+     * @param cancel True to cancel the checks that did not finish yet
+     */
+    private void releasePendingChecks(boolean cancel) {
+        synchronized (pendingChecks) {
+            if (cancel) {
+                for (FutureTask<?> task : pendingChecks) {
+                    task.cancel(true);
+                }
+            }
+            pendingChecks.clear();
+        }
+    }
+
     /**
      * Calls updateListener.finalDetectionResult() with a final result value.
      * Safe to be called from different threads. After a call to this method,
-     * the presence detection process is finished and all threads are forcefully
-     * shut down.
+     * the presence detection process is finished and all remaining checks are forcefully
+     * cancelled.
      */
     private synchronized void submitFinalResult() {
         // Do nothing if we are not in a detection process
         if (executorService == null) {
             return;
         }
-        // Finish the detection process
-        executorService.shutdownNow();
+        // Finish the detection process. The executor is shared and must not be shut down,
+        // only checks that did not finish in time are cancelled.
+        releasePendingChecks(finishedChecks.getCount() > 0);
         executorService = null;
         detectionChecks = 0;
 
@@ -311,7 +402,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
 
         // The cache will be expired by now if cache_time < timeoutInMS. But the device might be actually reachable.
         // Therefore use lastSeenInMS here and not cache.isExpired() to determine if we got a ping response.
-        if (lastSeenInMS + timeoutInMS + 100 < System.currentTimeMillis()) {
+        // Checks may have waited on the shared executor, so the detection start is the reference point.
+        if (lastSeenInMS < detectionStartInMS) {
             // We haven't seen the device in the detection process
             v = new PresenceDetectionValue(destination.getHostAddress(), -1);
         } else {
@@ -320,38 +412,52 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         }
         cache.setValue(v);
         updateListener.finalDetectionResult(v);
+        engine.logStatistics();
     }
 
     /**
-     * This method is called after each individual check and increases a check counter.
-     * If the counter equals the total checks,the final result is submitted. This will
-     * happen way before the "timeoutInMS", if all checks were successful.
+     * This method is called after each individual check and counts down the checks of
+     * the detection process the check belongs to. If all checks are done, the final result
+     * is submitted. This will happen way before the "timeoutInMS", if all checks were successful.
      * Thread safe.
      */
-    private synchronized void checkIfFinished() {
-        currentCheck += 1;
-        if (currentCheck < detectionChecks) {
+    private synchronized void checkIfFinished(CountDownLatch latch) {
+        // A cancelled check of an already finished detection process
+        if (latch != finishedChecks) {
+            return;
+        }
+        latch.countDown();
+        if (latch.getCount() > 0) {
             return;
         }
         submitFinalResult();
     }
 
     /**
-     * Waits for the presence detection threads to finish. Returns immediately
+     * Waits for the presence detection checks to finish. Returns immediately
      * if no presence detection is performed right now.
      */
     public void waitForPresenceDetection() {
-        if (executorService == null) {
+        final CountDownLatch latch = finishedChecks;
+        final int totalChecks = detectionChecks;
+        if (executorService == null || latch == null) {
             return;
         }
         try {
             // We may get interrupted here by cancelRefreshJob().
-            executorService.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
+            // Checks may still be queued on the shared executor. Give up only if all of them
+            // were started and did not finish within the timeout.
+            while (!latch.await(timeoutInMS + 100, TimeUnit.MILLISECONDS)
+                    && startedChecks.get() < totalChecks) {
+                logger.trace("Presence detection checks for {} are still queued", hostname);
+            }
             submitFinalResult();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Reset interrupt flag
-            executorService.shutdownNow();
-            executorService = null;
+            synchronized (this) {
+                releasePendingChecks(true);
+                executorService = null;
+            }
         }
     }
 
@@ -386,11 +492,15 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             double pingTime = System.nanoTime();
             if (networkUtils.servicePing(destination.getHostAddress(), tcpPort, timeoutInMS)) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+                engine.recordProbe(PresenceDetectionType.TCP_CONNECTION, true, latency);
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION, latency);
                 v.addReachableTcpService(tcpPort);
                 updateListener.partialDetectionResult(v);
+            } else {
+                engine.recordProbe(PresenceDetectionType.TCP_CONNECTION, false, 0);
             }
         } catch (IOException e) {
+            engine.recordProbe(PresenceDetectionType.TCP_CONNECTION, false, 0);
             // This should not happen and might be a user configuration issue, we log a warning message therefore.
             logger.warn("Could not create a socket connection", e);
         }
@@ -415,10 +525,14 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             if (networkUtils.nativeARPPing(arpPingMethod, arpPingUtilPath, interfaceName, destination.getHostAddress(),
                     timeoutInMS)) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+                engine.recordProbe(PresenceDetectionType.ARP_PING, true, latency);
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ARP_PING, latency);
                 updateListener.partialDetectionResult(v);
+            } else {
+                engine.recordProbe(PresenceDetectionType.ARP_PING, false, 0);
             }
         } catch (IOException e) {
+            engine.recordProbe(PresenceDetectionType.ARP_PING, false, 0);
             logger.trace("Failed to execute an arp ping for ip {}", hostname, e);
         } catch (InterruptedException ignored) {
             // This can be ignored, the thread will end anyway
@@ -437,10 +551,14 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             double pingTime = System.nanoTime();
             if (destination.isReachable(timeoutInMS)) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+                engine.recordProbe(PresenceDetectionType.ICMP_PING, true, latency);
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
                 updateListener.partialDetectionResult(v);
+            } else {
+                engine.recordProbe(PresenceDetectionType.ICMP_PING, false, 0);
             }
         } catch (IOException e) {
+            engine.recordProbe(PresenceDetectionType.ICMP_PING, false, 0);
             logger.trace("Failed to execute a java ping for ip {}", hostname, e);
         }
     }
@@ -451,10 +569,14 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             double pingTime = System.nanoTime();
             if (networkUtils.nativePing(pingMethod, destination.getHostAddress(), timeoutInMS)) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+                engine.recordProbe(PresenceDetectionType.ICMP_PING, true, latency);
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
                 updateListener.partialDetectionResult(v);
+            } else {
+                engine.recordProbe(PresenceDetectionType.ICMP_PING, false, 0);
             }
         } catch (IOException e) {
+            engine.recordProbe(PresenceDetectionType.ICMP_PING, false, 0);
             logger.trace("Failed to execute a native ping for ip {}", hostname, e);
         } catch (InterruptedException e) {
             // This can be ignored, the thread will end anyway
@@ -467,8 +589,16 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         updateListener.partialDetectionResult(v);
     }
 
+    @Override
+    public void arpCacheEntryReceived(String ipAddress) {
+        PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ARP_CACHE, 0);
+        updateListener.partialDetectionResult(v);
+    }
+
     /**
      * Start/Restart a fixed scheduled runner to update the devices reach-ability state.
+     * The first run is delayed by a slot assigned by the {@link PresenceDetectionEngine},
+     * to spread the refreshes of all things over the refresh interval.
      *
      * @param scheduledExecutorService A scheduler to run pings periodically.
      */
@@ -476,10 +606,11 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (refreshJob != null && !refreshJob.isDone()) {
             refreshJob.cancel(true);
         }
-        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true), 0,
-                refreshIntervalInMS, TimeUnit.MILLISECONDS);
+        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true),
+                engine.nextStartDelay(refreshIntervalInMS), refreshIntervalInMS, TimeUnit.MILLISECONDS);
 
         enableDHCPListen(useDHCPsniffing);
+        enableArpCacheListen(useArpCache);
     }
 
     /**
@@ -498,6 +629,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             refreshJob = null;
         }
         enableDHCPListen(false);
+        enableArpCacheListen(false);
     }
 
     /**
@@ -525,4 +657,25 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             dhcpState = "off";
         }
     }
+
+    /**
+     * Enables/Disables following the ARP cache of the operating system to figure out if devices have entered the
+     * network. The hostname of this network service object will be registered to the ARP cache listener if enabled
+     * and unregistered otherwise.
+     *
+     * @param enabled Enable/Disable the ARP cache listen service for this hostname.
+     */
+    private void enableArpCacheListen(boolean enabled) {
+        if (enabled) {
+            if (ArpCacheListenService.register(destination.getHostAddress(), this)) {
+                arpCacheState = "Running normally";
+            } else {
+                useArpCache = false;
+                arpCacheState = "Not available on this operating system";
+            }
+        } else {
+            ArpCacheListenService.unregister(destination.getHostAddress());
+            arpCacheState = "off";
+        }
+    }
 }
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A singleton that is shared by all {@link PresenceDetection} instances of the binding.
+ *
+ * All presence detection checks (ICMP, ARP, TCP) of all things are executed on one bounded executor instead of a
+ * thread pool per detection cycle. Idle threads are stopped after a while, so the engine does not hold any
+ * resources if no thing is refreshing. Refresh jobs are started in staggered slots, so that things which are
+ * initialized together do not all probe the network at the same moment. For every detection type the probes,
+ * successful probes and latencies are counted and logged on debug level after each detection cycle.
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionEngine {
+    /** Maximum number of checks that are executed at the same time, across all things */
+    static final int MAXIMUM_CONCURRENT_CHECKS = 32;
+    /** Idle threads of the executor are stopped after this time */
+    static final long THREAD_KEEP_ALIVE_IN_MS = 60000;
+    /** Refresh jobs of consecutively started things are this far apart */
+    static final long STAGGER_STEP_IN_MS = 500;
+
+    private static PresenceDetectionEngine instance;
+
+    private final Logger logger = LoggerFactory.getLogger(PresenceDetectionEngine.class);
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger staggerSlot = new AtomicInteger();
+    private final Map<PresenceDetectionType, ProbeStatistics> statistics = new EnumMap<>(
+            PresenceDetectionType.class);
+
+    /**
+     * Return the engine instance. The instance is created on first use.
+     */
+    public static synchronized PresenceDetectionEngine getInstance() {
+        if (instance == null) {
+            instance = new PresenceDetectionEngine();
+        }
+        return instance;
+    }
+
+    PresenceDetectionEngine() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "presenceDetection-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(MAXIMUM_CONCURRENT_CHECKS, MAXIMUM_CONCURRENT_CHECKS,
+                THREAD_KEEP_ALIVE_IN_MS, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+
+        for (PresenceDetectionType type : PresenceDetectionType.values()) {
+            statistics.put(type, new ProbeStatistics());
+        }
+    }
+
+    /**
+     * Return the bounded executor all presence detection checks are performed on.
+     * The executor must not be shut down by its users.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Return the initial delay for a new periodic refresh job. Consecutive calls return delays that are
+     * {@link #STAGGER_STEP_IN_MS} apart, wrapped around at the given refresh interval.
+     *
+     * @param refreshIntervalInMS The refresh interval of the job
+     * @return The initial delay in milliseconds, smaller than the refresh interval
+     */
+    public long nextStartDelay(long refreshIntervalInMS) {
+        if (refreshIntervalInMS <= 0) {
+            return 0;
+        }
+        long slot = staggerSlot.getAndIncrement() & Integer.MAX_VALUE;
+        return (slot * STAGGER_STEP_IN_MS) % refreshIntervalInMS;
+    }
+
+    /**
+     * Record the outcome of a single probe.
+     *
+     * @param type The detection type of the probe
+     * @param reachable True if the device responded
+     * @param latencyInMS The latency in milliseconds. Only considered if the device responded.
+     */
+    public void recordProbe(PresenceDetectionType type, boolean reachable, double latencyInMS) {
+        statistics.get(type).record(reachable, latencyInMS);
+    }
+
+    /**
+     * Return the counters for the given detection type.
+     */
+    public ProbeStatistics getStatistics(PresenceDetectionType type) {
+        return statistics.get(type);
+    }
+
+    /**
+     * Log the counters of all detection types on debug level. Called after each finished detection cycle.
+     */
+    public void logStatistics() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Presence detection statistics: {}", statistics);
+        }
+    }
+
+    /**
+     * Counters of the probes for one detection type. Safe to be updated from different threads.
+     */
+    public static class ProbeStatistics {
+        private final LongAdder probes = new LongAdder();
+        private final LongAdder successfulProbes = new LongAdder();
+        private final LongAdder latencySumInMS = new LongAdder();
+
+        void record(boolean reachable, double latencyInMS) {
+            probes.increment();
+            if (reachable) {
+                successfulProbes.increment();
+                latencySumInMS.add(Math.round(latencyInMS));
+            }
+        }
+
+        /**
+         * Return the number of performed probes.
+         */
+        public long getProbes() {
+            return probes.sum();
+        }
+
+        /**
+         * Return the number of probes the device responded to.
+         */
+        public long getSuccessfulProbes() {
+            return successfulProbes.sum();
+        }
+
+        /**
+         * Return the average latency of the successful probes in milliseconds or 0 if there were none.
+         */
+        public double getAverageLatency() {
+            long successful = successfulProbes.sum();
+            return successful == 0 ? 0 : (double) latencySumInMS.sum() / successful;
+        }
+
+        @Override
+        public String toString() {
+            return "probes=" + getProbes() + ", successful=" + getSuccessfulProbes() + ", averageLatency="
+                    + getAverageLatency() + "ms";
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.arp;
+
+/**
+ * Implement this interface to be notified of new entries in the ARP cache of the operating system
+ * for a registered IP address. Register to {@see ArpCacheListenService}.
+ *
+ * @author agent - Initial contribution
+ */
+public interface ArpCacheEntryCallback {
+    /**
+     * The {@see ArpCacheReader} found a new or changed resolved entry in the ARP cache.
+     *
+     * @param ipAddress The IP address of the entry.
+     */
+    void arpCacheEntryReceived(String ipAddress);
+}
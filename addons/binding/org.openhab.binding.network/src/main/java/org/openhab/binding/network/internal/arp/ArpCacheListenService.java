@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.arp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.openhab.binding.network.internal.PassivePresenceIndex;
+import org.openhab.binding.network.internal.PresenceDetectionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A singleton. ArpCacheEntryCallback objects can register and unregister.
+ * If the first one is registered, the ARP cache of the operating system (/proc/net/arp, linux only) is read
+ * periodically on the shared "network" thread pool. If the last ArpCacheEntryCallback is removed, the reading is
+ * stopped.
+ * Every address that becomes resolved in the ARP cache is recorded in the {@link PassivePresenceIndex}.
+ * ArpCacheEntryCallback will be called for the address that is registered and matches the entry.
+ *
+ * @author agent - Initial contribution
+ */
+public class ArpCacheListenService {
+    static final Path ARP_CACHE_FILE = Paths.get("/proc/net/arp");
+    static final long POLL_INTERVAL_IN_MS = 5000;
+
+    static final String THREAD_POOL_NAME = "network";
+
+    static ScheduledFuture<?> pollTask;
+    static Map<String, ArpCacheEntryCallback> registeredListeners = new TreeMap<>();
+    static Logger logger = LoggerFactory.getLogger(ArpCacheListenService.class);
+
+    /**
+     * Return true if the ARP cache of the operating system can be read.
+     */
+    public static boolean isAvailable() {
+        return Files.isReadable(ARP_CACHE_FILE);
+    }
+
+    /**
+     * Read the ARP cache once and return the addresses of all resolved entries.
+     * Returns an empty set if the ARP cache is not available.
+     */
+    public static Set<String> readResolvedAddresses() {
+        if (!isAvailable()) {
+            return Collections.emptySet();
+        }
+        ArpCacheReader reader = new ArpCacheReader();
+        try (BufferedReader fileReader = Files.newBufferedReader(ARP_CACHE_FILE, StandardCharsets.US_ASCII)) {
+            reader.read(fileReader);
+        } catch (IOException e) {
+            logger.debug("Failed to read the ARP cache", e);
+        }
+        return reader.getResolvedAddresses();
+    }
+
+    /**
+     * Register a callback for the given address and start reading the ARP cache if necessary.
+     *
+     * @param hostAddress The IP address
+     * @param arpCacheListener The callback
+     * @return Return false if the ARP cache is not available on this system
+     */
+    public static synchronized boolean register(String hostAddress, ArpCacheEntryCallback arpCacheListener) {
+        if (!isAvailable()) {
+            return false;
+        }
+        if (pollTask == null) {
+            final ArpCacheReader reader = new ArpCacheReader();
+            pollTask = ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME)
+                    .scheduleWithFixedDelay(() -> readArpCache(reader), 0, POLL_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+        }
+        synchronized (registeredListeners) {
+            registeredListeners.put(hostAddress, arpCacheListener);
+        }
+        return true;
+    }
+
+    public static synchronized void unregister(String hostAddress) {
+        synchronized (registeredListeners) {
+            registeredListeners.remove(hostAddress);
+            if (!registeredListeners.isEmpty()) {
+                return;
+            }
+        }
+
+        if (pollTask != null) {
+            pollTask.cancel(false);
+        }
+        pollTask = null;
+    }
+
+    private static void readArpCache(ArpCacheReader reader) {
+        List<String> resolvedAddresses;
+        try (BufferedReader fileReader = Files.newBufferedReader(ARP_CACHE_FILE, StandardCharsets.US_ASCII)) {
+            resolvedAddresses = reader.read(fileReader);
+        } catch (IOException e) {
+            logger.debug("Failed to read the ARP cache", e);
+            return;
+        }
+
+        for (String ipAddress : resolvedAddresses) {
+            PassivePresenceIndex.getInstance().recordSeen(ipAddress, PresenceDetectionType.ARP_CACHE);
+            ArpCacheEntryCallback listener;
+            synchronized (registeredListeners) {
+                listener = registeredListeners.get(ipAddress);
+            }
+            if (listener != null) {
+                logger.debug("ARP cache entry for registered address: {}", ipAddress);
+                listener.arpCacheEntryReceived(ipAddress);
+            }
+        }
+    }
+}
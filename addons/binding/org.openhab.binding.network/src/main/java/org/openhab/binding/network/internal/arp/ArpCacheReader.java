@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.arp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the ARP cache in the format of the linux /proc/net/arp file and reports the changes since the last read.
+ *
+ * Example:
+ *
+ * <pre>
+ * IP address       HW type     Flags       HW address            Mask     Device
+ * 192.168.0.42     0x1         0x2         a0:b1:c2:d3:e4:f5     *        eth0
+ * </pre>
+ *
+ * Only resolved entries (flag ATF_COM) count. An entry is reported if it was not resolved in the previous read
+ * or if its hardware address changed. Entries that stay resolved are not reported again, because the kernel
+ * keeps stale entries around for a while. The very first read only establishes the baseline.
+ *
+ * @author agent - Initial contribution
+ */
+class ArpCacheReader {
+    /** Flag of a resolved entry */
+    static final int ATF_COM = 0x2;
+    static final String EMPTY_HARDWARE_ADDRESS = "00:00:00:00:00:00";
+
+    private Map<String, String> resolvedEntries = null;
+
+    /**
+     * Read the ARP cache and return the addresses of all entries that became resolved since the last read.
+     *
+     * @param reader A reader of the ARP cache file
+     * @return The IP addresses of new or changed resolved entries. Empty on the first read.
+     * @throws IOException If the ARP cache file cannot be read
+     */
+    List<String> read(BufferedReader reader) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        List<String> changed = new ArrayList<>();
+
+        // Skip the header line
+        String line = reader.readLine();
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length < 4 || !isResolved(fields[2]) || EMPTY_HARDWARE_ADDRESS.equals(fields[3])) {
+                continue;
+            }
+            String ipAddress = fields[0];
+            String hardwareAddress = fields[3];
+            entries.put(ipAddress, hardwareAddress);
+
+            if (resolvedEntries != null && !hardwareAddress.equals(resolvedEntries.get(ipAddress))) {
+                changed.add(ipAddress);
+            }
+        }
+
+        resolvedEntries = entries;
+        return changed;
+    }
+
+    /**
+     * Return the addresses of all resolved entries of the last read.
+     */
+    Set<String> getResolvedAddresses() {
+        return resolvedEntries == null ? Collections.emptySet() : resolvedEntries.keySet();
+    }
+
+    private static boolean isResolved(String flags) {
+        try {
+            return (Integer.decode(flags) & ATF_COM) != 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
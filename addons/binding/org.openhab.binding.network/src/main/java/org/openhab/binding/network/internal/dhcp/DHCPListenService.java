@@ -12,6 +12,8 @@ import java.net.SocketException;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.openhab.binding.network.internal.PassivePresenceIndex;
+import org.openhab.binding.network.internal.PresenceDetectionType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +22,7 @@ import org.slf4j.LoggerFactory;
  * If the first one is registered and there is no singleton instance, an instance will be created and the
  * receiver thread will be started. If the last IPRequestReceivedCallback is removed, the thread will be stopped
  * after the receive socket is closed.
+ * Every requested address is recorded in the {@link PassivePresenceIndex}.
  * IPRequestReceivedCallback will be called for the address that is registered and matches the
  * DHO_DHCP_REQUESTED_ADDRESS address field.
  *
@@ -34,6 +37,7 @@ public class DHCPListenService {
             IPRequestReceivedCallback dhcpListener) throws SocketException {
         if (instance == null) {
             instance = new DHCPPacketListenerServer((String ipAddress) -> {
+                PassivePresenceIndex.getInstance().recordSeen(ipAddress, PresenceDetectionType.DHCP_REQUEST);
                 IPRequestReceivedCallback listener = registeredListeners.get(ipAddress);
                 if (listener != null) {
                     logger.info("DHCP request for registered address: {}", ipAddress);
@@ -10,6 +10,7 @@ package org.openhab.binding.network.internal.discovery;
 
 import static org.openhab.binding.network.NetworkBindingConstants.*;
 
+import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.List;
@@ -28,6 +29,8 @@ import org.openhab.binding.network.internal.NetworkBindingConfiguration;
 import org.openhab.binding.network.internal.PresenceDetection;
 import org.openhab.binding.network.internal.PresenceDetectionListener;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
+import org.openhab.binding.network.internal.arp.ArpCacheListenService;
+import org.openhab.binding.network.internal.discovery.NetworkScanner.AddressRange;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -41,15 +44,21 @@ import com.google.common.collect.Sets;
 /**
  * The {@link NetworkDiscoveryService} is responsible for discovering devices on
  * the current Network. It uses every Network Interface which is connected to a network.
- * It tries common TCP ports to connect to, ICMP pings and ARP pings.
+ * It sweeps the networks with non-blocking connection attempts to common TCP ports with the
+ * {@link NetworkScanner}. Hosts that do not answer on TCP are found in the ARP cache afterwards,
+ * or with ICMP and ARP pings on systems without an accessible ARP cache.
  *
  * @author David Graeff - Rewritten
  * @author Marc Mettke - Initial contribution
  */
 @Component(immediate = true, service = DiscoveryService.class)
-public class NetworkDiscoveryService extends AbstractDiscoveryService implements PresenceDetectionListener {
+public class NetworkDiscoveryService extends AbstractDiscoveryService
+        implements PresenceDetectionListener, NetworkScanner.Listener {
     static final int PING_TIMEOUT_IN_MS = 500;
+    /** Maximum of IPs per interface that are pinged if the ARP cache is not available */
     static final int MAXIMUM_IPS_PER_INTERFACE = 255;
+    /** Maximum of connection attempts in flight during a scan */
+    static final int MAXIMUM_PENDING_CONNECTS = 256;
     private static final long DISCOVERY_RESULT_TTL = TimeUnit.MINUTES.toSeconds(10);
     private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
 
@@ -59,13 +68,28 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     private Set<Integer> tcp_service_ports = Sets.newHashSet(80, 548, 554, 1025);
     private Integer scannedIPcount;
     private ExecutorService executorService = null;
+    private volatile NetworkScanner scanner = null;
     private final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
     NetworkUtils networkUtils = new NetworkUtils();
 
     public NetworkDiscoveryService() {
-        super(SUPPORTED_THING_TYPES_UIDS, (int) Math.round(
-                new NetworkUtils().getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE).size() * (PING_TIMEOUT_IN_MS / 1000.0)),
-                false);
+        super(SUPPORTED_THING_TYPES_UIDS, 0, false);
+    }
+
+    /**
+     * The scan timeout depends on the size of the networks and the configured connection rate.
+     */
+    @Override
+    public int getScanTimeout() {
+        long addresses = NetworkScanner.getAddressCount(NetworkScanner.getAddressRanges(
+                networkUtils.getInterfaceIPs(), configuration.discoveryMaximumAddresses.intValue()));
+        long connects = addresses * tcp_service_ports.size();
+        long timeout = connects / Math.max(1, configuration.discoveryConnectsPerSecond.intValue())
+                + Math.round(PING_TIMEOUT_IN_MS / 1000.0) + 1;
+        if (!ArpCacheListenService.isAvailable()) {
+            timeout += Math.round(Math.min(addresses, MAXIMUM_IPS_PER_INTERFACE) * (PING_TIMEOUT_IN_MS / 1000.0));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, timeout);
     }
 
     @Override
@@ -108,20 +132,76 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     public void finalDetectionResult(PresenceDetectionValue value) {
     }
 
+    @Override
+    public void hostFound(String ipAddress) {
+        newPingDevice(ipAddress);
+    }
+
+    @Override
+    public void serviceFound(String ipAddress, int port) {
+        newServiceDevice(ipAddress, port);
+    }
+
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
+     * Starts the network scanner for all IPs on each interface on the network. Results are
+     * submitted to the inbox as soon as they are found.
      */
     @Override
-    protected void startScan() {
+    protected synchronized void startScan() {
         if (executorService != null) {
             return;
         }
         removeOlderResults(getTimestampOfLastScan(), null);
         logger.trace("Starting Network Device Discovery");
 
-        final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
+        final List<AddressRange> ranges = NetworkScanner.getAddressRanges(networkUtils.getInterfaceIPs(),
+                configuration.discoveryMaximumAddresses.intValue());
+        final NetworkScanner s = new NetworkScanner(this, PING_TIMEOUT_IN_MS,
+                configuration.discoveryConnectsPerSecond.intValue(), MAXIMUM_PENDING_CONNECTS);
+        scanner = s;
         executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+
+        executorService.execute(() -> {
+            Thread.currentThread().setName("Discovery network scanner");
+            try {
+                s.scan(ranges, tcp_service_ports);
+            } catch (IOException e) {
+                logger.warn("Network scan failed", e);
+            }
+            if (scanner != s) {
+                // The scan has been stopped
+                return;
+            }
+            logger.trace("Scan of {} IPs finished", NetworkScanner.getAddressCount(ranges));
+
+            if (ArpCacheListenService.isAvailable()) {
+                // The connection attempts made the operating system resolve every host on the local
+                // networks. Hosts that did not answer on TCP are found in the ARP cache.
+                for (String ip : ArpCacheListenService.readResolvedAddresses()) {
+                    if (NetworkScanner.contains(ranges, ip)) {
+                        newPingDevice(ip);
+                    }
+                }
+                stopScan();
+            } else {
+                startPingScan();
+            }
+        });
+    }
+
+    /**
+     * Pings the IPs on each interface with ICMP and ARP pings. Used if the ARP cache is not available.
+     */
+    private synchronized void startPingScan() {
+        if (executorService == null) {
+            return;
+        }
+        final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
         scannedIPcount = 0;
+        if (networkIPs.isEmpty()) {
+            stopScan();
+            return;
+        }
 
         for (String ip : networkIPs) {
             final PresenceDetection s = new PresenceDetection(this, 2000);
@@ -134,11 +214,9 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
             s.setIOSDevice(true);
             s.setUseDhcpSniffing(false);
             s.setTimeout(PING_TIMEOUT_IN_MS);
-            // Ping devices
+            // Ping devices. TCP services are covered by the network scanner.
             s.setUseIcmpPing(true);
             s.setUseArpPing(true, configuration.arpPingToolPath);
-            // TCP devices
-            s.setServicePorts(tcp_service_ports);
 
             executorService.execute(() -> {
                 Thread.currentThread().setName("Discovery thread " + ip);
@@ -160,6 +238,8 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
         if (executorService == null) {
             return;
         }
+        scanner.stop();
+        scanner = null;
 
         try {
             executorService.awaitTermination(PING_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
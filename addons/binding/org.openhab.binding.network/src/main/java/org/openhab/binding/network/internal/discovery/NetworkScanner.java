@@ -0,0 +1,389 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.util.SubnetUtils;
+import org.apache.commons.net.util.SubnetUtils.SubnetInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sweeps IPv4 address ranges with non-blocking TCP connection attempts. All connection attempts are multiplexed
+ * on a single {@link Selector}, so thousands of addresses can be scanned with one thread.
+ *
+ * A completed connection reports a service on that port. A refused connection (TCP RST) still proves that a
+ * host is alive and reports the host. Before the first connection attempt to an address, an empty UDP packet is
+ * sent to the Bonjour port to wake up sleeping iOS devices. Results are reported while the scan is running.
+ *
+ * New connection attempts are started at most at the configured rate and only as long as fewer than the
+ * configured amount of attempts are pending.
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkScanner {
+    private final Logger logger = LoggerFactory.getLogger(NetworkScanner.class);
+
+    /** The Bonjour service discovery port, iOS devices wake up if they receive a packet on it */
+    static final int IOS_WAKEUP_PORT = 5353;
+
+    /**
+     * Receives the scan results. Called from the scanner thread.
+     */
+    public interface Listener {
+        /**
+         * A host refused a connection and is therefore alive. Called only once per host and scan.
+         *
+         * @param ipAddress The IPv4 address of the host
+         */
+        void hostFound(String ipAddress);
+
+        /**
+         * A host accepted a connection on the given port.
+         *
+         * @param ipAddress The IPv4 address of the host
+         * @param port The TCP port
+         */
+        void serviceFound(String ipAddress, int port);
+    }
+
+    /**
+     * A range of consecutive IPv4 addresses, stored as integers.
+     */
+    static class AddressRange {
+        final int lowAddress;
+        final int addressCount;
+
+        AddressRange(int lowAddress, int addressCount) {
+            this.lowAddress = lowAddress;
+            this.addressCount = addressCount;
+        }
+    }
+
+    private static class PendingConnect {
+        final SocketChannel channel;
+        final String ipAddress;
+        final int port;
+        final long deadlineInNS;
+        boolean done = false;
+
+        PendingConnect(SocketChannel channel, String ipAddress, int port, long deadlineInNS) {
+            this.channel = channel;
+            this.ipAddress = ipAddress;
+            this.port = port;
+            this.deadlineInNS = deadlineInNS;
+        }
+    }
+
+    private final Listener listener;
+    private final int timeoutInMS;
+    private final int connectsPerSecond;
+    private final int maximumPendingConnects;
+    private final Set<String> reportedHosts = new HashSet<>();
+    private volatile boolean stopped = false;
+    private volatile Selector activeSelector;
+
+    /**
+     * Creates a scanner.
+     *
+     * @param listener The listener for the results
+     * @param timeoutInMS The timeout of a single connection attempt in milliseconds
+     * @param connectsPerSecond The maximum rate of new connection attempts
+     * @param maximumPendingConnects The maximum amount of connection attempts in flight
+     */
+    public NetworkScanner(Listener listener, int timeoutInMS, int connectsPerSecond, int maximumPendingConnects) {
+        this.listener = listener;
+        this.timeoutInMS = timeoutInMS;
+        this.connectsPerSecond = Math.max(1, connectsPerSecond);
+        this.maximumPendingConnects = Math.max(1, maximumPendingConnects);
+    }
+
+    /**
+     * Returns the IPv4 address ranges of the given networks in CIDR notation ("192.168.0.1/20"). Networks of any
+     * prefix length are supported. Non IPv4 networks are ignored, as well as duplicates.
+     *
+     * @param interfaceIPs The IPs of the network interfaces in CIDR notation
+     * @param maximumPerInterface The maximum of IP addresses per network or 0 to get all
+     * @return The address ranges to scan
+     */
+    static List<AddressRange> getAddressRanges(Collection<String> interfaceIPs, int maximumPerInterface) {
+        TreeMap<Integer, AddressRange> ranges = new TreeMap<>();
+        for (String interfaceIP : interfaceIPs) {
+            SubnetInfo info;
+            try {
+                info = new SubnetUtils(interfaceIP).getInfo();
+            } catch (IllegalArgumentException ignored) {
+                // IPv6 or otherwise unsupported
+                continue;
+            }
+            int low = info.asInteger(info.getLowAddress());
+            int high = info.asInteger(info.getHighAddress());
+            // Compare unsigned, a /31 or /32 network has no usable host range
+            if (Integer.compareUnsigned(high, low) < 0) {
+                continue;
+            }
+            long count = (high & 0xFFFFFFFFL) - (low & 0xFFFFFFFFL) + 1;
+            if (maximumPerInterface > 0 && count > maximumPerInterface) {
+                count = maximumPerInterface;
+            }
+            ranges.put(low, new AddressRange(low, (int) count));
+        }
+        return new ArrayList<>(ranges.values());
+    }
+
+    /**
+     * Return the total count of addresses of the given ranges.
+     */
+    static long getAddressCount(List<AddressRange> ranges) {
+        long count = 0;
+        for (AddressRange range : ranges) {
+            count += range.addressCount;
+        }
+        return count;
+    }
+
+    /**
+     * Return true if the given IPv4 address is part of one of the ranges.
+     */
+    static boolean contains(List<AddressRange> ranges, String ipAddress) {
+        String[] parts = ipAddress.split("\\.");
+        if (parts.length != 4) {
+            return false;
+        }
+        long address = 0;
+        try {
+            for (String part : parts) {
+                address = (address << 8) | Integer.parseInt(part);
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        for (AddressRange range : ranges) {
+            long offset = address - (range.lowAddress & 0xFFFFFFFFL);
+            if (offset >= 0 && offset < range.addressCount) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String toIpAddress(int address) {
+        return ((address >>> 24) & 0xFF) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "."
+                + (address & 0xFF);
+    }
+
+    private static InetAddress toInetAddress(int address) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[] { (byte) (address >>> 24), (byte) (address >>> 16),
+                (byte) (address >>> 8), (byte) address });
+    }
+
+    /**
+     * Scans all addresses of the given ranges on the given ports. Blocks until all connection attempts are finished
+     * or {@link #stop()} is called. A scanner performs a single scan only.
+     *
+     * @param ranges The address ranges
+     * @param ports The TCP ports. Must not be empty.
+     * @throws IOException If the selector could not be opened
+     */
+    public void scan(List<AddressRange> ranges, Collection<Integer> ports) throws IOException {
+        final int[] portList = ports.stream().mapToInt(Integer::intValue).toArray();
+        final long connectIntervalInNS = TimeUnit.SECONDS.toNanos(1) / connectsPerSecond;
+        final Deque<PendingConnect> pending = new ArrayDeque<>();
+        final ByteBuffer wakeUpPacket = ByteBuffer.allocate(0);
+
+        try (Selector selector = Selector.open(); DatagramChannel udpChannel = DatagramChannel.open()) {
+            activeSelector = selector;
+            udpChannel.configureBlocking(false);
+
+            Iterator<AddressRange> rangeIterator = ranges.iterator();
+            AddressRange range = null;
+            int addressIndex = 0;
+            int portIndex = portList.length;
+            int address = 0;
+            String ipAddress = null;
+            InetAddress inetAddress = null;
+            long nextConnectInNS = System.nanoTime();
+
+            while (!stopped) {
+                long now = System.nanoTime();
+
+                // Start new connection attempts, limited by rate and amount of pending attempts
+                while (pending.size() < maximumPendingConnects && now - nextConnectInNS >= 0) {
+                    if (portIndex == portList.length) {
+                        // Advance to the next address
+                        while (range == null || addressIndex == range.addressCount) {
+                            if (!rangeIterator.hasNext()) {
+                                range = null;
+                                break;
+                            }
+                            range = rangeIterator.next();
+                            addressIndex = 0;
+                        }
+                        if (range == null) {
+                            break;
+                        }
+                        address = range.lowAddress + addressIndex++;
+                        ipAddress = toIpAddress(address);
+                        inetAddress = toInetAddress(address);
+                        portIndex = 0;
+                        wakeUp(udpChannel, wakeUpPacket, inetAddress);
+                    }
+
+                    int port = portList[portIndex++];
+                    connect(selector, pending, new InetSocketAddress(inetAddress, port), ipAddress, port, now);
+
+                    nextConnectInNS += connectIntervalInNS;
+                    // Do not burst to catch up after a slow iteration
+                    if (now - nextConnectInNS > connectIntervalInNS) {
+                        nextConnectInNS = now;
+                    }
+                }
+
+                boolean allStarted = range == null && portIndex == portList.length;
+
+                // Drop finished and expired attempts. All attempts have the same timeout, the deque is ordered.
+                while (!pending.isEmpty()
+                        && (pending.peekFirst().done || now - pending.peekFirst().deadlineInNS >= 0)) {
+                    close(pending.pollFirst());
+                }
+
+                if (allStarted && pending.isEmpty()) {
+                    break;
+                }
+
+                long waitInNS = pending.isEmpty() ? connectIntervalInNS : pending.peekFirst().deadlineInNS - now;
+                if (!allStarted && pending.size() < maximumPendingConnects) {
+                    waitInNS = Math.min(waitInNS, nextConnectInNS - now);
+                }
+                long waitInMS = TimeUnit.NANOSECONDS.toMillis(waitInNS);
+                if (waitInMS > 0) {
+                    selector.select(waitInMS);
+                } else {
+                    selector.selectNow();
+                }
+
+                for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    finishConnect((PendingConnect) key.attachment());
+                }
+            }
+
+            for (PendingConnect p : pending) {
+                close(p);
+            }
+        } finally {
+            activeSelector = null;
+        }
+    }
+
+    /**
+     * Stops a running scan.
+     */
+    public void stop() {
+        stopped = true;
+        Selector s = activeSelector;
+        if (s != null) {
+            s.wakeup();
+        }
+    }
+
+    private void wakeUp(DatagramChannel udpChannel, ByteBuffer wakeUpPacket, InetAddress inetAddress) {
+        try {
+            wakeUpPacket.clear();
+            udpChannel.send(wakeUpPacket, new InetSocketAddress(inetAddress, IOS_WAKEUP_PORT));
+        } catch (IOException ignored) {
+            // The wake up packet is optional
+        }
+    }
+
+    private void connect(Selector selector, Deque<PendingConnect> pending, InetSocketAddress socketAddress,
+            String ipAddress, int port, long now) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            PendingConnect p = new PendingConnect(channel, ipAddress, port,
+                    now + TimeUnit.MILLISECONDS.toNanos(timeoutInMS));
+            if (channel.connect(socketAddress)) {
+                finishConnect(p);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, p);
+                pending.addLast(p);
+            }
+        } catch (ConnectException e) {
+            // Connection refused immediately, there is a device on the other end though
+            hostFound(ipAddress);
+            closeQuietly(channel);
+        } catch (IOException e) {
+            logger.trace("Connection attempt to {}:{} failed", ipAddress, port, e);
+            closeQuietly(channel);
+        }
+    }
+
+    private void finishConnect(PendingConnect p) {
+        try {
+            if (p.channel.finishConnect()) {
+                hostFound(p.ipAddress);
+                listener.serviceFound(p.ipAddress, p.port);
+            } else {
+                return;
+            }
+        } catch (ConnectException e) {
+            // Connection refused, there is a device on the other end though
+            hostFound(p.ipAddress);
+        } catch (IOException ignored) {
+            // No route to host and the like
+        }
+        close(p);
+    }
+
+    private void hostFound(String ipAddress) {
+        if (reportedHosts.add(ipAddress)) {
+            listener.hostFound(ipAddress);
+        }
+    }
+
+    private void close(PendingConnect p) {
+        if (!p.done) {
+            p.done = true;
+            closeQuietly(p.channel);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.handler
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+import static org.mockito.Mockito.*
+
+import org.eclipse.smarthome.config.core.Configuration
+import org.eclipse.smarthome.core.library.types.DecimalType
+import org.eclipse.smarthome.core.library.types.OnOffType
+import org.eclipse.smarthome.core.thing.ChannelUID
+import org.eclipse.smarthome.core.thing.Thing
+import org.eclipse.smarthome.core.thing.ThingStatus
+import org.eclipse.smarthome.core.thing.ThingStatusDetail
+import org.eclipse.smarthome.core.thing.ThingStatusInfo
+import org.eclipse.smarthome.core.thing.ThingUID
+import org.eclipse.smarthome.core.thing.binding.ThingHandlerCallback
+import org.eclipse.smarthome.core.types.RefreshType
+import org.eclipse.smarthome.core.types.UnDefType
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.mockito.ArgumentCaptor
+import org.openhab.binding.systeminfo.SysteminfoBindingConstants
+import org.openhab.binding.systeminfo.internal.model.JvmRuntimeInfo
+
+/**
+ * Tests cases for {@link RuntimeHandler}. The {@link JvmRuntimeInfo} is mocked, so only the mapping of the channels
+ * and the handling of the configuration are tested.
+ *
+ * @author agent - Initial contribution
+ */
+class RuntimeHandlerTest {
+    ThingUID thingUID = new ThingUID(SysteminfoBindingConstants.THING_TYPE_RUNTIME, "work")
+
+    Thing thing
+    ThingHandlerCallback callback
+    JvmRuntimeInfo runtimeInfo
+    RuntimeHandler handler
+
+    @Before
+    public void setUp() {
+        thing = mock(Thing)
+        when(thing.getUID()).thenReturn(thingUID)
+        when(thing.getStatus()).thenReturn(ThingStatus.ONLINE)
+        callback = mock(ThingHandlerCallback)
+        runtimeInfo = mock(JvmRuntimeInfo)
+
+        handler = new RuntimeHandler(thing, runtimeInfo)
+        handler.setCallback(callback)
+    }
+
+    @After
+    public void tearDown() {
+        handler.dispose()
+    }
+
+    private void configureInterval(Object interval) {
+        Configuration configuration = new Configuration()
+        configuration.put(SysteminfoBindingConstants.RUNTIME_REFRESH_TIME, interval)
+        when(thing.getConfiguration()).thenReturn(configuration)
+    }
+
+    private ThingStatusInfo getStatusInfo() {
+        ArgumentCaptor<ThingStatusInfo> statusInfoCaptor = ArgumentCaptor.forClass(ThingStatusInfo)
+        verify(callback).statusUpdated(eq(thing), statusInfoCaptor.capture())
+        return statusInfoCaptor.getValue()
+    }
+
+    private void refresh(String channelID) {
+        handler.handleCommand(new ChannelUID(thingUID, channelID), RefreshType.REFRESH)
+    }
+
+    @Test(expected = IllegalArgumentException)
+    public void 'assert runtime info is required'() {
+        new RuntimeHandler(thing, null)
+    }
+
+    @Test
+    public void 'assert thing is online with valid interval'() {
+        configureInterval(new BigDecimal(10))
+
+        handler.initialize()
+
+        assertThat getStatusInfo().getStatus(), is(ThingStatus.ONLINE)
+        assertThat handler.refreshTask, is(notNullValue())
+    }
+
+    @Test
+    public void 'assert invalid interval is a configuration error'() {
+        [new BigDecimal(0), new BigDecimal(-5), null, "10"].each { interval ->
+            reset(callback)
+            configureInterval(interval)
+
+            handler.initialize()
+
+            ThingStatusInfo statusInfo = getStatusInfo()
+            assertThat statusInfo.getStatus(), is(ThingStatus.OFFLINE)
+            assertThat statusInfo.getStatusDetail(), is(ThingStatusDetail.CONFIGURATION_ERROR)
+            assertThat handler.refreshTask, is(nullValue())
+        }
+    }
+
+    @Test
+    public void 'assert refresh takes the first sample'() {
+        when(runtimeInfo.isSampled()).thenReturn(false)
+        when(runtimeInfo.getHeapUsed()).thenReturn(new DecimalType(100))
+
+        refresh(SysteminfoBindingConstants.CHANNEL_HEAP_USED)
+
+        verify(runtimeInfo).sample()
+        verify(callback).stateUpdated(new ChannelUID(thingUID, SysteminfoBindingConstants.CHANNEL_HEAP_USED),
+                new DecimalType(100))
+    }
+
+    @Test
+    public void 'assert refresh uses the latest sample'() {
+        when(runtimeInfo.isSampled()).thenReturn(true)
+        when(runtimeInfo.getThreadCount()).thenReturn(new DecimalType(42))
+
+        refresh(SysteminfoBindingConstants.CHANNEL_THREADS_COUNT)
+
+        verify(runtimeInfo, never()).sample()
+        verify(callback).stateUpdated(new ChannelUID(thingUID, SysteminfoBindingConstants.CHANNEL_THREADS_COUNT),
+                new DecimalType(42))
+    }
+
+    @Test
+    public void 'assert undefined values are UNDEF'() {
+        when(runtimeInfo.isSampled()).thenReturn(true)
+        when(runtimeInfo.getHeapMax()).thenReturn(null)
+        when(runtimeInfo.getEventRate()).thenThrow(new IllegalStateException())
+
+        refresh(SysteminfoBindingConstants.CHANNEL_HEAP_MAX)
+        refresh(SysteminfoBindingConstants.CHANNEL_EVENTS_RATE)
+        refresh("unknown#channel")
+
+        verify(callback).stateUpdated(new ChannelUID(thingUID, SysteminfoBindingConstants.CHANNEL_HEAP_MAX),
+                UnDefType.UNDEF)
+        verify(callback).stateUpdated(new ChannelUID(thingUID, SysteminfoBindingConstants.CHANNEL_EVENTS_RATE),
+                UnDefType.UNDEF)
+        verify(callback).stateUpdated(new ChannelUID(thingUID, "unknown#channel"), UnDefType.UNDEF)
+    }
+
+    @Test
+    public void 'assert commands are ignored'() {
+        handler.handleCommand(new ChannelUID(thingUID, SysteminfoBindingConstants.CHANNEL_HEAP_USED), OnOffType.ON)
+
+        verify(callback, never()).stateUpdated(any(ChannelUID), any())
+    }
+
+    @Test
+    public void 'assert refresh is ignored when thing is offline'() {
+        when(thing.getStatus()).thenReturn(ThingStatus.OFFLINE)
+
+        refresh(SysteminfoBindingConstants.CHANNEL_HEAP_USED)
+
+        verify(runtimeInfo, never()).sample()
+        verify(callback, never()).stateUpdated(any(ChannelUID), any())
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.internal.model
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+import static org.mockito.Mockito.*
+
+import org.eclipse.smarthome.core.events.Event
+import org.eclipse.smarthome.core.events.EventSubscriber
+import org.junit.Test
+
+/**
+ * Tests cases for {@link EventCounter}.
+ *
+ * @author agent - Initial contribution
+ */
+class EventCounterTest {
+
+    @Test
+    public void 'all events are subscribed'() {
+        EventCounter eventCounter = new EventCounter()
+
+        assertThat eventCounter.getSubscribedEventTypes(), is([EventSubscriber.ALL_EVENT_TYPES] as Set)
+        assertThat eventCounter.getEventFilter(), is(nullValue())
+    }
+
+    @Test
+    public void 'received events are counted'() {
+        EventCounter eventCounter = new EventCounter()
+        assertThat eventCounter.getCount(), is(0L)
+
+        eventCounter.receive(mock(Event))
+        eventCounter.receive(mock(Event))
+
+        assertThat eventCounter.getCount(), is(2L)
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.internal.model
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+import static org.mockito.Mockito.*
+
+import java.lang.management.GarbageCollectorMXBean
+import java.lang.management.MemoryMXBean
+import java.lang.management.MemoryUsage
+import java.lang.management.ThreadMXBean
+import java.util.concurrent.TimeUnit
+import java.util.function.LongSupplier
+
+import org.eclipse.smarthome.core.events.Event
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests cases for {@link JvmRuntimeInfo}. The MXBeans and the clock of the samples are mocked, so the computed values
+ * do not depend on the JVM running the tests.
+ *
+ * @author agent - Initial contribution
+ */
+class JvmRuntimeInfoTest {
+    static final long MB = 1024 * 1024
+    static final double DELTA = 1e-9
+
+    MemoryMXBean memoryBean
+    ThreadMXBean threadBean
+    GarbageCollectorMXBean youngCollector
+    GarbageCollectorMXBean oldCollector
+    long now
+
+    @Before
+    public void setUp() {
+        memoryBean = mock(MemoryMXBean)
+        when(memoryBean.getHeapMemoryUsage()).thenReturn(new MemoryUsage(0, 100 * MB + 1, 200 * MB, 400 * MB))
+        when(memoryBean.getNonHeapMemoryUsage()).thenReturn(new MemoryUsage(0, 30 * MB, 50 * MB, -1))
+
+        threadBean = mock(ThreadMXBean)
+        when(threadBean.getThreadCount()).thenReturn(42)
+        when(threadBean.getDaemonThreadCount()).thenReturn(30)
+        when(threadBean.getPeakThreadCount()).thenReturn(50)
+
+        youngCollector = mock(GarbageCollectorMXBean)
+        when(youngCollector.getCollectionCount()).thenReturn(10L)
+        when(youngCollector.getCollectionTime()).thenReturn(100L)
+        oldCollector = mock(GarbageCollectorMXBean)
+        when(oldCollector.getCollectionCount()).thenReturn(2L)
+        when(oldCollector.getCollectionTime()).thenReturn(20L)
+
+        now = TimeUnit.SECONDS.toNanos(1000)
+    }
+
+    private JvmRuntimeInfo createRuntimeInfo(EventCounter eventCounter) {
+        return new JvmRuntimeInfo(eventCounter, memoryBean, threadBean, [youngCollector, oldCollector],
+                { now } as LongSupplier)
+    }
+
+    @Test
+    public void 'memory is given in MB'() {
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+        assertThat runtimeInfo.isSampled(), is(false)
+
+        runtimeInfo.sample()
+
+        assertThat runtimeInfo.isSampled(), is(true)
+        assertThat runtimeInfo.getHeapUsed().longValue(), is(100L)
+        assertThat runtimeInfo.getHeapCommitted().longValue(), is(200L)
+        assertThat runtimeInfo.getHeapMax().longValue(), is(400L)
+        assertEquals(25.0, runtimeInfo.getHeapUsedPercent().doubleValue(), DELTA)
+        assertThat runtimeInfo.getNonHeapUsed().longValue(), is(30L)
+        assertThat runtimeInfo.getNonHeapCommitted().longValue(), is(50L)
+    }
+
+    @Test
+    public void 'undefined maximum heap has no percent value'() {
+        when(memoryBean.getHeapMemoryUsage()).thenReturn(new MemoryUsage(0, 100 * MB, 200 * MB, -1))
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+
+        runtimeInfo.sample()
+
+        assertThat runtimeInfo.getHeapUsed().longValue(), is(100L)
+        assertThat runtimeInfo.getHeapMax(), is(nullValue())
+        assertThat runtimeInfo.getHeapUsedPercent(), is(nullValue())
+    }
+
+    @Test
+    public void 'thread counts are taken from the sample'() {
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+
+        runtimeInfo.sample()
+        when(threadBean.getThreadCount()).thenReturn(43)
+
+        assertThat runtimeInfo.getThreadCount().intValue(), is(42)
+        assertThat runtimeInfo.getDaemonThreadCount().intValue(), is(30)
+        assertThat runtimeInfo.getPeakThreadCount().intValue(), is(50)
+    }
+
+    @Test
+    public void 'deadlocked threads'() {
+        when(threadBean.isSynchronizerUsageSupported()).thenReturn(true)
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+
+        when(threadBean.findDeadlockedThreads()).thenReturn(null)
+        assertThat runtimeInfo.getDeadlockedThreadCount().intValue(), is(0)
+
+        when(threadBean.findDeadlockedThreads()).thenReturn([1L, 2L] as long[])
+        assertThat runtimeInfo.getDeadlockedThreadCount().intValue(), is(2)
+    }
+
+    @Test
+    public void 'garbage collection rates are not available after the first sample'() {
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+
+        runtimeInfo.sample()
+
+        assertThat runtimeInfo.getGcCount().longValue(), is(12L)
+        assertThat runtimeInfo.getGcTime().longValue(), is(120L)
+        assertThat runtimeInfo.getGcOverhead(), is(nullValue())
+        assertThat runtimeInfo.getGcAveragePause(), is(nullValue())
+    }
+
+    @Test
+    public void 'garbage collection rates are computed between two samples'() {
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+        runtimeInfo.sample()
+
+        when(youngCollector.getCollectionCount()).thenReturn(13L)
+        when(youngCollector.getCollectionTime()).thenReturn(140L)
+        when(oldCollector.getCollectionCount()).thenReturn(3L)
+        when(oldCollector.getCollectionTime()).thenReturn(30L)
+        now += TimeUnit.SECONDS.toNanos(1)
+        runtimeInfo.sample()
+
+        // 50 ms of 1000 ms in 4 collections
+        assertEquals(5.0, runtimeInfo.getGcOverhead().doubleValue(), DELTA)
+        assertEquals(12.5, runtimeInfo.getGcAveragePause().doubleValue(), DELTA)
+    }
+
+    @Test
+    public void 'no garbage collection between two samples'() {
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+        runtimeInfo.sample()
+        now += TimeUnit.SECONDS.toNanos(10)
+        runtimeInfo.sample()
+
+        assertEquals(0.0, runtimeInfo.getGcOverhead().doubleValue(), DELTA)
+        assertEquals(0.0, runtimeInfo.getGcAveragePause().doubleValue(), DELTA)
+    }
+
+    @Test
+    public void 'garbage collection overhead is at most 100 percent'() {
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+        runtimeInfo.sample()
+
+        // the time of the collectors is not taken at the same time as the clock of the samples
+        when(youngCollector.getCollectionCount()).thenReturn(11L)
+        when(youngCollector.getCollectionTime()).thenReturn(1200L)
+        now += TimeUnit.SECONDS.toNanos(1)
+        runtimeInfo.sample()
+
+        assertEquals(100.0, runtimeInfo.getGcOverhead().doubleValue(), DELTA)
+    }
+
+    @Test
+    public void 'garbage collection overhead needs time between the samples'() {
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+        runtimeInfo.sample()
+        runtimeInfo.sample()
+
+        assertThat runtimeInfo.getGcOverhead(), is(nullValue())
+    }
+
+    @Test
+    public void 'collectors without counters are ignored'() {
+        when(oldCollector.getCollectionCount()).thenReturn(-1L)
+        when(oldCollector.getCollectionTime()).thenReturn(-1L)
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+
+        runtimeInfo.sample()
+
+        assertThat runtimeInfo.getGcCount().longValue(), is(10L)
+        assertThat runtimeInfo.getGcTime().longValue(), is(100L)
+    }
+
+    @Test
+    public void 'events are not available without a counter'() {
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(null)
+        runtimeInfo.sample()
+        now += TimeUnit.SECONDS.toNanos(1)
+        runtimeInfo.sample()
+
+        assertThat runtimeInfo.getEventCount(), is(nullValue())
+        assertThat runtimeInfo.getEventRate(), is(nullValue())
+    }
+
+    @Test
+    public void 'event rate is computed between two samples'() {
+        EventCounter eventCounter = new EventCounter()
+        JvmRuntimeInfo runtimeInfo = createRuntimeInfo(eventCounter)
+        Event event = mock(Event)
+
+        5.times { eventCounter.receive(event) }
+        runtimeInfo.sample()
+        assertThat runtimeInfo.getEventCount().longValue(), is(5L)
+        assertThat runtimeInfo.getEventRate(), is(nullValue())
+
+        10.times { eventCounter.receive(event) }
+        now += TimeUnit.SECONDS.toNanos(4)
+        runtimeInfo.sample()
+        assertThat runtimeInfo.getEventCount().longValue(), is(15L)
+        assertEquals(2.5, runtimeInfo.getEventRate().doubleValue(), DELTA)
+    }
+}
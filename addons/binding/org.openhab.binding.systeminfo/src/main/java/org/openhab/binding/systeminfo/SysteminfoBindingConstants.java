@@ -22,6 +22,8 @@ public class SysteminfoBindingConstants {
 
     public static final ThingTypeUID THING_TYPE_COMPUTER = new ThingTypeUID(BINDING_ID, "computer");
 
+    public static final ThingTypeUID THING_TYPE_RUNTIME = new ThingTypeUID(BINDING_ID, "runtime");
+
     // Thing properties
     /**
      * Number of CPU logical cores
@@ -301,6 +303,93 @@ public class SysteminfoBindingConstants {
      */
     public static final String CHANNEL_PROCESS_PATH = "process#path";
 
+    /**
+     * Time in ms needed to collect the information for the channels in the last refresh
+     */
+    public static final String CHANNEL_BINDING_COLLECTION_TIME = "binding#collectionTime";
+
+    // List of all Channel IDs of the runtime thing
+
+    /**
+     * Size of the used heap memory in MB
+     */
+    public static final String CHANNEL_HEAP_USED = "heap#used";
+
+    /**
+     * Size of the heap memory committed by the JVM in MB
+     */
+    public static final String CHANNEL_HEAP_COMMITTED = "heap#committed";
+
+    /**
+     * Maximum size of the heap memory in MB
+     */
+    public static final String CHANNEL_HEAP_MAX = "heap#max";
+
+    /**
+     * Used heap memory in percents of the maximum heap memory
+     */
+    public static final String CHANNEL_HEAP_USED_PERCENT = "heap#usedPercent";
+
+    /**
+     * Size of the used non-heap memory in MB
+     */
+    public static final String CHANNEL_NON_HEAP_USED = "nonHeap#used";
+
+    /**
+     * Size of the non-heap memory committed by the JVM in MB
+     */
+    public static final String CHANNEL_NON_HEAP_COMMITTED = "nonHeap#committed";
+
+    /**
+     * Number of garbage collections since the start of the JVM
+     */
+    public static final String CHANNEL_GC_COUNT = "gc#count";
+
+    /**
+     * Accumulated time of the garbage collections since the start of the JVM in ms
+     */
+    public static final String CHANNEL_GC_TIME = "gc#time";
+
+    /**
+     * Time spent in garbage collections since the last refresh in percent
+     */
+    public static final String CHANNEL_GC_OVERHEAD = "gc#overhead";
+
+    /**
+     * Average time of the garbage collections since the last refresh in ms
+     */
+    public static final String CHANNEL_GC_AVERAGE_PAUSE = "gc#averagePause";
+
+    /**
+     * Number of live threads
+     */
+    public static final String CHANNEL_THREADS_COUNT = "threads#count";
+
+    /**
+     * Number of live daemon threads
+     */
+    public static final String CHANNEL_THREADS_DAEMON = "threads#daemon";
+
+    /**
+     * Peak number of live threads since the start of the JVM
+     */
+    public static final String CHANNEL_THREADS_PEAK = "threads#peak";
+
+    /**
+     * Number of deadlocked threads
+     */
+    public static final String CHANNEL_THREADS_DEADLOCKED = "threads#deadlocked";
+
+    /**
+     * Number of events on the event bus since the start of the binding
+     */
+    public static final String CHANNEL_EVENTS_TOTAL = "events#total";
+
+    /**
+     * Number of events per second on the event bus since the last refresh
+     */
+    public static final String CHANNEL_EVENTS_RATE = "events#rate";
+
     // Thing configuraion
     /**
      * Name of the configuration parameter of the thing that defines refresh time for High priority channels
@@ -312,6 +401,11 @@ public class SysteminfoBindingConstants {
      */
     public static final String MEDIUM_PRIORITY_REFRESH_TIME = "interval_medium";
 
+    /**
+     * Name of the configuration parameter of the runtime thing that defines the refresh time of its channels
+     */
+    public static final String RUNTIME_REFRESH_TIME = "interval";
+
     // Channel configuration
 
     /**
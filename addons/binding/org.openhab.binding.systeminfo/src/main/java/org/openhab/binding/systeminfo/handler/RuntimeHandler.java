@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.handler;
+
+import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.smarthome.core.thing.Channel;
+import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.eclipse.smarthome.core.thing.ThingStatusDetail;
+import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
+import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.RefreshType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.openhab.binding.systeminfo.internal.model.JvmRuntimeInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link RuntimeHandler} is responsible for providing information about the Java virtual machine, in which
+ * openHAB is running (memory, garbage collection, threads and event bus throughput).
+ *
+ * All linked channels are updated together at the configured refresh interval from one sample of the
+ * {@link JvmRuntimeInfo}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RuntimeHandler extends BaseThingHandler {
+
+    /**
+     * Wait time for the creation of Item-Channel links in seconds, see {@link SysteminfoHandler}
+     */
+    private static final int WAIT_TIME_CHANNEL_ITEM_LINK_INIT = 1;
+
+    /**
+     * Refresh interval for all channels in seconds.
+     */
+    private BigDecimal refreshInterval;
+
+    private final JvmRuntimeInfo runtimeInfo;
+
+    ScheduledFuture<?> refreshTask;
+
+    private Logger logger = LoggerFactory.getLogger(RuntimeHandler.class);
+
+    public RuntimeHandler(@NonNull Thing thing, JvmRuntimeInfo runtimeInfo) {
+        super(thing);
+        if (runtimeInfo != null) {
+            this.runtimeInfo = runtimeInfo;
+        } else {
+            throw new IllegalArgumentException("No runtime info was provided");
+        }
+    }
+
+    @Override
+    public void initialize() {
+        logger.debug("Start initializing!");
+
+        if (isConfigurationValid()) {
+            scheduleUpdates();
+            logger.debug("Thing is successfully initialized!");
+            updateStatus(ThingStatus.ONLINE);
+        } else {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "Refresh time value is invalid! Please change the thing configuration!");
+        }
+    }
+
+    private boolean isConfigurationValid() {
+        try {
+            refreshInterval = (BigDecimal) this.thing.getConfiguration().get(RUNTIME_REFRESH_TIME);
+            if (refreshInterval == null || refreshInterval.intValue() <= 0) {
+                logger.error("Refresh time must be positive number!");
+                return false;
+            }
+            logger.debug("Refresh time for the runtime channels set to {} s", refreshInterval);
+            return true;
+        } catch (ClassCastException e) {
+            logger.error("Thing configuration can not be read !");
+            return false;
+        }
+    }
+
+    private void scheduleUpdates() {
+        logger.debug("Schedule runtime updates at fixed rate {} s.", refreshInterval);
+        refreshTask = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                publishData();
+            }
+        }, WAIT_TIME_CHANNEL_ITEM_LINK_INIT, refreshInterval.intValue(), TimeUnit.SECONDS);
+    }
+
+    private void publishData() {
+        runtimeInfo.sample();
+        for (Channel channel : this.thing.getChannels()) {
+            ChannelUID channelUID = channel.getUID();
+            if (isLinked(channelUID.getId())) {
+                updateState(channelUID.getId(), getInfoForChannel(channelUID));
+            }
+        }
+    }
+
+    /**
+     * This method gets the information for specific channel through the {@link JvmRuntimeInfo}.
+     *
+     * @param channelUID - the UID of the channel
+     * @return State object or {@link UnDefType#UNDEF}, if there is no information for this channel
+     */
+    private State getInfoForChannel(ChannelUID channelUID) {
+        State state = null;
+        String channelID = channelUID.getId();
+
+        try {
+            switch (channelID) {
+                case CHANNEL_HEAP_USED:
+                    state = runtimeInfo.getHeapUsed();
+                    break;
+                case CHANNEL_HEAP_COMMITTED:
+                    state = runtimeInfo.getHeapCommitted();
+                    break;
+                case CHANNEL_HEAP_MAX:
+                    state = runtimeInfo.getHeapMax();
+                    break;
+                case CHANNEL_HEAP_USED_PERCENT:
+                    state = runtimeInfo.getHeapUsedPercent();
+                    break;
+                case CHANNEL_NON_HEAP_USED:
+                    state = runtimeInfo.getNonHeapUsed();
+                    break;
+                case CHANNEL_NON_HEAP_COMMITTED:
+                    state = runtimeInfo.getNonHeapCommitted();
+                    break;
+                case CHANNEL_GC_COUNT:
+                    state = runtimeInfo.getGcCount();
+                    break;
+                case CHANNEL_GC_TIME:
+                    state = runtimeInfo.getGcTime();
+                    break;
+                case CHANNEL_GC_OVERHEAD:
+                    state = runtimeInfo.getGcOverhead();
+                    break;
+                case CHANNEL_GC_AVERAGE_PAUSE:
+                    state = runtimeInfo.getGcAveragePause();
+                    break;
+                case CHANNEL_THREADS_COUNT:
+                    state = runtimeInfo.getThreadCount();
+                    break;
+                case CHANNEL_THREADS_DAEMON:
+                    state = runtimeInfo.getDaemonThreadCount();
+                    break;
+                case CHANNEL_THREADS_PEAK:
+                    state = runtimeInfo.getPeakThreadCount();
+                    break;
+                case CHANNEL_THREADS_DEADLOCKED:
+                    state = runtimeInfo.getDeadlockedThreadCount();
+                    break;
+                case CHANNEL_EVENTS_TOTAL:
+                    state = runtimeInfo.getEventCount();
+                    break;
+                case CHANNEL_EVENTS_RATE:
+                    state = runtimeInfo.getEventRate();
+                    break;
+                default:
+                    logger.error("Channel with unknown ID: {} !", channelID);
+            }
+        } catch (Exception e) {
+            logger.error("Unexpected error occurred while getting runtime information!", e);
+        }
+        return state != null ? state : UnDefType.UNDEF;
+    }
+
+    @Override
+    public void handleCommand(ChannelUID channelUID, Command command) {
+        if (thing.getStatus().equals(ThingStatus.ONLINE)) {
+            if (command instanceof RefreshType) {
+                logger.debug("Refresh command received for channel {}!", channelUID);
+                if (!runtimeInfo.isSampled()) {
+                    runtimeInfo.sample();
+                }
+                updateState(channelUID.getId(), getInfoForChannel(channelUID));
+            } else {
+                logger.debug("Unsupported command {}! Supported commands: REFRESH", command);
+            }
+        } else {
+            logger.debug("Cannot handle command. Thing is not ONLINE.");
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (refreshTask != null) {
+            logger.debug("Runtime updates will not be run anymore !");
+            refreshTask.cancel(true);
+        }
+    }
+
+}
@@ -11,8 +11,8 @@ package org.openhab.binding.systeminfo.handler;
 import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +21,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.smarthome.config.core.Configuration;
+import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.thing.Channel;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
@@ -84,6 +85,11 @@ public class SysteminfoHandler extends BaseThingHandler {
 
     private SysteminfoInterface systeminfo;
 
+    /**
+     * Time in milliseconds needed to collect the information for the channels in the last refresh.
+     */
+    private volatile BigDecimal collectionTime;
+
     ScheduledFuture<?> highPriorityTasks;
     ScheduledFuture<?> mediumPriorityTasks;
 
@@ -242,20 +248,65 @@ public class SysteminfoHandler extends BaseThingHandler {
 
     }
 
+    /**
+     * Publishes the states of the linked channels. The information for all channels is taken from a single snapshot
+     * of the system, so that every subsystem is queried only once per refresh and only if a channel needs it.
+     *
+     * @param channels - the channels to update
+     */
     private void publishData(Set<ChannelUID> channels) {
-        if (channels != null) {
-            Iterator<ChannelUID> iter = channels.iterator();
-            while (iter.hasNext()) {
-                ChannelUID channeUID = iter.next();
-                if (isLinked(channeUID.getId())) {
-                    publishDataForChannel(channeUID);
+        if (channels == null) {
+            return;
+        }
+        List<ChannelUID> linkedChannels = new ArrayList<ChannelUID>();
+        ChannelUID collectionTimeChannel = null;
+        for (ChannelUID channelUID : channels) {
+            if (isLinked(channelUID.getId())) {
+                if (CHANNEL_BINDING_COLLECTION_TIME.equals(channelUID.getId())) {
+                    // Published after the collection, so that it contains the time of this refresh
+                    collectionTimeChannel = channelUID;
+                } else {
+                    linkedChannels.add(channelUID);
                 }
             }
         }
+        if (linkedChannels.isEmpty() && collectionTimeChannel == null) {
+            return;
+        }
+
+        List<State> states = new ArrayList<State>(linkedChannels.size());
+        synchronized (systeminfo) {
+            if (!linkedChannels.isEmpty()) {
+                long start = System.nanoTime();
+                systeminfo.newSnapshot();
+                for (ChannelUID channelUID : linkedChannels) {
+                    states.add(getInfoForChannel(channelUID));
+                }
+                collectionTime = new BigDecimal((System.nanoTime() - start) / 1000000.0)
+                        .setScale(1, BigDecimal.ROUND_HALF_UP);
+                logger.trace("Collected the information for {} channels in {} ms", linkedChannels.size(),
+                        collectionTime);
+            }
+        }
+
+        for (int i = 0; i < linkedChannels.size(); i++) {
+            publishState(linkedChannels.get(i), states.get(i));
+        }
+        if (collectionTimeChannel != null) {
+            publishState(collectionTimeChannel, getInfoForChannel(collectionTimeChannel));
+        }
     }
 
     private void publishDataForChannel(ChannelUID channelUID) {
-        State state = getInfoForChannel(channelUID);
+        State state;
+        synchronized (systeminfo) {
+            systeminfo.newSnapshot();
+            state = getInfoForChannel(channelUID);
+        }
+        publishState(channelUID, state);
+    }
+
+    private void publishState(ChannelUID channelUID, State state) {
         String channelID = channelUID.getId();
         if (state != null) {
             updateState(channelID, state);
@@ -435,6 +486,9 @@ public class SysteminfoHandler extends BaseThingHandler {
                 case CHANNEL_PROCESS_THREADS:
                     state = systeminfo.getProcessThreads(deviceIndex);
                     break;
+                case CHANNEL_BINDING_COLLECTION_TIME:
+                    state = collectionTime != null ? new DecimalType(collectionTime) : null;
+                    break;
                 default:
                     logger.error("Channel with unknown ID: {} !", channelID);
             }
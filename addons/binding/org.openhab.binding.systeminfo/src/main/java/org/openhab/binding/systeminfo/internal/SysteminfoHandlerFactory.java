@@ -8,18 +8,22 @@
  */
 package org.openhab.binding.systeminfo.internal;
 
-import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.THING_TYPE_COMPUTER;
+import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
 
-import java.util.Collections;
 import java.util.Set;
 
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
+import org.openhab.binding.systeminfo.handler.RuntimeHandler;
 import org.openhab.binding.systeminfo.handler.SysteminfoHandler;
+import org.openhab.binding.systeminfo.internal.model.EventCounter;
+import org.openhab.binding.systeminfo.internal.model.JvmRuntimeInfo;
 import org.openhab.binding.systeminfo.internal.model.SysteminfoInterface;
 
+import com.google.common.collect.ImmutableSet;
+
 /**
  * The {@link SysteminfoHandlerFactory} is responsible for creating things and thing
  * handlers.
@@ -29,10 +33,13 @@ import org.openhab.binding.systeminfo.internal.model.SysteminfoInterface;
  */
 public class SysteminfoHandlerFactory extends BaseThingHandlerFactory {
 
-    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections.singleton(THING_TYPE_COMPUTER);
+    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = ImmutableSet.of(THING_TYPE_COMPUTER,
+            THING_TYPE_RUNTIME);
 
     private SysteminfoInterface systeminfo;
 
+    private EventCounter eventCounter;
+
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
         return SUPPORTED_THING_TYPES_UIDS.contains(thingTypeUID);
@@ -45,6 +52,8 @@ public class SysteminfoHandlerFactory extends BaseThingHandlerFactory {
 
         if (thingTypeUID.equals(THING_TYPE_COMPUTER)) {
             return new SysteminfoHandler(thing, systeminfo);
+        } else if (thingTypeUID.equals(THING_TYPE_RUNTIME)) {
+            return new RuntimeHandler(thing, new JvmRuntimeInfo(eventCounter));
         }
 
         return null;
@@ -57,4 +66,12 @@ public class SysteminfoHandlerFactory extends BaseThingHandlerFactory {
     public void unbindSystemInfo(SysteminfoInterface systeminfo) {
         this.systeminfo = null;
     }
+
+    public void bindEventCounter(EventCounter eventCounter) {
+        this.eventCounter = eventCounter;
+    }
+
+    public void unbindEventCounter(EventCounter eventCounter) {
+        this.eventCounter = null;
+    }
 }
@@ -8,11 +8,10 @@
  */
 package org.openhab.binding.systeminfo.internal.discovery;
 
-import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.THING_TYPE_COMPUTER;
+import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.Collections;
 import java.util.Set;
 
 import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
@@ -24,20 +23,26 @@ import org.openhab.binding.systeminfo.SysteminfoBindingConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableSet;
+
 /**
  * Discovery service implementation for the Systeminfo binding. It creates {@link DiscoveryResult} with
  * {@link #DEFAULT_THING_LABEL}. The discovered Thing will have id - the hostname or {@link #DEFAULT_THING_ID}'
+ * A {@link DiscoveryResult} for the runtime thing with {@link #DEFAULT_RUNTIME_THING_LABEL} and the same id is created
+ * as well.
  *
  * @author Svilen Valkanov
  */
 public class SysteminfoDiscoveryService extends AbstractDiscoveryService {
     private final Logger logger = LoggerFactory.getLogger(SysteminfoDiscoveryService.class);
 
-    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections.singleton(THING_TYPE_COMPUTER);
+    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = ImmutableSet.of(THING_TYPE_COMPUTER,
+            THING_TYPE_RUNTIME);
 
     private static final int DISCOVERY_TIME_SECONDS = 30;
     private static final String DEFAULT_THING_ID = "unknown";
     private static final String DEFAULT_THING_LABEL = "Local computer";
+    private static final String DEFAULT_RUNTIME_THING_LABEL = "openHAB runtime";
     private static final String THING_UID_VALID_CHARS = "A-Za-z0-9_-";
     private static final String HOST_NAME_SEPERATOR = "_";
 
@@ -67,6 +72,9 @@ public class SysteminfoDiscoveryService extends AbstractDiscoveryService {
         ThingTypeUID computerType = SysteminfoBindingConstants.THING_TYPE_COMPUTER;
         ThingUID computer = new ThingUID(computerType, hostname);
         thingDiscovered(DiscoveryResultBuilder.create(computer).withLabel(DEFAULT_THING_LABEL).build());
+
+        ThingUID runtime = new ThingUID(THING_TYPE_RUNTIME, hostname);
+        thingDiscovered(DiscoveryResultBuilder.create(runtime).withLabel(DEFAULT_RUNTIME_THING_LABEL).build());
     }
 
     protected String getHostName() throws UnknownHostException {
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.internal.model;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+
+/**
+ * The {@link JvmRuntimeInfo} provides information about the Java virtual machine, in which openHAB is running. The
+ * information is read from the platform MXBeans, which only return counters maintained by the JVM, so sampling
+ * them is cheap.
+ *
+ * The memory, garbage collection, thread and event values are taken together by {@link #sample()}. Values that
+ * describe a rate are computed from the difference to the previous sample, they are not available until the
+ * second sample.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class JvmRuntimeInfo {
+
+    public static final int PRECISION_AFTER_DECIMAL_SIGN = 1;
+
+    private final MemoryMXBean memoryBean;
+    private final ThreadMXBean threadBean;
+    private final List<GarbageCollectorMXBean> garbageCollectorBeans;
+    private final LongSupplier nanoClock;
+
+    private final EventCounter eventCounter;
+
+    private Sample current;
+    private Sample previous;
+
+    /**
+     * @param eventCounter - counter of the events on the event bus, or null if the event bus throughput is not
+     *            available
+     */
+    public JvmRuntimeInfo(EventCounter eventCounter) {
+        this(eventCounter, ManagementFactory.getMemoryMXBean(), ManagementFactory.getThreadMXBean(),
+                ManagementFactory.getGarbageCollectorMXBeans(), System::nanoTime);
+    }
+
+    /**
+     * Constructor used by the tests to provide the MXBeans and the clock of the samples
+     */
+    JvmRuntimeInfo(EventCounter eventCounter, MemoryMXBean memoryBean, ThreadMXBean threadBean,
+            List<GarbageCollectorMXBean> garbageCollectorBeans, LongSupplier nanoClock) {
+        this.eventCounter = eventCounter;
+        this.memoryBean = memoryBean;
+        this.threadBean = threadBean;
+        this.garbageCollectorBeans = garbageCollectorBeans;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Take a new sample of the runtime information. The getters return the values of the latest sample.
+     */
+    public synchronized void sample() {
+        Sample sample = new Sample();
+        sample.time = nanoClock.getAsLong();
+        sample.heap = memoryBean.getHeapMemoryUsage();
+        sample.nonHeap = memoryBean.getNonHeapMemoryUsage();
+        for (GarbageCollectorMXBean garbageCollector : garbageCollectorBeans) {
+            // Collectors, which do not support the counters, return -1
+            sample.gcCount += Math.max(0, garbageCollector.getCollectionCount());
+            sample.gcTime += Math.max(0, garbageCollector.getCollectionTime());
+        }
+        sample.threadCount = threadBean.getThreadCount();
+        sample.daemonThreadCount = threadBean.getDaemonThreadCount();
+        sample.peakThreadCount = threadBean.getPeakThreadCount();
+        sample.eventCount = eventCounter != null ? eventCounter.getCount() : -1;
+
+        previous = current;
+        current = sample;
+    }
+
+    /**
+     * Check if a sample has been taken
+     */
+    public synchronized boolean isSampled() {
+        return current != null;
+    }
+
+    // Heap memory info
+    /**
+     * Get the used heap memory in MB
+     */
+    public synchronized DecimalType getHeapUsed() {
+        return new DecimalType(getSizeInMB(current.heap.getUsed()));
+    }
+
+    /**
+     * Get the heap memory in MB, that is committed by the JVM
+     */
+    public synchronized DecimalType getHeapCommitted() {
+        return new DecimalType(getSizeInMB(current.heap.getCommitted()));
+    }
+
+    /**
+     * Get the maximum heap memory in MB
+     *
+     * @return null, if the maximum is not defined
+     */
+    public synchronized DecimalType getHeapMax() {
+        long max = current.heap.getMax();
+        return max < 0 ? null : new DecimalType(getSizeInMB(max));
+    }
+
+    /**
+     * Get the used heap memory in percents of the maximum heap memory
+     *
+     * @return null, if the maximum is not defined
+     */
+    public synchronized DecimalType getHeapUsedPercent() {
+        long max = current.heap.getMax();
+        if (max <= 0) {
+            return null;
+        }
+        return new DecimalType(getPercents(current.heap.getUsed(), max));
+    }
+
+    // Non-heap memory info
+    /**
+     * Get the used non-heap memory (metaspace, code cache ...) in MB
+     */
+    public synchronized DecimalType getNonHeapUsed() {
+        return new DecimalType(getSizeInMB(current.nonHeap.getUsed()));
+    }
+
+    /**
+     * Get the non-heap memory in MB, that is committed by the JVM
+     */
+    public synchronized DecimalType getNonHeapCommitted() {
+        return new DecimalType(getSizeInMB(current.nonHeap.getCommitted()));
+    }
+
+    // Garbage collection info
+    /**
+     * Get the number of garbage collections since the start of the JVM
+     */
+    public synchronized DecimalType getGcCount() {
+        return new DecimalType(current.gcCount);
+    }
+
+    /**
+     * Get the accumulated time of the garbage collections since the start of the JVM in ms
+     */
+    public synchronized DecimalType getGcTime() {
+        return new DecimalType(current.gcTime);
+    }
+
+    /**
+     * Get the time spent in garbage collections between the last two samples, in percents of the time between them
+     *
+     * @return null, if only one sample is taken
+     */
+    public synchronized DecimalType getGcOverhead() {
+        if (previous == null) {
+            return null;
+        }
+        long elapsedMillis = (current.time - previous.time) / 1000000;
+        if (elapsedMillis <= 0) {
+            return null;
+        }
+        return new DecimalType(getPercents(Math.min(current.gcTime - previous.gcTime, elapsedMillis), elapsedMillis));
+    }
+
+    /**
+     * Get the average time of the garbage collections between the last two samples in ms
+     *
+     * @return 0, if there was no garbage collection, or null if only one sample is taken
+     */
+    public synchronized DecimalType getGcAveragePause() {
+        if (previous == null) {
+            return null;
+        }
+        long collections = current.gcCount - previous.gcCount;
+        if (collections <= 0) {
+            return new DecimalType(0);
+        }
+        BigDecimal pause = new BigDecimal((double) (current.gcTime - previous.gcTime) / collections);
+        return new DecimalType(pause.setScale(PRECISION_AFTER_DECIMAL_SIGN, BigDecimal.ROUND_HALF_UP));
+    }
+
+    // Thread info
+    /**
+     * Get the number of live threads
+     */
+    public synchronized DecimalType getThreadCount() {
+        return new DecimalType(current.threadCount);
+    }
+
+    /**
+     * Get the number of live daemon threads
+     */
+    public synchronized DecimalType getDaemonThreadCount() {
+        return new DecimalType(current.daemonThreadCount);
+    }
+
+    /**
+     * Get the peak number of live threads since the start of the JVM
+     */
+    public synchronized DecimalType getPeakThreadCount() {
+        return new DecimalType(current.peakThreadCount);
+    }
+
+    /**
+     * Get the number of threads, that are deadlocked waiting for monitors or synchronizers. The detection is more
+     * expensive than the other values, so it is not part of the sample and runs only on request.
+     */
+    public DecimalType getDeadlockedThreadCount() {
+        long[] deadlockedThreads = threadBean.isSynchronizerUsageSupported() ? threadBean.findDeadlockedThreads()
+                : threadBean.findMonitorDeadlockedThreads();
+        return new DecimalType(deadlockedThreads != null ? deadlockedThreads.length : 0);
+    }
+
+    // Event bus info
+    /**
+     * Get the number of events on the event bus since the start of the binding
+     *
+     * @return null, if the events are not counted
+     */
+    public synchronized DecimalType getEventCount() {
+        return current.eventCount < 0 ? null : new DecimalType(current.eventCount);
+    }
+
+    /**
+     * Get the number of events per second on the event bus between the last two samples
+     *
+     * @return null, if the events are not counted or only one sample is taken
+     */
+    public synchronized DecimalType getEventRate() {
+        if (previous == null || current.eventCount < 0 || previous.eventCount < 0) {
+            return null;
+        }
+        double elapsedSeconds = (current.time - previous.time) / 1000000000.0;
+        if (elapsedSeconds <= 0) {
+            return null;
+        }
+        BigDecimal rate = new BigDecimal((current.eventCount - previous.eventCount) / elapsedSeconds);
+        return new DecimalType(rate.setScale(PRECISION_AFTER_DECIMAL_SIGN, BigDecimal.ROUND_HALF_UP));
+    }
+
+    private long getSizeInMB(long sizeInBytes) {
+        return sizeInBytes / (1024 * 1024);
+    }
+
+    private BigDecimal getPercents(long value, long total) {
+        BigDecimal result = new BigDecimal(value * 100.0 / total);
+        return result.setScale(PRECISION_AFTER_DECIMAL_SIGN, BigDecimal.ROUND_HALF_UP);
+    }
+
+    /**
+     * The values of the runtime information at one point of time
+     */
+    private static class Sample {
+        private long time;
+        private MemoryUsage heap;
+        private MemoryUsage nonHeap;
+        private long gcCount;
+        private long gcTime;
+        private int threadCount;
+        private int daemonThreadCount;
+        private int peakThreadCount;
+        private long eventCount;
+    }
+}
@@ -24,6 +24,13 @@ public interface SysteminfoInterface {
      */
     public void initializeSysteminfo();
 
+    /**
+     * Start a new snapshot of the system information. Until the next call, every subsystem (memory, storage,
+     * network, ...) is queried only once, when its information is first requested, and the following requests are
+     * served from the snapshot. Subsystems whose information is not requested are not queried at all.
+     */
+    public void newSnapshot();
+
     // Operating system info
     /**
      * Get the Family of the operating system /e.g. Windows,Unix,.../
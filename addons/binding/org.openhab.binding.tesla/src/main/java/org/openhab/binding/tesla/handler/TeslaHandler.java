@@ -14,14 +14,16 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.security.GeneralSecurityException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
@@ -69,15 +71,19 @@ import org.openhab.binding.tesla.internal.protocol.TokenRequestRefreshToken;
 import org.openhab.binding.tesla.internal.protocol.TokenResponse;
 import org.openhab.binding.tesla.internal.protocol.Vehicle;
 import org.openhab.binding.tesla.internal.protocol.VehicleState;
-import org.openhab.binding.tesla.internal.throttler.QueueChannelThrottler;
-import org.openhab.binding.tesla.internal.throttler.Rate;
+import org.openhab.io.transport.throttler.QueueChannelThrottler;
+import org.openhab.io.transport.throttler.Rate;
+import org.openhab.io.transport.throttler.RateLimit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
 
 /**
  * The {@link TeslaHandler} is responsible for handling commands, which are sent
@@ -97,6 +103,11 @@ public class TeslaHandler extends BaseThingHandler {
     private static final int CONNECT_RETRY_INTERVAL = 15000;
     private static final int MAXIMUM_ERRORS_IN_INTERVAL = 2;
     private static final int ERROR_INTERVAL_SECONDS = 15;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    // The rate limits of the Tesla accounts, shared by the handlers of all vehicles of an account. The rate limit of
+    // an account is removed, when the last handler of the account is disposed.
+    private static final Map<String, AccountRateLimit> ACCOUNT_RATE_LIMITS = new HashMap<>();
 
     private Logger logger = LoggerFactory.getLogger(TeslaHandler.class);
 
@@ -126,6 +137,7 @@ public class TeslaHandler extends BaseThingHandler {
     protected ScheduledFuture<?> fastStateJob;
     protected ScheduledFuture<?> slowStateJob;
     protected QueueChannelThrottler stateThrottler;
+    protected String account;
 
     protected long lastTimeStamp;
     protected long intervalTimestamp = 0;
@@ -134,6 +146,9 @@ public class TeslaHandler extends BaseThingHandler {
 
     private StorageService storageService;
     protected Gson gson = new Gson();
+    protected JsonParser parser = new JsonParser();
+    // The last state sent to each channel, to suppress updates that do not change the state
+    protected final Map<String, State> channelStates = new ConcurrentHashMap<>();
     protected TeslaChannelSelectorProxy teslaChannelSelectorProxy = new TeslaChannelSelectorProxy();
     private TokenResponse logonToken;
 
@@ -149,6 +164,7 @@ public class TeslaHandler extends BaseThingHandler {
 
         updateStatus(ThingStatus.UNKNOWN);
 
+        channelStates.clear();
         lock = new ReentrantLock();
 
         lock.lock();
@@ -161,14 +177,11 @@ public class TeslaHandler extends BaseThingHandler {
             eventThread = new Thread(eventRunnable, "ESH-Tesla-Event Stream-" + getThing().getUID());
             eventThread.start();
 
-            Map<Object, Rate> channels = new HashMap<Object, Rate>();
-            channels.put(TESLA_DATA_THROTTLE, new Rate(1, 1, TimeUnit.SECONDS));
-            channels.put(TESLA_COMMAND_THROTTLE, new Rate(20, 1, TimeUnit.MINUTES));
+            Map<Object, RateLimit> channels = new HashMap<Object, RateLimit>();
+            channels.put(TESLA_DATA_THROTTLE, new RateLimit(new Rate(1, 1, TimeUnit.SECONDS)));
+            channels.put(TESLA_COMMAND_THROTTLE, new RateLimit(new Rate(20, 1, TimeUnit.MINUTES)));
 
-            Rate firstRate = new Rate(20, 1, TimeUnit.MINUTES);
-            Rate secondRate = new Rate(200, 10, TimeUnit.MINUTES);
-            stateThrottler = new QueueChannelThrottler(firstRate, scheduler, channels);
-            stateThrottler.addRate(secondRate);
+            stateThrottler = new QueueChannelThrottler(acquireAccountRateLimit(), scheduler, channels);
 
             if (fastStateJob == null || fastStateJob.isCancelled()) {
                 fastStateJob = scheduler.scheduleWithFixedDelay(fastStateRunnable, 0, FAST_STATUS_REFRESH_INTERVAL,
@@ -210,12 +223,48 @@ public class TeslaHandler extends BaseThingHandler {
                 connectJob.cancel(true);
                 connectJob = null;
             }
+
+            if (stateThrottler != null) {
+                stateThrottler.clear();
+                logger.debug("Throttled {} requests for {}, {} rejected, account {}",
+                        new Object[] { stateThrottler.getExecutedTasks(), getThing().getUID(),
+                                stateThrottler.getRejectedTasks(), stateThrottler.getRateLimit() });
+                stateThrottler = null;
+                releaseAccountRateLimit();
+            }
         } finally {
             lock.unlock();
         }
 
     }
 
+    private RateLimit acquireAccountRateLimit() {
+        Object username = getConfig().get(USERNAME);
+        account = username != null ? username.toString() : getThing().getUID().toString();
+        synchronized (ACCOUNT_RATE_LIMITS) {
+            AccountRateLimit accountRateLimit = ACCOUNT_RATE_LIMITS.get(account);
+            if (accountRateLimit == null) {
+                accountRateLimit = new AccountRateLimit();
+                ACCOUNT_RATE_LIMITS.put(account, accountRateLimit);
+            }
+            accountRateLimit.handlers++;
+            return accountRateLimit.rateLimit;
+        }
+    }
+
+    private void releaseAccountRateLimit() {
+        if (account == null) {
+            return;
+        }
+        synchronized (ACCOUNT_RATE_LIMITS) {
+            AccountRateLimit accountRateLimit = ACCOUNT_RATE_LIMITS.get(account);
+            if (accountRateLimit != null && --accountRateLimit.handlers <= 0) {
+                ACCOUNT_RATE_LIMITS.remove(account);
+            }
+        }
+        account = null;
+    }
+
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
 
@@ -223,6 +272,8 @@ public class TeslaHandler extends BaseThingHandler {
         TeslaChannelSelector selector = TeslaChannelSelector.getValueSelectorFromChannelID(channelID);
 
         if (command instanceof RefreshType) {
+            // the refreshed state is sent to the channel, even if it did not change
+            channelStates.remove(channelID);
             if (isAwake()) {
                 // Request the state of all known variables. This is sub-optimal, but the requests get scheduled and
                 // throttled so we are safe not to break the Tesla SLA
@@ -433,9 +484,21 @@ public class TeslaHandler extends BaseThingHandler {
                 }
             }
 
-            JsonParser parser = new JsonParser();
-
-            if (response != null && response.getStatus() == 200) {
+            QueueChannelThrottler throttler = stateThrottler;
+            if (response != null && response.getStatus() == HTTP_TOO_MANY_REQUESTS) {
+                long now = System.currentTimeMillis();
+                long retryAfter = RateLimit.parseRetryAfter(response.getHeaderString("Retry-After"), now);
+                if (throttler != null) {
+                    throttler.reportRateLimited(null, retryAfter);
+                    logger.warn("The request {} was rejected, as too many requests were made, slowing down for {} ms",
+                            command, throttler.getRateLimit().getBlockedUntil() - now);
+                } else {
+                    logger.warn("The request {} was rejected, as too many requests were made", command);
+                }
+            } else if (response != null && response.getStatus() == 200) {
+                if (throttler != null) {
+                    throttler.reportAccepted(null);
+                }
                 try {
                     JsonObject jsonObject = parser.parse(response.readEntity(String.class)).getAsJsonObject();
                     logger.trace("Request : {}:{}:{} yields {}", new Object[] { command, payLoad, target.toString(),
@@ -475,130 +538,228 @@ public class TeslaHandler extends BaseThingHandler {
 
     public void parseAndUpdate(String request, String payLoad, String result) {
 
-        JsonParser parser = new JsonParser();
-        JsonObject jsonObject = null;
+        if (request == null || result == null || "null".equals(result)) {
+            return;
+        }
+
+        // the class of the state object that is updated by the request, if any
+        Class<?> stateClass = null;
+        switch (request) {
+            case TESLA_DRIVE_STATE:
+                stateClass = DriveState.class;
+                break;
+            case TESLA_GUI_STATE:
+                stateClass = GUIState.class;
+                break;
+            case TESLA_VEHICLE_STATE:
+                stateClass = VehicleState.class;
+                break;
+            case TESLA_CHARGE_STATE:
+                stateClass = ChargeState.class;
+                break;
+            case TESLA_CLIMATE_STATE:
+                stateClass = ClimateState.class;
+                break;
+        }
 
         try {
-            if (request != null && result != null && !"null".equals(result)) {
-                // first, update state objects
+            ParsedResult parsed;
+            if (TESLA_MOBILE_ENABLED_STATE.equals(request)) {
+                // the response of this request is not a JSON object but a single value
+                parsed = new ParsedResult(null);
+                parsed.add(TESLA_MOBILE_ENABLED_STATE, result);
+            } else {
+                parsed = parse(result, stateClass != null);
+            }
+
+            // first, update state objects
+            if (stateClass != null) {
+                Object state = gson.fromJson(parsed.stateObject, stateClass);
                 switch (request) {
-                    case TESLA_DRIVE_STATE: {
-                        driveState = gson.fromJson(result, DriveState.class);
+                    case TESLA_DRIVE_STATE:
+                        driveState = (DriveState) state;
                         break;
-                    }
-                    case TESLA_GUI_STATE: {
-                        guiState = gson.fromJson(result, GUIState.class);
+                    case TESLA_GUI_STATE:
+                        guiState = (GUIState) state;
                         break;
-                    }
-                    case TESLA_VEHICLE_STATE: {
-                        vehicleState = gson.fromJson(result, VehicleState.class);
+                    case TESLA_VEHICLE_STATE:
+                        vehicleState = (VehicleState) state;
                         break;
-                    }
-                    case TESLA_CHARGE_STATE: {
-                        chargeState = gson.fromJson(result, ChargeState.class);
+                    case TESLA_CHARGE_STATE:
+                        chargeState = (ChargeState) state;
                         if (chargeState.charging_state != null && "Charging".equals(chargeState.charging_state)) {
-                            updateState(CHANNEL_CHARGE, OnOffType.ON);
+                            updateStateIfChanged(CHANNEL_CHARGE, OnOffType.ON);
                         } else {
-                            updateState(CHANNEL_CHARGE, OnOffType.OFF);
+                            updateStateIfChanged(CHANNEL_CHARGE, OnOffType.OFF);
                         }
-
                         break;
-                    }
-                    case TESLA_CLIMATE_STATE: {
-                        climateState = gson.fromJson(result, ClimateState.class);
+                    case TESLA_CLIMATE_STATE:
+                        climateState = (ClimateState) state;
                         break;
-                    }
                 }
+            }
 
-                // secondly, reformat the response string to a JSON compliant
-                // object for some specific non-JSON compatible requests
-                switch (request) {
-                    case TESLA_MOBILE_ENABLED_STATE: {
-                        jsonObject = new JsonObject();
-                        jsonObject.addProperty(TESLA_MOBILE_ENABLED_STATE, result);
-                        break;
-                    }
-                    default: {
-                        jsonObject = parser.parse(result).getAsJsonObject();
-                        break;
-                    }
-                }
+            // deal with responses for "set" commands, which get confirmed
+            // positively, or negatively, in which case a reason for failure
+            // is provided
+            if (parsed.reason != null) {
+                logger.debug("The request ({}) execution was {}, and reported '{}'", new Object[] { request,
+                        "true".equals(parsed.result) ? "successful" : "not successful", parsed.reason });
+                return;
             }
 
-            // process the result
-            if (jsonObject != null && result != null && !"null".equals(result)) {
-                // deal with responses for "set" commands, which get confirmed
-                // positively, or negatively, in which case a reason for failure
-                // is provided
-                if (jsonObject.get("reason") != null && jsonObject.get("reason").getAsString() != null) {
-                    boolean requestResult = jsonObject.get("result").getAsBoolean();
-                    logger.debug("The request ({}) execution was {}, and reported '{}'", new Object[] { request,
-                            requestResult ? "successful" : "not successful", jsonObject.get("reason").getAsString() });
-                } else {
-                    Set<Map.Entry<String, JsonElement>> entrySet = jsonObject.entrySet();
-
-                    long resultTimeStamp = 0;
-                    for (Map.Entry<String, JsonElement> entry : entrySet) {
-                        if ("timestamp".equals(entry.getKey())) {
-                            resultTimeStamp = Long.valueOf(entry.getValue().getAsString());
-                            if (logger.isTraceEnabled()) {
-                                Date date = new Date(resultTimeStamp);
-                                SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
-                                logger.trace("The request result timestamp is {}", dateFormatter.format(date));
-                            }
-                            break;
-                        }
-                    }
+            long resultTimeStamp = 0;
+            if (parsed.timestamp != null) {
+                resultTimeStamp = Long.valueOf(parsed.timestamp);
+                if (logger.isTraceEnabled()) {
+                    Date date = new Date(resultTimeStamp);
+                    SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+                    logger.trace("The request result timestamp is {}", dateFormatter.format(date));
+                }
+            }
 
-                    try {
-                        lock.lock();
+            try {
+                lock.lock();
 
-                        boolean proceed = true;
-                        if (resultTimeStamp < lastTimeStamp && request == TESLA_DRIVE_STATE) {
-                            proceed = false;
-                        }
+                if (resultTimeStamp < lastTimeStamp && request == TESLA_DRIVE_STATE) {
+                    logger.warn("The result for request '{}' is discarded due to an out of sync timestamp", request);
+                    return;
+                }
 
-                        if (proceed) {
-                            for (Map.Entry<String, JsonElement> entry : entrySet) {
-                                try {
-                                    TeslaChannelSelector selector = TeslaChannelSelector
-                                            .getValueSelectorFromRESTID(entry.getKey());
-                                    if (!selector.isProperty()) {
-                                        if (!entry.getValue().isJsonNull()) {
-                                            updateState(selector.getChannelID(), teslaChannelSelectorProxy.getState(
-                                                    entry.getValue().getAsString(), selector, editProperties()));
-                                        } else {
-                                            updateState(selector.getChannelID(), UnDefType.UNDEF);
-                                        }
-                                    } else {
-                                        if (!entry.getValue().isJsonNull()) {
-                                            Map<String, String> properties = editProperties();
-                                            properties.put(selector.getChannelID(), entry.getValue().getAsString());
-                                            updateProperties(properties);
-                                        }
-                                    }
-                                } catch (IllegalArgumentException e) {
-                                    logger.trace("The variable/value pair '{}':'{}' is not (yet) supported",
-                                            entry.getKey(), entry.getValue());
-                                } catch (ClassCastException | IllegalStateException e) {
-                                    logger.trace("An exception occurred while converting the JSON data : '{}'",
-                                            e.getMessage(), e);
-                                }
+                Map<String, String> properties = editProperties();
+                boolean propertiesChanged = false;
+                for (Map.Entry<TeslaChannelSelector, String> entry : parsed.values.entrySet()) {
+                    TeslaChannelSelector selector = entry.getKey();
+                    String value = entry.getValue();
+                    try {
+                        if (!selector.isProperty()) {
+                            if (value != null) {
+                                updateStateIfChanged(selector.getChannelID(),
+                                        teslaChannelSelectorProxy.getState(value, selector, properties));
+                            } else {
+                                updateStateIfChanged(selector.getChannelID(), UnDefType.UNDEF);
                             }
-                        } else {
-                            logger.warn("The result for request '{}' is discarded due to an out of sync timestamp",
-                                    request);
+                        } else if (value != null && !value.equals(properties.put(selector.getChannelID(), value))) {
+                            propertiesChanged = true;
                         }
-                    } finally {
-                        lock.unlock();
+                    } catch (ClassCastException | IllegalStateException e) {
+                        logger.trace("An exception occurred while converting the JSON data : '{}'", e.getMessage(),
+                                e);
                     }
                 }
+                if (propertiesChanged) {
+                    updateProperties(properties);
+                }
+            } finally {
+                lock.unlock();
             }
         } catch (Exception p) {
             logger.error("An exception occurred while parsing data received from the vehicle: '{}'", p.getMessage());
         }
     }
 
+    /**
+     * Reads a response of the vehicle in a single pass. The values of the supported fields are collected by their
+     * channel selector, and, if requested, all fields are collected into a JSON tree, from which the state object is
+     * created without parsing the response again.
+     */
+    private ParsedResult parse(String result, boolean withStateObject) throws IOException {
+        ParsedResult parsed = new ParsedResult(withStateObject ? new JsonObject() : null);
+        try (JsonReader reader = new JsonReader(new StringReader(result))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (reader.peek()) {
+                    case NULL:
+                        reader.nextNull();
+                        parsed.add(name, (String) null);
+                        break;
+                    case BOOLEAN:
+                        boolean value = reader.nextBoolean();
+                        parsed.add(name, new JsonPrimitive(value), String.valueOf(value));
+                        break;
+                    case STRING:
+                    case NUMBER:
+                        parsed.add(name, reader.nextString());
+                        break;
+                    default:
+                        parsed.add(name, parser.parse(reader));
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+        return parsed;
+    }
+
+    /**
+     * The values of a vehicle response, as collected by {@link TeslaHandler#parse(String, boolean)}
+     */
+    private class ParsedResult {
+        final JsonObject stateObject;
+        final Map<TeslaChannelSelector, String> values = new LinkedHashMap<>();
+        String reason;
+        String result;
+        String timestamp;
+
+        ParsedResult(JsonObject stateObject) {
+            this.stateObject = stateObject;
+        }
+
+        void add(String name, String value) {
+            add(name, value != null ? new JsonPrimitive(value) : JsonNull.INSTANCE, value);
+        }
+
+        void add(String name, JsonElement element) {
+            String value;
+            try {
+                value = element.getAsString();
+            } catch (ClassCastException | IllegalStateException | UnsupportedOperationException e) {
+                logger.trace("The variable/value pair '{}':'{}' is not (yet) supported", name, element);
+                if (stateObject != null) {
+                    stateObject.add(name, element);
+                }
+                return;
+            }
+            add(name, element, value);
+        }
+
+        void add(String name, JsonElement element, String value) {
+            if (stateObject != null) {
+                stateObject.add(name, element);
+            }
+            switch (name) {
+                case "reason":
+                    reason = value;
+                    break;
+                case "result":
+                    result = value;
+                    break;
+                case "timestamp":
+                    timestamp = value;
+                    break;
+            }
+            TeslaChannelSelector selector = TeslaChannelSelector.findValueSelectorFromRESTID(name);
+            if (selector != null) {
+                values.put(selector, value);
+            } else {
+                logger.trace("The variable/value pair '{}':'{}' is not (yet) supported", name, value);
+            }
+        }
+    }
+
+    /**
+     * Updates the state of a channel, unless the channel already has that state
+     */
+    protected void updateStateIfChanged(String channelID, State state) {
+        if (state == null) {
+            channelStates.remove(channelID);
+        } else if (state.equals(channelStates.put(channelID, state))) {
+            return;
+        }
+        updateState(channelID, state);
+    }
+
     protected boolean isAwake() {
         return (vehicle != null) ? (!"asleep".equals(vehicle.state) && vehicle.vehicle_id != null) : false;
     }
@@ -700,8 +861,6 @@ public class TeslaHandler extends BaseThingHandler {
 
         logger.debug("Querying the vehicle : Response : {}:{}", response.getStatus(), response.getStatusInfo());
 
-        JsonParser parser = new JsonParser();
-
         JsonObject jsonObject = parser.parse(response.readEntity(String.class)).getAsJsonObject();
         Vehicle[] vehicleArray = gson.fromJson(jsonObject.getAsJsonArray("response"), Vehicle[].class);
 
@@ -1015,9 +1174,10 @@ public class TeslaHandler extends BaseThingHandler {
                                                     State newState = teslaChannelSelectorProxy.getState(vals[i],
                                                             selector, editProperties());
                                                     if (newState != null && !"".equals(vals[i])) {
-                                                        updateState(selector.getChannelID(), newState);
+                                                        updateStateIfChanged(selector.getChannelID(), newState);
                                                     } else {
-                                                        updateState(selector.getChannelID(), UnDefType.UNDEF);
+                                                        updateStateIfChanged(selector.getChannelID(),
+                                                                UnDefType.UNDEF);
                                                     }
                                                 } else {
                                                     Map<String, String> properties = editProperties();
@@ -1153,4 +1313,13 @@ public class TeslaHandler extends BaseThingHandler {
             }
         }
     }
+
+    /**
+     * The rate limit of a Tesla account and the number of handlers using it
+     */
+    private static class AccountRateLimit {
+        private final RateLimit rateLimit = new RateLimit(new Rate(20, 1, TimeUnit.MINUTES),
+                new Rate(200, 10, TimeUnit.MINUTES));
+        private int handlers;
+    }
 }
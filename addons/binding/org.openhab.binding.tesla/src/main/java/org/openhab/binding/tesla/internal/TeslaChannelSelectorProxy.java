@@ -12,6 +12,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.smarthome.core.library.types.DateTimeType;
@@ -933,6 +934,19 @@ public class TeslaChannelSelectorProxy {
         },
         WHEEL_TYPE("wheel_type", "wheeltype", StringType.class, true);
 
+        // Lookup tables, so that the selector of a field in a vehicle response is found without a scan of all values
+        private static final Map<String, TeslaChannelSelector> BY_RESTID = new HashMap<>();
+        private static final Map<String, TeslaChannelSelector> BY_CHANNELID = new HashMap<>();
+
+        static {
+            for (TeslaChannelSelector c : values()) {
+                if (c.RESTID != null) {
+                    BY_RESTID.putIfAbsent(c.RESTID, c);
+                }
+                BY_CHANNELID.putIfAbsent(c.channelID, c);
+            }
+        }
+
         private final String RESTID;
         private final String channelID;
         private Class<? extends Type> typeClass;
@@ -986,10 +1000,9 @@ public class TeslaChannelSelectorProxy {
         public static TeslaChannelSelector getValueSelectorFromChannelID(String valueSelectorText)
                 throws IllegalArgumentException {
 
-            for (TeslaChannelSelector c : TeslaChannelSelector.values()) {
-                if (c.channelID.equals(valueSelectorText)) {
-                    return c;
-                }
+            TeslaChannelSelector c = BY_CHANNELID.get(valueSelectorText);
+            if (c != null) {
+                return c;
             }
 
             throw new IllegalArgumentException("Not valid value selector");
@@ -998,14 +1011,23 @@ public class TeslaChannelSelectorProxy {
         public static TeslaChannelSelector getValueSelectorFromRESTID(String valueSelectorText)
                 throws IllegalArgumentException {
 
-            for (TeslaChannelSelector c : TeslaChannelSelector.values()) {
-                if (c.RESTID != null && c.RESTID.equals(valueSelectorText)) {
-                    return c;
-                }
+            TeslaChannelSelector c = findValueSelectorFromRESTID(valueSelectorText);
+            if (c != null) {
+                return c;
             }
 
             throw new IllegalArgumentException("Not valid value selector");
         }
+
+        /**
+         * Find the selector of a field of a vehicle response.
+         *
+         * @param valueSelectorText the name of the field
+         * @return the selector, or null if the field is not (yet) supported
+         */
+        public static TeslaChannelSelector findValueSelectorFromRESTID(String valueSelectorText) {
+            return valueSelectorText != null ? BY_RESTID.get(valueSelectorText) : null;
+        }
     }
 
     public String latitude = "0";
@@ -26,6 +26,9 @@ import com.beowulfe.hap.HomekitRoot;
 /**
  * Stores the created HomekitAccessories. GroupedAccessories are also held here
  * in a pre-created pending state until all required characteristics are found.
+ * Every accessory is stored with a signature of the items it was created from, so
+ * unchanged accessories can be kept when the items are reloaded. Each accessory added to
+ * or removed from the bridge makes the Homekit clients fetch all accessories again.
  *
  * @author Andy Lintner
  */
@@ -34,28 +37,73 @@ class HomekitAccessoryRegistry {
     private HomekitRoot bridge;
     private final List<HomekitAccessory> createdAccessories = new LinkedList<>();
     private final Set<Integer> createdIds = new HashSet<>();
+    private final Map<Integer, String> signatures = new HashMap<>();
     private final Map<String, GroupedAccessory> pendingGroupedAccessories = new HashMap<>();
     private final List<HomekitTaggedItem> pendingCharacteristics = new LinkedList<>();
 
     private final Logger logger = LoggerFactory.getLogger(HomekitAccessoryRegistry.class);
 
-    public void remove(HomekitTaggedItem taggedItem) {
+    public synchronized void remove(HomekitTaggedItem taggedItem) {
         Iterator<HomekitAccessory> i = createdAccessories.iterator();
         while (i.hasNext()) {
             HomekitAccessory accessory = i.next();
             if (accessory.getId() == taggedItem.getId()) {
                 logger.debug("Removed accessory {}", accessory.getId());
-                bridge.removeAccessory(accessory);
+                if (bridge != null) {
+                    bridge.removeAccessory(accessory);
+                }
                 i.remove();
+                createdIds.remove(accessory.getId());
+                signatures.remove(accessory.getId());
             }
         }
     }
 
     public synchronized void clear() {
         while (!createdAccessories.isEmpty()) {
-            bridge.removeAccessory(createdAccessories.remove(0));
+            HomekitAccessory accessory = createdAccessories.remove(0);
+            if (bridge != null) {
+                bridge.removeAccessory(accessory);
+            }
         }
         createdIds.clear();
+        signatures.clear();
+        pendingGroupedAccessories.clear();
+        pendingCharacteristics.clear();
+    }
+
+    /**
+     * Returns true if an accessory with the given id has been created from items with the given signature
+     */
+    public synchronized boolean isUnchanged(int id, String signature) {
+        return createdIds.contains(id) && signature.equals(signatures.get(id));
+    }
+
+    /**
+     * Removes all created accessories except the ones with the given ids. Pending grouped accessories and
+     * characteristics are dropped, they must be added again.
+     *
+     * @return the number of removed accessories
+     */
+    public synchronized int retainAll(Set<Integer> ids) {
+        int removed = 0;
+        Iterator<HomekitAccessory> i = createdAccessories.iterator();
+        while (i.hasNext()) {
+            HomekitAccessory accessory = i.next();
+            if (!ids.contains(accessory.getId())) {
+                logger.debug("Removed accessory {}", accessory.getId());
+                if (bridge != null) {
+                    bridge.removeAccessory(accessory);
+                }
+                i.remove();
+                createdIds.remove(accessory.getId());
+                signatures.remove(accessory.getId());
+                removed++;
+            }
+        }
+        pendingGroupedAccessories.clear();
+        pendingCharacteristics.clear();
+        return removed;
     }
 
     public synchronized void setBridge(HomekitRoot bridge) {
@@ -63,7 +111,8 @@ class HomekitAccessoryRegistry {
         createdAccessories.forEach(accessory -> bridge.addAccessory(accessory));
     }
 
-    public synchronized void addRootDevice(HomekitAccessory accessory) {
+    public synchronized void addRootDevice(HomekitAccessory accessory, String signature) {
+        signatures.put(accessory.getId(), signature);
         if (accessory instanceof GroupedAccessory) {
             GroupedAccessory groupedAccessory = (GroupedAccessory) accessory;
             pendingGroupedAccessories.put(groupedAccessory.getGroupName(), groupedAccessory);
@@ -8,11 +8,16 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.StateChangeListener;
 import org.eclipse.smarthome.core.types.State;
 import org.slf4j.Logger;
@@ -26,12 +31,24 @@ import com.beowulfe.hap.HomekitCharacteristicChangeCallback;
  * Homekit library takes care of insuring only a single subscription exists for
  * each accessory.
  *
+ * Notifications are coalesced per subscription: after a notification, further changes within
+ * the minimum notification interval result in a single notification at the end of the interval.
+ * The Homekit library reads the current state when it notifies its clients, so the last
+ * state is never lost.
+ *
  * @author Andy Lintner
  */
 public class HomekitAccessoryUpdater {
 
+    private static final String THREADPOOL_HOMEKIT = "homekit";
+
     private Logger logger = LoggerFactory.getLogger(HomekitAccessoryUpdater.class);
     private final ConcurrentMap<ItemKey, Subscription> subscriptionsByName = new ConcurrentHashMap<>();
+    private volatile int minimumNotificationInterval = 0;
+
+    public void setMinimumNotificationInterval(int minimumNotificationInterval) {
+        this.minimumNotificationInterval = minimumNotificationInterval;
+    }
 
     public void subscribe(GenericItem item, HomekitCharacteristicChangeCallback callback) {
         subscribe(item, null, callback);
@@ -41,16 +58,13 @@ public class HomekitAccessoryUpdater {
         if (item == null) {
             return;
         }
-        ItemKey itemKey = new ItemKey(item, key);
-        if (subscriptionsByName.containsKey(itemKey)) {
-            logger.error("Received duplicate subscription on {}", item.getName());
-        }
+        ItemKey itemKey = new ItemKey(item.getName(), key);
         subscriptionsByName.compute(itemKey, (k, v) -> {
             if (v != null) {
                 logger.error("Received duplicate subscription on {}", item.getName());
-                unsubscribe(item, key);
+                v.cancel();
             }
-            Subscription subscription = (changedItem, oldState, newState) -> callback.changed();
+            Subscription subscription = new Subscription(item, callback);
             item.addStateChangeListener(subscription);
             return subscription;
         });
@@ -64,30 +78,94 @@ public class HomekitAccessoryUpdater {
         if (item == null) {
             return;
         }
-        subscriptionsByName.computeIfPresent(new ItemKey(item, key), (k, v) -> {
-            item.removeStateChangeListener(v);
+        subscriptionsByName.computeIfPresent(new ItemKey(item.getName(), key), (k, v) -> {
+            v.cancel();
             return null;
         });
     }
 
-    @FunctionalInterface
-    private static interface Subscription extends StateChangeListener {
+    /**
+     * Moves the subscriptions of the given item to the current item instance of the registry. Must be called
+     * when an item was replaced in the registry but its accessory is kept.
+     */
+    public void refreshSubscriptions(ItemRegistry itemRegistry, String itemName) {
+        for (Map.Entry<ItemKey, Subscription> entry : subscriptionsByName.entrySet()) {
+            if (itemName == null || entry.getKey().itemName.equals(itemName)) {
+                Item item = itemRegistry.get(entry.getKey().itemName);
+                if (item instanceof GenericItem) {
+                    entry.getValue().setItem((GenericItem) item);
+                } else if (subscriptionsByName.remove(entry.getKey(), entry.getValue())) {
+                    entry.getValue().cancel();
+                }
+            }
+        }
+    }
+
+    private class Subscription implements StateChangeListener {
+        private final HomekitCharacteristicChangeCallback callback;
+        private GenericItem item;
+        private long lastNotification = 0;
+        private ScheduledFuture<?> pendingNotification;
+
+        public Subscription(GenericItem item, HomekitCharacteristicChangeCallback callback) {
+            this.item = item;
+            this.callback = callback;
+        }
 
         @Override
-        void stateChanged(Item item, State oldState, State newState);
+        public synchronized void stateChanged(Item item, State oldState, State newState) {
+            if (pendingNotification != null) {
+                // a notification is already scheduled and will report this state as well
+                return;
+            }
+            long delay = lastNotification + minimumNotificationInterval - System.currentTimeMillis();
+            if (delay <= 0) {
+                notifyChanged();
+            } else {
+                pendingNotification = ThreadPoolManager.getScheduledPool(THREADPOOL_HOMEKIT).schedule(() -> {
+                    synchronized (this) {
+                        if (pendingNotification != null) {
+                            pendingNotification = null;
+                            notifyChanged();
+                        }
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+        }
 
         @Override
-        default void stateUpdated(Item item, State state) {
+        public void stateUpdated(Item item, State state) {
             // Do nothing on non-change update
         }
+
+        public synchronized void setItem(GenericItem item) {
+            if (this.item != item) {
+                this.item.removeStateChangeListener(this);
+                this.item = item;
+                item.addStateChangeListener(this);
+            }
+        }
+
+        public synchronized void cancel() {
+            item.removeStateChangeListener(this);
+            if (pendingNotification != null) {
+                pendingNotification.cancel(false);
+                pendingNotification = null;
+            }
+        }
+
+        private void notifyChanged() {
+            lastNotification = System.currentTimeMillis();
+            callback.changed();
+        }
     }
 
     private static class ItemKey {
-        public GenericItem item;
+        public String itemName;
         public String key;
 
-        public ItemKey(GenericItem item, String key) {
-            this.item = item;
+        public ItemKey(String itemName, String key) {
+            this.itemName = itemName;
             this.key = key;
         }
 
@@ -95,7 +173,7 @@ public class HomekitAccessoryUpdater {
         public int hashCode() {
             final int prime = 31;
             int result = 1;
-            result = prime * result + ((item == null) ? 0 : item.hashCode());
+            result = prime * result + ((itemName == null) ? 0 : itemName.hashCode());
             result = prime * result + ((key == null) ? 0 : key.hashCode());
             return result;
         }
@@ -112,11 +190,11 @@ public class HomekitAccessoryUpdater {
                 return false;
             }
             ItemKey other = (ItemKey) obj;
-            if (item == null) {
-                if (other.item != null) {
+            if (itemName == null) {
+                if (other.itemName != null) {
                     return false;
                 }
-            } else if (!item.equals(other.item)) {
+            } else if (!itemName.equals(other.itemName)) {
                 return false;
             }
             if (key == null) {
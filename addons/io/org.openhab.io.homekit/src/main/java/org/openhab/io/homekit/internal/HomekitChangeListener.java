@@ -9,7 +9,14 @@
 package org.openhab.io.homekit.internal;
 
 import java.util.Collection;
-
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
@@ -22,6 +29,7 @@ import com.beowulfe.hap.HomekitRoot;
 /**
  * Listens for changes to the item registry. When changes are detected, check
  * for Homekit tags and, if present, add the items to the HomekitAccessoryRegistry.
+ * Accessories whose items did not change are kept, so Homekit clients only see the actual changes.
  *
  * @author Andy Lintner
  */
@@ -47,8 +55,40 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     }
 
     @Override
-    public void allItemsChanged(Collection<String> oldItemNames) {
-        clearAccessories();
+    public synchronized void allItemsChanged(Collection<String> oldItemNames) {
+        Set<Integer> keptIds = new HashSet<>();
+        Set<String> keptGroupNames = new HashSet<>();
+        List<HomekitTaggedItem> changedRootDevices = new LinkedList<>();
+        List<HomekitTaggedItem> characteristics = new LinkedList<>();
+        for (Item item : itemRegistry.getAll()) {
+            HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, itemRegistry);
+            if (!taggedItem.isTagged()) {
+                continue;
+            }
+            if (taggedItem.isRootDevice()) {
+                if (accessoryRegistry.isUnchanged(taggedItem.getId(), getSignature(taggedItem))) {
+                    keptIds.add(taggedItem.getId());
+                    keptGroupNames.add(item.getName());
+                } else {
+                    changedRootDevices.add(taggedItem);
+                }
+            }
+            if (taggedItem.isCharacteristic()) {
+                characteristics.add(taggedItem);
+            }
+        }
+
+        int removed = accessoryRegistry.retainAll(keptIds);
+        // kept accessories must follow the new item instances
+        updater.refreshSubscriptions(itemRegistry, null);
+        changedRootDevices.forEach(taggedItem -> createRootDevice(taggedItem));
+        for (HomekitTaggedItem taggedItem : characteristics) {
+            if (Collections.disjoint(taggedItem.getItem().getGroupNames(), keptGroupNames)) {
+                createCharacteristic(taggedItem);
+            }
+        }
+        logger.debug("Reloaded homekit accessories: {} kept, {} removed, {} created", keptIds.size(), removed,
+                changedRootDevices.size());
     }
 
     @Override
@@ -60,9 +100,24 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     }
 
     @Override
-    public void updated(Item oldElement, Item element) {
-        removed(oldElement);
-        added(element);
+    public synchronized void updated(Item oldElement, Item element) {
+        HomekitTaggedItem oldTaggedItem = new HomekitTaggedItem(oldElement, itemRegistry);
+        HomekitTaggedItem taggedItem = new HomekitTaggedItem(element, itemRegistry);
+        boolean unchanged;
+        if (taggedItem.isRootDevice()) {
+            unchanged = accessoryRegistry.isUnchanged(taggedItem.getId(), getSignature(taggedItem));
+        } else {
+            unchanged = !oldTaggedItem.isRootDevice() && taggedItem.isCharacteristic()
+                    && taggedItem.getCharacteristicType() == oldTaggedItem.getCharacteristicType()
+                    && element.getGroupNames().equals(oldElement.getGroupNames());
+        }
+        if (unchanged) {
+            // keep the accessory, only move its subscriptions to the new item
+            updater.refreshSubscriptions(itemRegistry, element.getName());
+        } else {
+            removed(oldElement);
+            added(element);
+        }
     }
 
     public synchronized void clearAccessories() {
@@ -85,6 +140,7 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     public void setSettings(HomekitSettings settings) {
         this.settings = settings;
+        updater.setMinimumNotificationInterval(settings.getMinimumNotificationInterval());
     }
 
     public void stop() {
@@ -96,14 +152,36 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     private void createRootDevice(HomekitTaggedItem taggedItem) {
         try {
             logger.debug("Adding homekit device {}", taggedItem.getItem().getName());
-            accessoryRegistry
-                    .addRootDevice(HomekitAccessoryFactory.create(taggedItem, itemRegistry, updater, settings));
+            accessoryRegistry.addRootDevice(
+                    HomekitAccessoryFactory.create(taggedItem, itemRegistry, updater, settings),
+                    getSignature(taggedItem));
             logger.debug("Added homekit device {}", taggedItem.getItem().getName());
         } catch (Exception e) {
             logger.error("Could not add device: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * Returns a signature of everything an accessory is created from: the device type, the label and,
+     * for grouped accessories, the characteristics of the group members.
+     */
+    private String getSignature(HomekitTaggedItem taggedItem) {
+        Item item = taggedItem.getItem();
+        StringBuilder signature = new StringBuilder();
+        signature.append(taggedItem.getDeviceType()).append('|').append(item.getLabel());
+        if (item instanceof GroupItem) {
+            Set<String> characteristics = new TreeSet<>();
+            for (Item member : ((GroupItem) item).getMembers()) {
+                HomekitTaggedItem taggedMember = new HomekitTaggedItem(member, itemRegistry);
+                if (taggedMember.isCharacteristic()) {
+                    characteristics.add(member.getName() + ':' + taggedMember.getCharacteristicType());
+                }
+            }
+            signature.append('|').append(characteristics);
+        }
+        return signature.toString();
+    }
+
     private void createCharacteristic(HomekitTaggedItem taggedItem) {
         logger.debug("Adding grouped homekit characteristic {}", taggedItem.getItem().getName());
         accessoryRegistry.addCharacteristic(taggedItem);
@@ -0,0 +1,408 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.ArrayUtils;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.items.StateChangeListener;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Keeps an index of all items tagged for voice control and their Hue devices.
+ *
+ * The index listens to the item registry and to state changes of the indexed items, so a request for the
+ * lights never has to scan the registry. Every Hue device is kept serialized and only serialized again if the
+ * state of its item changes, so a listing of all lights is assembled by concatenation. The map of Hue ids to
+ * item names is written to disk asynchronously, a burst of registry changes results in a single write.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class HueDeviceIndex implements ItemRegistryChangeListener, StateChangeListener {
+    static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting" };
+    static final long PERSIST_DELAY_IN_MS = 2000;
+    static final String THREAD_POOL_NAME = "hueEmulation";
+
+    private final Logger logger = LoggerFactory.getLogger(HueDeviceIndex.class);
+    private final Gson gson = new Gson();
+    private final File itemFile;
+
+    // deviceMap maps a Hue numeric id to a Item Name, ordered by that id. Guarded by this.
+    private final TreeMap<Integer, String> deviceMap = new TreeMap<>();
+    // the reverse of deviceMap. Guarded by this.
+    private final Map<String, Integer> deviceIds = new HashMap<>();
+    // the serialized Hue device of every id, read without locking by the servlet
+    private final NavigableMap<Integer, String> deviceJson = new ConcurrentSkipListMap<>();
+    // incremented whenever a serialized device is added, removed or changed
+    private final AtomicLong revision = new AtomicLong();
+    // distinguishes the revisions of this instance from those of a previous run in the entity tag
+    private final String instanceTag = Long.toHexString(System.currentTimeMillis());
+    private volatile LightsSnapshot lightsSnapshot = new LightsSnapshot(-1, null);
+
+    private ItemRegistry itemRegistry;
+    // the scheduler of the delayed writes, null while the index is stopped
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> persistJob;
+    private boolean persistPending;
+
+    /**
+     * @param itemFile The file the map of Hue ids to item names is persisted to
+     */
+    public HueDeviceIndex(File itemFile) {
+        this.itemFile = itemFile;
+    }
+
+    /**
+     * Loads the persisted ids, indexes all tagged items of the registry and starts listening for changes.
+     */
+    public synchronized void start(ItemRegistry itemRegistry) {
+        stop();
+        load();
+        this.itemRegistry = itemRegistry;
+        scheduler = ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME);
+        itemRegistry.addRegistryChangeListener(this);
+        sync(itemRegistry.getItems());
+    }
+
+    /**
+     * Stops listening for changes and writes a pending change of the ids to disk.
+     */
+    public synchronized void stop() {
+        if (itemRegistry == null) {
+            return;
+        }
+        itemRegistry.removeRegistryChangeListener(this);
+        for (String itemName : deviceIds.keySet()) {
+            unsubscribe(itemName);
+        }
+        itemRegistry = null;
+        deviceJson.clear();
+        revision.incrementAndGet();
+
+        if (persistPending) {
+            persistJob.cancel(false);
+            persist();
+        }
+        persistJob = null;
+        scheduler = null;
+    }
+
+    /**
+     * Returns the ids of all Hue devices in ascending order. The returned set is a read-only view.
+     */
+    public Set<Integer> getDeviceIds() {
+        return Collections.unmodifiableSet(deviceJson.keySet());
+    }
+
+    /**
+     * Returns the serialized Hue device with the given id or null.
+     */
+    public String getDeviceJson(Integer id) {
+        return deviceJson.get(id);
+    }
+
+    /**
+     * Returns all serialized Hue devices as a JSON object keyed by their id. The object is assembled from the
+     * serialized devices and reused until a device is added, removed or changed.
+     */
+    public String getLightsJson() {
+        // read the revision first, the assembled object is at least as new as the revision
+        long currentRevision = revision.get();
+        LightsSnapshot snapshot = lightsSnapshot;
+        if (snapshot.revision != currentRevision) {
+            StringBuilder json = new StringBuilder(deviceJson.size() * 320 + 2);
+            json.append('{');
+            for (Map.Entry<Integer, String> entry : deviceJson.entrySet()) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            }
+            json.append('}');
+            snapshot = new LightsSnapshot(currentRevision, json.toString());
+            lightsSnapshot = snapshot;
+        }
+        return snapshot.json;
+    }
+
+    /**
+     * Returns an entity tag that changes whenever a Hue device is added, removed or changed.
+     */
+    public String getETag() {
+        return "\"" + instanceTag + "-" + revision.get() + "\"";
+    }
+
+    /**
+     * Returns the name of the item with the given Hue id or null.
+     */
+    public synchronized String getItemName(Integer id) {
+        return deviceMap.get(id);
+    }
+
+    @Override
+    public synchronized void added(Item item) {
+        if (itemRegistry == null || !isTagged(item)) {
+            return;
+        }
+        Integer id = deviceIds.get(item.getName());
+        if (id == null) {
+            // hue devices are assigned a numeric number starting with 1, if a device is
+            // removed that number is not used again. Not sure how high this id can get
+            // not worrying about it here
+            id = deviceMap.isEmpty() ? 1 : deviceMap.lastKey().intValue() + 1;
+            deviceMap.put(id, item.getName());
+            deviceIds.put(item.getName(), id);
+            schedulePersist();
+        }
+        subscribe(item);
+        putDevice(id, item);
+    }
+
+    @Override
+    public synchronized void removed(Item item) {
+        if (itemRegistry == null) {
+            return;
+        }
+        Integer id = deviceIds.remove(item.getName());
+        if (id != null) {
+            unsubscribe(item);
+            deviceMap.remove(id);
+            removeDevice(id);
+            schedulePersist();
+        }
+    }
+
+    @Override
+    public synchronized void updated(Item oldItem, Item item) {
+        if (itemRegistry == null) {
+            return;
+        }
+        if (!isTagged(item)) {
+            removed(oldItem);
+            return;
+        }
+        // keep the id of the item, only the item instance and its label may have changed
+        unsubscribe(oldItem);
+        added(item);
+    }
+
+    @Override
+    public synchronized void allItemsChanged(Collection<String> oldItemNames) {
+        if (itemRegistry != null) {
+            sync(itemRegistry.getItems());
+        }
+    }
+
+    @Override
+    public synchronized void stateChanged(Item item, State oldState, State newState) {
+        Integer id = deviceIds.get(item.getName());
+        if (id != null) {
+            putDevice(id, item);
+        }
+    }
+
+    @Override
+    public void stateUpdated(Item item, State state) {
+        // Do nothing on non-change update
+    }
+
+    /**
+     * Converts an Item to a HueDevice
+     */
+    static HueDevice itemToDevice(Item item, Integer key) {
+        State itemState = item.getState();
+        HueState hueState;
+        if (itemState instanceof HSBType) {
+            HSBType color = (HSBType) itemState;
+            hueState = new HueState(color);
+        } else if (itemState instanceof DecimalType) {
+            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
+            hueState = new HueState(bri);
+        } else if (itemState instanceof OnOffType) {
+            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
+            hueState = new HueState(bri);
+        } else {
+            hueState = new HueState((short) 0);
+        }
+
+        return new HueDevice(hueState, item.getLabel(), key);
+    }
+
+    static boolean isTagged(Item item) {
+        for (String tag : item.getTags()) {
+            if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rebuilds the index from the given items. Ids of items that are still tagged are kept.
+     */
+    private void sync(Collection<Item> items) {
+        Map<String, Item> taggedItems = new HashMap<>();
+        for (Item item : items) {
+            if (isTagged(item)) {
+                taggedItems.put(item.getName(), item);
+            }
+        }
+
+        for (Map.Entry<Integer, String> entry : new TreeMap<>(deviceMap).entrySet()) {
+            String itemName = entry.getValue();
+            unsubscribe(itemName);
+            if (!taggedItems.containsKey(itemName)) {
+                deviceMap.remove(entry.getKey());
+                deviceIds.remove(itemName);
+                removeDevice(entry.getKey());
+                schedulePersist();
+            }
+        }
+
+        for (Item item : taggedItems.values()) {
+            added(item);
+        }
+    }
+
+    private void putDevice(Integer id, Item item) {
+        String json = gson.toJson(itemToDevice(item, id));
+        if (!json.equals(deviceJson.put(id, json))) {
+            revision.incrementAndGet();
+        }
+    }
+
+    private void removeDevice(Integer id) {
+        if (deviceJson.remove(id) != null) {
+            revision.incrementAndGet();
+        }
+    }
+
+    private void subscribe(Item item) {
+        if (item instanceof GenericItem) {
+            // removing first avoids a second subscription if an item is added twice
+            ((GenericItem) item).removeStateChangeListener(this);
+            ((GenericItem) item).addStateChangeListener(this);
+        }
+    }
+
+    private void unsubscribe(Item item) {
+        if (item instanceof GenericItem) {
+            ((GenericItem) item).removeStateChangeListener(this);
+        }
+    }
+
+    private void unsubscribe(String itemName) {
+        Item item = itemRegistry.get(itemName);
+        if (item != null) {
+            unsubscribe(item);
+        }
+    }
+
+    /**
+     * Loads the persisted map of Hue ids to item names.
+     */
+    private void load() {
+        deviceMap.clear();
+        deviceIds.clear();
+        if (!itemFile.exists()) {
+            return;
+        }
+        JsonReader reader = null;
+        try {
+            reader = new JsonReader(new FileReader(itemFile));
+            Map<Integer, String> tmpMap = gson.fromJson(reader, new TypeToken<Map<Integer, String>>() {
+            }.getType());
+            if (tmpMap != null) {
+                deviceMap.putAll(tmpMap);
+                for (Map.Entry<Integer, String> entry : deviceMap.entrySet()) {
+                    deviceIds.put(entry.getValue(), entry.getKey());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load item cache", e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Writes the ids to disk after {@link #PERSIST_DELAY_IN_MS}. Further changes within that time do not cause
+     * another write.
+     */
+    private void schedulePersist() {
+        if (scheduler == null || persistPending) {
+            return;
+        }
+        persistPending = true;
+        persistJob = scheduler.schedule(this::persist, PERSIST_DELAY_IN_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void persist() {
+        Map<Integer, String> snapshot;
+        synchronized (this) {
+            persistPending = false;
+            snapshot = new TreeMap<>(deviceMap);
+        }
+        itemFile.getParentFile().mkdirs();
+        JsonWriter writer = null;
+        try {
+            writer = new JsonWriter(new FileWriter(itemFile));
+            gson.toJson(snapshot, new TypeToken<Map<Integer, String>>() {
+            }.getType(), writer);
+        } catch (IOException e) {
+            logger.error("Could not persist item cache", e);
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    private static class LightsSnapshot {
+        private final long revision;
+        private final String json;
+
+        LightsSnapshot(long revision, String json) {
+            this.revision = revision;
+            this.json = json;
+        }
+    }
+}
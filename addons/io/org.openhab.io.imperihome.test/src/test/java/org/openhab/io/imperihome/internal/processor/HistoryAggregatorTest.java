@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.processor;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openhab.io.imperihome.internal.model.HistoryAggregation;
+import org.openhab.io.imperihome.internal.model.HistoryItem;
+
+/**
+ * Tests cases for {@link HistoryAggregator}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HistoryAggregatorTest {
+
+    private static final double DELTA = 1e-9;
+    private static final int MAX_POINTS = 500;
+
+    private static final long START = 1500000000000L;
+    private static final long BUCKET_SIZE = 10000;
+    // four buckets
+    private static final long END = START + 4 * BUCKET_SIZE;
+
+    private static void assertPoint(long date, double value, HistoryItem item) {
+        assertEquals(date, item.getDate());
+        assertEquals(value, item.getValue().doubleValue(), DELTA);
+    }
+
+    @Test
+    public void emptyInput() {
+        for (HistoryAggregation aggregation : HistoryAggregation.values()) {
+            HistoryAggregator aggregator = new HistoryAggregator(aggregation, START, END, BUCKET_SIZE);
+            assertTrue(aggregator.getResult().isEmpty());
+            assertEquals(0, aggregator.getValueCount());
+        }
+    }
+
+    @Test
+    public void singlePoint() {
+        for (HistoryAggregation aggregation : HistoryAggregation.values()) {
+            HistoryAggregator aggregator = new HistoryAggregator(aggregation, START, END, BUCKET_SIZE);
+            aggregator.add(START + 12345, 21.5);
+
+            List<HistoryItem> result = aggregator.getResult();
+            assertEquals(1, result.size());
+            assertPoint(START + 12345, 21.5, result.get(0));
+            assertEquals(1, aggregator.getValueCount());
+        }
+    }
+
+    @Test
+    public void valuesOutsideOfRangeAreIgnored() {
+        HistoryAggregator aggregator = new HistoryAggregator(HistoryAggregation.AVG, START, END, BUCKET_SIZE);
+        aggregator.add(START - 1, 1);
+        aggregator.add(END + 1, 2);
+
+        assertTrue(aggregator.getResult().isEmpty());
+        assertEquals(0, aggregator.getValueCount());
+    }
+
+    @Test
+    public void bucketEdges() {
+        HistoryAggregator aggregator = new HistoryAggregator(HistoryAggregation.MAX, START, END, BUCKET_SIZE);
+        // the start of a bucket belongs to that bucket, the last ms before it to the previous one
+        aggregator.add(START, 1);
+        aggregator.add(START + BUCKET_SIZE - 1, 2);
+        aggregator.add(START + BUCKET_SIZE, 3);
+        // the end of the range is inclusive and belongs to the last bucket
+        aggregator.add(END, 4);
+
+        List<HistoryItem> result = aggregator.getResult();
+        assertEquals(3, result.size());
+        assertPoint(START + BUCKET_SIZE - 1, 2, result.get(0));
+        assertPoint(START + BUCKET_SIZE, 3, result.get(1));
+        assertPoint(END, 4, result.get(2));
+    }
+
+    @Test
+    public void average() {
+        HistoryAggregator aggregator = new HistoryAggregator(HistoryAggregation.AVG, START, END, BUCKET_SIZE);
+        aggregator.add(START + 1000, 10);
+        aggregator.add(START + 3000, 20);
+        aggregator.add(START + 2000, 60);
+        aggregator.add(START + 2 * BUCKET_SIZE + 500, -4);
+
+        List<HistoryItem> result = aggregator.getResult();
+        assertEquals(2, result.size());
+        assertPoint(START + 2000, 30, result.get(0));
+        assertPoint(START + 2 * BUCKET_SIZE + 500, -4, result.get(1));
+        assertEquals(4, aggregator.getValueCount());
+    }
+
+    @Test
+    public void minimum() {
+        HistoryAggregator aggregator = new HistoryAggregator(HistoryAggregation.MIN, START, END, BUCKET_SIZE);
+        aggregator.add(START + 1000, 10);
+        aggregator.add(START + 3000, -20);
+        aggregator.add(START + 2000, 60);
+        aggregator.add(START + BUCKET_SIZE + 100, 5);
+        aggregator.add(START + BUCKET_SIZE + 200, 5);
+
+        List<HistoryItem> result = aggregator.getResult();
+        assertEquals(2, result.size());
+        assertPoint(START + 3000, -20, result.get(0));
+        // of equal values, the first one added is kept
+        assertPoint(START + BUCKET_SIZE + 100, 5, result.get(1));
+    }
+
+    @Test
+    public void maximum() {
+        HistoryAggregator aggregator = new HistoryAggregator(HistoryAggregation.MAX, START, END, BUCKET_SIZE);
+        aggregator.add(START + 1000, 10);
+        aggregator.add(START + 3000, -20);
+        aggregator.add(START + 2000, 60);
+        aggregator.add(START + 3 * BUCKET_SIZE, -1);
+        aggregator.add(START + 3 * BUCKET_SIZE + 1, -2);
+
+        List<HistoryItem> result = aggregator.getResult();
+        assertEquals(2, result.size());
+        assertPoint(START + 2000, 60, result.get(0));
+        assertPoint(START + 3 * BUCKET_SIZE, -1, result.get(1));
+    }
+
+    @Test
+    public void bucketSizeIsRoundedToSeconds() {
+        assertEquals(1000, HistoryAggregator.getBucketSize(1, MAX_POINTS));
+        assertEquals(1000, HistoryAggregator.getBucketSize(499000, MAX_POINTS));
+        assertEquals(2000, HistoryAggregator.getBucketSize(499001, MAX_POINTS));
+        assertEquals(174000, HistoryAggregator.getBucketSize(TimeUnit.DAYS.toMillis(1), MAX_POINTS));
+    }
+
+    @Test
+    public void resultIsCappedAtMaximumPoints() {
+        long[] durations = new long[] { TimeUnit.MINUTES.toMillis(10), TimeUnit.HOURS.toMillis(1),
+                TimeUnit.DAYS.toMillis(1) + 1, TimeUnit.DAYS.toMillis(7) };
+        for (long duration : durations) {
+            long bucketSize = HistoryAggregator.getBucketSize(duration, MAX_POINTS);
+            // the start of the range is not aligned to the buckets, so widening the range adds a bucket
+            long start = START + bucketSize - 1;
+            long end = start + duration;
+            long bucketStart = start / bucketSize * bucketSize;
+            long bucketEnd = (end + bucketSize - 1) / bucketSize * bucketSize;
+
+            HistoryAggregator aggregator = new HistoryAggregator(HistoryAggregation.AVG, bucketStart, bucketEnd,
+                    bucketSize);
+            long step = Math.max(1, duration / 5000);
+            for (long date = bucketStart; date <= bucketEnd; date += step) {
+                aggregator.add(date, 1);
+            }
+
+            List<HistoryItem> result = aggregator.getResult();
+            assertTrue("Too many points for a duration of " + duration + " ms: " + result.size(),
+                    result.size() <= MAX_POINTS);
+            assertFalse(result.isEmpty());
+        }
+    }
+}
@@ -11,9 +11,9 @@ package org.openhab.io.imperihome.internal.handler;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.Date;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 
 import javax.servlet.http.HttpServletRequest;
@@ -25,15 +25,19 @@ import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.PersistenceServiceRegistry;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.imperihome.internal.model.HistoryAggregation;
 import org.openhab.io.imperihome.internal.model.HistoryItem;
 import org.openhab.io.imperihome.internal.model.HistoryList;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
+import org.openhab.io.imperihome.internal.processor.HistoryAggregator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Device history request handler.
+ * Device history request handler. Historic values are aggregated to at most {@link #MAX_POINTS} points per request,
+ * using the aggregation function of the device. The requested range is widened to whole buckets, so that repeated
+ * requests for a graph map onto the same range and can be served from a small cache for {@link #CACHE_TTL} ms.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -41,11 +45,24 @@ public class DeviceHistoryHandler {
 
     private static final String CHARSET = "UTF-8";
 
+    private static final int MAX_POINTS = 500;
+    private static final int CACHE_SIZE = 64;
+    private static final long CACHE_TTL = 60000;
+
     private final Logger logger = LoggerFactory.getLogger(DeviceHistoryHandler.class);
 
     private final DeviceRegistry deviceRegistry;
     private final PersistenceServiceRegistry persistenceServiceRegistry;
 
+    private final Map<String, CachedHistory> cache = new LinkedHashMap<String, CachedHistory>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedHistory> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     public DeviceHistoryHandler(DeviceRegistry deviceRegistry, PersistenceServiceRegistry persistenceServiceRegistry) {
         this.deviceRegistry = deviceRegistry;
         this.persistenceServiceRegistry = persistenceServiceRegistry;
@@ -86,34 +103,68 @@ public class DeviceHistoryHandler {
 
     private HistoryList serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start,
             long end) {
-        logger.info("Querying persistence for history of Item {}, from {} to {}", device.getItemName(), start, end);
+        if (end <= start) {
+            return new HistoryList();
+        }
 
-        FilterCriteria criteria = new FilterCriteria().setItemName(device.getItemName()).setBeginDate(new Date(start))
-                .setEndDate(new Date(end));
+        HistoryAggregation aggregation = device.getHistoryAggregation();
+        long bucketSize = HistoryAggregator.getBucketSize(end - start, MAX_POINTS);
+        long bucketStart = start / bucketSize * bucketSize;
+        long bucketEnd = (end + bucketSize - 1) / bucketSize * bucketSize;
+
+        String cacheKey = persistence.getId() + ':' + device.getItemName() + ':' + aggregation + ':' + bucketStart
+                + ':' + bucketEnd;
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CachedHistory cached = cache.get(cacheKey);
+            if (cached != null && now - cached.created < CACHE_TTL) {
+                logger.debug("Serving history of Item {} from cache", device.getItemName());
+                return cached.history;
+            }
+        }
 
-        List<HistoryItem> resultItems = new LinkedList<>();
-        Iterable<HistoricItem> historicItems = persistence.query(criteria);
+        logger.info("Querying persistence for history of Item {}, from {} to {}", device.getItemName(), bucketStart,
+                bucketEnd);
 
-        Iterator<HistoricItem> iterator = historicItems.iterator();
-        if (!iterator.hasNext()) {
-            logger.info("Persistence returned no results for history query");
-        } else {
-            while (iterator.hasNext()) {
-                HistoricItem historicItem = iterator.next();
-                State state = historicItem.getState();
-                if (state instanceof DecimalType) {
-                    Number value = ((DecimalType) state).toBigDecimal();
-                    resultItems.add(new HistoryItem(historicItem.getTimestamp(), value));
-                }
-            }
+        FilterCriteria criteria = new FilterCriteria().setItemName(device.getItemName())
+                .setBeginDate(new Date(bucketStart)).setEndDate(new Date(bucketEnd));
 
-            if (resultItems.isEmpty()) {
-                logger.warn(
-                        "Persistence returned results for history query, but could not be interpreted as DecimalTypes");
+        // Values are aggregated while iterating, so the raw results are never kept in memory
+        HistoryAggregator aggregator = new HistoryAggregator(aggregation, bucketStart, bucketEnd, bucketSize);
+        int resultCount = 0;
+        for (HistoricItem historicItem : persistence.query(criteria)) {
+            resultCount++;
+            State state = historicItem.getState();
+            if (state instanceof DecimalType) {
+                aggregator.add(historicItem.getTimestamp().getTime(), ((DecimalType) state).doubleValue());
             }
         }
 
-        return new HistoryList(resultItems);
+        if (resultCount == 0) {
+            logger.info("Persistence returned no results for history query");
+        } else if (aggregator.getValueCount() == 0) {
+            logger.warn("Persistence returned results for history query, but could not be interpreted as DecimalTypes");
+        }
+
+        List<HistoryItem> resultItems = aggregator.getResult();
+        logger.debug("Aggregated {} historic values of Item {} into {} points ({} ms buckets)",
+                aggregator.getValueCount(), device.getItemName(), resultItems.size(), bucketSize);
+
+        HistoryList history = new HistoryList(resultItems);
+        synchronized (cache) {
+            cache.put(cacheKey, new CachedHistory(now, history));
+        }
+        return history;
+    }
+
+    private static class CachedHistory {
+        private final long created;
+        private final HistoryList history;
+
+        private CachedHistory(long created, HistoryList history) {
+            this.created = created;
+            this.history = history;
+        }
     }
 
 }
@@ -8,43 +8,162 @@
  */
 package org.openhab.io.imperihome.internal.handler;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
-import org.openhab.io.imperihome.internal.model.device.DeviceList;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+
 /**
- * Device list request handler.
+ * Device list request handler. The serialized list is cached and only rebuilt when a device changed, in which case
+ * only the changed devices are serialized again. Every version of the list is identified by a token, which is sent as
+ * ETag. Clients can pass the token as 'since' parameter to only receive the devices changed since that version.
  *
  * @author Pepijn de Geus - Initial contribution
  */
 public class DevicesListHandler {
 
+    private static final String PARAM_SINCE = "since";
+
     private final Logger logger = LoggerFactory.getLogger(DevicesListHandler.class);
 
     private final DeviceRegistry deviceRegistry;
+    private final Gson gson;
+
+    /*
+     * Distinguishes the tokens of this instance from those handed out before a restart
+     */
+    private final String instanceTag = Long.toHexString(System.currentTimeMillis());
+
+    private Map<String, DeviceSnapshot> snapshots = new HashMap<>();
+    private long snapshotRevision = -1;
+    private long snapshotRemovalRevision;
+    private String listJson;
 
-    public DevicesListHandler(DeviceRegistry deviceRegistry) {
+    public DevicesListHandler(DeviceRegistry deviceRegistry, Gson gson) {
         this.deviceRegistry = deviceRegistry;
+        this.gson = gson;
     }
 
-    public DeviceList handle(HttpServletRequest req) {
-        DeviceList response = new DeviceList();
+    public void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String json;
+        synchronized (this) {
+            refresh();
 
-        Collection<AbstractDevice> devices = deviceRegistry.getDevices().values();
-        for (AbstractDevice device : devices) {
+            String token = instanceTag + '-' + snapshotRevision;
+            String since = req.getParameter(PARAM_SINCE);
+            if (since == null) {
+                String etag = '"' + token + '"';
+                resp.setHeader("ETag", etag);
+                if (etag.equals(req.getHeader("If-None-Match"))) {
+                    resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+                json = listJson;
+            } else {
+                json = getChanges(since, token);
+            }
+        }
+
+        logger.debug("Device list response: {}", json);
+        resp.getWriter().write(json);
+    }
+
+    /**
+     * Rebuilds the cached device list if any device changed since it was built.
+     */
+    private void refresh() {
+        // Changes after this point have a higher revision and are picked up by the next refresh
+        long revision = deviceRegistry.getRevision();
+        if (revision == snapshotRevision) {
+            return;
+        }
+
+        for (AbstractDevice device : deviceRegistry) {
             device.updateParams();
         }
 
-        response.setDevices(devices);
+        Map<String, DeviceSnapshot> newSnapshots = new HashMap<>();
+        StringBuilder builder = new StringBuilder("{\"devices\":[");
+        int serialized = 0;
+        for (AbstractDevice device : deviceRegistry) {
+            DeviceSnapshot snapshot = snapshots.get(device.getId());
+            if (snapshot == null || snapshot.revision != device.getRevision()) {
+                synchronized (device) {
+                    snapshot = new DeviceSnapshot(device.getRevision(), gson.toJson(device));
+                }
+                serialized++;
+            }
+            newSnapshots.put(device.getId(), snapshot);
+
+            if (newSnapshots.size() > 1) {
+                builder.append(',');
+            }
+            builder.append(snapshot.json);
+        }
+        builder.append("]}");
+
+        logger.debug("Device list rebuilt at revision {}, serialized {} of {} devices", revision, serialized,
+                newSnapshots.size());
 
-        logger.debug("Device list response: {}", response);
-        return response;
+        snapshots = newSnapshots;
+        snapshotRevision = revision;
+        snapshotRemovalRevision = deviceRegistry.getRemovalRevision();
+        listJson = builder.toString();
+    }
+
+    /**
+     * Serializes the devices changed since the given token. Returns all devices, marked as full list, if the token is
+     * unknown or devices were removed since.
+     */
+    private String getChanges(String since, String token) {
+        long sinceRevision = parseToken(since);
+        boolean full = sinceRevision < 0 || sinceRevision < snapshotRemovalRevision;
+
+        StringBuilder builder = new StringBuilder("{\"token\":").append(gson.toJson(token)).append(",\"full\":")
+                .append(full).append(",\"devices\":[");
+        boolean first = true;
+        for (DeviceSnapshot snapshot : snapshots.values()) {
+            if (full || snapshot.revision > sinceRevision) {
+                if (!first) {
+                    builder.append(',');
+                }
+                builder.append(snapshot.json);
+                first = false;
+            }
+        }
+        return builder.append("]}").toString();
+    }
+
+    private long parseToken(String token) {
+        String prefix = instanceTag + '-';
+        if (!token.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            long revision = Long.parseLong(token.substring(prefix.length()));
+            return revision <= snapshotRevision ? revision : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static class DeviceSnapshot {
+        private final long revision;
+        private final String json;
+
+        private DeviceSnapshot(long revision, String json) {
+            this.revision = revision;
+            this.json = json;
+        }
     }
 
 }
@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.model;
+
+/**
+ * Function used to combine multiple historic values into a single history graph point.
+ *
+ * @author agent - Initial contribution
+ */
+public enum HistoryAggregation {
+
+    AVG("avg"),
+    MIN("min"),
+    MAX("max");
+
+    private final String tagValue;
+
+    HistoryAggregation(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    /**
+     * @return Value used in the aggregate tag.
+     */
+    public String getTagValue() {
+        return tagValue;
+    }
+
+    /**
+     * @param tagValue Value of the aggregate tag.
+     * @return Matching aggregation, or null if unknown.
+     */
+    public static HistoryAggregation forTagValue(String tagValue) {
+        for (HistoryAggregation aggregation : values()) {
+            if (aggregation.getTagValue().equalsIgnoreCase(tagValue.trim())) {
+                return aggregation;
+            }
+        }
+
+        return null;
+    }
+
+}
@@ -19,6 +19,7 @@ import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.types.State;
 import org.openhab.io.imperihome.internal.action.Action;
 import org.openhab.io.imperihome.internal.action.ActionRegistry;
+import org.openhab.io.imperihome.internal.model.HistoryAggregation;
 import org.openhab.io.imperihome.internal.model.param.DeviceParam;
 import org.openhab.io.imperihome.internal.model.param.DeviceParameters;
 import org.openhab.io.imperihome.internal.model.param.ParamType;
@@ -44,6 +45,7 @@ public abstract class AbstractDevice implements StateChangeListener {
     private final DeviceParameters params;
 
     private transient boolean inverted;
+    private transient HistoryAggregation historyAggregation = HistoryAggregation.AVG;
     private transient String roomName;
     private transient Item item;
 
@@ -52,6 +54,7 @@ public abstract class AbstractDevice implements StateChangeListener {
 
     private transient DeviceRegistry deviceRegistry;
     private transient ActionRegistry actionRegistry;
+    private transient volatile long revision;
 
     public AbstractDevice(DeviceType type, Item item) {
         this.type = type;
@@ -122,6 +125,14 @@ public abstract class AbstractDevice implements StateChangeListener {
         this.inverted = inverted;
     }
 
+    public HistoryAggregation getHistoryAggregation() {
+        return historyAggregation;
+    }
+
+    public void setHistoryAggregation(HistoryAggregation historyAggregation) {
+        this.historyAggregation = historyAggregation;
+    }
+
     public String getDefaultIcon() {
         return defaultIcon;
     }
@@ -134,9 +145,35 @@ public abstract class AbstractDevice implements StateChangeListener {
         return params;
     }
 
-    public void addParam(DeviceParam param) {
+    /**
+     * Sets a parameter. The revision of this device is only changed if the parameter value differs from the current
+     * one.
+     *
+     * @param param Parameter to set.
+     */
+    public synchronized void addParam(DeviceParam param) {
+        if (param.equals(params.get(param.getKey()))) {
+            return;
+        }
+
         logger.trace("Setting param for device {}: {}", this, param);
         params.set(param);
+
+        DeviceRegistry registry = deviceRegistry;
+        if (registry != null) {
+            revision = registry.nextRevision();
+        }
+    }
+
+    /**
+     * @return Revision of the last parameter change, as handed out by the {@link DeviceRegistry}.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
     }
 
     public Map<String, String> getLinks() {
@@ -188,8 +225,8 @@ public abstract class AbstractDevice implements StateChangeListener {
 
     /**
      * Can be implemented by Devices that require their state to be updated manually, instead of relying (only) on Item
-     * state change events.
-     * This method is called just before serializing the device to JSON.
+     * state change events, e.g. to copy values from linked devices.
+     * This method is called before the device list is serialized to JSON, if any device changed since the last time.
      */
     public void updateParams() {
         logger.trace("updateParams on {}", this);
@@ -32,9 +32,18 @@ public class MultiSwitchDevice extends AbstractDevice {
     }
 
     @Override
-    public void updateParams() {
-        super.updateParams();
+    public void stateUpdated(Item item, State newState) {
+        super.stateUpdated(item, newState);
+
+        State state = item.getStateAs(DecimalType.class);
+        if (state instanceof DecimalType) {
+            itemValue = String.valueOf(((DecimalType) state).intValue());
+        }
 
+        updateValueParams();
+    }
+
+    private void updateValueParams() {
         Map<String, String> mapping = getMapping();
         if (mapping == null || mapping.isEmpty()) {
             logger.error("MultiSwitch device {} contains no mapping", this);
@@ -54,14 +63,4 @@ public class MultiSwitchDevice extends AbstractDevice {
         addParam(valueParam);
     }
 
-    @Override
-    public void stateUpdated(Item item, State newState) {
-        super.stateUpdated(item, newState);
-
-        State state = item.getStateAs(DecimalType.class);
-        if (state instanceof DecimalType) {
-            itemValue = String.valueOf(((DecimalType) state).intValue());
-        }
-    }
-
 }
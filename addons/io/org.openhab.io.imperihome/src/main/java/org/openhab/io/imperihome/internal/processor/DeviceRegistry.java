@@ -15,6 +15,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.io.imperihome.internal.model.Room;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
@@ -22,7 +23,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The device registry stores created devices by ID.
+ * The device registry stores created devices by ID. It also hands out the revisions which devices use to mark
+ * changes of their parameters, so a device list only has to be rebuilt when the revision has changed.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -31,6 +33,8 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
     private final Logger logger = LoggerFactory.getLogger(DeviceRegistry.class);
 
     private final Map<String, AbstractDevice> devices;
+    private final AtomicLong revision = new AtomicLong();
+    private volatile long removalRevision;
     private Set<Room> rooms;
 
     public DeviceRegistry() {
@@ -65,6 +69,8 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
             return;
         }
 
+        device.setDeviceRegistry(this);
+        device.setRevision(nextRevision());
         devices.put(device.getId(), device);
         updateRooms();
 
@@ -74,12 +80,40 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
     public AbstractDevice remove(String deviceId) {
         AbstractDevice removed = devices.remove(deviceId);
         if (removed != null) {
+            removalRevision = nextRevision();
             updateRooms();
             logger.debug("Device {} removed, registry now contains {} total", removed.getName(), devices.size());
         }
         return removed;
     }
 
+    /**
+     * Returns a new revision, higher than all revisions handed out before.
+     *
+     * @return New revision.
+     */
+    public long nextRevision() {
+        return revision.incrementAndGet();
+    }
+
+    /**
+     * Returns the latest revision. Any device change or removal results in a higher revision.
+     *
+     * @return Latest revision.
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    /**
+     * Returns the revision of the last device removal.
+     *
+     * @return Revision of the last removal, 0 if no device was removed yet.
+     */
+    public long getRemovalRevision() {
+        return removalRevision;
+    }
+
     @Override
     public Iterator<AbstractDevice> iterator() {
         return devices.values().iterator();
@@ -90,6 +124,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
             device.destroy();
         }
         devices.clear();
+        removalRevision = nextRevision();
 
         if (rooms != null) {
             rooms.clear();
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openhab.io.imperihome.internal.model.HistoryAggregation;
+import org.openhab.io.imperihome.internal.model.HistoryItem;
+
+/**
+ * Aggregates historic values into fixed-size time buckets, one history point per bucket. Values are consumed one by
+ * one in any order, so only the buckets are kept in memory, no matter how many values the persistence service returns.
+ *
+ * @author agent - Initial contribution
+ */
+public class HistoryAggregator {
+
+    private static final long MIN_BUCKET_SIZE = 1000;
+
+    private final HistoryAggregation aggregation;
+    private final long start;
+    private final long end;
+    private final long bucketSize;
+
+    private final int[] counts;
+    private final double[] values;
+    private final long[] dates;
+    private int valueCount;
+
+    /**
+     * @param aggregation Function to combine the values of a bucket.
+     * @param start Start of the first bucket, in ms since epoch.
+     * @param end End of the last bucket, in ms since epoch.
+     * @param bucketSize Bucket size in ms.
+     */
+    public HistoryAggregator(HistoryAggregation aggregation, long start, long end, long bucketSize) {
+        this.aggregation = aggregation;
+        this.start = start;
+        this.end = end;
+        this.bucketSize = bucketSize;
+
+        int bucketCount = (int) Math.max(1, (end - start + bucketSize - 1) / bucketSize);
+        counts = new int[bucketCount];
+        values = new double[bucketCount];
+        dates = new long[bucketCount];
+    }
+
+    /**
+     * Determines the bucket size for the given duration. The size is rounded up to whole seconds, so that ranges
+     * requested at slightly different times map onto the same buckets. Widening a range of the duration to whole
+     * buckets may add a bucket, so the duration itself is split into at most maxPoints - 1 buckets.
+     *
+     * @param duration Duration in ms.
+     * @param maxPoints Maximum number of buckets for the duration, after widening it to whole buckets.
+     * @return Bucket size in ms.
+     */
+    public static long getBucketSize(long duration, int maxPoints) {
+        int buckets = Math.max(1, maxPoints - 1);
+        long size = (duration + buckets - 1) / buckets;
+        size = (size + MIN_BUCKET_SIZE - 1) / MIN_BUCKET_SIZE * MIN_BUCKET_SIZE;
+        return Math.max(MIN_BUCKET_SIZE, size);
+    }
+
+    /**
+     * Adds a value. Values outside of the range are ignored.
+     *
+     * @param date Value timestamp, in ms since epoch.
+     * @param value The value.
+     */
+    public void add(long date, double value) {
+        if (date < start || date > end) {
+            return;
+        }
+
+        // The end of the range is inclusive, a value right at the end belongs to the last bucket
+        int index = (int) Math.min((date - start) / bucketSize, counts.length - 1);
+
+        int count = counts[index]++;
+        valueCount++;
+        switch (aggregation) {
+            case MIN:
+                if (count == 0 || value < values[index]) {
+                    values[index] = value;
+                    dates[index] = date;
+                }
+                break;
+            case MAX:
+                if (count == 0 || value > values[index]) {
+                    values[index] = value;
+                    dates[index] = date;
+                }
+                break;
+            default:
+                values[index] += value;
+                dates[index] += date - start;
+                break;
+        }
+    }
+
+    /**
+     * @return Number of values added.
+     */
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Returns one history point per non-empty bucket, in chronological order. Minimum and maximum points carry the
+     * timestamp of the value they were taken from, averages the average timestamp of their bucket.
+     *
+     * @return Aggregated history points.
+     */
+    public List<HistoryItem> getResult() {
+        List<HistoryItem> result = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            int count = counts[i];
+            if (count == 0) {
+                continue;
+            }
+
+            if (aggregation == HistoryAggregation.AVG) {
+                result.add(new HistoryItem(start + dates[i] / count, values[i] / count));
+            } else {
+                result.add(new HistoryItem(dates[i], values[i]));
+            }
+        }
+        return result;
+    }
+
+}
@@ -27,6 +27,7 @@ import org.eclipse.smarthome.core.library.types.OpenClosedType;
 import org.eclipse.smarthome.core.types.State;
 import org.openhab.io.imperihome.internal.ImperiHomeConfig;
 import org.openhab.io.imperihome.internal.action.ActionRegistry;
+import org.openhab.io.imperihome.internal.model.HistoryAggregation;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 import org.openhab.io.imperihome.internal.model.device.AbstractNumericValueDevice;
 import org.openhab.io.imperihome.internal.model.device.Co2SensorDevice;
@@ -117,6 +118,7 @@ public class ItemProcessor implements ItemRegistryChangeListener {
                 setDeviceLinks(device, item, issTags);
                 setMapping(device, item, issTags);
                 setUnit(device, issTags);
+                setHistoryAggregation(device, issTags);
 
                 device.processCustomTags(issTags);
 
@@ -293,6 +295,22 @@ public class ItemProcessor implements ItemRegistryChangeListener {
         }
     }
 
+    /**
+     * Parses the aggregate tag, if it exists. Format: "iss:aggregate:max".
+     */
+    private void setHistoryAggregation(AbstractDevice device, Map<TagType, List<String>> issTags) {
+        if (issTags.containsKey(TagType.AGGREGATE)) {
+            String tagValue = issTags.get(TagType.AGGREGATE).get(0);
+            HistoryAggregation aggregation = HistoryAggregation.forTagValue(tagValue);
+            if (aggregation == null) {
+                logger.error("Unknown history aggregation '{}' for device {}", tagValue, device);
+                return;
+            }
+
+            device.setHistoryAggregation(aggregation);
+        }
+    }
+
     /**
      * Determines the Device type for the given Item. Uses the 'type' tag first, tries to auto-detect the type if no
      * such tag exists.
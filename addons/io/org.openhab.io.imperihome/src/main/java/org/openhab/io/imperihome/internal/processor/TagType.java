@@ -23,6 +23,7 @@ public enum TagType {
     UNIT("unit", false),
     INVERT("invert", false),
     ICON("icon", false),
+    AGGREGATE("aggregate", false),
 
     STEP("step", false),
     MIN_VAL("minVal", false),
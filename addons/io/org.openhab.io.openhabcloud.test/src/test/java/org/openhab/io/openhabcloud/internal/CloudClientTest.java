@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import static org.junit.Assert.*;
+
+import java.net.URI;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests cases for the request deduplication of {@see CloudClient}
+ *
+ * @author agent - Initial contribution
+ */
+public class CloudClientTest {
+
+    private static final URI SITEMAP = URI.create("http://localhost:8080/rest/sitemaps/default/0000?");
+
+    @Test
+    public void identicalRequestsShareOneKey() {
+        JSONObject headers = new JSONObject();
+        headers.put("Accept", "application/json");
+        headers.put("Accept-Language", "en");
+        JSONObject sameHeaders = new JSONObject();
+        sameHeaders.put("accept-language", "en");
+        sameHeaders.put("ACCEPT", "application/json");
+
+        assertEquals(CloudClient.getRequestKey(SITEMAP, "https", headers),
+                CloudClient.getRequestKey(SITEMAP, "https", sameHeaders));
+    }
+
+    @Test
+    public void differentRequestsHaveDifferentKeys() {
+        JSONObject headers = new JSONObject();
+        headers.put("Accept", "application/json");
+        JSONObject otherHeaders = new JSONObject();
+        otherHeaders.put("Accept", "text/html");
+        String key = CloudClient.getRequestKey(SITEMAP, "https", headers);
+
+        assertFalse(key.equals(CloudClient.getRequestKey(SITEMAP, "https", otherHeaders)));
+        assertFalse(key.equals(CloudClient.getRequestKey(SITEMAP, "http", headers)));
+        assertFalse(key.equals(CloudClient.getRequestKey(
+                URI.create("http://localhost:8080/rest/sitemaps/default/0001?"), "https", headers)));
+    }
+}
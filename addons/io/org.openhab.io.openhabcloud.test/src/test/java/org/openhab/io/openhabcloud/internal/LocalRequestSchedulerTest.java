@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.openhabcloud.internal.LocalRequestScheduler.Priority;
+
+/**
+ * Tests cases for {@see LocalRequestScheduler}
+ *
+ * @author agent - Initial contribution
+ */
+public class LocalRequestSchedulerTest {
+
+    /** Collects the tasks handed to the executor, so the test decides when they are sent */
+    private final List<Runnable> executed = new ArrayList<>();
+    private final Executor executor = task -> executed.add(task);
+
+    private LocalRequestScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executed.clear();
+        scheduler = new LocalRequestScheduler(2, 1, 2, executor);
+    }
+
+    /**
+     * Return a new task. Every request is a distinct task, like the listeners of the cloud client.
+     */
+    private Runnable newTask() {
+        return new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+    }
+
+    @Test
+    public void runningRequestsAreCapped() {
+        Runnable first = newTask();
+        Runnable second = newTask();
+        Runnable third = newTask();
+
+        assertTrue(scheduler.submit(first, Priority.INTERACTIVE));
+        assertTrue(scheduler.submit(second, Priority.INTERACTIVE));
+        assertTrue(scheduler.submit(third, Priority.INTERACTIVE));
+
+        assertEquals(2, scheduler.getRunning());
+        assertEquals(1, scheduler.getQueued());
+        assertEquals(2, executed.size());
+        assertSame(first, executed.get(0));
+        assertSame(second, executed.get(1));
+
+        scheduler.finished(first);
+        assertEquals(2, scheduler.getRunning());
+        assertEquals(0, scheduler.getQueued());
+        assertSame(third, executed.get(2));
+    }
+
+    @Test
+    public void finishedDoesNotSendOnTheCallingThread() {
+        final List<Runnable> sentInline = new ArrayList<>();
+        Runnable first = () -> sentInline.add(null);
+        Runnable second = () -> sentInline.add(null);
+        Runnable third = () -> sentInline.add(null);
+
+        scheduler.submit(first, Priority.INTERACTIVE);
+        scheduler.submit(second, Priority.INTERACTIVE);
+        scheduler.submit(third, Priority.INTERACTIVE);
+        scheduler.finished(first);
+
+        // All sends were handed to the executor, which has not run them yet
+        assertTrue(sentInline.isEmpty());
+        assertEquals(3, executed.size());
+    }
+
+    @Test
+    public void longPollingCannotOccupyAllSlots() {
+        Runnable poll1 = newTask();
+        Runnable poll2 = newTask();
+        Runnable page = newTask();
+
+        scheduler.submit(poll1, Priority.LONG_POLLING);
+        scheduler.submit(poll2, Priority.LONG_POLLING);
+        assertEquals(1, scheduler.getRunning());
+        assertEquals(1, scheduler.getQueued());
+
+        // The free slot is still available for interactive requests
+        scheduler.submit(page, Priority.INTERACTIVE);
+        assertEquals(2, scheduler.getRunning());
+        assertSame(page, executed.get(1));
+
+        scheduler.finished(poll1);
+        assertSame(poll2, executed.get(2));
+        assertEquals(0, scheduler.getQueued());
+    }
+
+    @Test
+    public void interactiveRequestsStartBeforeQueuedLongPolling() {
+        Runnable page1 = newTask();
+        Runnable page2 = newTask();
+        Runnable poll = newTask();
+        Runnable page3 = newTask();
+
+        scheduler.submit(page1, Priority.INTERACTIVE);
+        scheduler.submit(page2, Priority.INTERACTIVE);
+        scheduler.submit(poll, Priority.LONG_POLLING);
+        scheduler.submit(page3, Priority.INTERACTIVE);
+
+        scheduler.finished(page1);
+        assertSame(page3, executed.get(2));
+        scheduler.finished(page2);
+        assertSame(poll, executed.get(3));
+    }
+
+    @Test
+    public void fullQueueRejectsRequests() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(scheduler.submit(newTask(), Priority.INTERACTIVE));
+        }
+        assertFalse(scheduler.submit(newTask(), Priority.INTERACTIVE));
+        assertEquals(2, scheduler.getRunning());
+        assertEquals(2, scheduler.getQueued());
+    }
+
+    @Test
+    public void cancelRemovesQueuedRequestsOnly() {
+        Runnable first = newTask();
+        Runnable second = newTask();
+        Runnable third = newTask();
+
+        scheduler.submit(first, Priority.INTERACTIVE);
+        scheduler.submit(second, Priority.INTERACTIVE);
+        scheduler.submit(third, Priority.INTERACTIVE);
+
+        assertFalse(scheduler.cancel(first));
+        assertTrue(scheduler.cancel(third));
+        assertEquals(0, scheduler.getQueued());
+
+        scheduler.finished(first);
+        assertEquals(1, scheduler.getRunning());
+        assertEquals(2, executed.size());
+    }
+
+    @Test
+    public void unknownOrRepeatedFinishIsIgnored() {
+        Runnable first = newTask();
+
+        scheduler.submit(first, Priority.LONG_POLLING);
+        scheduler.finished(newTask());
+        assertEquals(1, scheduler.getRunning());
+
+        scheduler.finished(first);
+        scheduler.finished(first);
+        assertEquals(0, scheduler.getRunning());
+    }
+}
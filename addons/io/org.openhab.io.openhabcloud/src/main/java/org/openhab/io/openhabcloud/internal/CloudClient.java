@@ -16,11 +16,14 @@ import java.net.URLEncoder;
 import java.net.MalformedURLException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.client.HttpClient;
@@ -35,7 +38,6 @@ import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
-import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.json.JSONException;
@@ -79,6 +81,38 @@ public class CloudClient {
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
 
+    /*
+     * This constant defines how many bytes of response content are collected before they are
+     * sent to the openHAB Cloud in a single message
+     */
+    private static final int RESPONSE_CONTENT_MAX_FRAME_SIZE = 64 * 1024;
+
+    /*
+     * This constant defines how long collected response content may wait for more content
+     * before it is sent anyway, in milliseconds. It keeps streamed responses responsive
+     */
+    private static final int RESPONSE_CONTENT_MAX_DELAY = 20;
+
+    /*
+     * This constant defines how long item updates are collected before they are sent to the
+     * openHAB Cloud, in milliseconds. Only the latest state of an item within this time is sent
+     */
+    private static final int ITEM_UPDATE_FLUSH_INTERVAL = 250;
+
+    /*
+     * These constants limit the number of requests to the local openHAB running at the same time.
+     * Long-polling requests can only use some of the slots, so UI pages and REST calls are never
+     * starved by waiting subscriptions. Requests above the limits are queued up to a maximum.
+     */
+    private static final int LOCAL_REQUESTS_MAX_RUNNING = 64;
+    private static final int LOCAL_REQUESTS_MAX_RUNNING_LONG_POLLING = 48;
+    private static final int LOCAL_REQUESTS_MAX_QUEUED = 256;
+
+    /*
+     * Name of the thread pool which runs scheduled tasks of the openHAB Cloud connection
+     */
+    private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
+
     /*
      * This variable holds base URL for the openHAB Cloud connections
      */
@@ -105,9 +139,23 @@ public class CloudClient {
     private HttpClient jettyClient;
 
     /*
-     * This hashmap holds HTTP requests to local openHAB which are currently running
+     * This map holds the requests to local openHAB which are currently queued or running, by the
+     * id of the openHAB Cloud request. Identical GET requests share one local request
      */
-    private HashMap<Integer, Request> runningRequests;
+    private final Map<Integer, ResponseListener> runningRequests = new ConcurrentHashMap<>();
+
+    /*
+     * This map holds the local GET requests which have not received response headers yet, so
+     * identical requests can still join them
+     */
+    private final Map<String, ResponseListener> pendingGetRequests = new ConcurrentHashMap<>();
+
+    /*
+     * This variable holds the scheduler which limits the requests to local openHAB running at the same time
+     */
+    private final LocalRequestScheduler requestScheduler = new LocalRequestScheduler(LOCAL_REQUESTS_MAX_RUNNING,
+            LOCAL_REQUESTS_MAX_RUNNING_LONG_POLLING, LOCAL_REQUESTS_MAX_QUEUED,
+            ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD));
 
     /*
      * This variable indicates if connection to the openHAB Cloud is currently in an established state
@@ -138,6 +186,11 @@ public class CloudClient {
     private boolean remoteAccessEnabled;
     private Set<String> exposedItems;
 
+    /*
+     * This variable holds the queue which coalesces and sends item updates to the openHAB Cloud
+     */
+    private final ItemUpdateQueue itemUpdateQueue;
+
     /**
      * Constructor of CloudClient
      *
@@ -155,10 +208,15 @@ public class CloudClient {
         this.localBaseUrl = localBaseUrl;
         this.remoteAccessEnabled = remoteAccessEnabled;
         this.exposedItems = exposedItems;
-        runningRequests = new HashMap<Integer, Request>();
         jettyClient = new HttpClient();
         jettyClient.setMaxConnectionsPerDestination(HTTP_CLIENT_MAX_CONNECTIONS_PER_DEST);
         jettyClient.setConnectTimeout(HTTP_CLIENT_TIMEOUT);
+        itemUpdateQueue = new ItemUpdateQueue(new ItemUpdateQueue.Sender() {
+            @Override
+            public void send(String itemName, String itemState) {
+                emitItemUpdate(itemName, itemState);
+            }
+        }, ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD), ITEM_UPDATE_FLUSH_INTERVAL);
     }
 
     /**
@@ -249,6 +307,7 @@ public class CloudClient {
                 logger.error("Could not start Jetty client: {}", e.getMessage());
             }
         }
+        itemUpdateQueue.connected();
     }
 
     /**
@@ -259,6 +318,7 @@ public class CloudClient {
         logger.info("Disconnected from the openHAB Cloud service (UUID = {}, base URL = {})", this.uuid,
                 this.localBaseUrl);
         isConnected = false;
+        itemUpdateQueue.disconnected();
         // On disconnect stop jetty client to shutdown all ongoing requests if there were any
         if (jettyClient != null) {
             try {
@@ -268,9 +328,9 @@ public class CloudClient {
             }
         }
         // And clean up the list of running requests
-        if (runningRequests != null) {
-            runningRequests.clear();
-        }
+        runningRequests.clear();
+        pendingGetRequests.clear();
+        requestScheduler.clear();
     }
 
     /**
@@ -339,12 +399,26 @@ public class CloudClient {
             // Now perform the request to openHAB
             // If method is GET
             logger.debug("Request method is {}", requestMethod);
-            Request request = jettyClient.newRequest(requestUri);
-            setRequestHeaders(request, requestHeadersJson);
             String proto = protocol;
             if (data.has("protocol")) {
                 proto = data.getString("protocol");
             }
+            boolean longPolling = isLongPolling(requestPath, requestHeadersJson);
+
+            // An identical GET request which has not received its response headers yet serves this request too
+            String requestKey = null;
+            if (requestMethod.equals("GET") && !longPolling) {
+                requestKey = getRequestKey(requestUri, proto, requestHeadersJson);
+                ResponseListener pending = pendingGetRequests.get(requestKey);
+                if (pending != null && pending.addRequestId(requestId)) {
+                    runningRequests.put(requestId, pending);
+                    logger.debug("Request {} joins identical running request", requestId);
+                    return;
+                }
+            }
+
+            Request request = jettyClient.newRequest(requestUri);
+            setRequestHeaders(request, requestHeadersJson);
             request.header("X-Forwarded-Proto", proto);
 
             if (requestMethod.equals("GET")) {
@@ -360,11 +434,18 @@ public class CloudClient {
                 logger.error("Unsupported request method {}", requestMethod);
                 return;
             }
-            ResponseListener listener = new ResponseListener(requestId);
-            request.onResponseHeaders(listener).onResponseContent(listener).onRequestFailure(listener).send(listener);
-            // If successfully submitted request to http client, add it to the list of currently
-            // running requests to be able to cancel it if needed
-            runningRequests.put(requestId, request);
+            ResponseListener listener = new ResponseListener(requestId, request, requestKey);
+            // Add it to the list of currently running requests to be able to cancel it if needed
+            runningRequests.put(requestId, listener);
+            if (requestKey != null) {
+                pendingGetRequests.put(requestKey, listener);
+            }
+            if (!requestScheduler.submit(listener,
+                    longPolling ? LocalRequestScheduler.Priority.LONG_POLLING
+                            : LocalRequestScheduler.Priority.INTERACTIVE)) {
+                logger.warn("Too many requests to local openHAB, rejecting request {}", requestId);
+                listener.reject("openHAB connection error: too many requests");
+            }
         } catch (JSONException e) {
             logger.error("{}", e.getMessage());
         } catch (IOException e) {
@@ -374,6 +455,39 @@ public class CloudClient {
         }
     }
 
+    /*
+     * Returns true for requests which wait for events, like sitemap subscriptions and server-sent events
+     */
+    private boolean isLongPolling(String requestPath, JSONObject requestHeadersJson) {
+        @SuppressWarnings("unchecked")
+        Iterator<String> headersIterator = requestHeadersJson.keys();
+        while (headersIterator.hasNext()) {
+            String headerName = headersIterator.next();
+            String headerValue = requestHeadersJson.optString(headerName);
+            if (headerName.equalsIgnoreCase("X-Atmosphere-Transport") && !headerValue.equalsIgnoreCase("close")) {
+                return true;
+            }
+            if (headerName.equalsIgnoreCase("Accept") && headerValue.contains("text/event-stream")) {
+                return true;
+            }
+        }
+        return requestPath.contains("/rest/events");
+    }
+
+    /*
+     * Returns a key which is equal for requests that are answered with the same response
+     */
+    static String getRequestKey(URI requestUri, String proto, JSONObject requestHeadersJson) {
+        Map<String, String> headers = new TreeMap<>();
+        @SuppressWarnings("unchecked")
+        Iterator<String> headersIterator = requestHeadersJson.keys();
+        while (headersIterator.hasNext()) {
+            String headerName = headersIterator.next();
+            headers.put(headerName.toLowerCase(), requestHeadersJson.optString(headerName));
+        }
+        return requestUri.toString() + '\n' + proto + '\n' + headers.toString();
+    }
+
     private void setRequestHeaders(Request request, JSONObject requestHeadersJson) {
         @SuppressWarnings("unchecked")
         Iterator<String> headersIterator = requestHeadersJson.keys();
@@ -397,11 +511,10 @@ public class CloudClient {
         try {
             int requestId = data.getInt("id");
             logger.debug("Received cancel for request {}", requestId);
-            // Find and abort running request
-            if (runningRequests.containsKey(requestId)) {
-                Request request = runningRequests.get(requestId);
-                request.abort(new InterruptedException());
-                runningRequests.remove(requestId);
+            // Find and abort running request, unless identical requests still wait for its response
+            ResponseListener listener = runningRequests.remove(requestId);
+            if (listener != null) {
+                listener.cancel(requestId);
             }
         } catch (JSONException e) {
             logger.error("{}", e.getMessage());
@@ -499,28 +612,38 @@ public class CloudClient {
     }
 
     /**
-     * Send item update to openHAB Cloud
+     * Send item update to openHAB Cloud. Updates are collected and sent once per ITEM_UPDATE_FLUSH_INTERVAL,
+     * only the latest state of an item is sent. While there is no connection, the latest state is kept
+     * and sent as soon as the connection is established.
      *
      * @param itemName the name of the item
      * @param itemState updated item state
      *
      */
     public void sendItemUpdate(String itemName, String itemState) {
-        if (isConnected()) {
-            logger.debug("Sending update '{}' for item '{}'", itemState, itemName);
-            JSONObject itemUpdateMessage = new JSONObject();
-            try {
-                itemUpdateMessage.put("itemName", itemName);
-                itemUpdateMessage.put("itemStatus", itemState);
-                socket.emit("itemupdate", itemUpdateMessage);
-            } catch (JSONException e) {
-                logger.error("{}", e.getMessage());
-            }
-        } else {
-            logger.debug("No connection, Item update is not sent");
+        logger.debug("Queueing update '{}' for item '{}'", itemState, itemName);
+        itemUpdateQueue.add(itemName, itemState);
+    }
+
+    private void emitItemUpdate(String itemName, String itemState) {
+        logger.debug("Sending update '{}' for item '{}'", itemState, itemName);
+        JSONObject itemUpdateMessage = new JSONObject();
+        try {
+            itemUpdateMessage.put("itemName", itemName);
+            itemUpdateMessage.put("itemStatus", itemState);
+            socket.emit("itemupdate", itemUpdateMessage);
+        } catch (JSONException e) {
+            logger.error("{}", e.getMessage());
         }
     }
 
+    /**
+     * Returns the queue of item updates, which provides the counts of sent, coalesced and dropped updates
+     */
+    public ItemUpdateQueue getItemUpdateQueue() {
+        return itemUpdateQueue;
+    }
+
     /**
      * Returns true if openHAB Cloud connection is active
      */
@@ -533,6 +656,10 @@ public class CloudClient {
      */
     public void shutdown() {
         logger.info("Shutting down openHAB Cloud service connection");
+        itemUpdateQueue.shutdown();
+        logger.debug("Item updates: {} received, {} sent, {} coalesced, {} dropped",
+                itemUpdateQueue.getReceivedUpdates(), itemUpdateQueue.getSentUpdates(),
+                itemUpdateQueue.getCoalescedUpdates(), itemUpdateQueue.getDroppedUpdates());
         try {
             jettyClient.stop();
         } catch (Exception e) {
@@ -554,17 +681,107 @@ public class CloudClient {
     }
 
     /*
-     * An internal class which forwards response headers and data back to the openHAB Cloud
+     * An internal class which sends a request to local openHAB and forwards response headers and data back to the
+     * openHAB Cloud, for every openHAB Cloud request which is served by this local request.
+     * Content chunks are collected and sent in frames of up to RESPONSE_CONTENT_MAX_FRAME_SIZE bytes.
+     * All messages of a response are emitted while holding the lock of the listener, so the
+     * openHAB Cloud always receives the header, then the content and finally the finish message.
      */
     private class ResponseListener
-            implements Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
+            implements Runnable, Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
 
-        private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
-        private int mRequestId;
+        private final Set<Integer> mRequestIds = new LinkedHashSet<>();
+        private final Request mRequest;
+        private final String mRequestKey;
         private boolean mHeadersSent = false;
+        private boolean mFinished = false;
+        private byte[] mContent;
+        private int mContentLength = 0;
+        private ScheduledFuture<?> mFlushJob;
+
+        public ResponseListener(int requestId, Request request, String requestKey) {
+            mRequestIds.add(requestId);
+            mRequest = request;
+            mRequestKey = requestKey;
+        }
+
+        /*
+         * Sends the request to local openHAB, called by the request scheduler
+         */
+        @Override
+        public void run() {
+            mRequest.onResponseHeaders(this).onResponseContent(this).onRequestFailure(this).send(this);
+        }
+
+        /*
+         * Lets another openHAB Cloud request be served by this local request. Not possible once the
+         * response headers have been sent.
+         */
+        public synchronized boolean addRequestId(int requestId) {
+            if (mHeadersSent || mFinished || mRequestIds.isEmpty()) {
+                return false;
+            }
+            mRequestIds.add(requestId);
+            return true;
+        }
+
+        /*
+         * Stops serving the given openHAB Cloud request. The local request is aborted if it serves no other request.
+         */
+        public void cancel(int requestId) {
+            synchronized (this) {
+                mRequestIds.remove(requestId);
+                if (!mRequestIds.isEmpty()) {
+                    return;
+                }
+            }
+            removePending();
+            if (!requestScheduler.cancel(this)) {
+                mRequest.abort(new InterruptedException());
+            }
+        }
+
+        /*
+         * Answers all openHAB Cloud requests with an error without sending the local request
+         */
+        public synchronized void reject(String statusText) {
+            removePending();
+            mFinished = true;
+            JSONObject responseJson = new JSONObject();
+            try {
+                responseJson.put("responseStatusText", statusText);
+                emit("responseError", responseJson);
+            } catch (JSONException e) {
+                logger.error("{}", e.getMessage());
+            }
+            for (Integer requestId : mRequestIds) {
+                runningRequests.remove(requestId, this);
+            }
+            mRequestIds.clear();
+        }
+
+        private void removePending() {
+            if (mRequestKey != null) {
+                pendingGetRequests.remove(mRequestKey, this);
+            }
+        }
 
-        public ResponseListener(int requestId) {
-            mRequestId = requestId;
+        /*
+         * Emits a copy of the given message with the id of every openHAB Cloud request served by this listener
+         */
+        private void emit(String event, JSONObject message) {
+            String[] names = JSONObject.getNames(message);
+            for (Integer requestId : mRequestIds) {
+                JSONObject responseJson = new JSONObject();
+                responseJson.put("id", requestId.intValue());
+                if (names != null) {
+                    for (String name : names) {
+                        // put the values as they are, byte arrays must stay binary
+                        responseJson.put(name, message.get(name));
+                    }
+                }
+                socket.emit(event, responseJson);
+            }
         }
 
         private JSONObject getJSONHeaders(HttpFields httpFields) {
@@ -580,76 +797,126 @@ public class CloudClient {
         }
 
         @Override
-        public void onComplete(Result result) {
-            // Remove this request from list of running requests
-            runningRequests.remove(mRequestId);
+        public synchronized void onComplete(Result result) {
+            // Remove this request from list of running requests and let the next queued request start.
+            // The scheduler sends the next requests on its executor, not on this Jetty callback thread.
+            removePending();
+            for (Integer requestId : mRequestIds) {
+                runningRequests.remove(requestId, this);
+            }
+            requestScheduler.finished(this);
             if (result.isFailed() && result.getResponse().getStatus() != HttpStatus.OK_200) {
-                logger.warn("Jetty request {} failed: {}", mRequestId, result.getFailure().getMessage());
+                logger.warn("Jetty request {} failed: {}", mRequestIds, result.getFailure().getMessage());
                 logger.warn("{}", result.getRequestFailure().getMessage());
                 logger.warn("{}", result.getResponseFailure().getMessage());
             }
 
-            /**
-             * What is this? In some cases where latency is very low the myopenhab service
-             * can receive responseFinished before the headers or content are received and I
-             * cannot find another workaround to prevent it.
-             */
-            ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(new Runnable() {
-
-                @Override
-                public void run() {
-                    JSONObject responseJson = new JSONObject();
-                    try {
-                        responseJson.put("id", mRequestId);
-                        socket.emit("responseFinished", responseJson);
-                        logger.debug("Finished responding to request {}", mRequestId);
-                    } catch (JSONException e) {
-                        logger.error("{}", e.getMessage());
-                    }
-                }
-            }, 1, TimeUnit.MILLISECONDS);
+            // Send the remaining content before the finish message. Socket.IO sends messages in the
+            // order they are emitted, so the openHAB Cloud cannot receive them out of order.
+            flushContent();
+            mFinished = true;
+            try {
+                emit("responseFinished", new JSONObject());
+                logger.debug("Finished responding to request {}", mRequestIds);
+            } catch (JSONException e) {
+                logger.error("{}", e.getMessage());
+            }
         }
 
         @Override
         public synchronized void onFailure(Request request, Throwable failure) {
             logger.error("{}", failure.getMessage());
+            // Collected content will never be completed, drop it
+            mFinished = true;
+            mContentLength = 0;
             JSONObject responseJson = new JSONObject();
             try {
-                responseJson.put("id", mRequestId);
                 responseJson.put("responseStatusText", "openHAB connection error: " + failure.getMessage());
-                socket.emit("responseError", responseJson);
+                emit("responseError", responseJson);
             } catch (JSONException e) {
                 logger.error("{}", e.getMessage());
             }
         }
 
         @Override
-        public void onContent(Response response, ByteBuffer content) {
+        public synchronized void onContent(Response response, ByteBuffer content) {
             logger.debug("Jetty received response content of size {}", String.valueOf(content.remaining()));
+            if (mFinished) {
+                return;
+            }
+            while (content.hasRemaining()) {
+                if (mContent == null) {
+                    mContent = new byte[Math.min(content.remaining(), RESPONSE_CONTENT_MAX_FRAME_SIZE)];
+                } else if (mContentLength == mContent.length) {
+                    mContent = Arrays.copyOf(mContent, Math.min(Math.max(mContentLength + content.remaining(),
+                            mContentLength * 2), RESPONSE_CONTENT_MAX_FRAME_SIZE));
+                }
+                int length = Math.min(content.remaining(), mContent.length - mContentLength);
+                content.get(mContent, mContentLength, length);
+                mContentLength += length;
+                if (mContentLength == RESPONSE_CONTENT_MAX_FRAME_SIZE) {
+                    flushContent();
+                }
+            }
+            if (mContentLength > 0 && mFlushJob == null) {
+                mFlushJob = ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (ResponseListener.this) {
+                            mFlushJob = null;
+                            if (!mFinished) {
+                                flushContent();
+                            }
+                        }
+                    }
+                }, RESPONSE_CONTENT_MAX_DELAY, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /*
+         * Sends the collected content to the openHAB Cloud. Must be called holding the lock of this listener.
+         */
+        private void flushContent() {
+            if (mFlushJob != null) {
+                mFlushJob.cancel(false);
+                mFlushJob = null;
+            }
+            if (mContentLength == 0) {
+                return;
+            }
+            byte[] body;
+            if (mContentLength == mContent.length) {
+                // hand over the full buffer instead of copying it
+                body = mContent;
+                mContent = null;
+            } else {
+                body = Arrays.copyOf(mContent, mContentLength);
+            }
+            mContentLength = 0;
             JSONObject responseJson = new JSONObject();
             try {
-                responseJson.put("id", mRequestId);
-                responseJson.put("body", BufferUtil.toArray(content));
-                socket.emit("responseContentBinary", responseJson);
-                logger.debug("Sent content to request {}", mRequestId);
+                responseJson.put("body", body);
+                emit("responseContentBinary", responseJson);
+                logger.debug("Sent {} bytes of content to request {}", body.length, mRequestIds);
             } catch (JSONException e) {
                 logger.error("{}", e.getMessage());
             }
         }
 
         @Override
-        public void onHeaders(Response response) {
+        public synchronized void onHeaders(Response response) {
             if (!mHeadersSent) {
                 logger.debug("Jetty finished receiving response header");
                 JSONObject responseJson = new JSONObject();
                 mHeadersSent = true;
+                // From now on no other request can join this one
+                removePending();
                 try {
-                    responseJson.put("id", mRequestId);
                     responseJson.put("headers", getJSONHeaders(response.getHeaders()));
                     responseJson.put("responseStatusCode", response.getStatus());
                     responseJson.put("responseStatusText", "OK");
-                    socket.emit("responseHeader", responseJson);
-                    logger.debug("Sent headers to request {}", mRequestId);
+                    emit("responseHeader", responseJson);
+                    logger.debug("Sent headers to request {}", mRequestIds);
                     logger.debug("{}", responseJson.toString());
                 } catch (JSONException e) {
                     logger.error("{}", e.getMessage());
@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class queues item updates for the openHAB Cloud. Only the latest state of an item is kept,
+ * a state that is replaced before it was sent is counted as coalesced. The queued updates are sent
+ * together once per flush interval. While the connection is down nothing is sent, the queue keeps the
+ * latest state of every item and sends it as soon as the connection is established again.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class ItemUpdateQueue {
+
+    /**
+     * This interface is called to send a single item update to the openHAB Cloud
+     */
+    public interface Sender {
+        void send(String itemName, String itemState);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(ItemUpdateQueue.class);
+
+    private final Sender sender;
+    private final ScheduledExecutorService scheduler;
+    private final long flushInterval;
+
+    /*
+     * Latest not yet sent state of every item, in the order of the first update
+     */
+    private final Map<String, String> pendingUpdates = new LinkedHashMap<>();
+    private ScheduledFuture<?> flushJob;
+    private boolean connected = false;
+
+    private long receivedUpdates = 0;
+    private long sentUpdates = 0;
+    private long coalescedUpdates = 0;
+    private long droppedUpdates = 0;
+
+    /**
+     * Constructor of ItemUpdateQueue
+     *
+     * @param sender sends a single item update to the openHAB Cloud
+     * @param scheduler the scheduler which runs the flushes
+     * @param flushInterval the time in milliseconds updates are collected before they are sent
+     */
+    public ItemUpdateQueue(Sender sender, ScheduledExecutorService scheduler, long flushInterval) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Queues an update of an item, replacing a queued update of the same item
+     *
+     * @param itemName the name of the item
+     * @param itemState updated item state
+     */
+    public synchronized void add(String itemName, String itemState) {
+        receivedUpdates++;
+        if (pendingUpdates.put(itemName, itemState) != null) {
+            coalescedUpdates++;
+        }
+        scheduleFlush(flushInterval);
+    }
+
+    /**
+     * Called when the connection to the openHAB Cloud is established. Sends the updates
+     * which were collected while the connection was down.
+     */
+    public synchronized void connected() {
+        connected = true;
+        scheduleFlush(0);
+    }
+
+    /**
+     * Called when the connection to the openHAB Cloud is lost. Updates are collected until
+     * the connection is established again.
+     */
+    public synchronized void disconnected() {
+        connected = false;
+        cancelFlush();
+    }
+
+    /**
+     * Drops all queued updates and stops sending
+     */
+    public synchronized void shutdown() {
+        connected = false;
+        cancelFlush();
+        droppedUpdates += pendingUpdates.size();
+        pendingUpdates.clear();
+    }
+
+    /**
+     * Returns the number of updates which were added to this queue
+     */
+    public synchronized long getReceivedUpdates() {
+        return receivedUpdates;
+    }
+
+    /**
+     * Returns the number of updates which were sent to the openHAB Cloud
+     */
+    public synchronized long getSentUpdates() {
+        return sentUpdates;
+    }
+
+    /**
+     * Returns the number of updates which were replaced by a newer update of the same item before they were sent
+     */
+    public synchronized long getCoalescedUpdates() {
+        return coalescedUpdates;
+    }
+
+    /**
+     * Returns the number of updates which were never sent because the queue was shut down
+     */
+    public synchronized long getDroppedUpdates() {
+        return droppedUpdates;
+    }
+
+    /**
+     * Returns the number of items with an update waiting to be sent
+     */
+    public synchronized int getPendingUpdates() {
+        return pendingUpdates.size();
+    }
+
+    private void scheduleFlush(long delay) {
+        if (!connected || flushJob != null || pendingUpdates.isEmpty()) {
+            return;
+        }
+        flushJob = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelFlush() {
+        if (flushJob != null) {
+            flushJob.cancel(false);
+            flushJob = null;
+        }
+    }
+
+    private synchronized void flush() {
+        flushJob = null;
+        if (!connected || pendingUpdates.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, String> update : pendingUpdates.entrySet()) {
+            sender.send(update.getKey(), update.getValue());
+        }
+        sentUpdates += pendingUpdates.size();
+        logger.debug("Sent {} item updates to the openHAB Cloud ({} received, {} coalesced so far)",
+                pendingUpdates.size(), receivedUpdates, coalescedUpdates);
+        pendingUpdates.clear();
+    }
+}
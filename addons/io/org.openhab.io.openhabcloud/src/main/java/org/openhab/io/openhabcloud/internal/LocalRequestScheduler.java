@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * This class limits the number of requests which are sent to the local openHAB at the same time.
+ * Requests above the limit are queued. Interactive requests (UI pages, REST calls) are always started
+ * before queued long-polling requests, and long-polling requests can never occupy all slots, so they
+ * cannot starve interactive requests. A request is started by running its task on the given executor,
+ * so reporting a finished request never sends the next requests on the reporting thread. The task must
+ * send the request asynchronously, and must be reported as finished when its response is complete.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class LocalRequestScheduler {
+
+    public enum Priority {
+        INTERACTIVE,
+        LONG_POLLING
+    }
+
+    private final int maxRunning;
+    private final int maxRunningLongPolling;
+    private final int maxQueued;
+    private final Executor executor;
+
+    private final LinkedList<Runnable> queuedInteractive = new LinkedList<>();
+    private final LinkedList<Runnable> queuedLongPolling = new LinkedList<>();
+    private final Map<Runnable, Priority> running = new HashMap<>();
+    private int runningLongPolling = 0;
+
+    /**
+     * Constructor of LocalRequestScheduler
+     *
+     * @param maxRunning maximum number of requests running at the same time
+     * @param maxRunningLongPolling maximum number of long-polling requests running at the same time
+     * @param maxQueued maximum number of requests waiting to be started
+     * @param executor runs the tasks of the started requests
+     */
+    public LocalRequestScheduler(int maxRunning, int maxRunningLongPolling, int maxQueued, Executor executor) {
+        this.maxRunning = maxRunning;
+        this.maxRunningLongPolling = Math.min(maxRunningLongPolling, maxRunning);
+        this.maxQueued = maxQueued;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the request right away if the limits allow it, otherwise queues it
+     *
+     * @param task sends the request
+     * @param priority the priority of the request
+     * @return false if the queue is full and the request was rejected
+     */
+    public boolean submit(Runnable task, Priority priority) {
+        synchronized (this) {
+            if (queuedInteractive.size() + queuedLongPolling.size() >= maxQueued) {
+                return false;
+            }
+            if (priority == Priority.INTERACTIVE) {
+                queuedInteractive.add(task);
+            } else {
+                queuedLongPolling.add(task);
+            }
+        }
+        startQueued();
+        return true;
+    }
+
+    /**
+     * Removes a request from the queue
+     *
+     * @param task the task of the request
+     * @return true if the request was still queued, false if it has already been started
+     */
+    public synchronized boolean cancel(Runnable task) {
+        return queuedInteractive.remove(task) || queuedLongPolling.remove(task);
+    }
+
+    /**
+     * Reports that a started request is complete and starts queued requests
+     *
+     * @param task the task of the request
+     */
+    public void finished(Runnable task) {
+        synchronized (this) {
+            Priority priority = running.remove(task);
+            if (priority == null) {
+                return;
+            }
+            if (priority == Priority.LONG_POLLING) {
+                runningLongPolling--;
+            }
+        }
+        startQueued();
+    }
+
+    /**
+     * Forgets all queued and running requests
+     */
+    public synchronized void clear() {
+        queuedInteractive.clear();
+        queuedLongPolling.clear();
+        running.clear();
+        runningLongPolling = 0;
+    }
+
+    /**
+     * Returns the number of running requests
+     */
+    public synchronized int getRunning() {
+        return running.size();
+    }
+
+    /**
+     * Returns the number of queued requests
+     */
+    public synchronized int getQueued() {
+        return queuedInteractive.size() + queuedLongPolling.size();
+    }
+
+    private void startQueued() {
+        List<Runnable> tasks = new ArrayList<>();
+        synchronized (this) {
+            while (running.size() < maxRunning) {
+                Runnable task = queuedInteractive.poll();
+                if (task != null) {
+                    running.put(task, Priority.INTERACTIVE);
+                } else if (runningLongPolling < maxRunningLongPolling && !queuedLongPolling.isEmpty()) {
+                    task = queuedLongPolling.poll();
+                    running.put(task, Priority.LONG_POLLING);
+                    runningLongPolling++;
+                } else {
+                    break;
+                }
+                tasks.add(task);
+            }
+        }
+        // send the requests without holding the lock, completion may be reported on another thread right away
+        for (Runnable task : tasks) {
+            executor.execute(task);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for the rate limits of an {@link AbstractChannelThrottler}. The time is given by a {@link TimeProvider}
+ * of the test, so the delays do not depend on the speed of the test.
+ *
+ * @author agent - Initial contribution
+ */
+public class ChannelThrottlerTest {
+
+    private static final String CHANNEL = "channel";
+
+    private long now = 0;
+    private final TimeProvider timeProvider = new TimeProvider() {
+        @Override
+        public long getCurrentTimeInMillis() {
+            return now;
+        }
+    };
+
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private ScheduledChannelThrottler createThrottler(RateLimit rateLimit, RateLimit channelRateLimit) {
+        Map<Object, RateLimit> channels = new HashMap<Object, RateLimit>();
+        if (channelRateLimit != null) {
+            channels.put(CHANNEL, channelRateLimit);
+        }
+        return new ScheduledChannelThrottler(rateLimit, scheduler, channels, timeProvider);
+    }
+
+    @Test
+    public void callsWithoutChannelUseGlobalRateLimit() {
+        ScheduledChannelThrottler throttler = createThrottler(
+                new RateLimit(new TokenBucket(1, 1, 1, TimeUnit.SECONDS)), null);
+        assertEquals(0, throttler.getThrottleDelay(null));
+        assertEquals(1000, throttler.getThrottleDelay(null));
+
+        now = 500;
+        assertEquals(1500, throttler.getThrottleDelay(null));
+        assertEquals(3, throttler.getRateLimit().getCalls());
+        assertEquals(2, throttler.getRateLimit().getDelayedCalls());
+    }
+
+    @Test
+    public void channelRateLimitIsApplied() {
+        RateLimit channelRateLimit = new RateLimit(new Rate(1, 1, TimeUnit.SECONDS));
+        ScheduledChannelThrottler throttler = createThrottler(new RateLimit(), channelRateLimit);
+        assertSame(channelRateLimit, throttler.getRateLimit(CHANNEL));
+        assertSame(throttler.getRateLimit(), throttler.getRateLimit("unknown"));
+
+        assertEquals(0, throttler.getThrottleDelay(CHANNEL));
+        assertEquals(1001, throttler.getThrottleDelay(CHANNEL));
+
+        // other calls are only limited by the global rate limit
+        assertEquals(0, throttler.getThrottleDelay(null));
+        assertEquals(2, channelRateLimit.getCalls());
+        assertEquals(3, throttler.getRateLimit().getCalls());
+    }
+
+    @Test
+    public void sharedRateLimitThrottlesAllThrottlers() {
+        RateLimit account = new RateLimit(new TokenBucket(1, 1, 1, TimeUnit.SECONDS));
+        ScheduledChannelThrottler first = createThrottler(account, null);
+        ScheduledChannelThrottler second = createThrottler(account, null);
+
+        assertEquals(0, first.getThrottleDelay(null));
+        assertEquals(1000, second.getThrottleDelay(null));
+        assertEquals(2000, first.getThrottleDelay(null));
+    }
+
+    @Test
+    public void rateLimitedCallsSlowDown() {
+        ScheduledChannelThrottler throttler = createThrottler(new RateLimit(), null);
+        now = 10000;
+        throttler.reportRateLimited(null, 0);
+        assertEquals(10000 + RateLimit.INITIAL_BACKOFF, throttler.getRateLimit().getBlockedUntil());
+        assertEquals(RateLimit.INITIAL_BACKOFF, throttler.getThrottleDelay(null));
+
+        throttler.reportRateLimited(null, 0);
+        assertEquals(2 * RateLimit.INITIAL_BACKOFF, throttler.getThrottleDelay(null));
+
+        throttler.reportAccepted(null);
+        now = 20000;
+        throttler.reportRateLimited(null, 0);
+        assertEquals(RateLimit.INITIAL_BACKOFF, throttler.getThrottleDelay(null));
+    }
+
+    @Test
+    public void rateLimitedChannelDoesNotBlockOtherCalls() {
+        RateLimit channelRateLimit = new RateLimit();
+        ScheduledChannelThrottler throttler = createThrottler(new RateLimit(), channelRateLimit);
+        throttler.reportRateLimited(CHANNEL, 60000);
+
+        assertEquals(60000, channelRateLimit.getBlockedUntil());
+        assertEquals(60000, throttler.getThrottleDelay(CHANNEL));
+        assertEquals(0, throttler.getThrottleDelay(null));
+    }
+}
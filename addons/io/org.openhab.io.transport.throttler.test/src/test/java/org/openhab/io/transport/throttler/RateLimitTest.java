@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link RateLimit}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RateLimitTest {
+
+    // Wed, 21 Oct 2015 07:28:00 GMT
+    private static final long RETRY_DATE = 1445412480000L;
+
+    @Test
+    public void callRespectsAllBudgets() {
+        RateLimit rateLimit = new RateLimit(new Rate(1, 1, TimeUnit.SECONDS),
+                new TokenBucket(1, 1, 2, TimeUnit.SECONDS));
+        assertEquals(0, rateLimit.callTime(0));
+        rateLimit.addCall(0, 0);
+        assertEquals(2000, rateLimit.callTime(0));
+    }
+
+    @Test
+    public void addCallCountsDelayedCalls() {
+        RateLimit rateLimit = new RateLimit();
+        rateLimit.addCall(0, 0);
+        rateLimit.addCall(0, 300);
+        rateLimit.addCall(100, 600);
+        assertEquals(3, rateLimit.getCalls());
+        assertEquals(2, rateLimit.getDelayedCalls());
+        assertEquals(800, rateLimit.getTotalDelay());
+    }
+
+    @Test
+    public void slowDownDoublesBackoffUpToMaximum() {
+        RateLimit rateLimit = new RateLimit();
+        long expected = RateLimit.INITIAL_BACKOFF;
+        for (int i = 0; i < 15; i++) {
+            rateLimit.slowDown(0, 0);
+            assertEquals(expected, rateLimit.getBlockedUntil());
+            assertEquals(expected, rateLimit.callTime(0));
+            expected = Math.min(2 * expected, RateLimit.MAXIMUM_BACKOFF);
+        }
+        assertEquals(RateLimit.MAXIMUM_BACKOFF, rateLimit.getBlockedUntil());
+        assertEquals(15, rateLimit.getSlowDowns());
+    }
+
+    @Test
+    public void resetSlowDownRestartsBackoff() {
+        RateLimit rateLimit = new RateLimit();
+        rateLimit.slowDown(0, 0);
+        rateLimit.slowDown(0, 0);
+        assertEquals(2000, rateLimit.getBlockedUntil());
+
+        rateLimit.resetSlowDown();
+        rateLimit.slowDown(10000, 0);
+        assertEquals(10000 + RateLimit.INITIAL_BACKOFF, rateLimit.getBlockedUntil());
+    }
+
+    @Test
+    public void slowDownUsesRetryAfter() {
+        RateLimit rateLimit = new RateLimit();
+        rateLimit.slowDown(1000, 30000);
+        assertEquals(31000, rateLimit.getBlockedUntil());
+        assertEquals(31000, rateLimit.callTime(5000));
+
+        // a shorter retry time does not end the slow down early
+        rateLimit.slowDown(2000, 1000);
+        assertEquals(31000, rateLimit.getBlockedUntil());
+
+        // the back-off time is not changed by a retry time
+        rateLimit.slowDown(40000, 0);
+        assertEquals(40000 + RateLimit.INITIAL_BACKOFF, rateLimit.getBlockedUntil());
+    }
+
+    @Test
+    public void parseRetryAfterSeconds() {
+        assertEquals(120000, RateLimit.parseRetryAfter("120", 0));
+        assertEquals(5000, RateLimit.parseRetryAfter(" 5 ", 0));
+        assertEquals(0, RateLimit.parseRetryAfter("-3", 0));
+    }
+
+    @Test
+    public void parseRetryAfterDate() {
+        assertEquals(30000, RateLimit.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT", RETRY_DATE - 30000));
+        assertEquals(0, RateLimit.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT", RETRY_DATE + 30000));
+    }
+
+    @Test
+    public void parseRetryAfterMissingOrInvalid() {
+        assertEquals(0, RateLimit.parseRetryAfter(null, 0));
+        assertEquals(0, RateLimit.parseRetryAfter("", 0));
+        assertEquals(0, RateLimit.parseRetryAfter("soon", 0));
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link Rate}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RateTest {
+
+    @Test
+    public void callsWithinQuotaAreNotDelayed() {
+        Rate rate = new Rate(3, 1, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i * 100, rate.callTime(i * 100));
+            rate.addCall(i * 100);
+        }
+    }
+
+    @Test
+    public void callBeyondQuotaWaitsForNextPeriod() {
+        Rate rate = new Rate(3, 1, TimeUnit.SECONDS);
+        rate.addCall(0);
+        rate.addCall(100);
+        rate.addCall(200);
+        assertEquals(1001, rate.callTime(300));
+    }
+
+    @Test
+    public void oldCallsExpire() {
+        Rate rate = new Rate(2, 1, TimeUnit.SECONDS);
+        rate.addCall(0);
+        rate.addCall(500);
+        assertEquals(1001, rate.callTime(600));
+
+        // the call at 0 is out of the time window now
+        assertEquals(1000, rate.callTime(1000));
+        rate.addCall(1000);
+        assertEquals(1501, rate.callTime(1000));
+
+        // both remaining calls are out of the time window
+        assertEquals(5000, rate.callTime(5000));
+    }
+
+    @Test
+    public void callsBookedInTheFutureAreCounted() {
+        Rate rate = new Rate(1, 1, TimeUnit.SECONDS);
+        rate.addCall(0);
+        long callTime = rate.callTime(0);
+        assertEquals(1001, callTime);
+        rate.addCall(callTime);
+        assertEquals(2002, rate.callTime(0));
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link TokenBucket}.
+ *
+ * @author agent - Initial contribution
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void burstUpToCapacityIsNotDelayed() {
+        TokenBucket bucket = new TokenBucket(3, 1, 1, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.callTime(0));
+            bucket.addCall(0);
+        }
+        assertEquals(1000, bucket.callTime(0));
+    }
+
+    @Test
+    public void callsAfterBurstAreSpreadEvenly() {
+        TokenBucket bucket = new TokenBucket(1, 4, 1, TimeUnit.SECONDS);
+        long callTime = 0;
+        for (int i = 0; i < 4; i++) {
+            callTime = bucket.callTime(0);
+            assertEquals(i * 250, callTime);
+            bucket.addCall(callTime);
+        }
+        assertEquals(1000, bucket.callTime(100));
+    }
+
+    @Test
+    public void bucketRefillsWhileIdle() {
+        TokenBucket bucket = new TokenBucket(2, 1, 1, TimeUnit.SECONDS);
+        bucket.addCall(0);
+        bucket.addCall(0);
+        assertEquals(1000, bucket.callTime(0));
+        assertEquals(1500, bucket.callTime(1500));
+
+        // after two intervals the bucket is full again
+        assertEquals(10000, bucket.callTime(10000));
+        bucket.addCall(10000);
+        assertEquals(10000, bucket.callTime(10000));
+        bucket.addCall(10000);
+        assertEquals(11000, bucket.callTime(10000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePositive() {
+        new TokenBucket(0, 1, 1, TimeUnit.SECONDS);
+    }
+}
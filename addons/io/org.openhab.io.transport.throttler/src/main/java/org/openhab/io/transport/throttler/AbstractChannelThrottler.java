@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The {@link AbstractChannelThrottler} is abstract class implementing a
+ * throttler with one global {@link RateLimit}, which may be shared with other
+ * throttlers, and a {@link RateLimit} per channel
+ *
+ * @author Karel Goderis - Initial contribution
+ * @author agent - Shared rate limits and slow-down
+ */
+abstract class AbstractChannelThrottler implements ChannelThrottler {
+
+    protected final RateLimit rateLimit;
+    protected final TimeProvider timeProvider;
+    protected final ScheduledExecutorService scheduler;
+    protected final Map<Object, RateLimit> channels = new HashMap<Object, RateLimit>();
+
+    protected AbstractChannelThrottler(RateLimit rateLimit, ScheduledExecutorService scheduler,
+            Map<Object, RateLimit> channels, TimeProvider timeProvider) {
+        this.rateLimit = rateLimit;
+        this.scheduler = scheduler;
+        this.channels.putAll(channels);
+        this.timeProvider = timeProvider;
+    }
+
+    /**
+     * Books a call in the global rate limit and in the rate limit of the channel.
+     * The global rate limit is always locked first, as it may be shared.
+     *
+     * @return the time in ms at which the call may be executed
+     */
+    protected long callTime(Object channelKey) {
+        RateLimit channel = channelKey == null ? null : channels.get(channelKey);
+        long now = timeProvider.getCurrentTimeInMillis();
+        synchronized (rateLimit) {
+            if (channel == null) {
+                long callTime = rateLimit.callTime(now);
+                rateLimit.addCall(now, callTime);
+                return callTime;
+            }
+            synchronized (channel) {
+                long callTime = Math.max(rateLimit.callTime(now), channel.callTime(now));
+                channel.addCall(now, callTime);
+                rateLimit.addCall(now, callTime);
+                return callTime;
+            }
+        }
+    }
+
+    protected long getThrottleDelay(Object channelKey) {
+        long delay = callTime(channelKey) - timeProvider.getCurrentTimeInMillis();
+        return delay < 0 ? 0 : delay;
+    }
+
+    @Override
+    public void reportRateLimited(Object channelKey, long retryAfter) {
+        getRateLimit(channelKey).slowDown(timeProvider.getCurrentTimeInMillis(), retryAfter);
+    }
+
+    @Override
+    public void reportAccepted(Object channelKey) {
+        getRateLimit(channelKey).resetSlowDown();
+    }
+
+    /**
+     * @return the global rate limit
+     */
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * @return the rate limit of a channel, or the global rate limit if the channel has none
+     */
+    public RateLimit getRateLimit(Object channelKey) {
+        RateLimit channel = channelKey == null ? null : channels.get(channelKey);
+        return channel != null ? channel : rateLimit;
+    }
+}
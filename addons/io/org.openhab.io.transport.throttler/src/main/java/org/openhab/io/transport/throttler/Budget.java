@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+/**
+ * The {@link Budget} defines a quota of calls. A call is first asked for the
+ * earliest time it may be executed, and is then booked at that time, which may
+ * lie in the future. Implementations are not thread safe, they are guarded by
+ * the {@link RateLimit} they belong to.
+ *
+ * @author agent - Initial contribution
+ */
+public interface Budget {
+
+    /**
+     * @param now the current time in ms
+     * @return the earliest time in ms, not before now, at which the next call is within the budget
+     */
+    long callTime(long now);
+
+    /**
+     * Books a call
+     *
+     * @param callTime the time in ms at which the call will be executed
+     */
+    void addCall(long callTime);
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+import java.util.concurrent.Future;
+
+/**
+ * The {@link ChannelThrottler} defines the interface for to submit tasks to a
+ * throttler
+ *
+ * @author Karel Goderis - Initial contribution
+ * @author agent - Shared rate limits and slow-down
+ */
+public interface ChannelThrottler {
+
+    /**
+     * Name of the thread pool that is shared by all throttlers, which are not given a scheduler of their own
+     */
+    String THREAD_POOL_NAME = "throttler";
+
+    Future<?> submit(Runnable task);
+
+    Future<?> submit(Object channelKey, Runnable task);
+
+    /**
+     * Reports that the server rejected a call because of too frequent calls, e.g. with HTTP status 429
+     *
+     * @param channelKey the channel of the call, or null if the whole account is affected
+     * @param retryAfter the time in ms the server asks to wait, or 0 if it does not say so
+     */
+    void reportRateLimited(Object channelKey, long retryAfter);
+
+    /**
+     * Reports that the server accepted a call, which ends the slow down of the channel
+     *
+     * @param channelKey the channel of the call, or null for the whole account
+     */
+    void reportAccepted(Object channelKey);
+}
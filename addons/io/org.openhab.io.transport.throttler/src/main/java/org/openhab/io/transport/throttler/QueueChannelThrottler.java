@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link QueueChannelThrottler} implements a throttler that maintains
+ * multiple execution rates, and maintains the order of calls
+ *
+ * @author Karel Goderis - Initial contribution
+ * @author agent - Shared rate limits and slow-down
+ */
+public final class QueueChannelThrottler extends AbstractChannelThrottler {
+
+    private Logger logger = LoggerFactory.getLogger(QueueChannelThrottler.class);
+
+    private static final int MAX_QUEUE_LENGTH = 150;
+    private final BlockingQueue<FutureTask<?>> tasks;
+
+    private final AtomicLong executedTasks = new AtomicLong();
+    private final AtomicLong rejectedTasks = new AtomicLong();
+
+    private final Runnable processQueueTask = new Runnable() {
+        @Override
+        public void run() {
+            FutureTask<?> task = tasks.poll();
+            if (task != null && !task.isCancelled()) {
+                executedTasks.incrementAndGet();
+                task.run();
+            }
+        }
+    };
+
+    public QueueChannelThrottler(RateLimit rateLimit) {
+        this(rateLimit, new HashMap<Object, RateLimit>());
+    }
+
+    public QueueChannelThrottler(RateLimit rateLimit, Map<Object, RateLimit> channels) {
+        this(rateLimit, ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME), channels);
+    }
+
+    public QueueChannelThrottler(RateLimit rateLimit, ScheduledExecutorService scheduler,
+            Map<Object, RateLimit> channels) {
+        this(rateLimit, scheduler, channels, TimeProvider.SYSTEM_PROVIDER, MAX_QUEUE_LENGTH);
+    }
+
+    public QueueChannelThrottler(RateLimit rateLimit, ScheduledExecutorService scheduler,
+            Map<Object, RateLimit> channels, TimeProvider timeProvider, int queueLength) {
+        super(rateLimit, scheduler, channels, timeProvider);
+        tasks = new LinkedBlockingQueue<FutureTask<?>>(queueLength);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return submit(null, task);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    public Future<?> submit(Object channelKey, Runnable task) {
+        FutureTask runTask = new FutureTask(task, null);
+        // the scheduler may be shared, so a full queue must not block the caller
+        if (tasks.offer(runTask)) {
+            long throttledTime = callTime(channelKey);
+            long now = timeProvider.getCurrentTimeInMillis();
+            scheduler.schedule(processQueueTask, throttledTime < now ? 0 : throttledTime - now,
+                    TimeUnit.MILLISECONDS);
+            return runTask;
+        } else {
+            rejectedTasks.incrementAndGet();
+            logger.warn("The QueueThrottler can not take the task '{}' at this point in time", runTask.toString());
+        }
+
+        return null;
+    }
+
+    /**
+     * Cancels all queued tasks
+     */
+    public void clear() {
+        FutureTask<?> task;
+        while ((task = tasks.poll()) != null) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * @return the number of tasks waiting for their execution
+     */
+    public int getQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * @return the number of tasks executed so far
+     */
+    public long getExecutedTasks() {
+        return executedTasks.get();
+    }
+
+    /**
+     * @return the number of tasks rejected because the queue was full
+     */
+    public long getRejectedTasks() {
+        return rejectedTasks.get();
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link RateLimit} combines a number of {@link Budget}s, which all have
+ * to be respected by a call. A rate limit either applies to a single
+ * endpoint, or to a whole account. In the latter case, the same instance is
+ * passed to the throttlers of all things that use the account, so that they
+ * share its budgets.
+ *
+ * When the server reports that the calls are too frequent (e.g. HTTP status
+ * 429), the rate limit is slowed down: no call is made before the time
+ * requested by the server, or, if the server does not say so, before an
+ * exponentially growing back-off time.
+ *
+ * @author agent - Initial contribution
+ */
+public final class RateLimit {
+
+    static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+    static final long MAXIMUM_BACKOFF = TimeUnit.MINUTES.toMillis(10);
+
+    private final List<Budget> budgets = new ArrayList<Budget>();
+
+    private long blockedUntil = 0;
+    private long backoff = 0;
+
+    private long calls = 0;
+    private long delayedCalls = 0;
+    private long totalDelay = 0;
+    private long slowDowns = 0;
+
+    public RateLimit(Budget... budgets) {
+        this.budgets.addAll(Arrays.asList(budgets));
+    }
+
+    public synchronized void addBudget(Budget budget) {
+        budgets.add(budget);
+    }
+
+    /**
+     * @param now the current time in ms
+     * @return the earliest time in ms, not before now, at which the next call is within all budgets
+     */
+    synchronized long callTime(long now) {
+        long callTime = Math.max(now, blockedUntil);
+        for (Budget budget : budgets) {
+            callTime = Math.max(callTime, budget.callTime(now));
+        }
+        return callTime;
+    }
+
+    /**
+     * Books a call in all budgets
+     *
+     * @param now the current time in ms
+     * @param callTime the time in ms at which the call will be executed
+     */
+    synchronized void addCall(long now, long callTime) {
+        for (Budget budget : budgets) {
+            budget.addCall(callTime);
+        }
+        calls++;
+        if (callTime > now) {
+            delayedCalls++;
+            totalDelay += callTime - now;
+        }
+    }
+
+    /**
+     * Slows down the rate limit, after the server has rejected a call because of too frequent calls
+     *
+     * @param now the current time in ms
+     * @param retryAfter the time in ms the server asks to wait, or 0 if it does not say so
+     */
+    public synchronized void slowDown(long now, long retryAfter) {
+        long delay;
+        if (retryAfter > 0) {
+            delay = retryAfter;
+        } else {
+            backoff = backoff == 0 ? INITIAL_BACKOFF : Math.min(2 * backoff, MAXIMUM_BACKOFF);
+            delay = backoff;
+        }
+        blockedUntil = Math.max(blockedUntil, now + delay);
+        slowDowns++;
+    }
+
+    /**
+     * Resets the back-off time, after a call has been accepted by the server
+     */
+    public synchronized void resetSlowDown() {
+        backoff = 0;
+    }
+
+    /**
+     * @return the time in ms before which no call is made, because the rate limit has been slowed down
+     */
+    public synchronized long getBlockedUntil() {
+        return blockedUntil;
+    }
+
+    /**
+     * @return the number of calls booked so far
+     */
+    public synchronized long getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return the number of calls that were delayed by the rate limit
+     */
+    public synchronized long getDelayedCalls() {
+        return delayedCalls;
+    }
+
+    /**
+     * @return the sum of the delays of all calls in ms
+     */
+    public synchronized long getTotalDelay() {
+        return totalDelay;
+    }
+
+    /**
+     * @return the number of times the rate limit has been slowed down
+     */
+    public synchronized long getSlowDowns() {
+        return slowDowns;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RateLimit " + budgets + " (" + calls + " calls, " + delayedCalls + " delayed by " + totalDelay
+                + " ms in total, " + slowDowns + " slow downs)";
+    }
+
+    /**
+     * Parses the value of a HTTP Retry-After header, which is either a number
+     * of seconds or a HTTP date
+     *
+     * @param value the value of the header, may be null
+     * @param now the current time in ms
+     * @return the time in ms to wait, or 0 if the value is missing or invalid
+     */
+    public static long parseRetryAfter(String value, long now) {
+        if (value == null || value.trim().isEmpty()) {
+            return 0;
+        }
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(trimmed)));
+        } catch (NumberFormatException e) {
+            // not a number of seconds, try a date
+        }
+        try {
+            long time = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, time - now);
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
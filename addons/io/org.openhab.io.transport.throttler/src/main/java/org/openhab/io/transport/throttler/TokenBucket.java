@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.throttler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link TokenBucket} defines a rate limiter that refills a number of
+ * tokens in a given time length, and holds at most a given number of tokens.
+ * Every call takes one token, so that bursts of up to the capacity of the
+ * bucket are executed at once, and the calls are spread evenly afterwards.
+ *
+ * Unlike a {@link Rate}, the bucket does not keep a history of calls. It only
+ * keeps the time at which the bucket would be empty again, so booking a call
+ * takes constant time and memory.
+ *
+ * @author agent - Initial contribution
+ */
+public final class TokenBucket implements Budget {
+
+    private final int capacity;
+    private final int numberTokens;
+    private final int timeLength;
+    private final TimeUnit timeUnit;
+
+    // the time in ms it takes to refill one token
+    private final double interval;
+    // the time in ms after which the bucket holds no tokens anymore, if all tokens booked so far are taken
+    private double emptyUntil = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param capacity the maximum number of tokens, i.e. the maximum burst of calls
+     * @param numberTokens the number of tokens that are refilled in the time length
+     * @param timeLength the time length
+     * @param timeUnit the unit of the time length
+     */
+    public TokenBucket(int capacity, int numberTokens, int timeLength, TimeUnit timeUnit) {
+        if (capacity < 1 || numberTokens < 1) {
+            throw new IllegalArgumentException("The capacity and the number of tokens must be positive");
+        }
+        this.capacity = capacity;
+        this.numberTokens = numberTokens;
+        this.timeLength = timeLength;
+        this.timeUnit = timeUnit;
+        this.interval = (double) timeUnit.toMillis(timeLength) / numberTokens;
+    }
+
+    @Override
+    public long callTime(long now) {
+        // a full bucket is empty after capacity intervals, so a call may be made as long as the bucket is not
+        // empty for more than capacity - 1 intervals
+        double earliest = emptyUntil - (capacity - 1) * interval;
+        return earliest <= now ? now : (long) Math.ceil(earliest);
+    }
+
+    @Override
+    public void addCall(long callTime) {
+        emptyUntil = Math.max(emptyUntil, callTime) + interval;
+    }
+
+    @Override
+    public String toString() {
+        return numberTokens + " calls per " + timeLength + " " + timeUnit.toString().toLowerCase() + ", bursts of "
+                + capacity;
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Emulates the WebSocket interface of a Kaldi GStreamer server on the local host, to test the service
+ * and measure its latency without a real server in {@link KaldiLatencyTest}.
+ *
+ * Like the real server it receives raw audio as binary messages, sends partial results while audio
+ * arrives, and sends the final result and closes the connection when it receives "EOS". Speech is not
+ * actually recognized, every utterance is transcribed as the configured transcript.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class EmulatedKaldiServer {
+
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final int OPCODE_TEXT = 0x1;
+    private static final int OPCODE_BINARY = 0x2;
+    private static final int OPCODE_CLOSE = 0x8;
+    private static final int OPCODE_PING = 0x9;
+    private static final int OPCODE_PONG = 0xA;
+
+    private final Logger logger = LoggerFactory.getLogger(EmulatedKaldiServer.class);
+
+    private final ServerSocket serverSocket;
+    private final String transcript;
+    private final int byteRate;
+    private final int partialResultMillis;
+    private volatile boolean willbeclosed = false;
+
+    private volatile long connectTime;
+    private volatile long firstAudioTime;
+    private volatile long endOfSpeechTime;
+    private volatile long audioBytes;
+
+    /**
+     * Starts the emulated server on a free port of the local host
+     *
+     * @param transcript The transcript of every utterance
+     * @param byteRate The number of bytes per second of the audio data sent by the client
+     * @param partialResultMillis The duration of audio after which a partial result is sent
+     * @throws IOException if the server socket could not be opened
+     */
+    public EmulatedKaldiServer(String transcript, int byteRate, int partialResultMillis) throws IOException {
+        this.serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        this.transcript = transcript;
+        this.byteRate = byteRate;
+        this.partialResultMillis = partialResultMillis;
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptConnections();
+            }
+        }, "EmulatedKaldiServer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return The WebSocket URL of the speech endpoint
+     */
+    public String getURL() {
+        return "ws://127.0.0.1:" + serverSocket.getLocalPort() + "/client/ws/speech";
+    }
+
+    /**
+     * @return The time the last connection was established, in milliseconds
+     */
+    public long getConnectTime() {
+        return connectTime;
+    }
+
+    /**
+     * @return The time the first audio data of the last connection was received, in milliseconds
+     */
+    public long getFirstAudioTime() {
+        return firstAudioTime;
+    }
+
+    /**
+     * @return The time "EOS" was received on the last connection, in milliseconds
+     */
+    public long getEndOfSpeechTime() {
+        return endOfSpeechTime;
+    }
+
+    /**
+     * @return The number of audio bytes received on the last connection
+     */
+    public long getAudioBytes() {
+        return audioBytes;
+    }
+
+    /**
+     * Stops the server
+     */
+    public void close() {
+        willbeclosed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close the server socket", e);
+        }
+    }
+
+    private void acceptConnections() {
+        while (!willbeclosed) {
+            try {
+                final Socket socket = serverSocket.accept();
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        handleConnection(socket);
+                    }
+                }, "EmulatedKaldiServer connection").start();
+            } catch (IOException e) {
+                if (!willbeclosed) {
+                    logger.warn("Failed to accept a connection", e);
+                }
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            if (!handshake(in, out)) {
+                socket.close();
+                return;
+            }
+            connectTime = System.currentTimeMillis();
+            firstAudioTime = 0;
+            endOfSpeechTime = 0;
+            audioBytes = 0;
+
+            long nextPartialBytes = (long) byteRate * partialResultMillis / 1000;
+            int words = 0;
+            while (true) {
+                int first = in.readUnsignedByte();
+                int opcode = first & 0x0F;
+                byte payload[] = readPayload(in);
+                if ((opcode == OPCODE_BINARY || opcode == 0x0) && payload.length > 0) {
+                    if (audioBytes == 0) {
+                        firstAudioTime = System.currentTimeMillis();
+                    }
+                    audioBytes += payload.length;
+                    if (audioBytes >= nextPartialBytes) {
+                        words++;
+                        sendText(out, getResultJson(getPartialTranscript(words), false));
+                        nextPartialBytes += (long) byteRate * partialResultMillis / 1000;
+                    }
+                } else if (opcode == OPCODE_TEXT) {
+                    if ("EOS".equals(new String(payload, StandardCharsets.UTF_8))) {
+                        endOfSpeechTime = System.currentTimeMillis();
+                        sendText(out, audioBytes == 0 ? "{\"status\": 1}" : getResultJson(transcript, true));
+                        sendFrame(out, OPCODE_CLOSE, new byte[] { 0x03, (byte) 0xE8 });
+                        break;
+                    }
+                } else if (opcode == OPCODE_PING) {
+                    sendFrame(out, OPCODE_PONG, payload);
+                } else if (opcode == OPCODE_CLOSE) {
+                    sendFrame(out, OPCODE_CLOSE, payload);
+                    break;
+                }
+            }
+            socket.close();
+        } catch (IOException e) {
+            logger.debug("Connection closed: {}", e.getMessage());
+        }
+    }
+
+    private boolean handshake(DataInputStream in, OutputStream out) throws IOException {
+        // Read the HTTP request byte by byte, so that no WebSocket frame data is consumed
+        StringBuilder header = new StringBuilder();
+        while (header.length() < 4 || !header.substring(header.length() - 4).equals("\r\n\r\n")) {
+            header.append((char) in.readUnsignedByte());
+        }
+        String key = null;
+        for (String line : header.toString().split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        if (key == null) {
+            return false;
+        }
+        String response = "HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + getAcceptKey(key) + "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        return true;
+    }
+
+    private String getAcceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte hash[] = sha1.digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] readPayload(DataInputStream in) throws IOException {
+        int second = in.readUnsignedByte();
+        boolean masked = (second & 0x80) != 0;
+        long length = second & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        byte mask[] = new byte[4];
+        if (masked) {
+            in.readFully(mask);
+        }
+        byte payload[] = new byte[(int) length];
+        in.readFully(payload);
+        if (masked) {
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+        }
+        return payload;
+    }
+
+    private void sendText(OutputStream out, String text) throws IOException {
+        sendFrame(out, OPCODE_TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private synchronized void sendFrame(OutputStream out, int opcode, byte payload[]) throws IOException {
+        out.write(0x80 | opcode);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            out.write(126);
+            out.write(payload.length >> 8);
+            out.write(payload.length & 0xFF);
+        } else {
+            out.write(127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (((long) payload.length >> shift) & 0xFF));
+            }
+        }
+        out.write(payload);
+        out.flush();
+    }
+
+    private String getPartialTranscript(int words) {
+        String parts[] = transcript.split(" ");
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < Math.min(words, parts.length); i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(parts[i]);
+        }
+        return builder.toString();
+    }
+
+    private String getResultJson(String text, boolean isFinal) {
+        return "{\"status\": 0, \"result\": {\"hypotheses\": [{\"transcript\": \"" + text
+                + "\", \"confidence\": 0.9}], \"final\": " + isFinal + "}}";
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+import static org.junit.Assert.*;
+
+import org.eclipse.smarthome.core.audio.AudioFormat;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link EnergyVoiceActivityDetector}
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class EnergyVoiceActivityDetectorTest {
+
+    private static final int FRAME_SAMPLES = 320;
+
+    /**
+     * Creates a frame of a sine wave with the given amplitude
+     */
+    private byte[] frame(int amplitude, boolean bigEndian) {
+        byte frame[] = new byte[FRAME_SAMPLES * 2];
+        for (int i = 0; i < FRAME_SAMPLES; i++) {
+            int sample = (int) (amplitude * Math.sin(2 * Math.PI * i / 32.0));
+            byte high = (byte) (sample >> 8);
+            byte low = (byte) sample;
+            frame[2 * i] = bigEndian ? high : low;
+            frame[2 * i + 1] = bigEndian ? low : high;
+        }
+        return frame;
+    }
+
+    @Test
+    public void speechIsDetectedAboveNoise() {
+        EnergyVoiceActivityDetector detector = new EnergyVoiceActivityDetector(false);
+        byte noise[] = frame(50, false);
+
+        assertFalse(detector.isSpeech(noise, 0, noise.length));
+        assertFalse(detector.isSpeech(noise, 0, noise.length));
+        byte speech[] = frame(6000, false);
+        assertTrue(detector.isSpeech(speech, 0, speech.length));
+        assertFalse(detector.isSpeech(noise, 0, noise.length));
+    }
+
+    @Test
+    public void quietSoundIsNotSpeech() {
+        EnergyVoiceActivityDetector detector = new EnergyVoiceActivityDetector(false);
+        byte silence[] = new byte[FRAME_SAMPLES * 2];
+        byte quiet[] = frame(200, false);
+
+        assertFalse(detector.isSpeech(silence, 0, silence.length));
+        // Far louder than the silence, but below the minimum energy of speech
+        assertFalse(detector.isSpeech(quiet, 0, quiet.length));
+    }
+
+    @Test
+    public void detectorAdaptsToNoiseLevel() {
+        byte loudNoise[] = frame(1000, false);
+
+        // A sudden loud noise is speech
+        EnergyVoiceActivityDetector detector = new EnergyVoiceActivityDetector(false);
+        byte noise[] = frame(50, false);
+        assertFalse(detector.isSpeech(noise, 0, noise.length));
+        assertTrue(detector.isSpeech(loudNoise, 0, loudNoise.length));
+
+        // A slowly rising noise becomes the background
+        EnergyVoiceActivityDetector adapting = new EnergyVoiceActivityDetector(false);
+        for (double amplitude = 50; amplitude < 1000; amplitude *= 1.01) {
+            byte rising[] = frame((int) amplitude, false);
+            assertFalse(adapting.isSpeech(rising, 0, rising.length));
+        }
+        assertFalse(adapting.isSpeech(loudNoise, 0, loudNoise.length));
+
+        // Speech is still detected above the louder background
+        byte speech[] = frame(6000, false);
+        assertTrue(adapting.isSpeech(speech, 0, speech.length));
+    }
+
+    @Test
+    public void byteOrderIsRespected() {
+        byte speech[] = frame(6000, true);
+        byte noise[] = frame(50, true);
+
+        EnergyVoiceActivityDetector detector = new EnergyVoiceActivityDetector(true);
+        assertFalse(detector.isSpeech(noise, 0, noise.length));
+        assertTrue(detector.isSpeech(speech, 0, speech.length));
+    }
+
+    @Test
+    public void frameIsReadAtOffset() {
+        EnergyVoiceActivityDetector detector = new EnergyVoiceActivityDetector(false);
+        byte noise[] = frame(50, false);
+        byte speech[] = frame(6000, false);
+        byte buffer[] = new byte[noise.length + speech.length];
+        System.arraycopy(noise, 0, buffer, 0, noise.length);
+        System.arraycopy(speech, 0, buffer, noise.length, speech.length);
+
+        assertFalse(detector.isSpeech(buffer, 0, noise.length));
+        assertTrue(detector.isSpeech(buffer, noise.length, speech.length));
+    }
+
+    @Test
+    public void onlySixteenBitSignedPcmIsSupported() {
+        assertNotNull(EnergyVoiceActivityDetector.create(new AudioFormat(AudioFormat.CONTAINER_NONE,
+                AudioFormat.CODEC_PCM_SIGNED, false, 16, 256000, 16000L)));
+        assertNull(EnergyVoiceActivityDetector.create(
+                new AudioFormat(AudioFormat.CONTAINER_NONE, AudioFormat.CODEC_PCM_SIGNED, false, 8, 128000, 16000L)));
+        assertNull(EnergyVoiceActivityDetector
+                .create(new AudioFormat(AudioFormat.CONTAINER_NONE, AudioFormat.CODEC_MP3, null, null, null, null)));
+    }
+}
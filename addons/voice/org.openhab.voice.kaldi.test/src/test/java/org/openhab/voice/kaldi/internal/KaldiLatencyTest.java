@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.voice.RecognitionStopEvent;
+import org.eclipse.smarthome.core.voice.STTEvent;
+import org.eclipse.smarthome.core.voice.STTListener;
+import org.eclipse.smarthome.core.voice.SpeechRecognitionErrorEvent;
+import org.eclipse.smarthome.core.voice.SpeechRecognitionEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ee.ioc.phon.netspeechapi.duplex.RecognitionEvent;
+import ee.ioc.phon.netspeechapi.duplex.RecognitionEventListener;
+import ee.ioc.phon.netspeechapi.duplex.WsDuplexRecognitionSession;
+
+/**
+ * Measures the end-to-end latency of a recognition against the {@link EmulatedKaldiServer}.
+ *
+ * A synthetic microphone delivers silence, a speech-like signal and silence again in real time. The
+ * latencies are measured from the start and the end of the speech in the audio.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class KaldiLatencyTest {
+
+    private static final int LEADING_SILENCE_MILLIS = 1500;
+    private static final int SPEECH_MILLIS = 2000;
+    private static final int TRAILING_SILENCE_MILLIS = 3000;
+    private static final int PARTIAL_RESULT_MILLIS = 300;
+    private static final String TRANSCRIPT = "turn on the kitchen light";
+
+    /**
+     * Allowed delay caused by scheduling and the local connection
+     */
+    private static final int TOLERANCE_MILLIS = 500;
+
+    private EmulatedKaldiServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmulatedKaldiServer(TRANSCRIPT, SyntheticMicrophoneStream.BYTE_RATE, PARTIAL_RESULT_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void recognitionLatency() throws Exception {
+        final SyntheticMicrophoneStream audioStream = new SyntheticMicrophoneStream(LEADING_SILENCE_MILLIS,
+                SPEECH_MILLIS, TRAILING_SILENCE_MILLIS, true);
+        final CountDownLatch stopped = new CountDownLatch(1);
+        final long times[] = new long[2];
+        final String results[] = new String[2];
+
+        STTListener sttListener = new STTListener() {
+            @Override
+            public void sttEventReceived(STTEvent sttEvent) {
+                if (sttEvent instanceof SpeechRecognitionEvent) {
+                    times[1] = System.currentTimeMillis();
+                    results[0] = ((SpeechRecognitionEvent) sttEvent).getTranscript();
+                } else if (sttEvent instanceof SpeechRecognitionErrorEvent) {
+                    results[1] = ((SpeechRecognitionErrorEvent) sttEvent).getMessage();
+                } else if (sttEvent instanceof RecognitionStopEvent) {
+                    stopped.countDown();
+                }
+            }
+        };
+
+        WsDuplexRecognitionSession recognitionSession = new WsDuplexRecognitionSession(server.getURL());
+        recognitionSession.addRecognitionEventListener(new RecognitionEventListener() {
+            @Override
+            public void onRecognitionEvent(RecognitionEvent recognitionEvent) {
+                if (times[0] == 0 && recognitionEvent.getResult() != null) {
+                    times[0] = System.currentTimeMillis();
+                }
+            }
+
+            @Override
+            public void onClose() {
+            }
+        });
+        recognitionSession.addRecognitionEventListener(new RecognitionEventListenerKaldi(sttListener));
+        Thread thread = new Thread(new STTServiceKaldiRunnable(recognitionSession, sttListener, audioStream));
+        thread.start();
+
+        assertTrue("Recognition did not stop", stopped.await(
+                LEADING_SILENCE_MILLIS + SPEECH_MILLIS + TRAILING_SILENCE_MILLIS + 10000, TimeUnit.MILLISECONDS));
+        thread.join();
+
+        assertNull(results[1]);
+        assertEquals(TRANSCRIPT, results[0]);
+
+        long speechStart = audioStream.getStartTime() + LEADING_SILENCE_MILLIS;
+        long speechEnd = speechStart + SPEECH_MILLIS;
+
+        // The leading silence is not sent, the first audio arrives when speech is detected
+        long firstAudio = server.getFirstAudioTime() - speechStart;
+        assertTrue("First audio " + firstAudio + " ms after start of speech",
+                firstAudio >= 0 && firstAudio < TOLERANCE_MILLIS);
+
+        // The first partial hypothesis follows the first chunks of speech
+        long firstHypothesis = times[0] - speechStart;
+        assertTrue("First hypothesis " + firstHypothesis + " ms after start of speech",
+                firstHypothesis > 0 && firstHypothesis < PARTIAL_RESULT_MILLIS + TOLERANCE_MILLIS);
+
+        // The final result follows the silence ending the utterance, not the end of the stream
+        long finalResult = times[1] - speechEnd;
+        assertTrue("Final result " + finalResult + " ms after end of speech",
+                finalResult > 0 && finalResult < STTServiceKaldiRunnable.TRAILING_SILENCE_MILLIS + TOLERANCE_MILLIS);
+
+        // Only the pre-roll, the speech and the silence ending the utterance are sent
+        long audioMillis = server.getAudioBytes() * 1000 / SyntheticMicrophoneStream.BYTE_RATE;
+        assertTrue("Sent " + audioMillis + " ms of audio", audioMillis >= SPEECH_MILLIS
+                && audioMillis < LEADING_SILENCE_MILLIS + SPEECH_MILLIS + TRAILING_SILENCE_MILLIS);
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.smarthome.core.voice.RecognitionStartEvent;
+import org.eclipse.smarthome.core.voice.STTEvent;
+import org.eclipse.smarthome.core.voice.STTListener;
+import org.junit.Test;
+
+import ee.ioc.phon.netspeechapi.duplex.DuplexRecognitionSession;
+import ee.ioc.phon.netspeechapi.duplex.RecognitionEventListener;
+
+/**
+ * Tests the voice activity gating and the chunking of {@link STTServiceKaldiRunnable}. The synthetic
+ * microphone is read as fast as possible, so all positions are measured in audio time.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class STTServiceKaldiRunnableTest {
+
+    private static final int MILLIS = SyntheticMicrophoneStream.BYTE_RATE / 1000;
+    private static final int FRAME_BYTES = STTServiceKaldiRunnable.FRAME_MILLIS * MILLIS;
+
+    /**
+     * Records the chunks sent and the position of the audio stream when they were sent
+     */
+    private static class RecordingSession implements DuplexRecognitionSession {
+        private final SyntheticMicrophoneStream audioStream;
+        private final List<Integer> lengths = new ArrayList<>();
+        private final List<Long> positions = new ArrayList<>();
+        private int lastChunks = 0;
+        private int lastChunkIndex = -1;
+
+        RecordingSession(SyntheticMicrophoneStream audioStream) {
+            this.audioStream = audioStream;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void sendChunk(byte[] chunk, boolean isLast) {
+            lengths.add(chunk.length);
+            positions.add(audioStream.getBytesRead());
+            if (isLast) {
+                lastChunks++;
+                lastChunkIndex = lengths.size() - 1;
+            }
+        }
+
+        @Override
+        public void addRecognitionEventListener(RecognitionEventListener listener) {
+        }
+
+        int getSentBytes() {
+            int sum = 0;
+            for (int length : lengths) {
+                sum += length;
+            }
+            return sum;
+        }
+    }
+
+    private RecordingSession recognize(SyntheticMicrophoneStream audioStream, List<STTEvent> events) {
+        RecordingSession session = new RecordingSession(audioStream);
+        STTListener sttListener = new STTListener() {
+            @Override
+            public void sttEventReceived(STTEvent sttEvent) {
+                events.add(sttEvent);
+            }
+        };
+        new STTServiceKaldiRunnable(session, sttListener, audioStream).run();
+        return session;
+    }
+
+    @Test
+    public void speechIsSentWithPreRollUntilTrailingSilence() {
+        final int leadingSilence = 1000;
+        final int speech = 1500;
+        SyntheticMicrophoneStream audioStream = new SyntheticMicrophoneStream(leadingSilence, speech, 3000, false);
+        List<STTEvent> events = new ArrayList<>();
+        RecordingSession session = recognize(audioStream, events);
+
+        assertEquals(1, events.size());
+        assertTrue(events.get(0) instanceof RecognitionStartEvent);
+
+        // The leading silence is dropped, except for the pre-roll sent once speech is detected
+        assertEquals(STTServiceKaldiRunnable.PRE_ROLL_MILLIS * MILLIS, session.lengths.get(0).intValue());
+        long detected = session.positions.get(0);
+        assertTrue("Speech detected at " + detected / MILLIS + " ms", detected >= leadingSilence * MILLIS
+                && detected <= leadingSilence * MILLIS + 2 * FRAME_BYTES);
+
+        // The first chunk of speech is small, the following chunks double up to the maximum size
+        assertEquals(STTServiceKaldiRunnable.MIN_CHUNK_MILLIS * MILLIS, session.lengths.get(1).intValue());
+        for (int i = 2; i < session.lengths.size() - 1; i++) {
+            int expected = Math.min(session.lengths.get(i - 1) * 2, STTServiceKaldiRunnable.MAX_CHUNK_MILLIS * MILLIS);
+            assertEquals(expected, session.lengths.get(i).intValue());
+        }
+
+        // The utterance ends after the trailing silence, long before the end of the stream
+        assertEquals(1, session.lastChunks);
+        assertEquals(session.lengths.size() - 1, session.lastChunkIndex);
+        long end = session.positions.get(session.positions.size() - 1);
+        long speechEnd = (leadingSilence + speech) * MILLIS;
+        assertTrue("Utterance ended at " + end / MILLIS + " ms", end >= speechEnd
+                + STTServiceKaldiRunnable.TRAILING_SILENCE_MILLIS * MILLIS
+                && end <= speechEnd + (STTServiceKaldiRunnable.TRAILING_SILENCE_MILLIS + 40) * MILLIS);
+        assertTrue(end < audioStream.getTotalBytes());
+
+        // No audio is lost or sent twice between the pre-roll and the last chunk
+        assertEquals(end - detected + STTServiceKaldiRunnable.PRE_ROLL_MILLIS * MILLIS, session.getSentBytes());
+    }
+
+    @Test
+    public void silenceIsNotSent() {
+        SyntheticMicrophoneStream audioStream = new SyntheticMicrophoneStream(2000, 0, 0, false);
+        RecordingSession session = recognize(audioStream, new ArrayList<>());
+
+        assertEquals(1, session.lengths.size());
+        assertEquals(0, session.lengths.get(0).intValue());
+        assertEquals(1, session.lastChunks);
+        assertEquals(audioStream.getTotalBytes(), session.positions.get(0).longValue());
+    }
+
+    @Test
+    public void recognitionIsGivenUpWithoutSpeech() {
+        int maxLeadingSilence = STTServiceKaldiRunnable.MAX_LEADING_SILENCE_MILLIS;
+        SyntheticMicrophoneStream audioStream = new SyntheticMicrophoneStream(maxLeadingSilence + 2000, 1000, 0,
+                false);
+        RecordingSession session = recognize(audioStream, new ArrayList<>());
+
+        assertEquals(1, session.lengths.size());
+        assertEquals(0, session.lengths.get(0).intValue());
+        assertEquals(1, session.lastChunks);
+        assertEquals(maxLeadingSilence * MILLIS, session.positions.get(0).longValue());
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.eclipse.smarthome.core.audio.AudioFormat;
+import org.eclipse.smarthome.core.audio.AudioStream;
+
+/**
+ * Delivers 16 bit little endian PCM audio like a microphone: silence with a little noise, a signal with the
+ * energy and rhythm of speech, and silence again. In real time mode the samples are delivered at the sample
+ * rate, otherwise as fast as they are read.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class SyntheticMicrophoneStream extends AudioStream {
+
+    static final int SAMPLE_RATE = 16000;
+    static final int BYTE_RATE = SAMPLE_RATE * 2;
+
+    private static final int BLOCK_MILLIS = 20;
+
+    private final AudioFormat audioFormat = new AudioFormat(AudioFormat.CONTAINER_NONE,
+            AudioFormat.CODEC_PCM_SIGNED, false, 16, BYTE_RATE * 8, (long) SAMPLE_RATE);
+    private final Random random = new Random(42);
+    private final int speechStart;
+    private final int speechEnd;
+    private final int totalSamples;
+    private final boolean realTime;
+    private long startTime;
+    private int sample = 0;
+    private int byteInSample = 0;
+    private int currentSample;
+
+    /**
+     * Constructs a stream of silence, speech and silence
+     *
+     * @param leadingSilenceMillis The duration of the silence before the speech
+     * @param speechMillis The duration of the speech
+     * @param trailingSilenceMillis The duration of the silence after the speech
+     * @param realTime True to deliver the samples at the sample rate
+     */
+    SyntheticMicrophoneStream(int leadingSilenceMillis, int speechMillis, int trailingSilenceMillis,
+            boolean realTime) {
+        this.speechStart = SAMPLE_RATE * leadingSilenceMillis / 1000;
+        this.speechEnd = speechStart + SAMPLE_RATE * speechMillis / 1000;
+        this.totalSamples = speechEnd + SAMPLE_RATE * trailingSilenceMillis / 1000;
+        this.realTime = realTime;
+    }
+
+    /**
+     * @return The time the first sample was read, in milliseconds
+     */
+    long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return The number of bytes read so far
+     */
+    long getBytesRead() {
+        return (long) sample * 2 + byteInSample;
+    }
+
+    /**
+     * @return The total number of bytes of the stream
+     */
+    long getTotalBytes() {
+        return (long) totalSamples * 2;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return audioFormat;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (sample >= totalSamples) {
+            return -1;
+        }
+        if (startTime == 0) {
+            startTime = System.currentTimeMillis();
+        }
+        if (byteInSample == 0) {
+            waitForSample();
+            currentSample = getSample(sample);
+            byteInSample = 1;
+            return currentSample & 0xFF;
+        }
+        byteInSample = 0;
+        sample++;
+        return (currentSample >> 8) & 0xFF;
+    }
+
+    @Override
+    public int read(byte b[], int off, int len) throws IOException {
+        // Deliver at most one block at a time, like a microphone line
+        int blockBytes = BYTE_RATE * BLOCK_MILLIS / 1000;
+        int count = 0;
+        while (count < Math.min(len, blockBytes)) {
+            int value = read();
+            if (value < 0) {
+                return (count == 0) ? -1 : count;
+            }
+            b[off + count++] = (byte) value;
+        }
+        return count;
+    }
+
+    private void waitForSample() throws IOException {
+        if (!realTime) {
+            return;
+        }
+        long due = startTime + (long) sample * 1000 / SAMPLE_RATE;
+        long delay = due - System.currentTimeMillis();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private int getSample(int index) {
+        int noise = random.nextInt(101) - 50;
+        if (index < speechStart || index >= speechEnd) {
+            return noise;
+        }
+        // A voiced sound at 150 Hz with overtones, modulated with 4 syllables per second
+        double t = (double) (index - speechStart) / SAMPLE_RATE;
+        double envelope = 0.6 + 0.4 * Math.sin(2 * Math.PI * 4 * t);
+        double voice = Math.sin(2 * Math.PI * 150 * t) + 0.5 * Math.sin(2 * Math.PI * 450 * t)
+                + 0.25 * Math.sin(2 * Math.PI * 1200 * t);
+        return (int) (6000 * envelope * voice) + noise;
+    }
+}
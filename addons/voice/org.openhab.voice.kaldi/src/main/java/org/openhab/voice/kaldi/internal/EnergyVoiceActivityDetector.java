@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+import org.eclipse.smarthome.core.audio.AudioFormat;
+
+/**
+ * An energy based voice activity detector for 16 bit signed PCM audio
+ *
+ * A frame is classified as speech if its mean energy exceeds the background noise level by a fixed ratio.
+ * The background noise level is tracked from the frames classified as silence, so the detector adapts to
+ * the noise of the microphone and the room.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class EnergyVoiceActivityDetector {
+
+    /**
+     * Ratio of the energy of a speech frame to the energy of the background noise (about 9 dB)
+     */
+    private static final double SPEECH_TO_NOISE_RATIO = 8.0;
+
+    /**
+     * Minimum energy of a speech frame, an amplitude of about 1% of the full scale
+     */
+    private static final double MIN_SPEECH_ENERGY = 300.0 * 300.0;
+
+    /**
+     * Weight of a silence frame in the background noise level
+     */
+    private static final double NOISE_ADAPTATION_RATE = 0.05;
+
+    /**
+     * Boolean indicating if the samples are big endian
+     */
+    private final boolean bigEndian;
+
+    /**
+     * The background noise level, negative until the first frame was processed
+     */
+    private double noiseEnergy = -1.0;
+
+    /**
+     * Constructs an instance for 16 bit signed PCM samples
+     *
+     * @param bigEndian True if the samples are big endian, false if they are little endian
+     */
+    public EnergyVoiceActivityDetector(boolean bigEndian) {
+        this.bigEndian = bigEndian;
+    }
+
+    /**
+     * Creates a detector for the passed AudioFormat
+     *
+     * @param audioFormat The AudioFormat of the audio data
+     * @return A detector, or null if the AudioFormat is not 16 bit signed PCM
+     */
+    public static EnergyVoiceActivityDetector create(AudioFormat audioFormat) {
+        String codec = audioFormat.getCodec();
+        Integer bitDepth = audioFormat.getBitDepth();
+        if (codec != null && !AudioFormat.CODEC_PCM_SIGNED.equals(codec)) {
+            return null;
+        }
+        if (bitDepth != null && bitDepth.intValue() != 16) {
+            return null;
+        }
+        // The Kaldi server expects little endian samples, unless told otherwise
+        Boolean bigEndian = audioFormat.isBigEndian();
+        return new EnergyVoiceActivityDetector(bigEndian != null && bigEndian.booleanValue());
+    }
+
+    /**
+     * Classifies a frame of audio data as speech or silence
+     *
+     * @param frame The audio data
+     * @param offset The offset of the frame in the audio data
+     * @param length The length of the frame in bytes
+     * @return True if the frame contains speech
+     */
+    public boolean isSpeech(byte[] frame, int offset, int length) {
+        double energy = getEnergy(frame, offset, length);
+        if (noiseEnergy < 0) {
+            noiseEnergy = energy;
+        }
+        boolean speech = energy > Math.max(MIN_SPEECH_ENERGY, noiseEnergy * SPEECH_TO_NOISE_RATIO);
+        if (!speech) {
+            noiseEnergy += (energy - noiseEnergy) * NOISE_ADAPTATION_RATE;
+        }
+        return speech;
+    }
+
+    /**
+     * Computes the mean energy of the samples of a frame
+     *
+     * @param frame The audio data
+     * @param offset The offset of the frame in the audio data
+     * @param length The length of the frame in bytes
+     * @return The mean of the squared samples
+     */
+    private double getEnergy(byte[] frame, int offset, int length) {
+        int samples = length / 2;
+        if (samples == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int i = offset; i < offset + samples * 2; i += 2) {
+            int sample = bigEndian ? (frame[i] << 8) | (frame[i + 1] & 0xff)
+                    : (frame[i + 1] << 8) | (frame[i] & 0xff);
+            sum += (double) sample * sample;
+        }
+        return sum / samples;
+    }
+}
@@ -16,19 +16,58 @@ import org.eclipse.smarthome.core.audio.AudioStream;
 import org.eclipse.smarthome.core.voice.RecognitionStartEvent;
 import org.eclipse.smarthome.core.voice.STTListener;
 import org.eclipse.smarthome.core.voice.SpeechRecognitionErrorEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import ee.ioc.phon.netspeechapi.duplex.DuplexRecognitionSession;
 import ee.ioc.phon.netspeechapi.duplex.RecognitionEvent;
 import ee.ioc.phon.netspeechapi.duplex.RecognitionEventListener;
-import ee.ioc.phon.netspeechapi.duplex.WsDuplexRecognitionSession;
 
 /**
- * A Runnable that sends AudioStream data in a WsDuplexRecognitionSession
+ * A Runnable that sends AudioStream data in a DuplexRecognitionSession
  *
  * @author Kelly Davis - Initial contribution and API
  *
  */
 public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListener {
 
+    /**
+     * Duration of the frames classified as speech or silence
+     */
+    static final int FRAME_MILLIS = 20;
+
+    /**
+     * Duration of audio sent before the detected start of speech, so that the first sound is not cut off
+     */
+    static final int PRE_ROLL_MILLIS = 300;
+
+    /**
+     * Duration of silence after speech which ends the utterance
+     */
+    static final int TRAILING_SILENCE_MILLIS = 800;
+
+    /**
+     * Duration of silence before speech after which recognition is given up
+     */
+    static final int MAX_LEADING_SILENCE_MILLIS = 10000;
+
+    /**
+     * Duration of the first chunk of speech, the following chunks double up to MAX_CHUNK_MILLIS
+     */
+    static final int MIN_CHUNK_MILLIS = 40;
+
+    /**
+     * Maximum duration of a chunk [See: http://bit.ly/1V4Ktw2]
+     */
+    static final int MAX_CHUNK_MILLIS = 250;
+
+    /**
+     * Last chunk sent if there is no audio data left
+     */
+    private static final byte EMPTY_CHUNK[] = new byte[0];
+
+    private final Logger logger = LoggerFactory.getLogger(STTServiceKaldiRunnable.class);
+
     /**
      * Boolean indicating if the server closed the connection
      */
@@ -50,18 +89,18 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
     private final STTListener sttListener;
 
     /**
-     * The WsDuplexRecognitionSession communication is over
+     * The DuplexRecognitionSession communication is over
      */
-    private final WsDuplexRecognitionSession recognitionSession;
+    private final DuplexRecognitionSession recognitionSession;
 
     /**
-     * Constructs an instance targeting the passed WsDuplexRecognitionSession
+     * Constructs an instance targeting the passed DuplexRecognitionSession
      *
-     * @param recognitionSession The WsDuplexRecognitionSession sesion
+     * @param recognitionSession The DuplexRecognitionSession sesion
      * @param sttListener The STTListener targeted for STTEvents
      * @param audioStream The AudioSource data
      */
-    public STTServiceKaldiRunnable(WsDuplexRecognitionSession recognitionSession, STTListener sttListener,
+    public STTServiceKaldiRunnable(DuplexRecognitionSession recognitionSession, STTListener sttListener,
             AudioStream audioStream) {
         this.isClosed = false;
         this.isAborting = false;
@@ -73,7 +112,12 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
     }
 
     /**
-     * This method sends AudioSource data in the WsDuplexRecognitionSession
+     * This method sends AudioSource data in the DuplexRecognitionSession
+     *
+     * Leading silence is not sent, sending starts with the audio shortly before the detected start of speech.
+     * Once speech was followed by enough silence the last chunk is sent, so that the server returns the final
+     * result without waiting for the end of the AudioStream. The first chunks are small to get the first
+     * hypothesis early, later chunks grow up to the size recommended for the server.
      */
     @Override
     public void run() {
@@ -82,41 +126,75 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
             AudioFormat audioFormat = this.audioStream.getFormat();
             int bitRate = audioFormat.getBitRate().intValue();
             int byteRate = (bitRate / 8);
-            int chunkRate = 4; // 4 <= chunkRate [See: http://bit.ly/1V4Ktw2]
-            byte buffer[] = new byte[byteRate / chunkRate];
+            int frameSize = getBlockSize(byteRate, FRAME_MILLIS);
+            int chunkSize = getBlockSize(byteRate, MIN_CHUNK_MILLIS);
+            int maxChunkSize = getBlockSize(byteRate, MAX_CHUNK_MILLIS);
+            int trailingSilenceSize = getBlockSize(byteRate, TRAILING_SILENCE_MILLIS);
+            EnergyVoiceActivityDetector detector = EnergyVoiceActivityDetector.create(audioFormat);
+
+            // Frames read before the start of speech, the oldest is overwritten first
+            int preRollFrames = PRE_ROLL_MILLIS / FRAME_MILLIS;
+            byte preRoll[] = new byte[preRollFrames * frameSize];
+            int preRollCount = 0;
+            // Frames at the end of a chunk may be shorter, so silence is counted in bytes
+            int silentBytes = 0;
+
+            byte chunk[] = new byte[chunkSize];
+            int chunkLength = 0;
+            boolean isSpeaking = (detector == null);
 
             sttListener.sttEventReceived(new RecognitionStartEvent());
 
             boolean sentLastChunk = false;
             while (!this.isAborting && !this.isClosed) {
-                long millisWithinChunkSecond = System.currentTimeMillis() % (1000 / chunkRate);
-                int size = audioStream.read(buffer);
-                if (size < 0) {
-                    sentLastChunk = true;
-                    byte buffer2[] = new byte[0];
-                    this.recognitionSession.sendChunk(buffer2, true);
-                    break;
+                if (!isSpeaking) {
+                    int offset = (preRollCount % preRollFrames) * frameSize;
+                    int size = readFully(preRoll, offset, frameSize);
+                    if (size < frameSize) {
+                        sentLastChunk = true;
+                        this.recognitionSession.sendChunk(EMPTY_CHUNK, true);
+                        break;
+                    }
+                    preRollCount++;
+                    if (detector.isSpeech(preRoll, offset, frameSize)) {
+                        isSpeaking = true;
+                        this.recognitionSession.sendChunk(getPreRoll(preRoll, preRollCount, frameSize), false);
+                        logger.debug("Speech started after {} ms", preRollCount * FRAME_MILLIS);
+                    } else if (preRollCount * FRAME_MILLIS >= MAX_LEADING_SILENCE_MILLIS) {
+                        sentLastChunk = true;
+                        this.recognitionSession.sendChunk(EMPTY_CHUNK, true);
+                        logger.debug("No speech within {} ms", MAX_LEADING_SILENCE_MILLIS);
+                        break;
+                    }
+                    continue;
                 }
-                if (size == (byteRate / chunkRate)) {
-                    this.recognitionSession.sendChunk(buffer, false);
-                } else {
+
+                int size = readFully(chunk, chunkLength, Math.min(frameSize, chunk.length - chunkLength));
+                if (detector != null && size > 0) {
+                    silentBytes = detector.isSpeech(chunk, chunkLength, size) ? 0 : silentBytes + size;
+                }
+                chunkLength += size;
+                boolean isEnd = (size < frameSize && chunkLength < chunk.length)
+                        || silentBytes >= trailingSilenceSize;
+                if (isEnd) {
                     sentLastChunk = true;
-                    byte buffer2[] = Arrays.copyOf(buffer, size);
-                    this.recognitionSession.sendChunk(buffer2, true);
+                    this.recognitionSession.sendChunk(getLastChunk(chunk, chunkLength), true);
                     break;
                 }
-                Thread.sleep(1000 / chunkRate - millisWithinChunkSecond);
+                if (chunkLength == chunk.length) {
+                    this.recognitionSession.sendChunk(chunk, false);
+                    chunkLength = 0;
+                    if (chunk.length < maxChunkSize) {
+                        chunk = new byte[Math.min(chunk.length * 2, maxChunkSize)];
+                    }
+                }
             }
 
             if (this.isAborting && !this.isClosed && !sentLastChunk) {
-                byte buffer2[] = new byte[0];
-                this.recognitionSession.sendChunk(buffer2, true);
+                this.recognitionSession.sendChunk(EMPTY_CHUNK, true);
             }
         } catch (IOException e) {
             sttListener.sttEventReceived(new SpeechRecognitionErrorEvent("Unable to send audio data to the server"));
-        } catch (InterruptedException e) {
-            sttListener.sttEventReceived(
-                    new SpeechRecognitionErrorEvent("Unable to send data to the server at the proper rate"));
         } catch (RuntimeException e) {
             // Note: This is a workaround for a bug in net-speech-api and Java-WebSocket.
             //
@@ -137,6 +215,72 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
         }
     }
 
+    /**
+     * Reads from the AudioStream until the passed number of bytes was read or the AudioStream ended
+     *
+     * @param buffer The buffer to read into
+     * @param offset The offset in the buffer
+     * @param length The number of bytes to read
+     * @return The number of bytes read, less than length only if the AudioStream ended
+     * @throws IOException if reading fails
+     */
+    private int readFully(byte buffer[], int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int size = this.audioStream.read(buffer, offset + total, length - total);
+            if (size < 0) {
+                break;
+            }
+            total += size;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the audio data of the last chunk, copying it only if the chunk is partially filled
+     *
+     * @param chunk The chunk buffer
+     * @param length The number of bytes in the chunk buffer
+     * @return The audio data of the last chunk
+     */
+    private static byte[] getLastChunk(byte chunk[], int length) {
+        if (length == 0) {
+            return EMPTY_CHUNK;
+        }
+        return (length == chunk.length) ? chunk : Arrays.copyOf(chunk, length);
+    }
+
+    /**
+     * Copies the frames of the pre-roll buffer in the order they were read
+     *
+     * @param preRoll The pre-roll buffer
+     * @param frameCount The number of frames read into the buffer
+     * @param frameSize The size of a frame in bytes
+     * @return The audio data of the buffered frames
+     */
+    private static byte[] getPreRoll(byte preRoll[], int frameCount, int frameSize) {
+        int frames = preRoll.length / frameSize;
+        if (frameCount <= frames) {
+            return Arrays.copyOf(preRoll, frameCount * frameSize);
+        }
+        byte audio[] = new byte[preRoll.length];
+        int oldest = (frameCount % frames) * frameSize;
+        System.arraycopy(preRoll, oldest, audio, 0, preRoll.length - oldest);
+        System.arraycopy(preRoll, 0, audio, preRoll.length - oldest, oldest);
+        return audio;
+    }
+
+    /**
+     * Computes the size of a block of audio data with the passed duration, a multiple of the sample size
+     *
+     * @param byteRate The number of bytes per second
+     * @param millis The duration of the block
+     * @return The size of the block in bytes
+     */
+    private static int getBlockSize(int byteRate, int millis) {
+        return Math.max(2, (byteRate * millis / 1000) & ~1);
+    }
+
     /**
      * This method initiates the process of aborting this thread
      */
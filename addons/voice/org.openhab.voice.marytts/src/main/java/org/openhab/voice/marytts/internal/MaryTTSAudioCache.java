@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.marytts.internal;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of synthesized audio data, addressed by a hash of voice, locale and text. The cache is bounded by the
+ * total size of the audio data, the least recently used entries are removed first. Pinned entries, e.g. of
+ * pre-warmed phrases, are never removed.
+ *
+ * @author agent - Initial contribution
+ */
+class MaryTTSAudioCache {
+
+    private final Map<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> pinnedKeys = new HashSet<>();
+    private long maxSize;
+    private long size = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Constructs a cache
+     *
+     * @param maxSize The maximum total size of the cached audio data in bytes
+     */
+    MaryTTSAudioCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Computes the key of a text synthesized by a voice
+     *
+     * @param voiceLabel The label of the voice
+     * @param locale The locale of the voice
+     * @param text The text
+     * @return The key
+     */
+    static String getKey(String voiceLabel, Locale locale, String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest((voiceLabel + '\n' + locale.toLanguageTag() + '\n' + text)
+                    .getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, hash));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param key The key of the audio data
+     * @return The cached audio data, or null
+     */
+    synchronized byte[] get(String key) {
+        byte[] audio = entries.get(key);
+        if (audio == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return audio;
+    }
+
+    /**
+     * Adds audio data to the cache, removing the least recently used entries if the cache is full
+     *
+     * @param key The key of the audio data
+     * @param audio The audio data
+     * @param pinned True if the entry must never be removed
+     */
+    synchronized void put(String key, byte[] audio, boolean pinned) {
+        if (pinned) {
+            pinnedKeys.add(key);
+        } else if (audio.length > maxSize && !pinnedKeys.contains(key)) {
+            return;
+        }
+        byte[] previous = entries.put(key, audio);
+        if (previous != null) {
+            size -= previous.length;
+        }
+        size += audio.length;
+        evict();
+    }
+
+    /**
+     * Changes the maximum size, removing entries if the cache is too large
+     *
+     * @param maxSize The maximum total size of the cached audio data in bytes
+     */
+    synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    /**
+     * Unpins all entries, e.g. if the pre-warmed phrases changed
+     */
+    synchronized void unpinAll() {
+        pinnedKeys.clear();
+        evict();
+    }
+
+    synchronized String getStatistics() {
+        return entries.size() + " entries (" + pinnedKeys.size() + " pinned), " + size + " bytes, " + hits + " hits, "
+                + misses + " misses";
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, byte[]> entry = iterator.next();
+            if (!pinnedKeys.contains(entry.getKey())) {
+                size -= entry.getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+}
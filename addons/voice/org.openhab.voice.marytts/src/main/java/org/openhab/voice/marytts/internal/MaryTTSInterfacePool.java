@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.marytts.internal;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import marytts.LocalMaryInterface;
+import marytts.MaryInterface;
+import marytts.exceptions.MaryConfigurationException;
+
+/**
+ * Pool of {@link MaryInterface} instances, one pool per voice. Each instance is set to its voice once when it is
+ * created, so several texts can be synthesized at the same time without sharing an instance. At most
+ * {@link #getMaxSize()} instances per voice are used at the same time, further requests wait for an instance.
+ *
+ * @author agent - Initial contribution
+ */
+class MaryTTSInterfacePool {
+
+    private final int maxSize;
+
+    private final Map<String, VoicePool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a pool
+     *
+     * @param maxSize The maximum number of instances per voice
+     */
+    MaryTTSInterfacePool(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * @return The maximum number of instances per voice
+     */
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Takes an instance set to the given voice from the pool, creating one if none is idle. Waits if the maximum
+     * number of instances for the voice is in use. The instance must be returned with {@link #release}.
+     *
+     * @param locale The locale of the voice
+     * @param voiceLabel The label of the voice
+     * @return The instance
+     * @throws MaryConfigurationException if a new instance could not be created
+     * @throws InterruptedException if interrupted while waiting for an instance
+     */
+    MaryInterface acquire(Locale locale, String voiceLabel) throws MaryConfigurationException, InterruptedException {
+        VoicePool pool = pools.computeIfAbsent(voiceLabel, label -> new VoicePool(maxSize));
+        pool.permits.acquire();
+
+        MaryInterface marytts = pool.idle.poll();
+        if (marytts == null) {
+            try {
+                marytts = new LocalMaryInterface();
+                marytts.setLocale(locale);
+                marytts.setVoice(voiceLabel);
+            } catch (MaryConfigurationException | RuntimeException e) {
+                pool.permits.release();
+                throw e;
+            }
+        }
+        return marytts;
+    }
+
+    /**
+     * Returns an instance taken with {@link #acquire} to the pool
+     *
+     * @param voiceLabel The label of the voice the instance was taken for
+     * @param marytts The instance
+     */
+    void release(String voiceLabel, MaryInterface marytts) {
+        VoicePool pool = pools.get(voiceLabel);
+        pool.idle.offer(marytts);
+        pool.permits.release();
+    }
+
+    private static class VoicePool {
+        private final Semaphore permits;
+        private final Queue<MaryInterface> idle = new ConcurrentLinkedQueue<>();
+
+        private VoicePool(int maxSize) {
+            permits = new Semaphore(maxSize, true);
+        }
+    }
+
+}
@@ -16,15 +16,22 @@ package org.openhab.voice.marytts.internal;
  */
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 
+import org.apache.commons.io.IOUtils;
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.voice.TTSException;
 import org.eclipse.smarthome.core.voice.TTSService;
 import org.slf4j.Logger;
@@ -44,10 +51,37 @@ import marytts.modules.synthesis.Voice;
  */
 public class MaryTTSService implements TTSService {
 
+    // Pool and cache sizes come from ConfigAdmin
+    private static final String CONFIG_POOL_SIZE = "poolSize";
+    private static final String CONFIG_CACHE_SIZE = "cacheSize";
+    private static final long MEGABYTE = 1024L * 1024;
+    private static final long DEFAULT_CACHE_SIZE = 16 * MEGABYTE;
+    private int poolSize = 0;
+    private long cacheSize = DEFAULT_CACHE_SIZE;
+
+    // Phrases synthesized at startup come from ConfigAdmin
+    private static final String CONFIG_PREWARM_PHRASES = "prewarmPhrases";
+    private static final String CONFIG_PREWARM_VOICE = "prewarmVoice";
+    private List<String> prewarmPhrases = new ArrayList<>();
+    private String prewarmVoice = null;
+
     private final Logger logger = LoggerFactory.getLogger(MaryTTSService.class);
 
+    /**
+     * Only used to look up the available voices, synthesis uses the instances of the pool
+     */
     private MaryInterface marytts;
 
+    /**
+     * Instances used for synthesis, per voice
+     */
+    private MaryTTSInterfacePool pool;
+
+    /**
+     * Audio data of recently synthesized and pre-warmed texts
+     */
+    private MaryTTSAudioCache cache;
+
     /**
      * Set of supported voices
      */
@@ -58,16 +92,136 @@ public class MaryTTSService implements TTSService {
      */
     private HashSet<AudioFormat> audioFormats;
 
-    protected void activate() {
+    /**
+     * DS activate, with access to ConfigAdmin
+     */
+    protected void activate(Map<String, Object> config) {
         try {
+            readConfig(config);
             marytts = getMaryInterface();
             voices = initVoices();
             audioFormats = initAudioFormats();
+            pool = new MaryTTSInterfacePool(getPoolSize());
+            cache = new MaryTTSAudioCache(cacheSize);
+            prewarm();
         } catch (Throwable t) {
             logger.error("Failed to initialize MaryTTS: {}", t.getMessage(), t);
         }
     }
 
+    protected void modified(Map<String, Object> config) {
+        readConfig(config);
+        if (pool != null && pool.getMaxSize() != getPoolSize()) {
+            // instances in use are returned to the pool they were taken from
+            pool = new MaryTTSInterfacePool(getPoolSize());
+        }
+        if (cache != null) {
+            cache.setMaxSize(cacheSize);
+            cache.unpinAll();
+            prewarm();
+        }
+    }
+
+    /**
+     * DS deactivate, releases the pooled instances and the cached audio data
+     */
+    protected void deactivate() {
+        if (cache != null) {
+            logger.debug("MaryTTS audio cache: {}", cache.getStatistics());
+        }
+        pool = null;
+        cache = null;
+    }
+
+    private void readConfig(Map<String, Object> config) {
+        if (config == null) {
+            return;
+        }
+        this.poolSize = (int) getLongConfig(config, CONFIG_POOL_SIZE, 0, 1);
+        this.cacheSize = getLongConfig(config, CONFIG_CACHE_SIZE, DEFAULT_CACHE_SIZE, MEGABYTE);
+
+        List<String> phrases = new ArrayList<>();
+        Object value = config.get(CONFIG_PREWARM_PHRASES);
+        if (value instanceof Collection) {
+            for (Object phrase : (Collection<?>) value) {
+                phrases.add(phrase.toString());
+            }
+        } else if (value != null) {
+            for (String phrase : value.toString().split("\\|")) {
+                phrases.add(phrase);
+            }
+        }
+        this.prewarmPhrases = new ArrayList<>();
+        for (String phrase : phrases) {
+            if (!phrase.trim().isEmpty()) {
+                this.prewarmPhrases.add(phrase.trim());
+            }
+        }
+
+        value = config.get(CONFIG_PREWARM_VOICE);
+        this.prewarmVoice = (value == null || value.toString().trim().isEmpty()) ? null : value.toString().trim();
+    }
+
+    private long getLongConfig(Map<String, Object> config, String key, long defaultValue, long unit) {
+        Object value = config.get(key);
+        if (value == null || value.toString().trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return new BigDecimal(value.toString().trim()).multiply(BigDecimal.valueOf(unit)).longValue();
+        } catch (NumberFormatException ex) {
+            logger.warn("Invalid value '{}' for {}, using default", value, key);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return The configured pool size, or the number of available processors if not configured
+     */
+    private int getPoolSize() {
+        return poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Synthesizes the configured phrases in the background and pins them in the cache
+     */
+    private void prewarm() {
+        if (prewarmPhrases.isEmpty() || voices == null) {
+            return;
+        }
+        final List<String> phrases = prewarmPhrases;
+        final List<org.eclipse.smarthome.core.voice.Voice> prewarmVoices = new ArrayList<>();
+        for (org.eclipse.smarthome.core.voice.Voice voice : voices) {
+            if (prewarmVoice == null || prewarmVoice.equals(voice.getLabel())
+                    || prewarmVoice.equals(voice.getUID())) {
+                prewarmVoices.add(voice);
+            }
+        }
+        if (prewarmVoices.isEmpty()) {
+            logger.warn("Unknown voice '{}' to pre-warm MaryTTS with", prewarmVoice);
+            return;
+        }
+
+        ThreadPoolManager.getPool("marytts").execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.currentTimeMillis();
+                for (org.eclipse.smarthome.core.voice.Voice voice : prewarmVoices) {
+                    for (String phrase : phrases) {
+                        try {
+                            getAudio(phrase, voice, true);
+                        } catch (TTSException e) {
+                            logger.warn("Failed to pre-warm MaryTTS with '{}': {}", phrase, e.getMessage());
+                            return;
+                        }
+                    }
+                }
+                logger.debug("Pre-warmed MaryTTS with {} phrases for {} voices in {} ms", phrases.size(),
+                        prewarmVoices.size(), System.currentTimeMillis() - start);
+            }
+        });
+    }
+
     @Override
     public Set<org.eclipse.smarthome.core.voice.Voice> getAvailableVoices() {
         return this.voices;
@@ -122,23 +276,68 @@ public class MaryTTSService implements TTSService {
         Voice maryTTSVoice = Voice.getVoice(voice.getLabel());
         AudioFormat maryTTSVoiceAudioFormat = getAudioFormat(maryTTSVoice.dbAudioFormat());
 
-        // Synchronize on marytts
-        synchronized (marytts) {
-            // AudioStream to return
-            AudioStream audioStream = null;
-
-            // Set voice (Each voice supports onl a single AudioFormat)
-            marytts.setLocale(voice.getLocale());
-            marytts.setVoice(voice.getLabel());
+        try {
+            return new MaryTTSAudioStream(getAudio(text, voice, false), maryTTSVoiceAudioFormat);
+        } catch (IOException e) {
+            throw new TTSException("Error generating an AudioStream", e);
+        }
+    }
 
-            try {
-                AudioInputStream audioInputStream = marytts.generateAudio(text);
-                audioStream = new MaryTTSAudioStream(audioInputStream, maryTTSVoiceAudioFormat);
-            } catch (SynthesisException | IOException e) {
-                throw new TTSException("Error generating an AudioStream", e);
-            }
+    /**
+     * Returns the audio data of a text from the cache, synthesizing and caching it if it is not cached yet
+     *
+     * @param text The text
+     * @param voice The voice
+     * @param pinned True if the audio data must be kept in the cache
+     * @return The raw audio data
+     * @throws TTSException if the text could not be synthesized
+     */
+    private byte[] getAudio(String text, org.eclipse.smarthome.core.voice.Voice voice, boolean pinned)
+            throws TTSException {
+        MaryTTSAudioCache cache = this.cache;
+        if (cache == null) {
+            throw new TTSException("MaryTTS is not initialized");
+        }
+        String key = MaryTTSAudioCache.getKey(voice.getLabel(), voice.getLocale(), text);
+        byte[] audio = cache.get(key);
+        if (audio == null) {
+            audio = generateAudio(text, voice);
+            cache.put(key, audio, pinned);
+        } else if (pinned) {
+            cache.put(key, audio, true);
+        }
+        return audio;
+    }
 
-            return audioStream;
+    /**
+     * Synthesizes a text with an instance of the pool
+     *
+     * @param text The text
+     * @param voice The voice
+     * @return The raw audio data
+     * @throws TTSException if the text could not be synthesized
+     */
+    private byte[] generateAudio(String text, org.eclipse.smarthome.core.voice.Voice voice) throws TTSException {
+        MaryTTSInterfacePool pool = this.pool;
+        if (pool == null) {
+            throw new TTSException("MaryTTS is not initialized");
+        }
+        MaryInterface maryInterface;
+        try {
+            maryInterface = pool.acquire(voice.getLocale(), voice.getLabel());
+        } catch (MaryConfigurationException e) {
+            throw new TTSException("Error creating MaryInterface", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TTSException("Interrupted while waiting for a MaryInterface");
+        }
+        try {
+            AudioInputStream audioInputStream = maryInterface.generateAudio(text);
+            return IOUtils.toByteArray(audioInputStream);
+        } catch (SynthesisException | IOException e) {
+            throw new TTSException("Error generating an AudioStream", e);
+        } finally {
+            pool.release(voice.getLabel(), maryInterface);
         }
     }
 
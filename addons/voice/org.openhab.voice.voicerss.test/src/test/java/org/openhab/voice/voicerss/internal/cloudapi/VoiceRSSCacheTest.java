@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.voicerss.internal.cloudapi;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@see VoiceRSSCache}
+ *
+ * @author agent - Initial contribution
+ */
+public class VoiceRSSCacheTest {
+
+    private static final long MEMORY_SIZE = 1024;
+    private static final int CLIP_SIZE = 100;
+
+    private File cacheFolder;
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        cacheFolder = Files.createTempDirectory("voicerss").toFile();
+        fetches.set(0);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = cacheFolder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheFolder.delete();
+    }
+
+    private VoiceRSSCache.Fetcher fetcher(final byte value) {
+        return () -> {
+            fetches.incrementAndGet();
+            byte[] clip = new byte[CLIP_SIZE];
+            clip[0] = value;
+            return new ByteArrayInputStream(clip);
+        };
+    }
+
+    @Test
+    public void downloadedClipIsServedFromMemory() throws IOException {
+        VoiceRSSCache cache = new VoiceRSSCache(cacheFolder, MEMORY_SIZE, 0, 0);
+
+        byte[] clip = cache.get("hello.mp3", "hello", fetcher((byte) 1));
+        assertEquals(CLIP_SIZE, clip.length);
+        assertSame(clip, cache.get("hello.mp3", "hello", fetcher((byte) 2)));
+
+        assertEquals(1, fetches.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getMemoryHits());
+        assertTrue(new File(cacheFolder, "hello.mp3").isFile());
+        assertTrue(new File(cacheFolder, "hello.txt").isFile());
+    }
+
+    @Test
+    public void leastRecentlyUsedClipIsEvictedAboveDiskSize() throws IOException {
+        VoiceRSSCache cache = new VoiceRSSCache(cacheFolder, MEMORY_SIZE, 2 * CLIP_SIZE, 0);
+
+        cache.get("one.mp3", "one", fetcher((byte) 1));
+        cache.get("two.mp3", "two", fetcher((byte) 2));
+        // use the first clip again, so the second one is the least recently used
+        cache.get("one.mp3", "one", fetcher((byte) 1));
+        cache.get("three.mp3", "three", fetcher((byte) 3));
+
+        assertEquals(1, cache.getEvictions());
+        assertTrue(new File(cacheFolder, "one.mp3").isFile());
+        assertFalse(new File(cacheFolder, "two.mp3").exists());
+        assertFalse(new File(cacheFolder, "two.txt").exists());
+        assertTrue(new File(cacheFolder, "three.mp3").isFile());
+
+        // the evicted clip is downloaded again
+        cache.get("two.mp3", "two", fetcher((byte) 2));
+        assertEquals(4, fetches.get());
+    }
+
+    @Test
+    public void textFileIsKeptWhileAnotherFormatUsesIt() throws IOException {
+        VoiceRSSCache cache = new VoiceRSSCache(cacheFolder, MEMORY_SIZE, 2 * CLIP_SIZE, 0);
+
+        cache.get("hello.mp3", "hello", fetcher((byte) 1));
+        cache.get("hello.ogg", "hello", fetcher((byte) 2));
+        cache.get("other.mp3", "other", fetcher((byte) 3));
+
+        assertFalse(new File(cacheFolder, "hello.mp3").exists());
+        assertTrue(new File(cacheFolder, "hello.txt").isFile());
+    }
+
+    @Test
+    public void lowerLimitsEvictClips() throws IOException {
+        VoiceRSSCache cache = new VoiceRSSCache(cacheFolder, MEMORY_SIZE, 0, 0);
+        cache.get("one.mp3", "one", fetcher((byte) 1));
+        cache.get("two.mp3", "two", fetcher((byte) 2));
+        cache.get("three.mp3", "three", fetcher((byte) 3));
+
+        cache.setLimits(MEMORY_SIZE, CLIP_SIZE, 0);
+
+        assertEquals(2, cache.getEvictions());
+        assertTrue(new File(cacheFolder, "three.mp3").isFile());
+        assertFalse(new File(cacheFolder, "one.mp3").exists());
+        assertFalse(new File(cacheFolder, "two.mp3").exists());
+    }
+
+    @Test
+    public void reloadedCacheServesClipsFromDisk() throws IOException {
+        VoiceRSSCache cache = new VoiceRSSCache(cacheFolder, MEMORY_SIZE, 0, 0);
+        cache.get("one.mp3", "one", fetcher((byte) 1));
+        cache.get("two.mp3", "two", fetcher((byte) 2));
+        cache.dispose();
+
+        VoiceRSSCache reloaded = new VoiceRSSCache(cacheFolder, MEMORY_SIZE, 0, 0);
+        byte[] clip = reloaded.get("two.mp3", "two", fetcher((byte) 9));
+
+        assertEquals(2, clip[0]);
+        assertEquals(2, fetches.get());
+        assertEquals(1, reloaded.getDiskHits());
+        assertEquals(0, reloaded.getMisses());
+    }
+
+    @Test
+    public void reloadKeepsOrderOfLastUse() throws IOException, InterruptedException {
+        VoiceRSSCache cache = new VoiceRSSCache(cacheFolder, MEMORY_SIZE, 0, 0);
+        cache.get("one.mp3", "one", fetcher((byte) 1));
+        cache.get("two.mp3", "two", fetcher((byte) 2));
+        // the index stores the time of last use in milliseconds
+        Thread.sleep(10);
+        cache.get("one.mp3", "one", fetcher((byte) 1));
+        cache.dispose();
+
+        // the second clip is the least recently used one and is evicted first
+        new VoiceRSSCache(cacheFolder, MEMORY_SIZE, CLIP_SIZE, 0);
+
+        assertTrue(new File(cacheFolder, "one.mp3").isFile());
+        assertFalse(new File(cacheFolder, "two.mp3").exists());
+    }
+
+    @Test
+    public void reloadPicksUpCopiedAndDropsDeletedClips() throws IOException {
+        VoiceRSSCache cache = new VoiceRSSCache(cacheFolder, MEMORY_SIZE, 0, 0);
+        cache.get("one.mp3", "one", fetcher((byte) 1));
+        cache.dispose();
+
+        assertTrue(new File(cacheFolder, "one.mp3").delete());
+        Files.write(new File(cacheFolder, "copied.mp3").toPath(), new byte[] { 7 });
+        Files.write(new File(cacheFolder, "partial.mp3.tmp").toPath(), new byte[] { 8 });
+
+        VoiceRSSCache reloaded = new VoiceRSSCache(cacheFolder, MEMORY_SIZE, 0, 0);
+        assertEquals(7, reloaded.get("copied.mp3", "copied", fetcher((byte) 9))[0]);
+        assertEquals(1, reloaded.getDiskHits());
+        assertFalse(new File(cacheFolder, "partial.mp3.tmp").exists());
+
+        reloaded.get("one.mp3", "one", fetcher((byte) 1));
+        assertEquals(1, reloaded.getMisses());
+    }
+
+    @Test
+    public void deletedClipIsDownloadedAgain() throws IOException {
+        VoiceRSSCache cache = new VoiceRSSCache(cacheFolder, 0, 0, 0);
+        cache.get("one.mp3", "one", fetcher((byte) 1));
+        assertTrue(new File(cacheFolder, "one.mp3").delete());
+
+        assertEquals(1, cache.get("one.mp3", "one", fetcher((byte) 1))[0]);
+        assertEquals(2, cache.getMisses());
+        assertTrue(new File(cacheFolder, "one.mp3").isFile());
+    }
+}
@@ -8,25 +8,63 @@
  */
 package org.openhab.voice.voicerss.internal;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 import org.eclipse.smarthome.core.audio.AudioException;
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
-import org.eclipse.smarthome.core.audio.FileAudioStream;
+import org.eclipse.smarthome.core.audio.FixedLengthAudioStream;
 
 /**
  * Implementation of the {@link AudioStream} interface for the
- * {@link VoiceRSSTTSService}. It simply uses a {@link FileAudioStream} which is
- * doing all the necessary work, e.g. supporting MP3 and WAV files with fixed
- * stream length.
+ * {@link VoiceRSSTTSService}. It reads the audio data from memory, as returned by
+ * the cache, so it has a fixed stream length and can be cloned, e.g. to play
+ * the same announcement on several sinks.
  *
  * @author Jochen Hiller - Initial contribution and API
  */
-class VoiceRSSAudioStream extends FileAudioStream {
+class VoiceRSSAudioStream extends FixedLengthAudioStream {
 
-    public VoiceRSSAudioStream(File audioFile, AudioFormat format) throws AudioException {
-        super(audioFile, format);
+    private final byte[] audioData;
+    private final AudioFormat format;
+    private InputStream inputStream;
+
+    public VoiceRSSAudioStream(byte[] audioData, AudioFormat format) {
+        this.audioData = audioData;
+        this.format = format;
+        this.inputStream = new ByteArrayInputStream(audioData);
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return inputStream.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return inputStream.read(b, off, len);
+    }
+
+    @Override
+    public long length() {
+        return audioData.length;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        inputStream = new ByteArrayInputStream(audioData);
+    }
+
+    @Override
+    public InputStream getClonedStream() throws AudioException {
+        return new ByteArrayInputStream(audioData);
     }
 
 }
@@ -9,14 +9,13 @@
 package org.openhab.voice.voicerss.internal;
 
 import java.io.File;
-import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.smarthome.config.core.ConfigConstants;
-import org.eclipse.smarthome.core.audio.AudioException;
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
 import org.eclipse.smarthome.core.voice.TTSException;
@@ -41,6 +40,16 @@ public class VoiceRSSTTSService implements TTSService {
     private static final String CONFIG_API_KEY = "apiKey";
     private String apiKey = null;
 
+    // Cache limits come from ConfigAdmin
+    private static final String CONFIG_CACHE_MAX_MEMORY_SIZE = "cacheMaxMemorySize";
+    private static final String CONFIG_CACHE_MAX_DISK_SIZE = "cacheMaxDiskSize";
+    private static final String CONFIG_CACHE_MAX_AGE = "cacheMaxAge";
+    private static final long MEGABYTE = 1024L * 1024;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private long cacheMaxMemorySize = CachedVoiceRSSCloudImplementation.DEFAULT_MAX_MEMORY_SIZE;
+    private long cacheMaxDiskSize = CachedVoiceRSSCloudImplementation.DEFAULT_MAX_DISK_SIZE;
+    private long cacheMaxAge = CachedVoiceRSSCloudImplementation.DEFAULT_MAX_AGE;
+
     private final Logger logger = LoggerFactory.getLogger(VoiceRSSTTSService.class);
 
     /**
@@ -74,9 +83,40 @@ public class VoiceRSSTTSService implements TTSService {
         }
     }
 
+    /**
+     * DS deactivate, writes the cache index
+     */
+    protected void deactivate() {
+        if (voiceRssImpl != null) {
+            voiceRssImpl.dispose();
+        }
+    }
+
     protected void modified(Map<String, Object> config) {
         if (config != null) {
             this.apiKey = config.containsKey(CONFIG_API_KEY) ? config.get(CONFIG_API_KEY).toString() : null;
+            this.cacheMaxMemorySize = getLongConfig(config, CONFIG_CACHE_MAX_MEMORY_SIZE,
+                    CachedVoiceRSSCloudImplementation.DEFAULT_MAX_MEMORY_SIZE, MEGABYTE);
+            this.cacheMaxDiskSize = getLongConfig(config, CONFIG_CACHE_MAX_DISK_SIZE,
+                    CachedVoiceRSSCloudImplementation.DEFAULT_MAX_DISK_SIZE, MEGABYTE);
+            this.cacheMaxAge = getLongConfig(config, CONFIG_CACHE_MAX_AGE,
+                    CachedVoiceRSSCloudImplementation.DEFAULT_MAX_AGE, DAY);
+            if (voiceRssImpl != null) {
+                voiceRssImpl.getCache().setLimits(cacheMaxMemorySize, cacheMaxDiskSize, cacheMaxAge);
+            }
+        }
+    }
+
+    private long getLongConfig(Map<String, Object> config, String key, long defaultValue, long unit) {
+        Object value = config.get(key);
+        if (value == null || value.toString().trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return new BigDecimal(value.toString().trim()).multiply(BigDecimal.valueOf(unit)).longValue();
+        } catch (NumberFormatException ex) {
+            logger.warn("Invalid value '{}' for {}, using default", value, key);
+            return defaultValue;
         }
     }
 
@@ -119,19 +159,12 @@ public class VoiceRSSTTSService implements TTSService {
 
         // now create the input stream for given text, locale, format. There is
         // only a default voice
-        try {
-            File cacheAudioFile = voiceRssImpl.getTextToSpeechAsFile(this.apiKey, text,
-                    voice.getLocale().toLanguageTag(), getApiAudioFormat(requestedFormat));
-            if (cacheAudioFile == null) {
-                throw new TTSException("Could not read from VoiceRSS service");
-            }
-            AudioStream audioStream = new VoiceRSSAudioStream(cacheAudioFile, requestedFormat);
-            return audioStream;
-        } catch (AudioException ex) {
-            throw new TTSException("Could not create AudioStream: " + ex.getMessage(), ex);
-        } catch (IOException ex) {
-            throw new TTSException("Could not read from VoiceRSS service: " + ex.getMessage(), ex);
+        byte[] audioData = voiceRssImpl.getTextToSpeechAsBytes(this.apiKey, text, voice.getLocale().toLanguageTag(),
+                voice.getLabel(), getApiAudioFormat(requestedFormat));
+        if (audioData == null) {
+            throw new TTSException("Could not read from VoiceRSS service");
         }
+        return new VoiceRSSAudioStream(audioData, requestedFormat);
     }
 
     /**
@@ -205,7 +238,8 @@ public class VoiceRSSTTSService implements TTSService {
     }
 
     private final CachedVoiceRSSCloudImplementation initVoiceImplementation() {
-        CachedVoiceRSSCloudImplementation apiImpl = new CachedVoiceRSSCloudImplementation(getCacheFolderName());
+        CachedVoiceRSSCloudImplementation apiImpl = new CachedVoiceRSSCloudImplementation(getCacheFolderName(),
+                cacheMaxMemorySize, cacheMaxDiskSize, cacheMaxAge);
         return apiImpl;
     }
 
@@ -9,11 +9,8 @@
 package org.openhab.voice.voicerss.internal.cloudapi;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
@@ -25,55 +22,110 @@ import org.slf4j.LoggerFactory;
 /**
  * This class implements a cache for the retrieved audio data. It will preserve
  * them in file system, as audio files with an additional .txt file to indicate
- * what content is in the audio file.
+ * what content is in the audio file. Recently used audio data is kept in memory
+ * too, see {@link VoiceRSSCache}.
  *
  * @author Jochen Hiller - Initial contribution
  */
 public class CachedVoiceRSSCloudImplementation extends VoiceRSSCloudImplementation {
 
+    /** The voice used if none is given, it is not part of the file names in the cache. */
+    public static final String DEFAULT_VOICE = "VoiceRSS";
+
+    /** Default limits of the cache: 4 MB in memory, 100 MB on disk, no age limit. */
+    public static final long DEFAULT_MAX_MEMORY_SIZE = 4L * 1024 * 1024;
+    public static final long DEFAULT_MAX_DISK_SIZE = 100L * 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE = 0;
+
     private final Logger logger = LoggerFactory.getLogger(CachedVoiceRSSCloudImplementation.class);
 
-    private final File cacheFolder;
+    private final VoiceRSSCache cache;
 
     public CachedVoiceRSSCloudImplementation(String cacheFolderName) {
+        this(cacheFolderName, DEFAULT_MAX_MEMORY_SIZE, DEFAULT_MAX_DISK_SIZE, DEFAULT_MAX_AGE);
+    }
+
+    public CachedVoiceRSSCloudImplementation(String cacheFolderName, long maxMemorySize, long maxDiskSize,
+            long maxAge) {
         if (cacheFolderName == null) {
             throw new RuntimeException("Folder for cache must be defined");
         }
         // Lazy create the cache folder
-        cacheFolder = new File(cacheFolderName);
+        File cacheFolder = new File(cacheFolderName);
         if (!cacheFolder.exists()) {
             cacheFolder.mkdirs();
         }
+        cache = new VoiceRSSCache(cacheFolder, maxMemorySize, maxDiskSize, maxAge);
+    }
+
+    public VoiceRSSCache getCache() {
+        return cache;
     }
 
     public File getTextToSpeechAsFile(String apiKey, String text, String locale, String audioFormat)
             throws IOException {
-        String fileNameInCache = getUniqeFilenameForText(text, locale);
-        // check if in cache
-        File audioFileInCache = new File(cacheFolder, fileNameInCache + "." + audioFormat.toLowerCase());
-        if (audioFileInCache.exists()) {
-            return audioFileInCache;
+        final String fileName = getCacheFileName(text, locale, DEFAULT_VOICE, audioFormat);
+        try {
+            return cache.getFile(fileName, text, new VoiceRSSCache.Fetcher() {
+                @Override
+                public InputStream fetch() throws IOException {
+                    return getTextToSpeech(apiKey, text, locale, audioFormat);
+                }
+            });
+        } catch (IOException ex) {
+            logger.error("Could not write {} to cache, return null", fileName, ex);
+            return null;
         }
+    }
 
-        // if not in cache, get audio data and put to cache
-        try (InputStream is = super.getTextToSpeech(apiKey, text, locale, audioFormat);
-                FileOutputStream fos = new FileOutputStream(audioFileInCache);) {
-            copyStream(is, fos);
-            // write text to file for transparency too
-            // this allows to know which contents is in which audio file
-            File txtFileInCache = new File(cacheFolder, fileNameInCache + ".txt");
-            writeText(txtFileInCache, text);
-            // return from cache
-            return audioFileInCache;
-        } catch (FileNotFoundException ex) {
-            logger.warn("Could not write {} to cache, return null", audioFileInCache, ex);
-            return null;
+    /**
+     * Gets the audio data for the given text, from the cache if available. Concurrent
+     * requests for the same text, locale, voice and audio format share one download.
+     *
+     * @return the audio data, or null if it could not be retrieved
+     */
+    public byte[] getTextToSpeechAsBytes(String apiKey, String text, String locale, String voice,
+            String audioFormat) {
+        final String fileName = getCacheFileName(text, locale, voice, audioFormat);
+        try {
+            byte[] audio = cache.get(fileName, text, new VoiceRSSCache.Fetcher() {
+                @Override
+                public InputStream fetch() throws IOException {
+                    return getTextToSpeech(apiKey, text, locale, audioFormat);
+                }
+            });
+            if (logger.isDebugEnabled()) {
+                logger.debug("Cache statistics: {}", cache.getStatistics());
+            }
+            return audio;
         } catch (IOException ex) {
-            logger.error("Could not write {} to cache, return null", audioFileInCache, ex);
+            logger.error("Could not get audio data for {}, return null", fileName, ex);
             return null;
         }
     }
 
+    /**
+     * Writes the cache index, should be called before the cache is no longer used.
+     */
+    public void dispose() {
+        cache.dispose();
+    }
+
+    /**
+     * Gets the name of the audio file in the cache. It consists of the unique name
+     * for the text and locale, the voice unless it is the default voice, and the
+     * audio format as extension.
+     *
+     * Sample: "en-US_00a2653ac5f77063bc4ea2fee87318d3.mp3"
+     */
+    String getCacheFileName(String text, String locale, String voice, String audioFormat) {
+        String prefix = locale;
+        if (voice != null && !DEFAULT_VOICE.equals(voice)) {
+            prefix += "_" + voice.replaceAll("[^a-zA-Z0-9]", "");
+        }
+        return getUniqeFilenameForText(text, prefix) + "." + audioFormat.toLowerCase();
+    }
+
     /**
      * Gets a unique filename for a give text, by creating a MD5 hash of it. It
      * will be preceded by the locale.
@@ -104,27 +156,4 @@ public class CachedVoiceRSSCloudImplementation extends VoiceRSSCloudImplementati
             return null;
         }
     }
-
-    // helper methods
-
-    private void copyStream(InputStream inputStream, OutputStream outputStream) throws IOException {
-        byte[] bytes = new byte[4096];
-        int read = inputStream.read(bytes, 0, 4096);
-        while (read > 0) {
-            outputStream.write(bytes, 0, read);
-            read = inputStream.read(bytes, 0, 4096);
-        }
-    }
-
-    private void writeText(File file, String text) throws IOException {
-        OutputStream outputStream = null;
-        try {
-            outputStream = new FileOutputStream(file);
-            outputStream.write(text.getBytes("UTF-8"));
-        } finally {
-            if (outputStream != null) {
-                outputStream.close();
-            }
-        }
-    }
 }
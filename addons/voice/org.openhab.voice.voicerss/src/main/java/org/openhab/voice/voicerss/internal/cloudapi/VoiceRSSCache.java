@@ -0,0 +1,536 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.voicerss.internal.cloudapi;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class manages the cached audio data in two tiers. Recently used clips are kept in memory, all clips are
+ * kept in the cache folder. The disk tier is bounded by size and by the time since a clip was last used, the
+ * least recently used clips are removed first. An index file in the cache folder records size and last use of
+ * every clip, so clips are looked up without probing the file system. The folder is only listed once at startup,
+ * to pick up clips copied into it, e.g. generated by the {@link org.openhab.voice.voicerss.tool.CreateTTSCache} tool.
+ *
+ * Concurrent requests for a clip which is not in memory share a single disk read or download, so announcements
+ * to several rooms at the same time only wait for the service once.
+ *
+ * @author agent - Initial contribution
+ */
+public class VoiceRSSCache {
+
+    /**
+     * This interface is called to download a clip which is not in the cache
+     */
+    public interface Fetcher {
+        InputStream fetch() throws IOException;
+    }
+
+    private static final String INDEX_FILE_NAME = "cache.index";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+    private static final String TEXT_FILE_EXTENSION = ".txt";
+
+    /*
+     * Clips larger than this fraction of the memory tier are only kept on disk
+     */
+    private static final int MAX_MEMORY_CLIP_FRACTION = 4;
+
+    private final Logger logger = LoggerFactory.getLogger(VoiceRSSCache.class);
+
+    private final File cacheFolder;
+    private final File indexFile;
+
+    private long maxMemorySize;
+    private long maxDiskSize;
+    private long maxAge;
+
+    private final Map<String, byte[]> memoryClips = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize = 0;
+
+    private final Map<String, IndexEntry> diskClips = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskSize = 0;
+
+    private final Map<String, CompletableFuture<byte[]>> pendingClips = new ConcurrentHashMap<>();
+
+    private long memoryHits = 0;
+    private long diskHits = 0;
+    private long misses = 0;
+    private long coalesced = 0;
+    private long fetchTime = 0;
+    private long maxFetchTime = 0;
+    private long evictions = 0;
+
+    /**
+     * Constructor of VoiceRSSCache
+     *
+     * @param cacheFolder the folder of the disk tier, which must exist
+     * @param maxMemorySize the maximum size of the clips kept in memory in bytes
+     * @param maxDiskSize the maximum size of the clips kept on disk in bytes, 0 for no limit
+     * @param maxAge the time in milliseconds after which an unused clip is removed from disk, 0 for no limit
+     */
+    public VoiceRSSCache(File cacheFolder, long maxMemorySize, long maxDiskSize, long maxAge) {
+        this.cacheFolder = cacheFolder;
+        this.indexFile = new File(cacheFolder, INDEX_FILE_NAME);
+        this.maxMemorySize = maxMemorySize;
+        this.maxDiskSize = maxDiskSize;
+        this.maxAge = maxAge;
+
+        synchronized (this) {
+            loadIndex();
+            if (evict()) {
+                writeIndex();
+            }
+        }
+    }
+
+    /**
+     * Changes the limits of the cache, removing clips which exceed the new limits
+     *
+     * @param maxMemorySize the maximum size of the clips kept in memory in bytes
+     * @param maxDiskSize the maximum size of the clips kept on disk in bytes, 0 for no limit
+     * @param maxAge the time in milliseconds after which an unused clip is removed from disk, 0 for no limit
+     */
+    public synchronized void setLimits(long maxMemorySize, long maxDiskSize, long maxAge) {
+        this.maxMemorySize = maxMemorySize;
+        this.maxDiskSize = maxDiskSize;
+        this.maxAge = maxAge;
+
+        evictFromMemory();
+        if (evict()) {
+            writeIndex();
+        }
+    }
+
+    /**
+     * Returns the audio data of a clip, reading it from disk or downloading it if it is not in memory
+     *
+     * @param fileName the name of the audio file of the clip, identifying the clip
+     * @param text the text of the clip, written next to the audio file for transparency
+     * @param fetcher downloads the clip if it is not in the cache
+     * @return the audio data
+     * @throws IOException if the clip could neither be read nor downloaded
+     */
+    public byte[] get(String fileName, String text, Fetcher fetcher) throws IOException {
+        synchronized (this) {
+            byte[] clip = memoryClips.get(fileName);
+            if (clip != null) {
+                memoryHits++;
+                touch(fileName);
+                return clip;
+            }
+        }
+
+        CompletableFuture<byte[]> pendingClip = new CompletableFuture<>();
+        CompletableFuture<byte[]> runningClip = pendingClips.putIfAbsent(fileName, pendingClip);
+        if (runningClip != null) {
+            synchronized (this) {
+                coalesced++;
+            }
+            return await(runningClip);
+        }
+
+        try {
+            byte[] clip = load(fileName, text, fetcher);
+            pendingClip.complete(clip);
+            return clip;
+        } catch (IOException | RuntimeException e) {
+            pendingClip.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingClips.remove(fileName);
+        }
+    }
+
+    /**
+     * Returns the audio file of a clip, downloading it if it is not in the cache
+     *
+     * @param fileName the name of the audio file of the clip, identifying the clip
+     * @param text the text of the clip, written next to the audio file for transparency
+     * @param fetcher downloads the clip if it is not in the cache
+     * @return the audio file
+     * @throws IOException if the clip could neither be read nor downloaded
+     */
+    public File getFile(String fileName, String text, Fetcher fetcher) throws IOException {
+        get(fileName, text, fetcher);
+        return new File(cacheFolder, fileName);
+    }
+
+    /**
+     * Writes the index, to preserve the last use of the clips
+     */
+    public synchronized void dispose() {
+        writeIndex();
+    }
+
+    /**
+     * Returns the number of requests served from memory
+     */
+    public synchronized long getMemoryHits() {
+        return memoryHits;
+    }
+
+    /**
+     * Returns the number of requests served from disk
+     */
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    /**
+     * Returns the number of requests which downloaded the clip
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of requests which waited for the same clip being read or downloaded by another request
+     */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Returns the average download time in milliseconds
+     */
+    public synchronized long getAverageFetchTime() {
+        return misses == 0 ? 0 : fetchTime / misses;
+    }
+
+    /**
+     * Returns the longest download time in milliseconds
+     */
+    public synchronized long getMaxFetchTime() {
+        return maxFetchTime;
+    }
+
+    /**
+     * Returns the number of clips removed from disk
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns a summary of the cache state and statistics for logging
+     */
+    public synchronized String getStatistics() {
+        return "memory " + memoryClips.size() + " clips/" + memorySize + " bytes, disk " + diskClips.size()
+                + " clips/" + diskSize + " bytes, " + memoryHits + " memory hits, " + diskHits + " disk hits, "
+                + misses + " misses, " + coalesced + " coalesced, fetch time avg " + getAverageFetchTime() + " ms/max "
+                + maxFetchTime + " ms, " + evictions + " evictions";
+    }
+
+    private byte[] load(String fileName, String text, Fetcher fetcher) throws IOException {
+        boolean onDisk;
+        synchronized (this) {
+            onDisk = diskClips.containsKey(fileName);
+        }
+
+        File audioFile = new File(cacheFolder, fileName);
+        if (onDisk) {
+            try {
+                byte[] clip = readFile(audioFile);
+                synchronized (this) {
+                    diskHits++;
+                    touch(fileName);
+                    remember(fileName, clip);
+                }
+                return clip;
+            } catch (FileNotFoundException e) {
+                logger.debug("Audio file {} was removed from cache folder, downloading it again", audioFile);
+                synchronized (this) {
+                    removeFromIndex(fileName);
+                }
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        byte[] clip;
+        try (InputStream is = fetcher.fetch()) {
+            clip = readStream(is);
+        }
+        long duration = System.currentTimeMillis() - start;
+
+        // write to a temporary file first, so an interrupted write never leaves a truncated clip behind
+        File tempFile = new File(cacheFolder, fileName + TEMP_FILE_EXTENSION);
+        try (OutputStream os = new FileOutputStream(tempFile)) {
+            os.write(clip);
+        }
+        if (!tempFile.renameTo(audioFile)) {
+            audioFile.delete();
+            if (!tempFile.renameTo(audioFile)) {
+                tempFile.delete();
+                throw new IOException("Could not move " + tempFile + " to " + audioFile);
+            }
+        }
+        // write text to file for transparency too
+        // this allows to know which contents is in which audio file
+        File textFile = new File(cacheFolder, getBaseName(fileName) + TEXT_FILE_EXTENSION);
+        try (OutputStream os = new FileOutputStream(textFile)) {
+            os.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        synchronized (this) {
+            misses++;
+            fetchTime += duration;
+            maxFetchTime = Math.max(maxFetchTime, duration);
+
+            IndexEntry entry = new IndexEntry(clip.length, System.currentTimeMillis());
+            IndexEntry previous = diskClips.put(fileName, entry);
+            if (previous != null) {
+                diskSize -= previous.size;
+            }
+            diskSize += entry.size;
+            remember(fileName, clip);
+
+            evict();
+            writeIndex();
+        }
+        logger.debug("Downloaded {} bytes for {} in {} ms", clip.length, fileName, duration);
+        return clip;
+    }
+
+    private byte[] await(CompletableFuture<byte[]> clip) throws IOException {
+        try {
+            return clip.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for audio data", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not get audio data: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void touch(String fileName) {
+        IndexEntry entry = diskClips.get(fileName);
+        if (entry != null) {
+            entry.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    private void remember(String fileName, byte[] clip) {
+        if (clip.length > maxMemorySize / MAX_MEMORY_CLIP_FRACTION) {
+            return;
+        }
+        byte[] previous = memoryClips.put(fileName, clip);
+        if (previous != null) {
+            memorySize -= previous.length;
+        }
+        memorySize += clip.length;
+        evictFromMemory();
+    }
+
+    private void evictFromMemory() {
+        Iterator<byte[]> iterator = memoryClips.values().iterator();
+        while (memorySize > maxMemorySize && iterator.hasNext()) {
+            memorySize -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes the clips exceeding the age and size limits from disk, least recently used first. The most recently
+     * used clip is never removed.
+     *
+     * @return true if a clip was removed
+     */
+    private boolean evict() {
+        long oldestAccess = maxAge > 0 ? System.currentTimeMillis() - maxAge : Long.MIN_VALUE;
+        List<String> removed = new ArrayList<>();
+        Iterator<Map.Entry<String, IndexEntry>> iterator = diskClips.entrySet().iterator();
+        while (diskClips.size() - removed.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, IndexEntry> entry = iterator.next();
+            if (entry.getValue().lastAccess >= oldestAccess
+                    && (maxDiskSize <= 0 || diskSize <= maxDiskSize)) {
+                break;
+            }
+            removed.add(entry.getKey());
+            diskSize -= entry.getValue().size;
+        }
+        if (removed.isEmpty()) {
+            return false;
+        }
+
+        for (String fileName : removed) {
+            diskClips.remove(fileName);
+            byte[] clip = memoryClips.remove(fileName);
+            if (clip != null) {
+                memorySize -= clip.length;
+            }
+            new File(cacheFolder, fileName).delete();
+        }
+        for (String fileName : removed) {
+            deleteTextFile(fileName);
+        }
+        evictions += removed.size();
+        logger.debug("Removed {} clips from cache folder, {} bytes left", removed.size(), diskSize);
+        return true;
+    }
+
+    private void removeFromIndex(String fileName) {
+        IndexEntry entry = diskClips.remove(fileName);
+        if (entry != null) {
+            diskSize -= entry.size;
+        }
+    }
+
+    /**
+     * Deletes the text file of a clip, unless it is still used by the same text in another audio format
+     */
+    private void deleteTextFile(String fileName) {
+        String baseName = getBaseName(fileName);
+        for (String otherFileName : diskClips.keySet()) {
+            if (getBaseName(otherFileName).equals(baseName)) {
+                return;
+            }
+        }
+        new File(cacheFolder, baseName + TEXT_FILE_EXTENSION).delete();
+    }
+
+    private String getBaseName(String fileName) {
+        int index = fileName.lastIndexOf('.');
+        return index < 0 ? fileName : fileName.substring(0, index);
+    }
+
+    /**
+     * Loads the index and reconciles it with a single listing of the cache folder: clips copied into the folder
+     * are added, clips deleted from the folder are dropped. This is the only time the folder itself is read.
+     */
+    private void loadIndex() {
+        Map<String, IndexEntry> indexedClips = new HashMap<>();
+        if (indexFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t");
+                    if (parts.length == 3) {
+                        try {
+                            indexedClips.put(parts[0],
+                                    new IndexEntry(Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+                        } catch (NumberFormatException e) {
+                            logger.debug("Ignoring invalid line in cache index: {}", line);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Could not read cache index {}: {}", indexFile, e.getMessage());
+            }
+        }
+
+        List<Map.Entry<String, IndexEntry>> entries = new ArrayList<>();
+        File[] files = cacheFolder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (!file.isFile() || name.equals(INDEX_FILE_NAME) || name.endsWith(TEXT_FILE_EXTENSION)) {
+                    continue;
+                }
+                if (name.endsWith(TEMP_FILE_EXTENSION)) {
+                    // left over from an interrupted download
+                    file.delete();
+                    continue;
+                }
+                IndexEntry entry = indexedClips.get(name);
+                if (entry == null || entry.size != file.length()) {
+                    entry = new IndexEntry(file.length(), file.lastModified());
+                }
+                entries.add(new SimpleEntry<>(name, entry));
+            }
+        }
+
+        // restore the order of last use
+        Collections.sort(entries, new Comparator<Map.Entry<String, IndexEntry>>() {
+            @Override
+            public int compare(Map.Entry<String, IndexEntry> e1, Map.Entry<String, IndexEntry> e2) {
+                return Long.compare(e1.getValue().lastAccess, e2.getValue().lastAccess);
+            }
+        });
+        for (Map.Entry<String, IndexEntry> entry : entries) {
+            diskClips.put(entry.getKey(), entry.getValue());
+            diskSize += entry.getValue().size;
+        }
+        logger.debug("Loaded cache index with {} clips, {} bytes", diskClips.size(), diskSize);
+    }
+
+    private void writeIndex() {
+        File tempFile = new File(cacheFolder, INDEX_FILE_NAME + TEMP_FILE_EXTENSION);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, IndexEntry> entry : diskClips.entrySet()) {
+                writer.write(entry.getKey() + '\t' + entry.getValue().size + '\t' + entry.getValue().lastAccess + '\n');
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write cache index {}: {}", indexFile, e.getMessage());
+            return;
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile)) {
+                logger.warn("Could not write cache index {}", indexFile);
+            }
+        }
+    }
+
+    private byte[] readFile(File file) throws IOException {
+        try (InputStream is = new FileInputStream(file)) {
+            return readStream(is);
+        }
+    }
+
+    private byte[] readStream(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] bytes = new byte[4096];
+        int read = inputStream.read(bytes, 0, 4096);
+        while (read > 0) {
+            outputStream.write(bytes, 0, read);
+            read = inputStream.read(bytes, 0, 4096);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static class IndexEntry {
+        private final long size;
+        private long lastAccess;
+
+        private IndexEntry(long size, long lastAccess) {
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+}